@@ -56,4 +56,24 @@ public class AsyncConfig {
         
         return executor;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 检索线程池：词法检索与向量检索并行执行
+     */
+    @Bean("retrievalExecutor")
+    public Executor retrievalExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(16);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("Retrieval-");
+        // 队列满时由调用线程执行，退化为串行检索
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setKeepAliveSeconds(60);
+        executor.initialize();
+
+        log.info("检索线程池初始化完成");
+
+        return executor;
+    }
+}
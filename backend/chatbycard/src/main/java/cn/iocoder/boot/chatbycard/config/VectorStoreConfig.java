@@ -0,0 +1,61 @@
+package cn.iocoder.boot.chatbycard.config;
+
+import cn.iocoder.boot.chatbycard.index.ChunkVectorStore;
+import cn.iocoder.boot.chatbycard.index.LexicalChunkIndex;
+import cn.iocoder.boot.chatbycard.index.VectorQuantization;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * 文档分块索引配置（向量存储与词法索引）
+ *
+ * @author backend-team
+ */
+@Slf4j
+@Configuration
+public class VectorStoreConfig {
+
+    @Value("${chatbycard.vector.quantization:none}")
+    private String quantization;
+
+    @Value("${chatbycard.vector.pq-subspaces:96}")
+    private int pqSubspaces;
+
+    @Value("${chatbycard.vector.pq-training-size:4096}")
+    private int pqTrainingSize;
+
+    @Value("${chatbycard.vector.rerank-factor:4}")
+    private int rerankFactor;
+
+    @Value("${chatbycard.vector.raw-vector-file:data/vector/raw-vectors.f32}")
+    private String rawVectorFile;
+
+    @Value("${chatbycard.lexical.bm25-k1:1.2}")
+    private float bm25K1;
+
+    @Value("${chatbycard.lexical.bm25-b:0.75}")
+    private float bm25B;
+
+    /**
+     * 分块向量存储，量化方式：none / int8 / pq
+     */
+    @Bean
+    public ChunkVectorStore chunkVectorStore() {
+        VectorQuantization mode = VectorQuantization.valueOf(quantization.trim().toUpperCase());
+        log.info("分块向量存储配置完成，量化方式: {}, 重排倍数: {}", mode, rerankFactor);
+        return new ChunkVectorStore(mode, pqSubspaces, pqTrainingSize, rerankFactor, Paths.get(rawVectorFile));
+    }
+
+    /**
+     * 分块词法索引（BM25）
+     */
+    @Bean
+    public LexicalChunkIndex lexicalChunkIndex() {
+        log.info("分块词法索引配置完成，k1: {}, b: {}", bm25K1, bm25B);
+        return new LexicalChunkIndex(bm25K1, bm25B);
+    }
+}
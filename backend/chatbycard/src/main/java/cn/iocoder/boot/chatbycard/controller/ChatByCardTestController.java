@@ -1,12 +1,18 @@
 package cn.iocoder.boot.chatbycard.controller;
 
+import cn.iocoder.boot.chatbycard.index.ChunkVectorStore;
+import cn.iocoder.boot.chatbycard.index.QuantizationBenchmark;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,8 +23,24 @@ import java.util.Map;
 @Slf4j
 @RestController
 @RequestMapping("/api/chatbycard/test")
+@RequiredArgsConstructor
 public class ChatByCardTestController {
 
+    /**
+     * 向量量化评估的参数上限，避免单个请求分配过多内存
+     */
+    private static final int MAX_BENCHMARK_K = 100;
+    private static final int MAX_BENCHMARK_CORPUS = 20000;
+    private static final int MAX_BENCHMARK_QUERIES = 1000;
+
+    private final ChunkVectorStore chunkVectorStore;
+
+    @Value("${chatbycard.vector.pq-subspaces:96}")
+    private int pqSubspaces;
+
+    @Value("${chatbycard.vector.rerank-factor:4}")
+    private int rerankFactor;
+
     @GetMapping("/status")
     public Map<String, Object> getStatus() {
         Map<String, Object> result = new HashMap<>();
@@ -31,4 +53,37 @@ public class ChatByCardTestController {
         log.info("ChatByCard模块状态检查");
         return result;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 向量量化评估：对比各量化方式的每向量内存占用与recall@k
+     * 存储中向量不足时使用随机语料；k、语料数与查询数限制在上限内，语料数不少于k的10倍
+     */
+    @GetMapping("/vector-benchmark")
+    public Map<String, Object> vectorBenchmark(
+            @RequestParam(value = "k", defaultValue = "10") int k,
+            @RequestParam(value = "corpus", defaultValue = "2000") int corpusSize,
+            @RequestParam(value = "queries", defaultValue = "100") int queryCount) {
+        k = Math.max(1, Math.min(k, MAX_BENCHMARK_K));
+        corpusSize = Math.max(k * 10, Math.min(corpusSize, MAX_BENCHMARK_CORPUS));
+        queryCount = Math.max(1, Math.min(queryCount, MAX_BENCHMARK_QUERIES));
+        log.info("向量量化评估: k={}, corpus={}, queries={}", k, corpusSize, queryCount);
+
+        List<float[]> corpus = chunkVectorStore.sampleVectors(corpusSize);
+        String source = "store";
+        if (corpus.size() < k * 10) {
+            corpus = QuantizationBenchmark.randomCorpus(corpusSize, 256, 7L);
+            source = "random";
+        }
+        List<float[]> queries = QuantizationBenchmark.perturb(corpus, queryCount, 0.05, 11L);
+        int dimensions = corpus.get(0).length;
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("source", source);
+        result.put("corpusSize", corpus.size());
+        result.put("dimensions", dimensions);
+        result.put("k", k);
+        result.put("current", chunkVectorStore.stats());
+        result.put("results", QuantizationBenchmark.run(corpus, queries, k, Math.min(pqSubspaces, dimensions), rerankFactor));
+        return result;
+    }
+}
@@ -5,6 +5,10 @@ import cn.iocoder.boot.chatbycard.dto.WorkflowDTO;
 import cn.iocoder.boot.chatbycard.service.WorkflowService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -20,6 +24,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ExternalWorkflowController {
 
+    /**
+     * 每页条数上限
+     */
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final WorkflowService workflowService;
 
     /**
@@ -28,27 +37,27 @@ public class ExternalWorkflowController {
     @GetMapping
     public ApiResponse<WorkflowListResponse> getAllWorkflows(
             @RequestParam(value = "type", required = false) String type,
-            @RequestParam(value = "keyword", required = false) String keyword) {
-        log.info("获取工作流列表请求，类型: {}, 关键词: {}", type, keyword);
+            @RequestParam(value = "keyword", required = false) String keyword,
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        log.info("获取工作流列表请求，类型: {}, 关键词: {}, 页码: {}, 每页: {}", type, keyword, page, size);
         
         try {
-            List<WorkflowDTO> workflows;
+            Pageable pageable = pageable(page, size);
+            Page<WorkflowDTO> workflows;
             
             if (keyword != null && !keyword.trim().isEmpty()) {
                 // 关键词搜索
-                workflows = workflowService.searchWorkflows(keyword.trim());
+                workflows = workflowService.searchWorkflows(keyword.trim(), pageable);
             } else if (type != null && !type.trim().isEmpty()) {
                 // 按类型筛选
-                workflows = workflowService.getWorkflowsByType(type.trim());
+                workflows = workflowService.getWorkflowsByType(type.trim(), pageable);
             } else {
                 // 获取所有工作流
-                workflows = workflowService.getAllWorkflows();
+                workflows = workflowService.getAllWorkflows(pageable);
             }
             
-            WorkflowListResponse response = new WorkflowListResponse();
-            response.setData(workflows);
-            response.setPagination(new PaginationInfo(workflows.size(), 1, workflows.size()));
-            return ApiResponse.success(response);
+            return ApiResponse.success(listResponse(workflows));
         } catch (Exception e) {
             log.error("获取工作流列表失败: {}", e.getMessage(), e);
             return ApiResponse.error("获取工作流列表失败: " + e.getMessage());
@@ -80,15 +89,15 @@ public class ExternalWorkflowController {
      * 根据类型获取工作流列表
      */
     @GetMapping("/type/{type}")
-    public ApiResponse<WorkflowListResponse> getWorkflowsByType(@PathVariable String type) {
-        log.info("根据类型获取工作流列表，类型: {}", type);
+    public ApiResponse<WorkflowListResponse> getWorkflowsByType(
+            @PathVariable String type,
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        log.info("根据类型获取工作流列表，类型: {}, 页码: {}, 每页: {}", type, page, size);
         
         try {
-            List<WorkflowDTO> workflows = workflowService.getWorkflowsByType(type);
-            WorkflowListResponse response = new WorkflowListResponse();
-            response.setData(workflows);
-            response.setPagination(new PaginationInfo(workflows.size(), 1, workflows.size()));
-            return ApiResponse.success(response);
+            Page<WorkflowDTO> workflows = workflowService.getWorkflowsByType(type, pageable(page, size));
+            return ApiResponse.success(listResponse(workflows));
         } catch (Exception e) {
             log.error("根据类型获取工作流列表失败: {}", e.getMessage(), e);
             return ApiResponse.error("根据类型获取工作流列表失败: " + e.getMessage());
@@ -99,15 +108,15 @@ public class ExternalWorkflowController {
      * 搜索工作流
      */
     @GetMapping("/search")
-    public ApiResponse<WorkflowListResponse> searchWorkflows(@RequestParam("q") String keyword) {
-        log.info("搜索工作流请求，关键词: {}", keyword);
+    public ApiResponse<WorkflowListResponse> searchWorkflows(
+            @RequestParam("q") String keyword,
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "100") int size) {
+        log.info("搜索工作流请求，关键词: {}, 页码: {}, 每页: {}", keyword, page, size);
         
         try {
-            List<WorkflowDTO> workflows = workflowService.searchWorkflows(keyword);
-            WorkflowListResponse response = new WorkflowListResponse();
-            response.setData(workflows);
-            response.setPagination(new PaginationInfo(workflows.size(), 1, workflows.size()));
-            return ApiResponse.success(response);
+            Page<WorkflowDTO> workflows = workflowService.searchWorkflows(keyword.trim(), pageable(page, size));
+            return ApiResponse.success(listResponse(workflows));
         } catch (Exception e) {
             log.error("搜索工作流失败: {}", e.getMessage(), e);
             return ApiResponse.error("搜索工作流失败: " + e.getMessage());
@@ -146,6 +155,21 @@ public class ExternalWorkflowController {
         }
     }
 
+    /**
+     * 页码从1开始，每页条数限制在1到MAX_PAGE_SIZE之间，按ID排序保证翻页稳定
+     */
+    private static Pageable pageable(int page, int size) {
+        return PageRequest.of(Math.max(page, 1) - 1, Math.max(1, Math.min(size, MAX_PAGE_SIZE)), Sort.by("id"));
+    }
+
+    private static WorkflowListResponse listResponse(Page<WorkflowDTO> workflows) {
+        WorkflowListResponse response = new WorkflowListResponse();
+        response.setData(workflows.getContent());
+        response.setPagination(new PaginationInfo(workflows.getTotalElements(), workflows.getNumber() + 1,
+                workflows.getSize(), workflows.getTotalPages()));
+        return response;
+    }
+
     /**
      * 工作流列表响应类
      */
@@ -173,21 +197,25 @@ public class ExternalWorkflowController {
      * 分页信息类
      */
     public static class PaginationInfo {
-        private int total;
+        private long total;
         private int page;
         private int size;
+        private int pages;
         
-        public PaginationInfo(int total, int page, int size) {
+        public PaginationInfo(long total, int page, int size, int pages) {
             this.total = total;
             this.page = page;
             this.size = size;
+            this.pages = pages;
         }
         
-        public int getTotal() { return total; }
-        public void setTotal(int total) { this.total = total; }
+        public long getTotal() { return total; }
+        public void setTotal(long total) { this.total = total; }
         public int getPage() { return page; }
         public void setPage(int page) { this.page = page; }
         public int getSize() { return size; }
         public void setSize(int size) { this.size = size; }
+        public int getPages() { return pages; }
+        public void setPages(int pages) { this.pages = pages; }
     }
 } 
\ No newline at end of file
@@ -63,6 +63,16 @@ public class AgentDTO {
      */
     private Integer maxTokens;
 
+    /**
+     * map-reduce模式下并行处理的分块数
+     */
+    private Integer mapReduceFanOut;
+
+    /**
+     * map-reduce模式下文档内容的总token预算
+     */
+    private Integer contextTokenBudget;
+
     /**
      * 创建时间
      */
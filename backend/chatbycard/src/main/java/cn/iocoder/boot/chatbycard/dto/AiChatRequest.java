@@ -34,4 +34,14 @@ public class AiChatRequest {
      */
     private String previousAiOutput;
 
+    /**
+     * 调试模式：为true时响应中返回检索各阶段耗时等信息
+     */
+    private Boolean debug;
+
+    /**
+     * 文档超出上下文预算时强制使用map-reduce模式（逐片段回答后汇总），而不是检索相关片段
+     */
+    private Boolean mapReduce;
+
 }
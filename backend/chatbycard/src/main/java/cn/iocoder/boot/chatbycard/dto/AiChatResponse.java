@@ -1,8 +1,10 @@
 package cn.iocoder.boot.chatbycard.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.time.OffsetDateTime;
+import java.util.Map;
 
 /**
  * AI聊天响应数据传输对象
@@ -37,6 +39,12 @@ public class AiChatResponse {
      */
     private Integer characterCount;
 
+    /**
+     * 检索调试信息（仅调试模式返回）：检索方式、两路命中数、各阶段耗时等
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Object> retrievalDebug;
+
     public AiChatResponse() {
         this.timestamp = OffsetDateTime.now();
     }
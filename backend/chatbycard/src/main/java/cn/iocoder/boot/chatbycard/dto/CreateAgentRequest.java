@@ -74,6 +74,20 @@ public class CreateAgentRequest {
     @Max(value = 8192, message = "Max tokens cannot exceed 8192")
     private Integer maxTokens;
 
+    /**
+     * map-reduce模式下并行处理的分块数（可选）
+     */
+    @Min(value = 1, message = "Map-reduce fan-out must be at least 1")
+    @Max(value = 32, message = "Map-reduce fan-out cannot exceed 32")
+    private Integer mapReduceFanOut;
+
+    /**
+     * map-reduce模式下文档内容的总token预算（可选）
+     */
+    @Min(value = 1000, message = "Context token budget must be at least 1000")
+    @Max(value = 2000000, message = "Context token budget cannot exceed 2000000")
+    private Integer contextTokenBudget;
+
     /**
      * 工具列表
      */
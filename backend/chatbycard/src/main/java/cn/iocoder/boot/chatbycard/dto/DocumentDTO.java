@@ -56,4 +56,14 @@ public class DocumentDTO {
      * 文档内容预览(前100个字符)
      */
     private String preview;
+
+    /**
+     * 是否为已有文档的近似重复
+     */
+    private Boolean nearDuplicate;
+
+    /**
+     * 近似重复的原始文档ID
+     */
+    private String duplicateOf;
 } 
\ No newline at end of file
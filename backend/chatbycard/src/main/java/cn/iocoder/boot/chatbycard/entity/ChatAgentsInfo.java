@@ -77,6 +77,18 @@ public class ChatAgentsInfo {
     @TableField("max_tokens")
     private Integer maxTokens;
 
+    /**
+     * map-reduce模式下并行处理的分块数（为空时使用全局默认值）
+     */
+    @TableField("map_reduce_fan_out")
+    private Integer mapReduceFanOut;
+
+    /**
+     * map-reduce模式下文档内容的总token预算（为空时使用全局默认值）
+     */
+    @TableField("context_token_budget")
+    private Integer contextTokenBudget;
+
     /**
      * 创建时间
      */
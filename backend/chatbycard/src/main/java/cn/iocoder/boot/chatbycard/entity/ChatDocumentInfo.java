@@ -46,6 +46,24 @@ public class ChatDocumentInfo {
     @TableField("file_size")
     private Long fileSize;
 
+    /**
+     * 文档内容的SimHash签名，用于近似重复检测
+     */
+    @TableField("simhash")
+    private Long simhash;
+
+    /**
+     * 是否为已有文档的近似重复（与是否关联原始文档无关）
+     */
+    @TableField("near_duplicate")
+    private Boolean nearDuplicate;
+
+    /**
+     * 近似重复的原始文档ID，非重复文档或未开启关联时为空
+     */
+    @TableField("duplicate_of")
+    private Long duplicateOf;
+
     /**
      * 上传时间
      */
@@ -0,0 +1,48 @@
+package cn.iocoder.boot.chatbycard.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.OffsetDateTime;
+
+/**
+ * 文本向量缓存实体类
+ *
+ * @author backend-team
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("chat_embedding_cache")
+public class ChatEmbeddingCache {
+
+    /**
+     * 缓存键：SHA-256(模型名 + 换行 + 文本)
+     */
+    @TableId(value = "content_hash", type = IdType.INPUT)
+    private String contentHash;
+
+    /**
+     * 向量模型名称
+     */
+    @TableField("model")
+    private String model;
+
+    /**
+     * 向量维度
+     */
+    @TableField("dimensions")
+    private Integer dimensions;
+
+    /**
+     * 向量数据（float32小端序）
+     */
+    @TableField("embedding")
+    private byte[] embedding;
+
+    /**
+     * 创建时间
+     */
+    @TableField("create_time")
+    private OffsetDateTime createTime;
+}
@@ -0,0 +1,441 @@
+package cn.iocoder.boot.chatbycard.index;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 文档分块向量存储
+ * <p>
+ * 量化模式（INT8/PQ）下堆内只保存压缩码，查询先用非对称距离在压缩码上粗排出topK * rerankFactor个候选，
+ * 再从原始向量文件读取候选的float32向量精确重排。NONE模式下堆内保存原始向量并直接精确计算。
+ * 所有向量写入前先做L2归一化，得分为余弦相似度。
+ * 删除或替换分块释放的槽位进入空闲列表，写入时优先复用，压缩码、原始向量文件等按槽位存储的数据不随重复处理文档而增长。
+ *
+ * @author backend-team
+ */
+@Slf4j
+public class ChunkVectorStore implements Closeable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int PQ_ITERATIONS = 12;
+
+    private final VectorQuantization quantization;
+    private final int pqSubspaces;
+    private final int pqTrainingSize;
+    private final int rerankFactor;
+    private final Path rawVectorPath;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int dimensions = -1;
+
+    /**
+     * 已分配的槽位数，其中空闲的槽位在freeSlots中
+     */
+    private int size;
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private long[] slotChunkIds = new long[INITIAL_CAPACITY];
+    private final BitSet live = new BitSet();
+    private final Map<Long, Integer> chunkSlots = new HashMap<>();
+    private final Map<Long, List<Integer>> documentSlots = new HashMap<>();
+    private final Map<Long, DocumentChunk> chunks = new HashMap<>();
+
+    /**
+     * NONE模式：堆内连续保存的原始向量
+     */
+    private float[] rawVectors;
+
+    /**
+     * 量化模式：编码器、压缩码、磁盘原始向量
+     */
+    private VectorCodec codec;
+    private byte[] codes;
+    private RawVectorFile rawVectorFile;
+
+    /**
+     * PQ训练完成前按槽位暂存的原始向量，空闲槽位为null
+     */
+    private List<float[]> pendingVectors = new ArrayList<>();
+
+    public ChunkVectorStore(VectorQuantization quantization, int pqSubspaces, int pqTrainingSize,
+                            int rerankFactor, Path rawVectorPath) {
+        this.quantization = quantization;
+        this.pqSubspaces = pqSubspaces;
+        this.pqTrainingSize = pqTrainingSize;
+        this.rerankFactor = Math.max(1, rerankFactor);
+        this.rawVectorPath = rawVectorPath;
+    }
+
+    /**
+     * 写入分块向量，已存在的分块会被替换
+     */
+    public void add(List<DocumentChunk> newChunks, List<float[]> vectors) {
+        if (newChunks.size() != vectors.size()) {
+            throw new IllegalArgumentException("分块数量与向量数量不一致");
+        }
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < newChunks.size(); i++) {
+                addOne(newChunks.get(i), normalize(vectors.get(i)));
+            }
+            trainIfReady();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除文档的全部分块
+     */
+    public void removeDocument(long documentId) {
+        lock.writeLock().lock();
+        try {
+            List<Integer> slots = documentSlots.remove(documentId);
+            if (slots == null) {
+                return;
+            }
+            for (int slot : slots) {
+                release(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 相似度检索
+     *
+     * @param query       查询向量
+     * @param topK        返回数量
+     * @param documentIds 限定文档范围，为null表示不限定
+     * @return 按相似度降序的分块
+     */
+    public List<ScoredChunk> search(float[] query, int topK, Collection<Long> documentIds) {
+        float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (live.isEmpty() || topK <= 0) {
+                return new ArrayList<>();
+            }
+            checkDimensions(normalized);
+            BitSet candidates = candidateSlots(documentIds);
+
+            if (quantization == VectorQuantization.NONE || codec == null || !codec.isTrained()) {
+                TopKCollector exact = new TopKCollector(topK);
+                for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                    exact.offer(slot, score(normalized, slot));
+                }
+                return toResults(exact);
+            }
+
+            // 压缩码上粗排
+            VectorCodec.QueryScorer scorer = codec.prepare(normalized);
+            int codeSize = codec.codeSize();
+            TopKCollector approximate = new TopKCollector(topK * rerankFactor);
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                approximate.offer(slot, scorer.score(codes, slot * codeSize));
+            }
+
+            // 候选集精确重排
+            int[] approximateSlots = approximate.drainDescending(null);
+            TopKCollector exact = new TopKCollector(topK);
+            for (int slot : approximateSlots) {
+                exact.offer(slot, score(normalized, slot));
+            }
+            return toResults(exact);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 仅使用压缩码打分，不做精确重排（用于评估量化本身的召回率）
+     */
+    public List<ScoredChunk> searchApproximate(float[] query, int topK) {
+        float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            if (live.isEmpty() || codec == null || !codec.isTrained()) {
+                return search(query, topK, null);
+            }
+            checkDimensions(normalized);
+            VectorCodec.QueryScorer scorer = codec.prepare(normalized);
+            int codeSize = codec.codeSize();
+            TopKCollector approximate = new TopKCollector(topK);
+            for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                approximate.offer(slot, scorer.score(codes, slot * codeSize));
+            }
+            return toResults(approximate);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 读取最多limit个存活向量的原始值（用于离线评估）
+     */
+    public List<float[]> sampleVectors(int limit) {
+        lock.readLock().lock();
+        try {
+            List<float[]> samples = new ArrayList<>();
+            for (int slot = live.nextSetBit(0); slot >= 0 && samples.size() < limit; slot = live.nextSetBit(slot + 1)) {
+                samples.add(rawVector(slot));
+            }
+            return samples;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            Stats stats = new Stats();
+            stats.setQuantization(quantization.name());
+            stats.setDimensions(Math.max(dimensions, 0));
+            stats.setVectorCount(live.cardinality());
+            stats.setTrained(codec == null || codec.isTrained());
+            stats.setHeapBytesPerVector(heapBytesPerVector());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (rawVectorFile != null) {
+            rawVectorFile.close();
+        }
+    }
+
+    private void addOne(DocumentChunk chunk, float[] vector) {
+        if (dimensions < 0) {
+            initialize(vector.length);
+        }
+        checkDimensions(vector);
+
+        Integer previous = chunkSlots.get(chunk.getId());
+        if (previous != null) {
+            long previousDocumentId = chunks.get(chunk.getId()).getDocumentId();
+            List<Integer> previousSlots = documentSlots.get(previousDocumentId);
+            previousSlots.remove(previous);
+            if (previousSlots.isEmpty()) {
+                documentSlots.remove(previousDocumentId);
+            }
+            release(previous);
+        }
+
+        int slot;
+        if (freeSlots.isEmpty()) {
+            slot = size++;
+            ensureCapacity(size);
+        } else {
+            slot = freeSlots.pop();
+        }
+        slotChunkIds[slot] = chunk.getId();
+        live.set(slot);
+        chunkSlots.put(chunk.getId(), slot);
+        chunks.put(chunk.getId(), chunk);
+        documentSlots.computeIfAbsent(chunk.getDocumentId(), k -> new ArrayList<>()).add(slot);
+
+        if (quantization == VectorQuantization.NONE) {
+            System.arraycopy(vector, 0, rawVectors, slot * dimensions, dimensions);
+            return;
+        }
+        rawVectorFile.write(slot, vector);
+        if (codec.isTrained()) {
+            codec.encode(vector, codes, slot * codec.codeSize());
+        } else if (slot == pendingVectors.size()) {
+            pendingVectors.add(vector);
+        } else {
+            pendingVectors.set(slot, vector);
+        }
+    }
+
+    /**
+     * 释放槽位，槽位所在文档的槽位列表由调用方维护
+     */
+    private void release(int slot) {
+        long chunkId = slotChunkIds[slot];
+        live.clear(slot);
+        chunkSlots.remove(chunkId);
+        chunks.remove(chunkId);
+        if (codec != null && !codec.isTrained()) {
+            pendingVectors.set(slot, null);
+        }
+        freeSlots.push(slot);
+    }
+
+    private void initialize(int dims) {
+        this.dimensions = dims;
+        switch (quantization) {
+            case INT8:
+                codec = new Int8ScalarQuantizer(dims);
+                break;
+            case PQ:
+                codec = new ProductQuantizer(dims, Math.min(pqSubspaces, dims), PQ_ITERATIONS);
+                break;
+            default:
+                rawVectors = new float[INITIAL_CAPACITY * dims];
+                log.info("向量存储初始化完成，模式: {}, 维度: {}", quantization, dims);
+                return;
+        }
+        codes = new byte[INITIAL_CAPACITY * codec.codeSize()];
+        rawVectorFile = new RawVectorFile(rawVectorPath, dims);
+        log.info("向量存储初始化完成，模式: {}, 维度: {}, 每向量压缩码字节数: {}", quantization, dims, codec.codeSize());
+    }
+
+    private void trainIfReady() {
+        if (codec == null || codec.isTrained() || live.cardinality() < pqTrainingSize) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<float[]> samples = new ArrayList<>(pqTrainingSize);
+        for (int slot = live.nextSetBit(0); slot >= 0 && samples.size() < pqTrainingSize; slot = live.nextSetBit(slot + 1)) {
+            samples.add(pendingVectors.get(slot));
+        }
+        codec.train(samples);
+        int codeSize = codec.codeSize();
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            codec.encode(pendingVectors.get(slot), codes, slot * codeSize);
+        }
+        log.info("PQ码本训练完成，样本数: {}, 耗时: {}ms", pqTrainingSize, System.currentTimeMillis() - start);
+        pendingVectors = new ArrayList<>();
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= slotChunkIds.length) {
+            return;
+        }
+        int capacity = Math.max(required, slotChunkIds.length * 2);
+        slotChunkIds = Arrays.copyOf(slotChunkIds, capacity);
+        if (rawVectors != null) {
+            rawVectors = Arrays.copyOf(rawVectors, capacity * dimensions);
+        }
+        if (codes != null) {
+            codes = Arrays.copyOf(codes, capacity * codec.codeSize());
+        }
+    }
+
+    /**
+     * 查询向量与槽位原始向量的内积；NONE模式直接在堆内数组上计算，不复制向量
+     */
+    private float score(float[] query, int slot) {
+        if (rawVectors != null) {
+            return dot(query, rawVectors, slot * dimensions);
+        }
+        return dot(query, rawVector(slot));
+    }
+
+    private float[] rawVector(int slot) {
+        if (rawVectors != null) {
+            return Arrays.copyOfRange(rawVectors, slot * dimensions, (slot + 1) * dimensions);
+        }
+        if (!codec.isTrained()) {
+            return pendingVectors.get(slot);
+        }
+        return rawVectorFile.read(slot);
+    }
+
+    private BitSet candidateSlots(Collection<Long> documentIds) {
+        if (documentIds == null) {
+            return live;
+        }
+        BitSet candidates = new BitSet(size);
+        for (Long documentId : documentIds) {
+            List<Integer> slots = documentSlots.get(documentId);
+            if (slots != null) {
+                for (int slot : slots) {
+                    candidates.set(slot);
+                }
+            }
+        }
+        candidates.and(live);
+        return candidates;
+    }
+
+    private List<ScoredChunk> toResults(TopKCollector collector) {
+        float[] scores = new float[collector.size()];
+        int[] slots = collector.drainDescending(scores);
+        List<ScoredChunk> results = new ArrayList<>(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            results.add(new ScoredChunk(chunks.get(slotChunkIds[slots[i]]), scores[i]));
+        }
+        return results;
+    }
+
+    private int heapBytesPerVector() {
+        if (dimensions < 0) {
+            return 0;
+        }
+        int idBytes = Long.BYTES;
+        if (quantization == VectorQuantization.NONE) {
+            return dimensions * Float.BYTES + idBytes;
+        }
+        return codec.codeSize() + idBytes;
+    }
+
+    private void checkDimensions(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("向量维度不匹配，期望: " + dimensions + ", 实际: " + vector.length);
+        }
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        float inverse = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * inverse;
+        }
+        return normalized;
+    }
+
+    private static float dot(float[] query, float[] data, int offset) {
+        float sum = 0f;
+        for (int i = 0; i < query.length; i++) {
+            sum += query[i] * data[offset + i];
+        }
+        return sum;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 存储统计信息
+     */
+    @Data
+    public static class Stats {
+        private String quantization;
+        private int dimensions;
+        private int vectorCount;
+        private boolean trained;
+        private int heapBytesPerVector;
+    }
+}
@@ -0,0 +1,53 @@
+package cn.iocoder.boot.chatbycard.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 文档分块
+ *
+ * @author backend-team
+ */
+@Data
+@AllArgsConstructor
+public class DocumentChunk {
+
+    /**
+     * 每个文档最多可容纳的分块数量（2^20）
+     */
+    private static final int CHUNK_INDEX_BITS = 20;
+
+    /**
+     * 分块ID，由文档ID和分块序号确定性生成，各索引之间共享
+     */
+    private long id;
+
+    /**
+     * 所属文档ID
+     */
+    private long documentId;
+
+    /**
+     * 分块在文档内的序号
+     */
+    private int chunkIndex;
+
+    /**
+     * 分块在文档中的起始字符位置（含）
+     */
+    private int startOffset;
+
+    /**
+     * 分块在文档中的结束字符位置（不含）
+     */
+    private int endOffset;
+
+    /**
+     * 分块文本
+     */
+    private String content;
+
+    public static long chunkId(long documentId, int chunkIndex) {
+        return (documentId << CHUNK_INDEX_BITS) | chunkIndex;
+    }
+}
@@ -0,0 +1,80 @@
+package cn.iocoder.boot.chatbycard.index;
+
+import java.util.List;
+
+/**
+ * int8标量量化编码器
+ * 每个向量按自身最大绝对值对称缩放到[-127, 127]，编码布局为：4字节缩放因子 + dimensions字节分量
+ * 无需训练，内存约为float32的1/4
+ *
+ * @author backend-team
+ */
+public class Int8ScalarQuantizer implements VectorCodec {
+
+    private static final int SCALE_BYTES = 4;
+
+    private final int dimensions;
+
+    public Int8ScalarQuantizer(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public int codeSize() {
+        return SCALE_BYTES + dimensions;
+    }
+
+    @Override
+    public boolean isTrained() {
+        return true;
+    }
+
+    @Override
+    public void train(List<float[]> samples) {
+        // 按向量独立缩放，无需训练
+    }
+
+    @Override
+    public void encode(float[] vector, byte[] out, int offset) {
+        float maxAbs = 0f;
+        for (int i = 0; i < dimensions; i++) {
+            maxAbs = Math.max(maxAbs, Math.abs(vector[i]));
+        }
+        float scale = maxAbs == 0f ? 0f : maxAbs / 127f;
+        writeFloat(out, offset, scale);
+
+        float inverse = scale == 0f ? 0f : 1f / scale;
+        int base = offset + SCALE_BYTES;
+        for (int i = 0; i < dimensions; i++) {
+            out[base + i] = (byte) Math.round(vector[i] * inverse);
+        }
+    }
+
+    @Override
+    public QueryScorer prepare(float[] query) {
+        return (codes, offset) -> {
+            int base = offset + SCALE_BYTES;
+            float sum = 0f;
+            for (int i = 0; i < dimensions; i++) {
+                sum += query[i] * codes[base + i];
+            }
+            return sum * readFloat(codes, offset);
+        };
+    }
+
+    private static void writeFloat(byte[] out, int offset, float value) {
+        int bits = Float.floatToIntBits(value);
+        out[offset] = (byte) (bits >>> 24);
+        out[offset + 1] = (byte) (bits >>> 16);
+        out[offset + 2] = (byte) (bits >>> 8);
+        out[offset + 3] = (byte) bits;
+    }
+
+    private static float readFloat(byte[] in, int offset) {
+        int bits = ((in[offset] & 0xff) << 24)
+                | ((in[offset + 1] & 0xff) << 16)
+                | ((in[offset + 2] & 0xff) << 8)
+                | (in[offset + 3] & 0xff);
+        return Float.intBitsToFloat(bits);
+    }
+}
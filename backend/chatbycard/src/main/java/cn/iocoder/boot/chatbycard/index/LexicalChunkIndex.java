@@ -0,0 +1,179 @@
+package cn.iocoder.boot.chatbycard.index;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 基于BM25的分块倒排索引
+ * 用于补充向量检索无法精确命中的工单号、错误码等标识符
+ *
+ * @author backend-team
+ */
+public class LexicalChunkIndex {
+
+    private final float k1;
+    private final float b;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<Long, List<Long>> documentChunks = new HashMap<>();
+    private long totalLength;
+
+    public LexicalChunkIndex(float k1, float b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    public void add(List<DocumentChunk> chunks) {
+        lock.writeLock().lock();
+        try {
+            for (DocumentChunk chunk : chunks) {
+                removeChunk(chunk.getId());
+                List<String> tokens = TextTokenizer.tokenize(chunk.getContent());
+                Map<String, Integer> termFrequencies = new HashMap<>();
+                for (String token : tokens) {
+                    termFrequencies.merge(token, 1, Integer::sum);
+                }
+                for (Map.Entry<String, Integer> term : termFrequencies.entrySet()) {
+                    postings.computeIfAbsent(term.getKey(), k -> new HashMap<>()).put(chunk.getId(), term.getValue());
+                }
+                entries.put(chunk.getId(), new Entry(chunk, tokens.size(), termFrequencies.keySet()));
+                documentChunks.computeIfAbsent(chunk.getDocumentId(), k -> new ArrayList<>()).add(chunk.getId());
+                totalLength += tokens.size();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeDocument(long documentId) {
+        lock.writeLock().lock();
+        try {
+            List<Long> chunkIds = documentChunks.remove(documentId);
+            if (chunkIds != null) {
+                for (Long chunkId : chunkIds) {
+                    removeChunk(chunkId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * BM25检索
+     *
+     * @param query       查询文本
+     * @param topK        返回数量
+     * @param documentIds 限定文档范围，null表示全部文档
+     * @return 按得分降序的分块
+     */
+    public List<ScoredChunk> search(String query, int topK, Collection<Long> documentIds) {
+        Set<String> terms = new HashSet<>(TextTokenizer.tokenize(query));
+        Set<Long> documentFilter = documentIds == null ? null : new HashSet<>(documentIds);
+
+        lock.readLock().lock();
+        try {
+            int chunkCount = entries.size();
+            if (chunkCount == 0 || terms.isEmpty()) {
+                return new ArrayList<>();
+            }
+            float averageLength = (float) totalLength / chunkCount;
+            Map<Long, Float> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Integer> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                int df = termPostings.size();
+                float idf = (float) Math.log(1 + (chunkCount - df + 0.5) / (df + 0.5));
+                for (Map.Entry<Long, Integer> posting : termPostings.entrySet()) {
+                    Entry entry = entries.get(posting.getKey());
+                    if (documentFilter != null && !documentFilter.contains(entry.chunk.getDocumentId())) {
+                        continue;
+                    }
+                    int tf = posting.getValue();
+                    float norm = k1 * (1 - b + b * entry.length / averageLength);
+                    scores.merge(posting.getKey(), idf * tf * (k1 + 1) / (tf + norm), Float::sum);
+                }
+            }
+
+            // 复用原始类型Top-K堆，槽位为候选列表下标
+            List<Long> chunkIds = new ArrayList<>(scores.keySet());
+            TopKCollector collector = new TopKCollector(topK);
+            for (int i = 0; i < chunkIds.size(); i++) {
+                collector.offer(i, scores.get(chunkIds.get(i)));
+            }
+            float[] topScores = new float[collector.size()];
+            int[] slots = collector.drainDescending(topScores);
+            List<ScoredChunk> results = new ArrayList<>(slots.length);
+            for (int i = 0; i < slots.length; i++) {
+                results.add(new ScoredChunk(entries.get(chunkIds.get(slots[i])).chunk, topScores[i]));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            Stats stats = new Stats();
+            stats.setChunkCount(entries.size());
+            stats.setTermCount(postings.size());
+            stats.setAverageLength(entries.isEmpty() ? 0 : (double) totalLength / entries.size());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeChunk(long chunkId) {
+        Entry entry = entries.remove(chunkId);
+        if (entry == null) {
+            return;
+        }
+        for (String term : entry.terms) {
+            Map<Long, Integer> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(chunkId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= entry.length;
+    }
+
+    private static class Entry {
+        private final DocumentChunk chunk;
+        private final int length;
+        private final Set<String> terms;
+
+        private Entry(DocumentChunk chunk, int length, Set<String> terms) {
+            this.chunk = chunk;
+            this.length = length;
+            this.terms = terms;
+        }
+    }
+
+    /**
+     * 索引统计信息
+     */
+    @Data
+    public static class Stats {
+        private int chunkCount;
+        private int termCount;
+        private double averageLength;
+    }
+}
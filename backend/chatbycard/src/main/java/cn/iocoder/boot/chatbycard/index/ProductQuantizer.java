@@ -0,0 +1,172 @@
+package cn.iocoder.boot.chatbycard.index;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 乘积量化编码器
+ * 将向量切分为subspaces个子空间，每个子空间用k-means训练出最多256个中心，编码为1字节中心下标。
+ * 查询时为每个子空间预计算查询子向量与全部中心的内积表，打分只需subspaces次查表累加。
+ *
+ * @author backend-team
+ */
+public class ProductQuantizer implements VectorCodec {
+
+    private static final int MAX_CENTROIDS = 256;
+
+    private final int subspaces;
+    private final int iterations;
+    private final int[] bounds;
+
+    /**
+     * centroids[子空间][中心下标] = 子空间中心向量
+     */
+    private volatile float[][][] centroids;
+
+    public ProductQuantizer(int dimensions, int subspaces, int iterations) {
+        if (subspaces <= 0 || subspaces > dimensions) {
+            throw new IllegalArgumentException("PQ子空间数量无效: " + subspaces);
+        }
+        this.subspaces = subspaces;
+        this.iterations = iterations;
+        this.bounds = new int[subspaces + 1];
+        for (int j = 0; j <= subspaces; j++) {
+            bounds[j] = (int) ((long) j * dimensions / subspaces);
+        }
+    }
+
+    @Override
+    public int codeSize() {
+        return subspaces;
+    }
+
+    @Override
+    public boolean isTrained() {
+        return centroids != null;
+    }
+
+    @Override
+    public void train(List<float[]> samples) {
+        if (samples.isEmpty()) {
+            throw new IllegalArgumentException("PQ训练样本不能为空");
+        }
+        int k = Math.min(MAX_CENTROIDS, samples.size());
+        Random random = new Random(42);
+        float[][][] trained = new float[subspaces][][];
+        for (int j = 0; j < subspaces; j++) {
+            trained[j] = kMeans(samples, bounds[j], bounds[j + 1], k, random);
+        }
+        this.centroids = trained;
+    }
+
+    @Override
+    public void encode(float[] vector, byte[] out, int offset) {
+        float[][][] codebook = requireTrained();
+        for (int j = 0; j < subspaces; j++) {
+            out[offset + j] = (byte) nearest(codebook[j], vector, bounds[j], bounds[j + 1]);
+        }
+    }
+
+    @Override
+    public QueryScorer prepare(float[] query) {
+        float[][][] codebook = requireTrained();
+        float[] table = new float[subspaces * MAX_CENTROIDS];
+        for (int j = 0; j < subspaces; j++) {
+            float[][] sub = codebook[j];
+            int from = bounds[j];
+            int to = bounds[j + 1];
+            for (int c = 0; c < sub.length; c++) {
+                float dot = 0f;
+                float[] centroid = sub[c];
+                for (int d = from; d < to; d++) {
+                    dot += query[d] * centroid[d - from];
+                }
+                table[j * MAX_CENTROIDS + c] = dot;
+            }
+        }
+        return (codes, offset) -> {
+            float sum = 0f;
+            for (int j = 0; j < subspaces; j++) {
+                sum += table[j * MAX_CENTROIDS + (codes[offset + j] & 0xff)];
+            }
+            return sum;
+        };
+    }
+
+    private float[][][] requireTrained() {
+        float[][][] codebook = centroids;
+        if (codebook == null) {
+            throw new IllegalStateException("PQ编码器尚未训练");
+        }
+        return codebook;
+    }
+
+    private float[][] kMeans(List<float[]> samples, int from, int to, int k, Random random) {
+        int width = to - from;
+        float[][] centers = new float[k][width];
+        // 随机选取k个不同样本作为初始中心
+        int[] order = new int[samples.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        for (int i = 0; i < k; i++) {
+            int swap = i + random.nextInt(order.length - i);
+            int tmp = order[i];
+            order[i] = order[swap];
+            order[swap] = tmp;
+            System.arraycopy(samples.get(order[i]), from, centers[i], 0, width);
+        }
+
+        int[] assignment = new int[samples.size()];
+        for (int iter = 0; iter < iterations; iter++) {
+            boolean changed = false;
+            for (int s = 0; s < samples.size(); s++) {
+                int best = nearest(centers, samples.get(s), from, to);
+                if (best != assignment[s] || iter == 0) {
+                    changed = true;
+                    assignment[s] = best;
+                }
+            }
+            if (!changed) {
+                break;
+            }
+            float[][] sums = new float[k][width];
+            int[] counts = new int[k];
+            for (int s = 0; s < samples.size(); s++) {
+                float[] vector = samples.get(s);
+                float[] sum = sums[assignment[s]];
+                for (int d = 0; d < width; d++) {
+                    sum[d] += vector[from + d];
+                }
+                counts[assignment[s]]++;
+            }
+            for (int c = 0; c < k; c++) {
+                // 空簇保留原中心
+                if (counts[c] > 0) {
+                    for (int d = 0; d < width; d++) {
+                        centers[c][d] = sums[c][d] / counts[c];
+                    }
+                }
+            }
+        }
+        return centers;
+    }
+
+    private static int nearest(float[][] centers, float[] vector, int from, int to) {
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int c = 0; c < centers.length; c++) {
+            float[] center = centers[c];
+            float distance = 0f;
+            for (int d = from; d < to; d++) {
+                float diff = vector[d] - center[d - from];
+                distance += diff * diff;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+}
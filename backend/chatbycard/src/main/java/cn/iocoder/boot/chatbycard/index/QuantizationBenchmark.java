@@ -0,0 +1,153 @@
+package cn.iocoder.boot.chatbycard.index;
+
+import lombok.Data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 向量量化评估工具
+ * 以NONE模式的精确检索结果为基准，统计各量化方式的每向量堆内存占用、recall@k（粗排/重排后）和平均查询耗时
+ *
+ * @author backend-team
+ */
+public class QuantizationBenchmark {
+
+    private static final int MAX_TRAINING_SIZE = 1024;
+
+    private QuantizationBenchmark() {
+    }
+
+    /**
+     * 执行评估
+     *
+     * @param corpus        语料向量
+     * @param queries       查询向量
+     * @param k             召回数量
+     * @param pqSubspaces   PQ子空间数量
+     * @param rerankFactor  重排候选倍数
+     * @return 各量化方式的评估结果
+     */
+    public static List<Result> run(List<float[]> corpus, List<float[]> queries, int k, int pqSubspaces, int rerankFactor) {
+        List<DocumentChunk> chunks = new ArrayList<>(corpus.size());
+        for (int i = 0; i < corpus.size(); i++) {
+            chunks.add(new DocumentChunk(i, 0, i, 0, 0, ""));
+        }
+
+        int trainingSize = Math.min(corpus.size(), MAX_TRAINING_SIZE);
+        ChunkVectorStore exactStore = new ChunkVectorStore(VectorQuantization.NONE, pqSubspaces, trainingSize, rerankFactor, null);
+        exactStore.add(chunks, corpus);
+        List<Set<Long>> groundTruth = new ArrayList<>(queries.size());
+        for (float[] query : queries) {
+            groundTruth.add(ids(exactStore.search(query, k, null)));
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (VectorQuantization quantization : VectorQuantization.values()) {
+            Path rawPath = quantization == VectorQuantization.NONE ? null : tempFile();
+            try (ChunkVectorStore store = new ChunkVectorStore(quantization, pqSubspaces, trainingSize, rerankFactor, rawPath)) {
+                store.add(chunks, corpus);
+
+                int approximateHits = 0;
+                int rerankHits = 0;
+                long elapsedNanos = 0;
+                for (int q = 0; q < queries.size(); q++) {
+                    Set<Long> truth = groundTruth.get(q);
+                    approximateHits += overlap(truth, ids(store.searchApproximate(queries.get(q), k)));
+                    long start = System.nanoTime();
+                    List<ScoredChunk> reranked = store.search(queries.get(q), k, null);
+                    elapsedNanos += System.nanoTime() - start;
+                    rerankHits += overlap(truth, ids(reranked));
+                }
+
+                double expected = (double) queries.size() * k;
+                Result result = new Result();
+                result.setQuantization(quantization.name());
+                result.setHeapBytesPerVector(store.stats().getHeapBytesPerVector());
+                result.setRecallApproximate(approximateHits / expected);
+                result.setRecallReranked(rerankHits / expected);
+                result.setAvgQueryMicros(queries.isEmpty() ? 0 : elapsedNanos / 1000.0 / queries.size());
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 生成带高斯噪声的查询向量，模拟与语料相近但不相同的查询
+     */
+    public static List<float[]> perturb(List<float[]> corpus, int count, double noise, long seed) {
+        Random random = new Random(seed);
+        List<float[]> queries = new ArrayList<>(count);
+        for (int i = 0; i < count && !corpus.isEmpty(); i++) {
+            float[] base = corpus.get(random.nextInt(corpus.size()));
+            float[] query = new float[base.length];
+            for (int d = 0; d < base.length; d++) {
+                query[d] = (float) (base[d] + random.nextGaussian() * noise);
+            }
+            queries.add(query);
+        }
+        return queries;
+    }
+
+    /**
+     * 生成随机语料（当前存储为空时使用）
+     */
+    public static List<float[]> randomCorpus(int count, int dimensions, long seed) {
+        Random random = new Random(seed);
+        List<float[]> corpus = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float[] vector = new float[dimensions];
+            for (int d = 0; d < dimensions; d++) {
+                vector[d] = (float) random.nextGaussian();
+            }
+            corpus.add(vector);
+        }
+        return corpus;
+    }
+
+    private static Set<Long> ids(List<ScoredChunk> results) {
+        Set<Long> ids = new HashSet<>();
+        for (ScoredChunk result : results) {
+            ids.add(result.getChunk().getId());
+        }
+        return ids;
+    }
+
+    private static int overlap(Set<Long> truth, Set<Long> found) {
+        int hits = 0;
+        for (Long id : found) {
+            if (truth.contains(id)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static Path tempFile() {
+        try {
+            return Files.createTempFile("vector-benchmark-", ".f32");
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建临时向量文件失败", e);
+        }
+    }
+
+    /**
+     * 单个量化方式的评估结果
+     */
+    @Data
+    public static class Result {
+        private String quantization;
+        private int heapBytesPerVector;
+        private double recallApproximate;
+        private double recallReranked;
+        private double avgQueryMicros;
+    }
+}
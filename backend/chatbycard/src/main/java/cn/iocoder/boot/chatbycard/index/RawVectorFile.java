@@ -0,0 +1,94 @@
+package cn.iocoder.boot.chatbycard.index;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 原始float32向量文件
+ * 量化模式下原始向量不常驻堆内，只在候选集精确重排时按槽位随机读取
+ *
+ * @author backend-team
+ */
+@Slf4j
+public class RawVectorFile implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int dimensions;
+    private final int vectorBytes;
+
+    public RawVectorFile(Path path, int dimensions) {
+        try {
+            this.path = path;
+            this.dimensions = dimensions;
+            this.vectorBytes = dimensions * Float.BYTES;
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            log.info("原始向量文件已创建: {}", path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建原始向量文件失败: " + path, e);
+        }
+    }
+
+    /**
+     * 写入指定槽位的向量
+     */
+    public void write(int slot, float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vectorBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector, 0, dimensions);
+        try {
+            long position = (long) slot * vectorBytes;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入原始向量失败: slot=" + slot, e);
+        }
+    }
+
+    /**
+     * 读取指定槽位的向量
+     */
+    public float[] read(int slot) {
+        ByteBuffer buffer = ByteBuffer.allocate(vectorBytes).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            long position = (long) slot * vectorBytes;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("意外的文件结尾");
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取原始向量失败: slot=" + slot, e);
+        }
+        buffer.flip();
+        float[] vector = new float[dimensions];
+        buffer.asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("关闭原始向量文件失败: {}", e.getMessage());
+        }
+    }
+}
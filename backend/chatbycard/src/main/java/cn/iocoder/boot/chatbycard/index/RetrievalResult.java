@@ -0,0 +1,57 @@
+package cn.iocoder.boot.chatbycard.index;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 混合检索结果
+ *
+ * @author backend-team
+ */
+@Data
+public class RetrievalResult {
+
+    /**
+     * 按提示词预算打包后的上下文文本
+     */
+    private String context = "";
+
+    /**
+     * 入选的分块（按融合排名），得分为RRF融合得分
+     */
+    private List<ScoredChunk> chunks = new ArrayList<>();
+
+    /**
+     * 词法检索命中数
+     */
+    private int lexicalHits;
+
+    /**
+     * 向量检索命中数
+     */
+    private int vectorHits;
+
+    /**
+     * 词法检索是否超时
+     */
+    private boolean lexicalTimedOut;
+
+    /**
+     * 向量检索是否超时
+     */
+    private boolean vectorTimedOut;
+
+    /**
+     * 因属于近似重复文档而被合并掉的分块数
+     */
+    private int collapsedChunks;
+
+    /**
+     * 各阶段耗时（毫秒）
+     */
+    private Map<String, Double> stageMillis = new LinkedHashMap<>();
+}
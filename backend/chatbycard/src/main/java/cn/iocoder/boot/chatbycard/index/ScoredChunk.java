@@ -0,0 +1,18 @@
+package cn.iocoder.boot.chatbycard.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 带得分的检索结果
+ *
+ * @author backend-team
+ */
+@Data
+@AllArgsConstructor
+public class ScoredChunk {
+
+    private DocumentChunk chunk;
+
+    private float score;
+}
@@ -0,0 +1,75 @@
+package cn.iocoder.boot.chatbycard.index;
+
+/**
+ * 流式SimHash计算器
+ * 以字符4-gram为特征（忽略空白与标点、英文转小写），可边解码边输入，无需对全文做第二次遍历
+ *
+ * @author backend-team
+ */
+public class SimHash {
+
+    private static final int SHINGLE_SIZE = 4;
+
+    private final int[] weights = new int[Long.SIZE];
+    private long shingle;
+    private int pending;
+    private long features;
+
+    public void update(char[] buffer, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            char c = buffer[i];
+            if (!Character.isLetterOrDigit(c)) {
+                continue;
+            }
+            // 4个16位字符恰好组成一个64位滚动窗口
+            shingle = (shingle << Character.SIZE) | Character.toLowerCase(c);
+            if (pending < SHINGLE_SIZE - 1) {
+                pending++;
+                continue;
+            }
+            accumulate(mix(shingle));
+        }
+    }
+
+    public void update(String text) {
+        char[] chars = text.toCharArray();
+        update(chars, 0, chars.length);
+    }
+
+    /**
+     * 参与计算的特征数，为0时签名无意义
+     */
+    public long getFeatureCount() {
+        return features;
+    }
+
+    public long value() {
+        long signature = 0L;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) {
+                signature |= 1L << bit;
+            }
+        }
+        return signature;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private void accumulate(long hash) {
+        features++;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            weights[bit] += (int) ((hash >>> bit) & 1L) * 2 - 1;
+        }
+    }
+
+    /**
+     * SplitMix64终结函数，将窗口值打散为均匀分布的64位哈希
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
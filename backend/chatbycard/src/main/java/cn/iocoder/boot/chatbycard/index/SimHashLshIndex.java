@@ -0,0 +1,111 @@
+package cn.iocoder.boot.chatbycard.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * SimHash局部敏感哈希索引
+ * 64位签名分为4段、每段16位分桶，汉明距离不超过3的签名必有一段完全相同，因此一定能被召回
+ *
+ * @author backend-team
+ */
+public class SimHashLshIndex {
+
+    private static final int BANDS = 4;
+    private static final int BAND_BITS = Long.SIZE / BANDS;
+    private static final long BAND_MASK = (1L << BAND_BITS) - 1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, List<Long>> buckets = new HashMap<>();
+    private final Map<Long, Long> signatures = new HashMap<>();
+
+    public void add(long documentId, long signature) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(documentId);
+            signatures.put(documentId, signature);
+            for (int band = 0; band < BANDS; band++) {
+                buckets.computeIfAbsent(bucketKey(band, signature), k -> new ArrayList<>()).add(documentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long documentId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查找汉明距离最小且不超过maxDistance的文档，距离相同时取ID较小（较早上传）的文档
+     *
+     * @return 文档ID，不存在时返回null
+     */
+    public Long findNearest(long signature, int maxDistance) {
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = new HashSet<>();
+            for (int band = 0; band < BANDS; band++) {
+                List<Long> bucket = buckets.get(bucketKey(band, signature));
+                if (bucket != null) {
+                    candidates.addAll(bucket);
+                }
+            }
+            Long nearest = null;
+            int nearestDistance = Integer.MAX_VALUE;
+            for (Long candidate : candidates) {
+                int distance = SimHash.distance(signature, signatures.get(candidate));
+                if (distance > maxDistance) {
+                    continue;
+                }
+                if (distance < nearestDistance || (distance == nearestDistance && candidate < nearest)) {
+                    nearest = candidate;
+                    nearestDistance = distance;
+                }
+            }
+            return nearest;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return signatures.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(long documentId) {
+        Long signature = signatures.remove(documentId);
+        if (signature == null) {
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            int key = bucketKey(band, signature);
+            List<Long> bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.remove(Long.valueOf(documentId));
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    private static int bucketKey(int band, long signature) {
+        return (band << BAND_BITS) | (int) ((signature >>> (band * BAND_BITS)) & BAND_MASK);
+    }
+}
@@ -0,0 +1,85 @@
+package cn.iocoder.boot.chatbycard.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文本分块工具类
+ * 按固定窗口切分文本，窗口末尾20%范围内优先在段落、句子边界处断开，相邻分块保留重叠区域
+ *
+ * @author backend-team
+ */
+public class TextChunker {
+
+    private TextChunker() {
+    }
+
+    /**
+     * 切分文档内容
+     *
+     * @param documentId 文档ID
+     * @param content    文档内容
+     * @param chunkSize  分块最大字符数
+     * @param overlap    相邻分块重叠字符数
+     * @return 分块列表
+     */
+    public static List<DocumentChunk> split(long documentId, String content, int chunkSize, int overlap) {
+        List<DocumentChunk> chunks = new ArrayList<>();
+        if (content == null || content.isEmpty()) {
+            return chunks;
+        }
+        if (overlap >= chunkSize) {
+            throw new IllegalArgumentException("分块重叠长度必须小于分块大小");
+        }
+
+        int length = content.length();
+        int start = 0;
+        int index = 0;
+        while (start < length) {
+            int end = Math.min(start + chunkSize, length);
+            if (end < length) {
+                end = findBreak(content, start + chunkSize * 4 / 5, end);
+            }
+            // 去除首尾空白后的实际区间，保证content.substring(startOffset, endOffset)与分块文本一致
+            int textStart = start;
+            int textEnd = end;
+            while (textStart < textEnd && Character.isWhitespace(content.charAt(textStart))) {
+                textStart++;
+            }
+            while (textEnd > textStart && Character.isWhitespace(content.charAt(textEnd - 1))) {
+                textEnd--;
+            }
+            if (textStart < textEnd) {
+                chunks.add(new DocumentChunk(DocumentChunk.chunkId(documentId, index), documentId, index,
+                        textStart, textEnd, content.substring(textStart, textEnd)));
+                index++;
+            }
+            if (end >= length) {
+                break;
+            }
+            start = Math.max(end - overlap, start + 1);
+        }
+        return chunks;
+    }
+
+    /**
+     * 在[from, to)范围内从后向前寻找最合适的断点，段落优先于句子
+     */
+    private static int findBreak(String content, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (content.charAt(i) == '\n') {
+                return i + 1;
+            }
+        }
+        for (int i = to - 1; i >= from; i--) {
+            if (isSentenceEnd(content.charAt(i))) {
+                return i + 1;
+            }
+        }
+        return to;
+    }
+
+    private static boolean isSentenceEnd(char c) {
+        return c == '。' || c == '！' || c == '？' || c == '；' || c == '.' || c == '!' || c == '?' || c == ';';
+    }
+}
@@ -0,0 +1,95 @@
+package cn.iocoder.boot.chatbycard.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 词法检索分词器
+ * 中日韩文字按二元组切分；字母数字串作为整体保留（如工单号PROJ-1234、错误码E1001），
+ * 含连接符的标识符额外输出各组成部分，便于部分匹配
+ *
+ * @author backend-team
+ */
+public class TextTokenizer {
+
+    private TextTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (isCjk(c)) {
+                int end = i;
+                while (end < length && isCjk(text.charAt(end))) {
+                    end++;
+                }
+                emitBigrams(text, i, end, tokens);
+                i = end;
+            } else if (isWordChar(c)) {
+                int end = i;
+                while (end < length && (isWordChar(text.charAt(end))
+                        || (isJoiner(text.charAt(end)) && end + 1 < length && isWordChar(text.charAt(end + 1))))) {
+                    end++;
+                }
+                emitIdentifier(text.substring(i, end).toLowerCase(Locale.ROOT), tokens);
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static void emitBigrams(String text, int start, int end, List<String> tokens) {
+        if (end - start == 1) {
+            tokens.add(String.valueOf(text.charAt(start)));
+            return;
+        }
+        for (int i = start; i + 1 < end; i++) {
+            tokens.add(text.substring(i, i + 2));
+        }
+    }
+
+    private static void emitIdentifier(String identifier, List<String> tokens) {
+        tokens.add(identifier);
+        int partStart = 0;
+        boolean hasJoiner = false;
+        for (int i = 0; i <= identifier.length(); i++) {
+            if (i == identifier.length() || isJoiner(identifier.charAt(i))) {
+                if (i < identifier.length()) {
+                    hasJoiner = true;
+                }
+                if (hasJoiner && i > partStart) {
+                    tokens.add(identifier.substring(partStart, i));
+                }
+                partStart = i + 1;
+            }
+        }
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * 标识符内部的连接符，如PROJ-1234、ERR_TIMEOUT、v1.2.3、com.example.Foo
+     */
+    private static boolean isJoiner(char c) {
+        return c == '-' || c == '_' || c == '.';
+    }
+
+    private static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,98 @@
+package cn.iocoder.boot.chatbycard.index;
+
+/**
+ * 基于原始类型数组的Top-K小顶堆，避免打分循环中的装箱和对象分配
+ *
+ * @author backend-team
+ */
+public class TopKCollector {
+
+    private final int capacity;
+    private final float[] scores;
+    private final int[] slots;
+    private int size;
+
+    public TopKCollector(int capacity) {
+        this.capacity = capacity;
+        this.scores = new float[capacity];
+        this.slots = new int[capacity];
+    }
+
+    public void offer(int slot, float score) {
+        if (capacity == 0) {
+            return;
+        }
+        if (size < capacity) {
+            scores[size] = score;
+            slots[size] = slot;
+            siftUp(size++);
+        } else if (score > scores[0]) {
+            scores[0] = score;
+            slots[0] = slot;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按得分从高到低输出槽位，调用后收集器被清空
+     *
+     * @param scoresOut 非null时按相同顺序写入得分，长度不小于size()
+     */
+    public int[] drainDescending(float[] scoresOut) {
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = slots[0];
+            if (scoresOut != null) {
+                scoresOut[i] = scores[0];
+            }
+            size--;
+            scores[0] = scores[size];
+            slots[0] = slots[size];
+            siftDown(0);
+        }
+        return result;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[i] >= scores[parent]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && scores[right] < scores[left]) {
+                smallest = right;
+            }
+            if (scores[i] <= scores[smallest]) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        int slot = slots[a];
+        slots[a] = slots[b];
+        slots[b] = slot;
+    }
+}
@@ -0,0 +1,54 @@
+package cn.iocoder.boot.chatbycard.index;
+
+import java.util.List;
+
+/**
+ * 向量编码器接口
+ * 将float32向量压缩为定长字节码，并支持非对称距离计算（查询向量保持float32，库内向量为压缩码）
+ *
+ * @author backend-team
+ */
+public interface VectorCodec {
+
+    /**
+     * 每个向量编码后的字节数
+     */
+    int codeSize();
+
+    /**
+     * 是否已完成训练（需要码本的编码器在训练前不能编码）
+     */
+    boolean isTrained();
+
+    /**
+     * 使用样本向量训练编码器
+     *
+     * @param samples 已归一化的样本向量
+     */
+    void train(List<float[]> samples);
+
+    /**
+     * 编码向量
+     *
+     * @param vector 已归一化的向量
+     * @param out    输出缓冲区
+     * @param offset 写入起始位置
+     */
+    void encode(float[] vector, byte[] out, int offset);
+
+    /**
+     * 为查询向量预计算打分器
+     *
+     * @param query 已归一化的查询向量
+     * @return 非对称打分器
+     */
+    QueryScorer prepare(float[] query);
+
+    /**
+     * 非对称打分器，返回查询向量与压缩码之间的近似内积
+     */
+    interface QueryScorer {
+
+        float score(byte[] codes, int offset);
+    }
+}
@@ -0,0 +1,24 @@
+package cn.iocoder.boot.chatbycard.index;
+
+/**
+ * 向量量化方式
+ *
+ * @author backend-team
+ */
+public enum VectorQuantization {
+
+    /**
+     * 不量化，堆内保存float32原始向量
+     */
+    NONE,
+
+    /**
+     * int8标量量化，每个向量保存一个缩放因子
+     */
+    INT8,
+
+    /**
+     * 乘积量化，每个子空间用一个字节的码本下标表示
+     */
+    PQ
+}
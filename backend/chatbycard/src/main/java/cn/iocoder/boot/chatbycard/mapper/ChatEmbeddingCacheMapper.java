@@ -0,0 +1,30 @@
+package cn.iocoder.boot.chatbycard.mapper;
+
+import cn.iocoder.boot.chatbycard.entity.ChatEmbeddingCache;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 文本向量缓存Mapper接口
+ *
+ * @author backend-team
+ */
+@Mapper
+public interface ChatEmbeddingCacheMapper extends BaseMapper<ChatEmbeddingCache> {
+
+    /**
+     * 批量写入缓存，已存在的键忽略（并发写入同一内容时不报错）
+     */
+    @Insert("<script>" +
+            "INSERT INTO chat_embedding_cache (content_hash, model, dimensions, embedding) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.contentHash}, #{item.model}, #{item.dimensions}, #{item.embedding})" +
+            "</foreach>" +
+            " ON CONFLICT (content_hash) DO NOTHING" +
+            "</script>")
+    int insertIgnoreBatch(@Param("list") List<ChatEmbeddingCache> list);
+}
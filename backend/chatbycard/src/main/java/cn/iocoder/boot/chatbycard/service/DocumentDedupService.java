@@ -0,0 +1,42 @@
+package cn.iocoder.boot.chatbycard.service;
+
+/**
+ * 文档近似重复检测服务接口
+ * 基于SimHash签名与LSH索引，在上传时标记近似重复文档，并在检索时合并重复文档的结果
+ *
+ * @author backend-team
+ */
+public interface DocumentDedupService {
+
+    /**
+     * 查找与签名近似重复的已有文档
+     *
+     * @param simhash SimHash签名
+     * @return 原始文档ID（若命中的文档本身是重复文档，返回其原始文档），未命中返回null
+     */
+    Long findDuplicateOf(long simhash);
+
+    /**
+     * 将文档签名加入索引
+     *
+     * @param documentId  文档ID
+     * @param simhash     SimHash签名
+     * @param duplicateOf 原始文档ID，非重复文档为null
+     */
+    void register(Long documentId, long simhash, Long duplicateOf);
+
+    /**
+     * 从索引中移除文档；被删除的文档若为原始文档，其重复文档改为指向剩余文档中ID最小的一个
+     *
+     * @param documentId 文档ID
+     */
+    void remove(Long documentId);
+
+    /**
+     * 获取文档所在重复组的原始文档ID
+     *
+     * @param documentId 文档ID
+     * @return 原始文档ID，非重复文档返回自身
+     */
+    Long canonicalId(Long documentId);
+}
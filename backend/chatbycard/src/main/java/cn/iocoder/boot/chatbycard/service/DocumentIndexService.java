@@ -0,0 +1,49 @@
+package cn.iocoder.boot.chatbycard.service;
+
+import cn.iocoder.boot.chatbycard.index.ScoredChunk;
+
+import java.util.List;
+
+/**
+ * 文档索引服务接口
+ * 负责文档分块、向量化以及分块的向量检索与词法检索
+ *
+ * @author backend-team
+ */
+public interface DocumentIndexService {
+
+    /**
+     * 异步为文档建立分块索引（已存在的索引会被替换）
+     *
+     * @param documentId 文档ID
+     * @param content    文档内容
+     */
+    void indexDocument(Long documentId, String content);
+
+    /**
+     * 删除文档的分块索引
+     *
+     * @param documentId 文档ID
+     */
+    void removeDocument(Long documentId);
+
+    /**
+     * 语义检索相似分块
+     *
+     * @param query       查询文本
+     * @param topK        返回数量
+     * @param documentIds 限定文档范围，为空表示全部文档
+     * @return 按相似度降序的分块
+     */
+    List<ScoredChunk> searchSimilarChunks(String query, int topK, List<Long> documentIds);
+
+    /**
+     * 词法检索（BM25）分块
+     *
+     * @param query       查询文本
+     * @param topK        返回数量
+     * @param documentIds 限定文档范围，为空表示全部文档
+     * @return 按得分降序的分块
+     */
+    List<ScoredChunk> searchLexicalChunks(String query, int topK, List<Long> documentIds);
+}
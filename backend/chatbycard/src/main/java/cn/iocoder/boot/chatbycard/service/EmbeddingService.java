@@ -0,0 +1,28 @@
+package cn.iocoder.boot.chatbycard.service;
+
+import java.util.List;
+
+/**
+ * 文本向量化服务接口
+ * 请求先查内存LRU与持久化缓存，未命中的文本合并为微批次调用向量模型
+ *
+ * @author backend-team
+ */
+public interface EmbeddingService {
+
+    /**
+     * 向量化单条文本
+     *
+     * @param text 文本
+     * @return 向量
+     */
+    float[] embed(String text);
+
+    /**
+     * 向量化多条文本，结果顺序与输入一致
+     *
+     * @param texts 文本列表
+     * @return 向量列表
+     */
+    List<float[]> embed(List<String> texts);
+}
@@ -0,0 +1,23 @@
+package cn.iocoder.boot.chatbycard.service;
+
+import cn.iocoder.boot.chatbycard.index.RetrievalResult;
+
+import java.util.List;
+
+/**
+ * 混合检索服务接口
+ * 并行查询词法索引与向量索引，通过倒数排名融合（RRF）合并结果，并按提示词预算打包上下文
+ *
+ * @author backend-team
+ */
+public interface RetrievalService {
+
+    /**
+     * 检索与查询相关的文档片段
+     *
+     * @param query       查询文本
+     * @param documentIds 限定文档范围，为空表示全部文档
+     * @return 检索结果，包含打包后的上下文与各阶段耗时
+     */
+    RetrievalResult retrieve(String query, List<Long> documentIds);
+}
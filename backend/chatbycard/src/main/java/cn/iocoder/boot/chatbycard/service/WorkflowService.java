@@ -1,8 +1,8 @@
 package cn.iocoder.boot.chatbycard.service;
 
 import cn.iocoder.boot.chatbycard.dto.WorkflowDTO;
-
-import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 /**
  * 工作流服务接口
@@ -12,11 +12,12 @@ import java.util.List;
 public interface WorkflowService {
 
     /**
-     * 获取所有工作流列表
+     * 分页获取工作流列表
      *
-     * @return 工作流列表
+     * @param pageable 分页参数
+     * @return 工作流分页
      */
-    List<WorkflowDTO> getAllWorkflows();
+    Page<WorkflowDTO> getAllWorkflows(Pageable pageable);
 
     /**
      * 根据ID获取工作流
@@ -27,20 +28,22 @@ public interface WorkflowService {
     WorkflowDTO getWorkflowById(String id);
 
     /**
-     * 根据类型获取工作流列表
+     * 根据类型分页获取工作流列表
      *
-     * @param type 工作流类型
-     * @return 工作流列表
+     * @param type     工作流类型
+     * @param pageable 分页参数
+     * @return 工作流分页
      */
-    List<WorkflowDTO> getWorkflowsByType(String type);
+    Page<WorkflowDTO> getWorkflowsByType(String type, Pageable pageable);
 
     /**
-     * 根据关键词搜索工作流
+     * 根据关键词分页搜索工作流（名称、描述或类型）
      *
-     * @param keyword 搜索关键词
-     * @return 工作流列表
+     * @param keyword  搜索关键词
+     * @param pageable 分页参数
+     * @return 工作流分页
      */
-    List<WorkflowDTO> searchWorkflows(String keyword);
+    Page<WorkflowDTO> searchWorkflows(String keyword, Pageable pageable);
 
     /**
      * 增加工作流调用次数
@@ -6,9 +6,13 @@ import cn.iocoder.boot.chatbycard.dto.AiChatResponse;
 import cn.iocoder.boot.chatbycard.dto.AgentTestRequest;
 import cn.iocoder.boot.chatbycard.dto.PromptOptimizeRequest;
 import cn.iocoder.boot.chatbycard.dto.PromptOptimizeResponse;
+import cn.iocoder.boot.chatbycard.index.DocumentChunk;
+import cn.iocoder.boot.chatbycard.index.RetrievalResult;
+import cn.iocoder.boot.chatbycard.index.TextChunker;
 import cn.iocoder.boot.chatbycard.service.AIChatService;
 import cn.iocoder.boot.chatbycard.service.AgentService;
 import cn.iocoder.boot.chatbycard.service.DocumentService;
+import cn.iocoder.boot.chatbycard.service.RetrievalService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ChatModel;
@@ -17,7 +21,10 @@ import org.springframework.ai.chat.model.StreamingChatModel;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.beans.factory.annotation.Value;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
@@ -29,7 +36,9 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -48,6 +57,43 @@ public class AIChatServiceImpl implements AIChatService {
     private final StreamingChatModel streamingChatModel;
     private final AgentService agentService;
     private final DocumentService documentService;
+    private final RetrievalService retrievalService;
+    private final LlmCallLimiter llmCallLimiter;
+
+    /**
+     * 文档上下文字符预算，文档总长度超出时改为混合检索相关片段
+     */
+    @Value("${chatbycard.retrieval.context-char-budget:12000}")
+    private int contextCharBudget;
+
+    /**
+     * map-reduce模式下每次map调用的文档token数
+     */
+    @Value("${chatbycard.map-reduce.chunk-tokens:6000}")
+    private int mapChunkTokens;
+
+    /**
+     * map调用的最大输出token数
+     */
+    @Value("${chatbycard.map-reduce.map-max-tokens:1024}")
+    private int mapMaxTokens;
+
+    /**
+     * Agent未配置时的默认并行分块数
+     */
+    @Value("${chatbycard.map-reduce.default-fan-out:4}")
+    private int defaultFanOut;
+
+    /**
+     * Agent未配置时的默认文档总token预算
+     */
+    @Value("${chatbycard.map-reduce.default-token-budget:120000}")
+    private int defaultTokenBudget;
+
+    /**
+     * map阶段无相关内容时模型应返回的标记
+     */
+    private static final String NO_RELEVANT_CONTENT = "无相关信息";
 
     // 默认配置
     private static final String DEFAULT_MODEL = "gpt-4o-mini";
@@ -67,14 +113,21 @@ public class AIChatServiceImpl implements AIChatService {
             AgentConfig agentConfig = getAgentConfig(request.getAgentId());
             
             // 2. 获取文档内容
-            String documentContent = getDocumentContent(request.getDocumentIds());
-            
-            // 3. 构建用户提示词
-            String userPrompt = buildUserPrompt(
-                    documentContent, 
-                    request.getUserInput(), 
-                    request.getPreviousAiOutput()
-            );
+            Map<String, Object> retrievalDebug = new LinkedHashMap<>();
+            DocumentContext documentContext = getDocumentContext(request, agentConfig, retrievalDebug);
+            
+            // 3. 构建用户提示词（map-reduce模式下先并行完成map阶段，再以各分块的回答作为reduce输入）
+            String userPrompt;
+            if (documentContext.isMapReduce()) {
+                List<String> partialAnswers = runMapPhase(documentContext, request, agentConfig, retrievalDebug).block();
+                userPrompt = buildReducePrompt(partialAnswers, documentContext, request);
+            } else {
+                userPrompt = buildUserPrompt(
+                        documentContext.getContent(),
+                        request.getUserInput(),
+                        request.getPreviousAiOutput()
+                );
+            }
             
             // 4. 构建完整的提示词
             String fullPrompt = buildFullPrompt(agentConfig.getSystemPrompt(), userPrompt);
@@ -91,13 +144,17 @@ public class AIChatServiceImpl implements AIChatService {
             log.info("调用AI聊天模型，使用模型: {}, 温度: {}, 最大Token数: {}",
                     agentConfig.getModelName(), agentConfig.getTemperature(), agentConfig.getMaxTokens());
             log.info("完整提示词内容: {}", fullPrompt);
-            ChatResponse response = chatModel.call(prompt);
+            ChatResponse response = llmCallLimiter.call(() -> chatModel.call(prompt));
             
             String aiResponseContent = response.getResults().get(0).getOutput().getText();
             log.info("AI聊天请求处理成功，返回内容长度: {}", aiResponseContent.length());
             
             // 7. 创建响应对象
-            return new AiChatResponse(aiResponseContent, agentConfig.getModelName(), agentConfig.getAgentName());
+            AiChatResponse chatResponse = new AiChatResponse(aiResponseContent, agentConfig.getModelName(), agentConfig.getAgentName());
+            if (Boolean.TRUE.equals(request.getDebug())) {
+                chatResponse.setRetrievalDebug(retrievalDebug);
+            }
+            return chatResponse;
             
         } catch (Exception e) {
             log.error("AI聊天请求处理失败: {}", e.getMessage(), e);
@@ -115,29 +172,29 @@ public class AIChatServiceImpl implements AIChatService {
             AgentConfig agentConfig = getAgentConfig(request.getAgentId());
             
             // 2. 获取文档内容（与普通接口相同逻辑）
-            String documentContent = getDocumentContent(request.getDocumentIds());
-            
-            // 3. 构建用户提示词（与普通接口相同逻辑）
-            String userPrompt = buildUserPrompt(
-                    documentContent, 
-                    request.getUserInput(), 
-                    request.getPreviousAiOutput()
-            );
-            
-            // 4. 构建完整的提示词（与普通接口相同逻辑）
-            String fullPrompt = buildFullPrompt(agentConfig.getSystemPrompt(), userPrompt);
-            
-            // 5. 配置OpenAI选项（与普通接口相同逻辑）
+            DocumentContext documentContext = getDocumentContext(request, agentConfig, new LinkedHashMap<>());
+            
+            // 3. 构建用户提示词（map-reduce模式下map阶段完成后，reduce阶段的输出以流式返回）
+            Mono<String> userPromptMono = documentContext.isMapReduce()
+                    ? runMapPhase(documentContext, request, agentConfig, new LinkedHashMap<>())
+                            .map(partialAnswers -> buildReducePrompt(partialAnswers, documentContext, request))
+                    : Mono.just(buildUserPrompt(
+                            documentContext.getContent(),
+                            request.getUserInput(),
+                            request.getPreviousAiOutput()
+                    ));
+            
+            // 4. 配置OpenAI选项（与普通接口相同逻辑）
             OpenAiChatOptions chatOptions = OpenAiChatOptions.builder()
                     .model(agentConfig.getModelName())
                     .temperature(agentConfig.getTemperature().doubleValue())
                     .maxTokens(agentConfig.getMaxTokens())
                     .build();
             
-            // 6. 创建提示词并调用AI流式接口
-            Prompt prompt = new Prompt(fullPrompt, chatOptions);
-            
-            return streamingChatModel.stream(prompt)
+            // 5. 构建完整的提示词并调用AI流式接口（流式调用期间占用一个并发许可）
+            return userPromptMono
+                    .flatMapMany(userPrompt -> llmCallLimiter.stream(() -> streamingChatModel.stream(
+                            new Prompt(buildFullPrompt(agentConfig.getSystemPrompt(), userPrompt), chatOptions))))
                     .flatMap(chatResponse -> { // 使用flatMap来更好地处理可能的空值
                         try {
                             // 从流式响应中提取内容，增加更多安全检查
@@ -269,6 +326,8 @@ public class AIChatServiceImpl implements AIChatService {
                             .systemPrompt(agent.getSystemPrompt())
                             .temperature(agent.getTemperature() != null ? agent.getTemperature() : DEFAULT_TEMPERATURE)
                             .maxTokens(agent.getMaxTokens() != null ? agent.getMaxTokens() : DEFAULT_MAX_TOKENS)
+                            .mapReduceFanOut(agent.getMapReduceFanOut())
+                            .contextTokenBudget(agent.getContextTokenBudget())
                             .build();
                 }
             } catch (Exception e) {
@@ -288,11 +347,15 @@ public class AIChatServiceImpl implements AIChatService {
     }
 
     /**
-     * 获取文档内容
+     * 获取文档上下文
+     * 文档总长度不超过上下文预算时使用完整内容；超出时优先通过混合检索选取与问题相关的片段，
+     * 无法检索（无问题、未建立索引或请求指定map-reduce）时改用map-reduce模式覆盖全部内容
      */
-    private String getDocumentContent(List<String> documentIds) {
+    private DocumentContext getDocumentContext(AiChatRequest request, AgentConfig agentConfig, Map<String, Object> retrievalDebug) {
+        List<String> documentIds = request.getDocumentIds();
+        String query = request.getUserInput();
         if (CollectionUtils.isEmpty(documentIds)) {
-            return "";
+            return DocumentContext.full("");
         }
 
         try {
@@ -302,17 +365,196 @@ public class AIChatServiceImpl implements AIChatService {
                     .collect(Collectors.toList());
 
             if (documentContents.isEmpty()) {
-                return "";
+                return DocumentContext.full("");
             }
 
             String content = String.join("\n\n--- 文档分隔符 ---\n\n", documentContents);
             log.info("获取到 {} 个文档的内容，总字符数: {}", documentContents.size(), content.length());
-            return content;
+            retrievalDebug.put("documentChars", content.length());
+            if (content.length() <= contextCharBudget) {
+                retrievalDebug.put("mode", "full");
+                return DocumentContext.full(content);
+            }
+
+            if (StringUtils.hasText(query) && !Boolean.TRUE.equals(request.getMapReduce())) {
+                RetrievalResult retrieval = retrievalService.retrieve(query, parseDocumentIds(documentIds));
+                retrievalDebug.put("lexicalHits", retrieval.getLexicalHits());
+                retrievalDebug.put("vectorHits", retrieval.getVectorHits());
+                retrievalDebug.put("lexicalTimedOut", retrieval.isLexicalTimedOut());
+                retrievalDebug.put("vectorTimedOut", retrieval.isVectorTimedOut());
+                retrievalDebug.put("collapsedChunks", retrieval.getCollapsedChunks());
+                retrievalDebug.put("stageMillis", retrieval.getStageMillis());
+                if (StringUtils.hasText(retrieval.getContext())) {
+                    retrievalDebug.put("mode", "hybrid");
+                    retrievalDebug.put("selectedChunks", retrieval.getChunks().size());
+                    retrievalDebug.put("contextChars", retrieval.getContext().length());
+                    return DocumentContext.full(retrieval.getContext());
+                }
+                // 文档可能尚未完成索引
+                log.warn("混合检索无结果，改用map-reduce模式");
+            }
+
+            DocumentContext mapReduceContext = splitForMapReduce(content, agentConfig);
+            retrievalDebug.put("mode", "map_reduce");
+            retrievalDebug.put("mapChunks", mapReduceContext.getChunks().size());
+            retrievalDebug.put("skippedChunks", mapReduceContext.getSkippedChunks());
+            return mapReduceContext;
             
         } catch (Exception e) {
             log.error("获取文档内容失败: {}", e.getMessage(), e);
-            return "";
+            return DocumentContext.full("");
+        }
+    }
+
+    /**
+     * 按每次map调用的token数切分文档，超出Agent总token预算的分块不处理（在reduce提示词中注明）
+     */
+    private DocumentContext splitForMapReduce(String content, AgentConfig agentConfig) {
+        int contentTokens = Math.max(1, estimateTokens(content));
+        double charsPerToken = (double) content.length() / contentTokens;
+        int chunkChars = Math.max(1000, (int) (mapChunkTokens * charsPerToken));
+        List<DocumentChunk> chunks = TextChunker.split(0L, content, chunkChars, chunkChars / 20);
+
+        int tokenBudget = agentConfig.getContextTokenBudget() != null ? agentConfig.getContextTokenBudget() : defaultTokenBudget;
+        List<String> selected = new ArrayList<>();
+        int usedTokens = 0;
+        for (DocumentChunk chunk : chunks) {
+            int chunkTokens = estimateTokens(chunk.getContent());
+            if (usedTokens + chunkTokens > tokenBudget && !selected.isEmpty()) {
+                break;
+            }
+            selected.add(chunk.getContent());
+            usedTokens += chunkTokens;
+        }
+        int skipped = chunks.size() - selected.size();
+        if (skipped > 0) {
+            log.warn("文档超出map-reduce总token预算({}), 共{}个分块，{}个未处理", tokenBudget, chunks.size(), skipped);
+        }
+        log.info("使用map-reduce模式，文档约{}token，分块数: {}", contentTokens, selected.size());
+        return DocumentContext.mapReduce(selected, skipped);
+    }
+
+    /**
+     * map阶段：每个分块独立回答问题，按Agent的并行度与全局调用限制并发执行，结果保持分块顺序
+     */
+    private Mono<List<String>> runMapPhase(DocumentContext documentContext, AiChatRequest request,
+                                           AgentConfig agentConfig, Map<String, Object> retrievalDebug) {
+        int fanOut = agentConfig.getMapReduceFanOut() != null ? agentConfig.getMapReduceFanOut() : defaultFanOut;
+        OpenAiChatOptions mapOptions = OpenAiChatOptions.builder()
+                .model(agentConfig.getModelName())
+                .temperature(agentConfig.getTemperature().doubleValue())
+                .maxTokens(Math.min(mapMaxTokens, agentConfig.getMaxTokens()))
+                .build();
+        List<String> chunks = documentContext.getChunks();
+        long start = System.currentTimeMillis();
+
+        return Flux.range(0, chunks.size())
+                .flatMapSequential(index -> Mono.fromCallable(() -> {
+                            String mapPrompt = buildMapPrompt(chunks.get(index), index, chunks.size(), request.getUserInput());
+                            Prompt prompt = new Prompt(buildFullPrompt(agentConfig.getSystemPrompt(), mapPrompt), mapOptions);
+                            ChatResponse response = llmCallLimiter.call(() -> chatModel.call(prompt));
+                            return response.getResults().get(0).getOutput().getText();
+                        })
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorResume(e -> {
+                            log.warn("map阶段分块{}处理失败: {}", index + 1, e.getMessage());
+                            return Mono.just("");
+                        }), fanOut)
+                .collectList()
+                .flatMap(partialAnswers -> {
+                    long failed = partialAnswers.stream().filter(answer -> !StringUtils.hasText(answer)).count();
+                    retrievalDebug.put("mapMillis", System.currentTimeMillis() - start);
+                    retrievalDebug.put("failedChunks", failed);
+                    log.info("map阶段完成，分块数: {}, 失败: {}, 并行度: {}, 耗时: {}ms",
+                            partialAnswers.size(), failed, fanOut, System.currentTimeMillis() - start);
+                    if (failed == partialAnswers.size()) {
+                        return Mono.error(new RuntimeException("map阶段全部分块处理失败"));
+                    }
+                    return Mono.just(partialAnswers);
+                });
+    }
+
+    private String buildMapPrompt(String chunk, int index, int total, String userInput) {
+        StringBuilder promptBuilder = new StringBuilder();
+        promptBuilder.append("## 文档片段（").append(index + 1).append("/").append(total).append("）：\n\n")
+                .append(chunk)
+                .append("\n\n");
+        if (StringUtils.hasText(userInput)) {
+            promptBuilder.append("## 用户问题：\n\n")
+                    .append(userInput)
+                    .append("\n\n")
+                    .append("请仅根据以上文档片段回答用户问题，只保留与问题相关的信息。");
+        } else {
+            promptBuilder.append("请提炼以上文档片段的要点。");
         }
+        promptBuilder.append("如果片段中没有相关信息，请只回复“").append(NO_RELEVANT_CONTENT).append("”。");
+        return promptBuilder.toString();
+    }
+
+    /**
+     * reduce阶段：合并各分块的回答，作为最终调用的用户提示词
+     */
+    private String buildReducePrompt(List<String> partialAnswers, DocumentContext documentContext, AiChatRequest request) {
+        StringBuilder answers = new StringBuilder();
+        int included = 0;
+        for (int i = 0; i < partialAnswers.size(); i++) {
+            String answer = partialAnswers.get(i);
+            if (!StringUtils.hasText(answer) || answer.trim().startsWith(NO_RELEVANT_CONTENT)) {
+                continue;
+            }
+            answers.append("### 片段").append(i + 1).append("：\n").append(answer.trim()).append("\n\n");
+            included++;
+        }
+        if (included == 0) {
+            answers.append("（各文档片段中均未找到相关信息）\n\n");
+        }
+        if (documentContext.getSkippedChunks() > 0) {
+            answers.append("（注意：文档超出处理预算，末尾").append(documentContext.getSkippedChunks())
+                    .append("个片段未被分析）\n\n");
+        }
+
+        StringBuilder promptBuilder = new StringBuilder();
+        promptBuilder.append("## 文档各片段的分析结果：\n\n").append(answers);
+        if (StringUtils.hasText(request.getPreviousAiOutput())) {
+            promptBuilder.append("## 对话输出：\n\n")
+                    .append(request.getPreviousAiOutput())
+                    .append("\n\n");
+        }
+        if (StringUtils.hasText(request.getUserInput())) {
+            promptBuilder.append("## 用户问题：\n\n")
+                    .append(request.getUserInput())
+                    .append("\n\n");
+        }
+        promptBuilder.append("请综合以上各片段的分析结果给出完整、连贯的最终回答，去除重复内容，片段之间有冲突时请指出。");
+        return promptBuilder.toString();
+    }
+
+    /**
+     * 粗略估算token数：中日韩字符约1个token，其他字符约4个字符1个token
+     */
+    private static int estimateTokens(String text) {
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.UnicodeScript.of(text.charAt(i)) == Character.UnicodeScript.HAN) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    private List<Long> parseDocumentIds(List<String> documentIds) {
+        List<Long> ids = new ArrayList<>();
+        for (String documentId : documentIds) {
+            try {
+                ids.add(Long.parseLong(documentId.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("无效的文档ID: {}", documentId);
+            }
+        }
+        return ids;
     }
 
     /**
@@ -563,6 +805,33 @@ public class AIChatServiceImpl implements AIChatService {
 
  
 
+    /**
+     * 文档上下文：完整/检索后的文本，或map-reduce模式下的分块列表
+     */
+    private static class DocumentContext {
+        private String content;
+        private List<String> chunks;
+        private int skippedChunks;
+
+        static DocumentContext full(String content) {
+            DocumentContext context = new DocumentContext();
+            context.content = content;
+            return context;
+        }
+
+        static DocumentContext mapReduce(List<String> chunks, int skippedChunks) {
+            DocumentContext context = new DocumentContext();
+            context.chunks = chunks;
+            context.skippedChunks = skippedChunks;
+            return context;
+        }
+
+        public boolean isMapReduce() { return chunks != null; }
+        public String getContent() { return content; }
+        public List<String> getChunks() { return chunks; }
+        public int getSkippedChunks() { return skippedChunks; }
+    }
+
     /**
      * Agent配置类
      */
@@ -572,6 +841,8 @@ public class AIChatServiceImpl implements AIChatService {
         private String systemPrompt;
         private BigDecimal temperature;
         private Integer maxTokens;
+        private Integer mapReduceFanOut;
+        private Integer contextTokenBudget;
 
         public static AgentConfigBuilder builder() {
             return new AgentConfigBuilder();
@@ -582,6 +853,8 @@ public class AIChatServiceImpl implements AIChatService {
         public String getSystemPrompt() { return systemPrompt; }
         public BigDecimal getTemperature() { return temperature; }
         public Integer getMaxTokens() { return maxTokens; }
+        public Integer getMapReduceFanOut() { return mapReduceFanOut; }
+        public Integer getContextTokenBudget() { return contextTokenBudget; }
 
         public static class AgentConfigBuilder {
             private String agentName;
@@ -589,6 +862,8 @@ public class AIChatServiceImpl implements AIChatService {
             private String systemPrompt;
             private BigDecimal temperature;
             private Integer maxTokens;
+            private Integer mapReduceFanOut;
+            private Integer contextTokenBudget;
 
             public AgentConfigBuilder agentName(String agentName) {
                 this.agentName = agentName;
@@ -615,6 +890,16 @@ public class AIChatServiceImpl implements AIChatService {
                 return this;
             }
 
+            public AgentConfigBuilder mapReduceFanOut(Integer mapReduceFanOut) {
+                this.mapReduceFanOut = mapReduceFanOut;
+                return this;
+            }
+
+            public AgentConfigBuilder contextTokenBudget(Integer contextTokenBudget) {
+                this.contextTokenBudget = contextTokenBudget;
+                return this;
+            }
+
             public AgentConfig build() {
                 AgentConfig config = new AgentConfig();
                 config.agentName = this.agentName;
@@ -622,6 +907,8 @@ public class AIChatServiceImpl implements AIChatService {
                 config.systemPrompt = this.systemPrompt;
                 config.temperature = this.temperature;
                 config.maxTokens = this.maxTokens;
+                config.mapReduceFanOut = this.mapReduceFanOut;
+                config.contextTokenBudget = this.contextTokenBudget;
                 return config;
             }
         }
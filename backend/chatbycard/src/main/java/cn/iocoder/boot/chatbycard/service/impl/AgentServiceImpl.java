@@ -137,6 +137,8 @@ public class AgentServiceImpl implements AgentService {
         agent.setSystemPrompt(request.getSystemPrompt());
         agent.setTemperature(BigDecimal.valueOf(request.getTemperature()));
         agent.setMaxTokens(request.getMaxTokens());
+        agent.setMapReduceFanOut(request.getMapReduceFanOut());
+        agent.setContextTokenBudget(request.getContextTokenBudget());
         agent.setCallCount(0L); // 初始调用次数为0
         agent.setCreateTime(OffsetDateTime.now());
         agent.setUpdateTime(OffsetDateTime.now());
@@ -209,6 +211,8 @@ public class AgentServiceImpl implements AgentService {
             existingAgent.setSystemPrompt(request.getSystemPrompt());
             existingAgent.setTemperature(BigDecimal.valueOf(request.getTemperature()));
             existingAgent.setMaxTokens(request.getMaxTokens());
+            existingAgent.setMapReduceFanOut(request.getMapReduceFanOut());
+            existingAgent.setContextTokenBudget(request.getContextTokenBudget());
             existingAgent.setUpdateTime(OffsetDateTime.now());
             
             // 保存更新
@@ -242,6 +246,8 @@ public class AgentServiceImpl implements AgentService {
         dto.setCallCount(agent.getCallCount());
         dto.setTemperature(agent.getTemperature());
         dto.setMaxTokens(agent.getMaxTokens());
+        dto.setMapReduceFanOut(agent.getMapReduceFanOut());
+        dto.setContextTokenBudget(agent.getContextTokenBudget());
         dto.setCreateTime(agent.getCreateTime());
         dto.setUpdateTime(agent.getUpdateTime());
         
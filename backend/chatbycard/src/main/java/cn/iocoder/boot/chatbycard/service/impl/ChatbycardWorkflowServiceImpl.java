@@ -5,13 +5,13 @@ import cn.iocoder.boot.chatbycard.service.WorkflowService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Chatbycard工作流服务实现类（调用内部workflow模块服务）
@@ -23,6 +23,11 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ChatbycardWorkflowServiceImpl implements WorkflowService {
 
+    /**
+     * 内部工作流统一对外展示的类型
+     */
+    private static final String DEFAULT_TYPE = "automation";
+
     private final cn.iocoder.boot.workflow.service.WorkflowService workflowService;
     
     // 从配置文件读取前端跳转URL
@@ -30,25 +35,20 @@ public class ChatbycardWorkflowServiceImpl implements WorkflowService {
     private String workflowFrontendUrl;
 
     @Override
-    public List<WorkflowDTO> getAllWorkflows() {
-        log.info("调用内部workflow服务获取所有工作流列表");
+    public Page<WorkflowDTO> getAllWorkflows(Pageable pageable) {
+        log.info("调用内部workflow服务获取工作流列表: page={}, size={}", pageable.getPageNumber(), pageable.getPageSize());
         
         try {
-            // 调用内部workflow服务获取工作流列表
-            List<cn.iocoder.boot.workflow.dto.WorkflowDTO> internalWorkflows = workflowService.getWorkflows(0, 1000);
+            // 调用内部workflow服务分页获取工作流列表，并转换为chatbycard的WorkflowDTO格式
+            Page<WorkflowDTO> workflows = workflowService.getWorkflowsPage(pageable).map(this::convertFromInternalDTO);
             
-            // 转换为chatbycard的WorkflowDTO格式
-            List<WorkflowDTO> workflows = internalWorkflows.stream()
-                    .map(this::convertFromInternalDTO)
-                    .collect(Collectors.toList());
-            
-            log.info("成功获取 {} 个工作流", workflows.size());
+            log.info("成功获取 {} 个工作流，共 {} 个", workflows.getNumberOfElements(), workflows.getTotalElements());
             return workflows;
             
         } catch (Exception e) {
             log.error("调用内部workflow服务获取工作流列表失败: {}", e.getMessage(), e);
-            // 返回空列表而不是抛出异常，避免前端处理复杂性
-            return new ArrayList<>();
+            // 返回空分页而不是抛出异常，避免前端处理复杂性
+            return Page.empty(pageable);
         }
     }
 
@@ -67,27 +67,30 @@ public class ChatbycardWorkflowServiceImpl implements WorkflowService {
     }
 
     @Override
-    public List<WorkflowDTO> getWorkflowsByType(String type) {
+    public Page<WorkflowDTO> getWorkflowsByType(String type, Pageable pageable) {
         log.info("根据类型获取工作流列表: {}", type);
         
-        List<WorkflowDTO> workflows = getAllWorkflows();
-        return workflows.stream()
-                .filter(workflow -> type.equals(workflow.getType()))
-                .collect(Collectors.toList());
+        // 内部工作流没有类型字段，统一视为automation，其他类型直接返回空分页，不查询数据库
+        if (!DEFAULT_TYPE.equals(type)) {
+            return Page.empty(pageable);
+        }
+        return getAllWorkflows(pageable);
     }
 
     @Override
-    public List<WorkflowDTO> searchWorkflows(String keyword) {
+    public Page<WorkflowDTO> searchWorkflows(String keyword, Pageable pageable) {
         log.info("搜索工作流，关键词: {}", keyword);
         
-        List<WorkflowDTO> workflows = getAllWorkflows();
-        return workflows.stream()
-                .filter(workflow -> 
-                    (workflow.getName() != null && workflow.getName().toLowerCase().contains(keyword.toLowerCase())) ||
-                    (workflow.getDescription() != null && workflow.getDescription().toLowerCase().contains(keyword.toLowerCase())) ||
-                    (workflow.getType() != null && workflow.getType().toLowerCase().contains(keyword.toLowerCase()))
-                )
-                .collect(Collectors.toList());
+        // 关键词命中统一的类型时所有工作流都匹配，否则在数据库中按名称和描述过滤
+        if (DEFAULT_TYPE.contains(keyword.toLowerCase())) {
+            return getAllWorkflows(pageable);
+        }
+        try {
+            return workflowService.searchWorkflowsPage(keyword, pageable).map(this::convertFromInternalDTO);
+        } catch (Exception e) {
+            log.error("调用内部workflow服务搜索工作流失败: {}", e.getMessage(), e);
+            return Page.empty(pageable);
+        }
     }
 
     @Override
@@ -122,7 +125,7 @@ public class ChatbycardWorkflowServiceImpl implements WorkflowService {
             dto.setConfig(internalDto.getConfig());
             
             // 设置默认值
-            dto.setType("automation");
+            dto.setType(DEFAULT_TYPE);
             dto.setIcon("workflow");
             dto.setCategory("workflow");
             dto.setCallCount(0);
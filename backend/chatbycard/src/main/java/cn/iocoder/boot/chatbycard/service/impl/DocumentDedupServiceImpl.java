@@ -0,0 +1,166 @@
+package cn.iocoder.boot.chatbycard.service.impl;
+
+import cn.iocoder.boot.chatbycard.entity.ChatDocumentInfo;
+import cn.iocoder.boot.chatbycard.index.SimHash;
+import cn.iocoder.boot.chatbycard.index.SimHashLshIndex;
+import cn.iocoder.boot.chatbycard.mapper.ChatDocumentInfoMapper;
+import cn.iocoder.boot.chatbycard.service.DocumentDedupService;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 文档近似重复检测服务实现类
+ * LSH索引与重复关系常驻内存，启动时从数据库重建（并补算存量文档的签名）
+ *
+ * @author backend-team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentDedupServiceImpl implements DocumentDedupService {
+
+    /**
+     * 启动重建时每页加载的文档数量
+     */
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    private final ChatDocumentInfoMapper documentMapper;
+
+    private final SimHashLshIndex lshIndex = new SimHashLshIndex();
+    private final Map<Long, Long> duplicateOf = new ConcurrentHashMap<>();
+
+    @Value("${chatbycard.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chatbycard.dedup.max-hamming-distance:3}")
+    private int maxHammingDistance;
+
+    @Override
+    public Long findDuplicateOf(long simhash) {
+        if (!enabled) {
+            return null;
+        }
+        Long nearest = lshIndex.findNearest(simhash, maxHammingDistance);
+        return nearest == null ? null : canonicalId(nearest);
+    }
+
+    @Override
+    public void register(Long documentId, long simhash, Long original) {
+        lshIndex.add(documentId, simhash);
+        if (original != null) {
+            duplicateOf.put(documentId, original);
+        }
+    }
+
+    @Override
+    public void remove(Long documentId) {
+        lshIndex.remove(documentId);
+        duplicateOf.remove(documentId);
+
+        List<Long> children = new ArrayList<>();
+        duplicateOf.forEach((child, original) -> {
+            if (original.equals(documentId)) {
+                children.add(child);
+            }
+        });
+        if (children.isEmpty()) {
+            return;
+        }
+        Long newOriginal = children.stream().min(Long::compare).get();
+        duplicateOf.remove(newOriginal);
+        for (Long child : children) {
+            if (!child.equals(newOriginal)) {
+                duplicateOf.put(child, newOriginal);
+            }
+        }
+
+        UpdateWrapper<ChatDocumentInfo> promote = new UpdateWrapper<>();
+        promote.set("duplicate_of", null).set("near_duplicate", false).eq("id", newOriginal);
+        documentMapper.update(null, promote);
+        UpdateWrapper<ChatDocumentInfo> repoint = new UpdateWrapper<>();
+        repoint.set("duplicate_of", newOriginal).eq("duplicate_of", documentId);
+        documentMapper.update(null, repoint);
+        log.info("原始文档已删除，ID: {}，{} 个重复文档改为指向文档 {}", documentId, children.size(), newOriginal);
+    }
+
+    @Override
+    public Long canonicalId(Long documentId) {
+        Long original = duplicateOf.get(documentId);
+        return original != null ? original : documentId;
+    }
+
+    /**
+     * 应用启动后补算存量文档签名并重建LSH索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int backfilled = backfillSignatures();
+
+        long lastId = 0;
+        while (true) {
+            QueryWrapper<ChatDocumentInfo> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id", "simhash", "duplicate_of")
+                    .isNotNull("simhash")
+                    .gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("LIMIT " + REBUILD_PAGE_SIZE);
+            List<ChatDocumentInfo> documents = documentMapper.selectList(queryWrapper);
+            if (documents.isEmpty()) {
+                break;
+            }
+            for (ChatDocumentInfo document : documents) {
+                register(document.getId(), document.getSimhash(), document.getDuplicateOf());
+                lastId = document.getId();
+            }
+        }
+        log.info("近似重复索引重建完成，文档数: {}, 补算签名: {}, 耗时: {}ms",
+                lshIndex.size(), backfilled, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 为上线前上传、尚无签名的文档补算签名（不回溯标记重复关系）
+     */
+    private int backfillSignatures() {
+        int backfilled = 0;
+        long lastId = 0;
+        while (true) {
+            QueryWrapper<ChatDocumentInfo> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id", "content")
+                    .isNull("simhash")
+                    .gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("LIMIT 50");
+            List<ChatDocumentInfo> documents = documentMapper.selectList(queryWrapper);
+            if (documents.isEmpty()) {
+                return backfilled;
+            }
+            for (ChatDocumentInfo document : documents) {
+                lastId = document.getId();
+                SimHash simHash = new SimHash();
+                simHash.update(document.getContent() != null ? document.getContent() : "");
+                if (simHash.getFeatureCount() == 0) {
+                    continue;
+                }
+                UpdateWrapper<ChatDocumentInfo> updateWrapper = new UpdateWrapper<>();
+                updateWrapper.set("simhash", simHash.value()).eq("id", document.getId());
+                documentMapper.update(null, updateWrapper);
+                backfilled++;
+            }
+        }
+    }
+}
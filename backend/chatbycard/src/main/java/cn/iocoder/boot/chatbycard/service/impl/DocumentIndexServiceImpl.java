@@ -0,0 +1,147 @@
+package cn.iocoder.boot.chatbycard.service.impl;
+
+import cn.iocoder.boot.chatbycard.entity.ChatDocumentInfo;
+import cn.iocoder.boot.chatbycard.index.ChunkVectorStore;
+import cn.iocoder.boot.chatbycard.index.DocumentChunk;
+import cn.iocoder.boot.chatbycard.index.LexicalChunkIndex;
+import cn.iocoder.boot.chatbycard.index.ScoredChunk;
+import cn.iocoder.boot.chatbycard.index.TextChunker;
+import cn.iocoder.boot.chatbycard.mapper.ChatDocumentInfoMapper;
+import cn.iocoder.boot.chatbycard.service.DocumentIndexService;
+import cn.iocoder.boot.chatbycard.service.EmbeddingService;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 文档索引服务实现类
+ *
+ * @author backend-team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentIndexServiceImpl implements DocumentIndexService {
+
+    /**
+     * 启动重建索引时每页加载的文档数量
+     */
+    private static final int REBUILD_PAGE_SIZE = 50;
+
+    private final ChunkVectorStore chunkVectorStore;
+    private final LexicalChunkIndex lexicalChunkIndex;
+    private final EmbeddingService embeddingService;
+    private final ChatDocumentInfoMapper documentMapper;
+
+    @Value("${chatbycard.index.chunk-size:800}")
+    private int chunkSize;
+
+    @Value("${chatbycard.index.chunk-overlap:100}")
+    private int chunkOverlap;
+
+    @Value("${chatbycard.index.embedding-batch-size:64}")
+    private int embeddingBatchSize;
+
+    @Value("${chatbycard.index.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    @Override
+    @Async("documentProcessExecutor")
+    public void indexDocument(Long documentId, String content) {
+        log.info("开始建立文档索引，ID: {}", documentId);
+        try {
+            indexNow(documentId, content);
+        } catch (Exception e) {
+            log.error("建立文档索引失败，ID: {}", documentId, e);
+        }
+    }
+
+    @Override
+    public void removeDocument(Long documentId) {
+        chunkVectorStore.removeDocument(documentId);
+        lexicalChunkIndex.removeDocument(documentId);
+        log.info("文档索引已删除，ID: {}", documentId);
+    }
+
+    @Override
+    public List<ScoredChunk> searchSimilarChunks(String query, int topK, List<Long> documentIds) {
+        if (!StringUtils.hasText(query)) {
+            return new ArrayList<>();
+        }
+        float[] queryVector = embeddingService.embed(query);
+        return chunkVectorStore.search(queryVector, topK, CollectionUtils.isEmpty(documentIds) ? null : documentIds);
+    }
+
+    @Override
+    public List<ScoredChunk> searchLexicalChunks(String query, int topK, List<Long> documentIds) {
+        if (!StringUtils.hasText(query)) {
+            return new ArrayList<>();
+        }
+        return lexicalChunkIndex.search(query, topK, CollectionUtils.isEmpty(documentIds) ? null : documentIds);
+    }
+
+    /**
+     * 应用启动后在后台重建全部文档的索引
+     */
+    @Async("documentProcessExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        log.info("开始重建文档索引");
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int indexed = 0;
+        while (true) {
+            QueryWrapper<ChatDocumentInfo> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id", "content")
+                    .gt("id", lastId)
+                    .orderByAsc("id")
+                    .last("LIMIT " + REBUILD_PAGE_SIZE);
+            List<ChatDocumentInfo> documents = documentMapper.selectList(queryWrapper);
+            if (documents.isEmpty()) {
+                break;
+            }
+            for (ChatDocumentInfo document : documents) {
+                try {
+                    indexNow(document.getId(), document.getContent());
+                    indexed++;
+                } catch (Exception e) {
+                    log.error("重建文档索引失败，ID: {}", document.getId(), e);
+                }
+                lastId = document.getId();
+            }
+        }
+        log.info("文档索引重建完成，文档数: {}, 耗时: {}ms", indexed, System.currentTimeMillis() - start);
+    }
+
+    private void indexNow(Long documentId, String content) {
+        List<DocumentChunk> chunks = TextChunker.split(documentId, content, chunkSize, chunkOverlap);
+        chunkVectorStore.removeDocument(documentId);
+        lexicalChunkIndex.removeDocument(documentId);
+        if (chunks.isEmpty()) {
+            return;
+        }
+        lexicalChunkIndex.add(chunks);
+
+        for (int from = 0; from < chunks.size(); from += embeddingBatchSize) {
+            List<DocumentChunk> batch = chunks.subList(from, Math.min(from + embeddingBatchSize, chunks.size()));
+            List<String> texts = batch.stream().map(DocumentChunk::getContent).collect(Collectors.toList());
+            List<float[]> vectors = embeddingService.embed(texts);
+            chunkVectorStore.add(batch, vectors);
+        }
+        log.info("文档索引建立完成，ID: {}, 分块数: {}", documentId, chunks.size());
+    }
+}
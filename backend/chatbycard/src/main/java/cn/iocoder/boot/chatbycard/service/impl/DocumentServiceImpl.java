@@ -2,17 +2,24 @@ package cn.iocoder.boot.chatbycard.service.impl;
 
 import cn.iocoder.boot.chatbycard.dto.DocumentDTO;
 import cn.iocoder.boot.chatbycard.entity.ChatDocumentInfo;
+import cn.iocoder.boot.chatbycard.index.SimHash;
 import cn.iocoder.boot.chatbycard.mapper.ChatDocumentInfoMapper;
+import cn.iocoder.boot.chatbycard.service.DocumentDedupService;
+import cn.iocoder.boot.chatbycard.service.DocumentIndexService;
 import cn.iocoder.boot.chatbycard.service.DocumentService;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -29,6 +36,14 @@ import java.util.stream.Collectors;
 public class DocumentServiceImpl implements DocumentService {
 
     private final ChatDocumentInfoMapper documentMapper;
+    private final DocumentIndexService documentIndexService;
+    private final DocumentDedupService documentDedupService;
+
+    /**
+     * 是否将近似重复文档关联到原始文档（关闭时仍标记近似重复，但不记录原始文档，检索时不合并）
+     */
+    @Value("${chatbycard.dedup.link-duplicates:true}")
+    private boolean linkDuplicates;
 
     @Override
     @Transactional
@@ -39,8 +54,23 @@ public class DocumentServiceImpl implements DocumentService {
         validateFile(file);
 
         try {
-            // 读取文件内容
-            String content = new String(file.getBytes(), StandardCharsets.UTF_8);
+            // 读取文件内容，解码的同时计算SimHash签名（单次遍历）
+            SimHash simHash = new SimHash();
+            StringBuilder contentBuilder = new StringBuilder((int) Math.min(file.getSize(), Integer.MAX_VALUE));
+            try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+                char[] buffer = new char[8192];
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    contentBuilder.append(buffer, 0, read);
+                    simHash.update(buffer, 0, read);
+                }
+            }
+            String content = contentBuilder.toString();
+
+            // 近似重复检测
+            Long simhash = simHash.getFeatureCount() > 0 ? simHash.value() : null;
+            Long original = simhash != null ? documentDedupService.findDuplicateOf(simhash) : null;
+            Long duplicateOf = linkDuplicates ? original : null;
             
             // 创建文档实体
             ChatDocumentInfo document = new ChatDocumentInfo();
@@ -48,6 +78,9 @@ public class DocumentServiceImpl implements DocumentService {
             document.setDocumentType(getFileExtension(file.getOriginalFilename()));
             document.setContent(content);
             document.setFileSize(file.getSize());
+            document.setSimhash(simhash);
+            document.setNearDuplicate(original != null);
+            document.setDuplicateOf(duplicateOf);
             document.setUploadTime(OffsetDateTime.now());
             document.setCreateTime(OffsetDateTime.now());
             document.setUpdateTime(OffsetDateTime.now());
@@ -56,6 +89,12 @@ public class DocumentServiceImpl implements DocumentService {
             documentMapper.insert(document);
 
             log.info("文档上传成功，ID: {}", document.getId());
+            if (simhash != null) {
+                registerAfterCommit(document.getId(), simhash, duplicateOf);
+            }
+            if (original != null) {
+                log.info("文档与已有文档近似重复，ID: {}, 原始文档ID: {}", document.getId(), original);
+            }
 
             // 异步处理文档内容
             processDocumentAsync(document.getId(), content);
@@ -69,6 +108,22 @@ public class DocumentServiceImpl implements DocumentService {
         }
     }
 
+    /**
+     * 提交后才登记到近似重复索引，事务回滚时索引中不会留下未保存的文档
+     */
+    private void registerAfterCommit(Long documentId, long simhash, Long duplicateOf) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            documentDedupService.register(documentId, simhash, duplicateOf);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                documentDedupService.register(documentId, simhash, duplicateOf);
+            }
+        });
+    }
+
     @Override
     public List<DocumentDTO> getAllDocuments() {
         log.info("获取所有文档列表");
@@ -113,6 +168,8 @@ public class DocumentServiceImpl implements DocumentService {
             int result = documentMapper.deleteById(documentId);
             
             if (result > 0) {
+                documentIndexService.removeDocument(documentId);
+                documentDedupService.remove(documentId);
                 log.info("文档删除成功，ID: {}", id);
                 return true;
             } else {
@@ -146,28 +203,9 @@ public class DocumentServiceImpl implements DocumentService {
     }
 
     @Override
-    @Async("documentProcessExecutor")
     public void processDocumentAsync(Long documentId, String content) {
-        log.info("开始异步处理文档，ID: {}", documentId);
-        
-        try {
-            // 模拟文档处理过程（可以在这里添加文本分析、索引构建等逻辑）
-            Thread.sleep(2000); // 模拟处理时间
-            
-            // 这里可以添加更多的文档处理逻辑，比如：
-            // 1. 文本分词
-            // 2. 关键词提取
-            // 3. 向量化
-            // 4. 构建搜索索引
-            
-            log.info("文档处理完成，ID: {}", documentId);
-            
-        } catch (InterruptedException e) {
-            log.error("文档处理被中断，ID: {}", documentId, e);
-            Thread.currentThread().interrupt();
-        } catch (Exception e) {
-            log.error("文档处理失败，ID: {}", documentId, e);
-        }
+        // 分块、向量化在索引服务的线程池中异步执行（通过代理调用，避免同类内部调用导致@Async失效）
+        documentIndexService.indexDocument(documentId, content);
     }
 
     /**
@@ -219,6 +257,8 @@ public class DocumentServiceImpl implements DocumentService {
         dto.setUploadTime(document.getUploadTime());
         dto.setCreateTime(document.getCreateTime());
         dto.setStatus("completed"); // 简化状态，实际项目中可以添加状态字段
+        dto.setNearDuplicate(Boolean.TRUE.equals(document.getNearDuplicate()) || document.getDuplicateOf() != null);
+        dto.setDuplicateOf(document.getDuplicateOf() != null ? String.valueOf(document.getDuplicateOf()) : null);
         
         // 生成内容预览（前100个字符）
         if (document.getContent() != null && document.getContent().length() > 100) {
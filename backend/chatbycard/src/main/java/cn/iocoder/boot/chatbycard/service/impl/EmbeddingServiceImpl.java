@@ -0,0 +1,347 @@
+package cn.iocoder.boot.chatbycard.service.impl;
+
+import cn.iocoder.boot.chatbycard.entity.ChatEmbeddingCache;
+import cn.iocoder.boot.chatbycard.mapper.ChatEmbeddingCacheMapper;
+import cn.iocoder.boot.chatbycard.service.EmbeddingService;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 文本向量化服务实现类
+ * 查找顺序：内存LRU → 持久化缓存表 → 进行中的请求（同一内容只计算一次） → 微批次队列
+ *
+ * @author backend-team
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmbeddingServiceImpl implements EmbeddingService {
+
+    /**
+     * 持久化缓存单次IN查询的键数量上限
+     */
+    private static final int STORE_LOOKUP_BATCH = 500;
+
+    private final EmbeddingModel embeddingModel;
+    private final ChatEmbeddingCacheMapper embeddingCacheMapper;
+
+    @Value("${spring.ai.openai.embedding.options.model:text-embedding-ada-002}")
+    private String modelName;
+
+    @Value("${chatbycard.embedding.batch-size:64}")
+    private int batchSize;
+
+    @Value("${chatbycard.embedding.max-wait-ms:20}")
+    private long maxWaitMs;
+
+    @Value("${chatbycard.embedding.queue-capacity:1024}")
+    private int queueCapacity;
+
+    @Value("${chatbycard.embedding.offer-timeout-ms:5000}")
+    private long offerTimeoutMs;
+
+    @Value("${chatbycard.embedding.request-timeout-ms:60000}")
+    private long requestTimeoutMs;
+
+    @Value("${chatbycard.embedding.workers:2}")
+    private int workers;
+
+    @Value("${chatbycard.embedding.memory-cache-size:10000}")
+    private int memoryCacheSize;
+
+    private BlockingQueue<PendingEmbedding> queue;
+    private Map<String, float[]> memoryCache;
+    private final Map<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        memoryCache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > memoryCacheSize;
+            }
+        });
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(this::runWorker, "EmbeddingBatcher-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workerThreads.add(worker);
+        }
+        log.info("向量化微批处理器启动完成，模型: {}, 批大小: {}, 最长等待: {}ms, 队列容量: {}, 工作线程: {}",
+                modelName, batchSize, maxWaitMs, queueCapacity, workers);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workerThreads.forEach(Thread::interrupt);
+        List<PendingEmbedding> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (PendingEmbedding pending : remaining) {
+            fail(pending, new IllegalStateException("向量化服务已关闭"));
+        }
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return embed(List.of(text)).get(0);
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        if (texts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 1. 内存缓存，同时合并本次请求中的重复文本
+        Map<String, String> missing = new LinkedHashMap<>();
+        Map<String, float[]> resolved = new HashMap<>();
+        List<String> keys = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            String key = cacheKey(text);
+            keys.add(key);
+            if (resolved.containsKey(key) || missing.containsKey(key)) {
+                continue;
+            }
+            float[] cached = memoryCache.get(key);
+            if (cached != null) {
+                resolved.put(key, cached);
+            } else {
+                missing.put(key, text);
+            }
+        }
+
+        // 2. 持久化缓存
+        if (!missing.isEmpty()) {
+            loadFromStore(missing, resolved);
+        }
+
+        // 3. 微批次计算
+        if (!missing.isEmpty()) {
+            Map<String, CompletableFuture<float[]>> futures = new LinkedHashMap<>();
+            for (Map.Entry<String, String> entry : missing.entrySet()) {
+                futures.put(entry.getKey(), submit(entry.getKey(), entry.getValue()));
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(requestTimeoutMs);
+            for (Map.Entry<String, CompletableFuture<float[]>> entry : futures.entrySet()) {
+                resolved.put(entry.getKey(), await(entry.getValue(), deadline));
+            }
+        }
+
+        List<float[]> vectors = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            vectors.add(resolved.get(key));
+        }
+        return vectors;
+    }
+
+    /**
+     * 提交到微批次队列；相同内容已在计算中时直接复用其结果。
+     * 队列已满时最多阻塞offer-timeout-ms，仍无法入队则拒绝请求（背压）
+     */
+    private CompletableFuture<float[]> submit(String key, String text) {
+        CompletableFuture<float[]> future = new CompletableFuture<>();
+        CompletableFuture<float[]> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        PendingEmbedding pending = new PendingEmbedding(key, text, future);
+        try {
+            if (!queue.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                fail(pending, new RuntimeException("向量化队列已满，请稍后重试"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(pending, new RuntimeException("向量化请求被中断"));
+        }
+        return future;
+    }
+
+    private float[] await(CompletableFuture<float[]> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("向量化超时");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("向量化失败: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("向量化请求被中断");
+        }
+    }
+
+    private void runWorker() {
+        List<PendingEmbedding> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingEmbedding first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 凑满batch-size或等待max-wait-ms后发送
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingEmbedding next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                batch.forEach(pending -> fail(pending, new IllegalStateException("向量化服务已关闭")));
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingEmbedding> batch) {
+        List<String> texts = new ArrayList<>(batch.size());
+        for (PendingEmbedding pending : batch) {
+            texts.add(pending.text);
+        }
+        long start = System.currentTimeMillis();
+        List<float[]> vectors;
+        try {
+            vectors = embeddingModel.embed(texts);
+        } catch (Exception e) {
+            log.error("批量向量化失败，批大小: {}", batch.size(), e);
+            batch.forEach(pending -> fail(pending, e));
+            return;
+        }
+        if (vectors.size() != batch.size()) {
+            RuntimeException error = new RuntimeException("向量模型返回数量不匹配，期望: " + batch.size() + ", 实际: " + vectors.size());
+            batch.forEach(pending -> fail(pending, error));
+            return;
+        }
+        log.debug("批量向量化完成，批大小: {}, 耗时: {}ms", batch.size(), System.currentTimeMillis() - start);
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingEmbedding pending = batch.get(i);
+            memoryCache.put(pending.key, vectors.get(i));
+            inFlight.remove(pending.key);
+            pending.future.complete(vectors.get(i));
+        }
+        saveToStore(batch, vectors);
+    }
+
+    private void loadFromStore(Map<String, String> missing, Map<String, float[]> resolved) {
+        List<String> keys = new ArrayList<>(missing.keySet());
+        try {
+            for (int from = 0; from < keys.size(); from += STORE_LOOKUP_BATCH) {
+                QueryWrapper<ChatEmbeddingCache> queryWrapper = new QueryWrapper<>();
+                queryWrapper.in("content_hash", keys.subList(from, Math.min(from + STORE_LOOKUP_BATCH, keys.size())));
+                for (ChatEmbeddingCache cached : embeddingCacheMapper.selectList(queryWrapper)) {
+                    float[] vector = decode(cached.getEmbedding());
+                    memoryCache.put(cached.getContentHash(), vector);
+                    resolved.put(cached.getContentHash(), vector);
+                    missing.remove(cached.getContentHash());
+                }
+            }
+        } catch (Exception e) {
+            // 缓存表不可用时不影响向量化本身
+            log.warn("读取向量缓存失败，直接调用向量模型: {}", e.getMessage());
+        }
+    }
+
+    private void saveToStore(List<PendingEmbedding> batch, List<float[]> vectors) {
+        List<ChatEmbeddingCache> rows = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            ChatEmbeddingCache row = new ChatEmbeddingCache();
+            row.setContentHash(batch.get(i).key);
+            row.setModel(modelName);
+            row.setDimensions(vectors.get(i).length);
+            row.setEmbedding(encode(vectors.get(i)));
+            rows.add(row);
+        }
+        try {
+            embeddingCacheMapper.insertIgnoreBatch(rows);
+        } catch (Exception e) {
+            log.warn("写入向量缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private void fail(PendingEmbedding pending, Throwable cause) {
+        inFlight.remove(pending.key);
+        pending.future.completeExceptionally(cause);
+    }
+
+    /**
+     * 缓存键包含模型名，切换模型后不会命中旧向量
+     */
+    private String cacheKey(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(modelName.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    private static float[] decode(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    private static class PendingEmbedding {
+        private final String key;
+        private final String text;
+        private final CompletableFuture<float[]> future;
+
+        private PendingEmbedding(String key, String text, CompletableFuture<float[]> future) {
+            this.key = key;
+            this.text = text;
+            this.future = future;
+        }
+    }
+}
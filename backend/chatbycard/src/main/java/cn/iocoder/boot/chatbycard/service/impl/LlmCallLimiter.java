@@ -0,0 +1,70 @@
+package cn.iocoder.boot.chatbycard.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 大模型调用并发限制器
+ * 所有请求共享同一组许可，避免map-reduce等并行调用超出上游接口的并发/限流配额
+ *
+ * @author backend-team
+ */
+@Slf4j
+@Component
+public class LlmCallLimiter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+
+    public LlmCallLimiter(@Value("${chatbycard.llm.max-concurrent-calls:8}") int maxConcurrentCalls,
+                          @Value("${chatbycard.llm.acquire-timeout-ms:60000}") long acquireTimeoutMs) {
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        log.info("大模型调用并发限制器初始化完成，最大并发: {}", maxConcurrentCalls);
+    }
+
+    /**
+     * 获取许可后执行调用（阻塞方法，响应式链路中需在弹性线程池上执行）
+     */
+    public <T> T call(Supplier<T> supplier) {
+        acquire();
+        try {
+            return supplier.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 流式调用：订阅时在弹性线程池上等待许可，许可在整个流的生命周期内持有，完成、出错或取消时释放
+     */
+    public <T> Flux<T> stream(Supplier<Flux<T>> supplier) {
+        return Flux.using(() -> {
+                    acquire();
+                    return permits;
+                }, acquired -> supplier.get(), Semaphore::release)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("大模型调用排队超时，请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("大模型调用被中断");
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+}
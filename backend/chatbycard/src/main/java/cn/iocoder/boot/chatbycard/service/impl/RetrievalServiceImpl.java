@@ -0,0 +1,303 @@
+package cn.iocoder.boot.chatbycard.service.impl;
+
+import cn.iocoder.boot.chatbycard.index.DocumentChunk;
+import cn.iocoder.boot.chatbycard.index.RetrievalResult;
+import cn.iocoder.boot.chatbycard.index.ScoredChunk;
+import cn.iocoder.boot.chatbycard.service.DocumentDedupService;
+import cn.iocoder.boot.chatbycard.service.DocumentIndexService;
+import cn.iocoder.boot.chatbycard.service.RetrievalService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 混合检索服务实现类
+ *
+ * @author backend-team
+ */
+@Slf4j
+@Service
+public class RetrievalServiceImpl implements RetrievalService {
+
+    private static final String PASSAGE_SEPARATOR = "\n...\n";
+    private static final String DOCUMENT_SEPARATOR = "\n\n--- 文档分隔符 ---\n\n";
+
+    private final DocumentIndexService documentIndexService;
+    private final DocumentDedupService documentDedupService;
+    private final Executor retrievalExecutor;
+
+    /**
+     * 是否合并近似重复文档的结果，与上传时是否关联原始文档一致
+     */
+    @Value("${chatbycard.dedup.link-duplicates:true}")
+    private boolean linkDuplicates;
+
+    @Value("${chatbycard.retrieval.candidate-k:30}")
+    private int candidateK;
+
+    @Value("${chatbycard.retrieval.rrf-k:60}")
+    private int rrfK;
+
+    @Value("${chatbycard.retrieval.timeout-ms:3000}")
+    private long timeoutMs;
+
+    @Value("${chatbycard.retrieval.context-char-budget:12000}")
+    private int contextCharBudget;
+
+    public RetrievalServiceImpl(DocumentIndexService documentIndexService,
+                                DocumentDedupService documentDedupService,
+                                @Qualifier("retrievalExecutor") Executor retrievalExecutor) {
+        this.documentIndexService = documentIndexService;
+        this.documentDedupService = documentDedupService;
+        this.retrievalExecutor = retrievalExecutor;
+    }
+
+    @Override
+    public RetrievalResult retrieve(String query, List<Long> documentIds) {
+        RetrievalResult result = new RetrievalResult();
+        if (!StringUtils.hasText(query)) {
+            return result;
+        }
+        long start = System.nanoTime();
+        Map<String, Double> stageMillis = new ConcurrentHashMap<>();
+
+        // 1. 两路检索并行执行，共享同一个截止时间
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Future<List<ScoredChunk>> lexicalFuture = submit(
+                timed("lexical", stageMillis, () -> documentIndexService.searchLexicalChunks(query, candidateK, documentIds)));
+        Future<List<ScoredChunk>> vectorFuture = submit(
+                timed("vector", stageMillis, () -> documentIndexService.searchSimilarChunks(query, candidateK, documentIds)));
+
+        List<ScoredChunk> lexicalHits = await(lexicalFuture, deadline, "词法检索");
+        List<ScoredChunk> vectorHits = await(vectorFuture, deadline, "向量检索");
+        result.setLexicalHits(lexicalHits == null ? 0 : lexicalHits.size());
+        result.setVectorHits(vectorHits == null ? 0 : vectorHits.size());
+        result.setLexicalTimedOut(lexicalHits == null && lexicalFuture.isCancelled());
+        result.setVectorTimedOut(vectorHits == null && vectorFuture.isCancelled());
+
+        // 2. 倒数排名融合
+        long fusionStart = System.nanoTime();
+        List<ScoredChunk> fused = fuse(lexicalHits, vectorHits);
+        if (linkDuplicates) {
+            fused = collapseDuplicates(fused, result);
+        }
+        stageMillis.put("fusion", millisSince(fusionStart));
+
+        // 3. 合并重叠分块并按预算打包
+        long packingStart = System.nanoTime();
+        pack(fused, documentIds, result);
+        stageMillis.put("packing", millisSince(packingStart));
+        stageMillis.put("total", millisSince(start));
+
+        Map<String, Double> ordered = new LinkedHashMap<>();
+        for (String stage : new String[]{"lexical", "vector", "fusion", "packing", "total"}) {
+            if (stageMillis.containsKey(stage)) {
+                ordered.put(stage, stageMillis.get(stage));
+            }
+        }
+        result.setStageMillis(ordered);
+        log.info("混合检索完成，词法命中: {}, 向量命中: {}, 入选分块: {}, 上下文字符数: {}, 耗时: {}",
+                result.getLexicalHits(), result.getVectorHits(), result.getChunks().size(),
+                result.getContext().length(), ordered);
+        return result;
+    }
+
+    /**
+     * 倒数排名融合：score = Σ 1 / (k + rank)，两路结果按分块ID合并
+     */
+    private List<ScoredChunk> fuse(List<ScoredChunk> lexicalHits, List<ScoredChunk> vectorHits) {
+        Map<Long, DocumentChunk> chunks = new HashMap<>();
+        Map<Long, Float> scores = new HashMap<>();
+        for (List<ScoredChunk> hits : List.of(orEmpty(lexicalHits), orEmpty(vectorHits))) {
+            for (int rank = 0; rank < hits.size(); rank++) {
+                DocumentChunk chunk = hits.get(rank).getChunk();
+                chunks.put(chunk.getId(), chunk);
+                scores.merge(chunk.getId(), 1f / (rrfK + rank + 1), Float::sum);
+            }
+        }
+        List<ScoredChunk> fused = new ArrayList<>(scores.size());
+        for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+            fused.add(new ScoredChunk(chunks.get(entry.getKey()), entry.getValue()));
+        }
+        fused.sort(Comparator.comparing(ScoredChunk::getScore).reversed());
+        return fused;
+    }
+
+    /**
+     * 合并近似重复文档：同一重复组内只保留排名最高的文档的分块，避免相同内容挤占结果
+     */
+    private List<ScoredChunk> collapseDuplicates(List<ScoredChunk> fused, RetrievalResult result) {
+        Map<Long, Long> chosenDocuments = new HashMap<>();
+        List<ScoredChunk> collapsed = new ArrayList<>(fused.size());
+        for (ScoredChunk candidate : fused) {
+            long documentId = candidate.getChunk().getDocumentId();
+            Long chosen = chosenDocuments.putIfAbsent(documentDedupService.canonicalId(documentId), documentId);
+            if (chosen == null || chosen == documentId) {
+                collapsed.add(candidate);
+            } else {
+                result.setCollapsedChunks(result.getCollapsedChunks() + 1);
+            }
+        }
+        return collapsed;
+    }
+
+    /**
+     * 按融合排名依次选入分块：与已选片段重叠或相邻的分块合并为一个连续片段（只计新增字符），
+     * 被已选片段完全覆盖的分块直接跳过；最终按文档顺序、文档内位置输出
+     */
+    private void pack(List<ScoredChunk> fused, List<Long> documentIds, RetrievalResult result) {
+        Map<Long, List<Passage>> passagesByDocument = new HashMap<>();
+        int usedChars = 0;
+        for (ScoredChunk candidate : fused) {
+            DocumentChunk chunk = candidate.getChunk();
+            List<Passage> passages = passagesByDocument.computeIfAbsent(chunk.getDocumentId(), k -> new ArrayList<>());
+
+            List<Passage> touching = new ArrayList<>();
+            boolean covered = false;
+            for (Passage passage : passages) {
+                if (passage.start <= chunk.getStartOffset() && passage.end >= chunk.getEndOffset()) {
+                    covered = true;
+                    break;
+                }
+                if (chunk.getStartOffset() <= passage.end && passage.start <= chunk.getEndOffset()) {
+                    touching.add(passage);
+                }
+            }
+            if (covered) {
+                continue;
+            }
+
+            Passage merged = merge(chunk, touching);
+            int addedChars = merged.text.length();
+            for (Passage passage : touching) {
+                addedChars -= passage.text.length();
+            }
+            if (usedChars + addedChars > contextCharBudget) {
+                continue;
+            }
+            usedChars += addedChars;
+            passages.removeAll(touching);
+            passages.add(merged);
+            result.getChunks().add(candidate);
+        }
+
+        List<Long> documentOrder = new ArrayList<>(passagesByDocument.keySet());
+        if (documentIds != null) {
+            documentOrder.sort(Comparator.comparingInt(id -> documentIds.indexOf(id) < 0 ? Integer.MAX_VALUE : documentIds.indexOf(id)));
+        }
+        List<String> documentTexts = new ArrayList<>();
+        for (Long documentId : documentOrder) {
+            List<Passage> passages = passagesByDocument.get(documentId);
+            if (passages.isEmpty()) {
+                continue;
+            }
+            passages.sort(Comparator.comparingInt(passage -> passage.start));
+            List<String> texts = new ArrayList<>(passages.size());
+            for (Passage passage : passages) {
+                texts.add(passage.text);
+            }
+            documentTexts.add(String.join(PASSAGE_SEPARATOR, texts));
+        }
+        result.setContext(String.join(DOCUMENT_SEPARATOR, documentTexts));
+    }
+
+    /**
+     * 将分块与所有和它重叠或相邻的片段拼接为一个连续片段（这些片段都与分块相交，因此并集连续）
+     */
+    private static Passage merge(DocumentChunk chunk, List<Passage> touching) {
+        List<Passage> pieces = new ArrayList<>(touching);
+        pieces.add(new Passage(chunk.getStartOffset(), chunk.getEndOffset(), chunk.getContent()));
+        pieces.sort(Comparator.comparingInt(piece -> piece.start));
+
+        StringBuilder text = new StringBuilder();
+        int start = pieces.get(0).start;
+        int end = start;
+        for (Passage piece : pieces) {
+            if (piece.end <= end) {
+                continue;
+            }
+            text.append(piece.text, Math.max(0, end - piece.start), piece.text.length());
+            end = piece.end;
+        }
+        return new Passage(start, end, text.toString());
+    }
+
+    private <T> Supplier<T> timed(String stage, Map<String, Double> stageMillis, Supplier<T> supplier) {
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                return supplier.get();
+            } finally {
+                stageMillis.put(stage, millisSince(start));
+            }
+        };
+    }
+
+    /**
+     * 以FutureTask提交到检索线程池，超时取消时中断执行线程（CompletableFuture的取消不会中断执行中的任务）
+     */
+    private <T> Future<T> submit(Supplier<T> supplier) {
+        FutureTask<T> task = new FutureTask<>(supplier::get);
+        retrievalExecutor.execute(task);
+        return task;
+    }
+
+    /**
+     * 在共享截止时间内等待检索结果，超时或失败时返回null，由另一路结果兜底
+     * 超时后中断检索线程：阻塞等待（如查询向量化）随之结束并释放线程，纯内存计算不响应中断，会运行到结束
+     */
+    private List<ScoredChunk> await(Future<List<ScoredChunk>> future, long deadline, String stage) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("{}超时（{}ms），已中断检索线程，忽略该路结果", stage, timeoutMs);
+        } catch (ExecutionException e) {
+            log.warn("{}失败，忽略该路结果: {}", stage, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("{}被中断", stage);
+        }
+        return null;
+    }
+
+    private static List<ScoredChunk> orEmpty(List<ScoredChunk> hits) {
+        return hits == null ? new ArrayList<>() : hits;
+    }
+
+    private static double millisSince(long startNanos) {
+        return Math.round((System.nanoTime() - startNanos) / 10_000.0) / 100.0;
+    }
+
+    /**
+     * 文档内的连续片段，[start, end)为文档中的字符区间
+     */
+    private static class Passage {
+        private final int start;
+        private final int end;
+        private final String text;
+
+        private Passage(int start, int end, String text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package cn.iocoder.boot.server.config;
 
+import cn.iocoder.boot.chatbycard.dto.AgentDTO;
+import cn.iocoder.boot.chatbycard.dto.AiChatRequest;
+import cn.iocoder.boot.chatbycard.dto.AiChatResponse;
+import cn.iocoder.boot.chatbycard.service.AIChatService;
 import cn.iocoder.boot.chatbycard.service.AgentService;
+import cn.iocoder.boot.workflow.dto.AgentProfile;
 import cn.iocoder.boot.workflow.service.WorkflowAgentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Flux;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -23,6 +31,7 @@ import java.util.Map;
 public class WorkflowAgentServiceAdapter implements WorkflowAgentService {
 
     private final AgentService agentService;
+    private final AIChatService aiChatService;
 
     @Override
     public List<Object> getAllAgents() {
@@ -48,4 +57,36 @@ public class WorkflowAgentServiceAdapter implements WorkflowAgentService {
             return result;
         }
     }
-} 
\ No newline at end of file
+
+    @Override
+    public String invokeAgent(String agentId, String userInput, String previousOutput) {
+        AiChatResponse response = aiChatService.chat(buildRequest(agentId, userInput, previousOutput));
+        return response.getContent();
+    }
+
+    @Override
+    public Flux<String> streamAgent(String agentId, String userInput, String previousOutput) {
+        return aiChatService.chatStream(buildRequest(agentId, userInput, previousOutput));
+    }
+
+    @Override
+    public AgentProfile getAgentProfile(String agentId) {
+        AgentDTO agent = agentService.getAgentById(agentId);
+        if (agent == null) {
+            return null;
+        }
+        String config = String.join("\u0000", String.valueOf(agent.getModelName()), String.valueOf(agent.getTemperature()),
+                String.valueOf(agent.getMaxTokens()), String.valueOf(agent.getSystemPrompt()),
+                String.valueOf(agent.getMapReduceFanOut()), String.valueOf(agent.getContextTokenBudget()),
+                String.valueOf(agent.getUpdateTime()));
+        return new AgentProfile(DigestUtils.md5DigestAsHex(config.getBytes(StandardCharsets.UTF_8)), agent.getMaxTokens());
+    }
+
+    private static AiChatRequest buildRequest(String agentId, String userInput, String previousOutput) {
+        AiChatRequest request = new AiChatRequest();
+        request.setAgentId(agentId);
+        request.setUserInput(userInput);
+        request.setPreviousAiOutput(previousOutput);
+        return request;
+    }
+}
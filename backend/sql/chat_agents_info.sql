@@ -17,6 +17,8 @@ CREATE TABLE chat_agents_info (
     call_count BIGINT NOT NULL DEFAULT 0,
     temperature DECIMAL(3,2) NOT NULL DEFAULT 0.7,
     max_tokens INTEGER NOT NULL DEFAULT 2048,
+    map_reduce_fan_out INTEGER,
+    context_token_budget INTEGER,
     create_time TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
     update_time TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
     
@@ -24,6 +26,8 @@ CREATE TABLE chat_agents_info (
     CONSTRAINT ck_chat_agents_temperature CHECK (temperature >= 0.0 AND temperature <= 2.0),
     CONSTRAINT ck_chat_agents_max_tokens CHECK (max_tokens > 0 AND max_tokens <= 32768),
     CONSTRAINT ck_chat_agents_call_count CHECK (call_count >= 0),
+    CONSTRAINT ck_chat_agents_map_reduce_fan_out CHECK (map_reduce_fan_out IS NULL OR (map_reduce_fan_out >= 1 AND map_reduce_fan_out <= 32)),
+    CONSTRAINT ck_chat_agents_context_token_budget CHECK (context_token_budget IS NULL OR context_token_budget >= 1000),
     CONSTRAINT ck_chat_agents_name_length CHECK (LENGTH(name) >= 1)
 );
 
@@ -46,6 +50,8 @@ COMMENT ON COLUMN chat_agents_info.system_prompt IS '系统提示词，定义Age
 COMMENT ON COLUMN chat_agents_info.call_count IS '调用次数统计，用于分析使用频率';
 COMMENT ON COLUMN chat_agents_info.temperature IS '模型创造性参数，范围0.0-2.0，越高越有创意';
 COMMENT ON COLUMN chat_agents_info.max_tokens IS '单次对话最大输出token数量限制';
+COMMENT ON COLUMN chat_agents_info.map_reduce_fan_out IS 'map-reduce模式下并行处理的分块数，为空时使用全局默认值';
+COMMENT ON COLUMN chat_agents_info.context_token_budget IS 'map-reduce模式下文档内容的总token预算，为空时使用全局默认值';
 COMMENT ON COLUMN chat_agents_info.create_time IS '记录创建时间';
 COMMENT ON COLUMN chat_agents_info.update_time IS '记录最后更新时间';
 
@@ -0,0 +1,16 @@
+-- chat_agents_info 增量脚本：map-reduce 聊天模式的 Agent 级配置
+-- 说明: 已有数据库执行本脚本即可，新建库直接使用 chat_agents_info.sql
+
+ALTER TABLE chat_agents_info ADD COLUMN IF NOT EXISTS map_reduce_fan_out INTEGER;
+ALTER TABLE chat_agents_info ADD COLUMN IF NOT EXISTS context_token_budget INTEGER;
+
+ALTER TABLE chat_agents_info DROP CONSTRAINT IF EXISTS ck_chat_agents_map_reduce_fan_out;
+ALTER TABLE chat_agents_info ADD CONSTRAINT ck_chat_agents_map_reduce_fan_out
+    CHECK (map_reduce_fan_out IS NULL OR (map_reduce_fan_out >= 1 AND map_reduce_fan_out <= 32));
+
+ALTER TABLE chat_agents_info DROP CONSTRAINT IF EXISTS ck_chat_agents_context_token_budget;
+ALTER TABLE chat_agents_info ADD CONSTRAINT ck_chat_agents_context_token_budget
+    CHECK (context_token_budget IS NULL OR context_token_budget >= 1000);
+
+COMMENT ON COLUMN chat_agents_info.map_reduce_fan_out IS 'map-reduce模式下并行处理的分块数，为空时使用全局默认值';
+COMMENT ON COLUMN chat_agents_info.context_token_budget IS 'map-reduce模式下文档内容的总token预算，为空时使用全局默认值';
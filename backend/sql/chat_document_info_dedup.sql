@@ -0,0 +1,14 @@
+-- chat_document_info 增量脚本：上传时近似重复检测
+-- 说明: 已有数据库执行本脚本即可，存量文档的签名在应用启动时自动补算
+
+ALTER TABLE chat_document_info ADD COLUMN IF NOT EXISTS simhash BIGINT;
+ALTER TABLE chat_document_info ADD COLUMN IF NOT EXISTS duplicate_of BIGINT;
+ALTER TABLE chat_document_info ADD COLUMN IF NOT EXISTS near_duplicate BOOLEAN NOT NULL DEFAULT FALSE;
+
+UPDATE chat_document_info SET near_duplicate = TRUE WHERE duplicate_of IS NOT NULL AND near_duplicate = FALSE;
+
+CREATE INDEX IF NOT EXISTS idx_chat_document_info_duplicate_of ON chat_document_info(duplicate_of);
+
+COMMENT ON COLUMN chat_document_info.simhash IS '文档内容的SimHash签名，用于近似重复检测';
+COMMENT ON COLUMN chat_document_info.near_duplicate IS '是否为已有文档的近似重复（与是否关联原始文档无关）';
+COMMENT ON COLUMN chat_document_info.duplicate_of IS '近似重复的原始文档ID，非重复文档或未开启关联时为空';
@@ -0,0 +1,23 @@
+-- PostgreSQL 17 兼容的 chat_embedding_cache 表创建脚本
+-- 说明: 文本向量缓存表，按内容哈希缓存向量化结果，避免重复调用向量模型
+
+CREATE TABLE IF NOT EXISTS chat_embedding_cache (
+    content_hash CHAR(64) PRIMARY KEY,
+    model VARCHAR(100) NOT NULL,
+    dimensions INTEGER NOT NULL,
+    embedding BYTEA NOT NULL,
+    create_time TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT ck_chat_embedding_cache_dimensions CHECK (dimensions > 0)
+);
+
+CREATE INDEX IF NOT EXISTS idx_chat_embedding_cache_create_time ON chat_embedding_cache(create_time);
+
+-- 添加表和字段注释
+COMMENT ON TABLE chat_embedding_cache IS '文本向量缓存表，重复上传的文档、重复分块与重复查询直接复用已有向量';
+
+COMMENT ON COLUMN chat_embedding_cache.content_hash IS '缓存键：SHA-256(模型名 + 换行 + 文本)的十六进制表示';
+COMMENT ON COLUMN chat_embedding_cache.model IS '向量模型名称';
+COMMENT ON COLUMN chat_embedding_cache.dimensions IS '向量维度';
+COMMENT ON COLUMN chat_embedding_cache.embedding IS '向量数据，float32小端序';
+COMMENT ON COLUMN chat_embedding_cache.create_time IS '记录创建时间';
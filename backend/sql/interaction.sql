@@ -4,6 +4,9 @@ CREATE TABLE chat_document_info (
     document_type VARCHAR(50) NOT NULL ,
     content TEXT NOT NULL,
     file_size BIGINT NOT NULL,
+    simhash BIGINT,
+    near_duplicate BOOLEAN NOT NULL DEFAULT FALSE,
+    duplicate_of BIGINT,
     upload_time TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
     create_time TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
     update_time TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
@@ -16,6 +19,9 @@ COMMENT ON COLUMN chat_document_info.document_name IS '文档名称';
 COMMENT ON COLUMN chat_document_info.document_type IS '文档类型';
 COMMENT ON COLUMN chat_document_info.content IS '文档全文内容';
 COMMENT ON COLUMN chat_document_info.file_size IS '文件大小(字节)';
+COMMENT ON COLUMN chat_document_info.simhash IS '文档内容的SimHash签名，用于近似重复检测';
+COMMENT ON COLUMN chat_document_info.near_duplicate IS '是否为已有文档的近似重复（与是否关联原始文档无关）';
+COMMENT ON COLUMN chat_document_info.duplicate_of IS '近似重复的原始文档ID，非重复文档或未开启关联时为空';
 COMMENT ON COLUMN chat_document_info.upload_time IS '上传时间';
 COMMENT ON COLUMN chat_document_info.create_time IS '创建时间';
 COMMENT ON COLUMN chat_document_info.update_time IS '更新时间';
@@ -23,6 +29,7 @@ COMMENT ON COLUMN chat_document_info.update_time IS '更新时间';
 -- 创建索引
 CREATE INDEX idx_chat_document_info_document_name ON chat_document_info(document_name);
 CREATE INDEX idx_chat_document_info_upload_time ON chat_document_info(upload_time);
+CREATE INDEX idx_chat_document_info_duplicate_of ON chat_document_info(duplicate_of);
 
 -- 创建更新时间的触发器
 CREATE OR REPLACE FUNCTION update_modified_column()
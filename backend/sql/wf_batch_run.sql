@@ -0,0 +1,69 @@
+-- PostgreSQL 17 兼容的工作流批量执行增量脚本
+-- 说明: 同一工作流按CSV/NDJSON中的每行变量各执行一次，行级结果按完成顺序编号，支持断点续传与中断恢复
+
+CREATE TABLE IF NOT EXISTS wf_batch_run (
+    id BIGSERIAL PRIMARY KEY,
+    workflow_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'RUNNING',
+    total_rows INTEGER NOT NULL,
+    finished_rows INTEGER NOT NULL DEFAULT 0,
+    failed_rows INTEGER NOT NULL DEFAULT 0,
+    parallelism INTEGER NOT NULL,
+    refresh_memo BOOLEAN NOT NULL DEFAULT FALSE,
+    lease_owner VARCHAR(100),
+    lease_expires_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP,
+    FOREIGN KEY (workflow_id) REFERENCES wf_workflow(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS wf_batch_run_row (
+    id BIGSERIAL PRIMARY KEY,
+    batch_id BIGINT NOT NULL,
+    row_index INTEGER NOT NULL,
+    variables TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    sequence BIGINT,
+    execution_id BIGINT,
+    output TEXT,
+    error_message TEXT,
+    duration_ms BIGINT,
+    started_at TIMESTAMP,
+    completed_at TIMESTAMP,
+    FOREIGN KEY (batch_id) REFERENCES wf_batch_run(id) ON DELETE CASCADE
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_batch_run_row_index ON wf_batch_run_row(batch_id, row_index);
+CREATE INDEX IF NOT EXISTS idx_batch_run_row_sequence ON wf_batch_run_row(batch_id, sequence);
+CREATE INDEX IF NOT EXISTS idx_batch_run_row_pending ON wf_batch_run_row(batch_id, row_index) WHERE status = 'PENDING';
+
+-- 添加表和字段注释
+COMMENT ON TABLE wf_batch_run IS '工作流批量执行表';
+
+COMMENT ON COLUMN wf_batch_run.id IS '主键ID';
+COMMENT ON COLUMN wf_batch_run.workflow_id IS '工作流ID';
+COMMENT ON COLUMN wf_batch_run.status IS '状态：RUNNING、COMPLETED';
+COMMENT ON COLUMN wf_batch_run.total_rows IS '输入行数';
+COMMENT ON COLUMN wf_batch_run.finished_rows IS '已结束的行数（含失败），同时作为行结果sequence的计数器';
+COMMENT ON COLUMN wf_batch_run.failed_rows IS '失败的行数';
+COMMENT ON COLUMN wf_batch_run.parallelism IS '同时执行的行数';
+COMMENT ON COLUMN wf_batch_run.refresh_memo IS '强制刷新节点输出记忆缓存';
+COMMENT ON COLUMN wf_batch_run.lease_owner IS '持有租约的实例';
+COMMENT ON COLUMN wf_batch_run.lease_expires_at IS '租约过期时间，过期后可在其他实例恢复';
+COMMENT ON COLUMN wf_batch_run.created_at IS '创建时间';
+COMMENT ON COLUMN wf_batch_run.completed_at IS '完成时间';
+
+COMMENT ON TABLE wf_batch_run_row IS '工作流批量执行行表';
+
+COMMENT ON COLUMN wf_batch_run_row.id IS '主键ID';
+COMMENT ON COLUMN wf_batch_run_row.batch_id IS '批量执行ID';
+COMMENT ON COLUMN wf_batch_run_row.row_index IS '输入中的行序号（从0开始）';
+COMMENT ON COLUMN wf_batch_run_row.variables IS 'start节点变量（JSON）';
+COMMENT ON COLUMN wf_batch_run_row.status IS '状态：PENDING、RUNNING、COMPLETED、FAILED';
+COMMENT ON COLUMN wf_batch_run_row.sequence IS '完成顺序，断点续传时按该值回放';
+COMMENT ON COLUMN wf_batch_run_row.execution_id IS '对应的工作流执行ID';
+COMMENT ON COLUMN wf_batch_run_row.output IS '执行输出';
+COMMENT ON COLUMN wf_batch_run_row.error_message IS '失败原因';
+COMMENT ON COLUMN wf_batch_run_row.duration_ms IS '执行耗时（毫秒）';
+COMMENT ON COLUMN wf_batch_run_row.started_at IS '开始时间';
+COMMENT ON COLUMN wf_batch_run_row.completed_at IS '完成时间';
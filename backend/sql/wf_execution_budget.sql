@@ -0,0 +1,28 @@
+-- PostgreSQL 17 兼容的执行预算增量脚本
+-- 说明: 为wf_execution增加提交时指定的预算（token数、大模型调用次数、耗时）、已消耗的token数与调用次数以及第一次开始执行的时间；
+-- 检查点记录执行至此累计的消耗，恢复执行时从最后一个检查点继续累计。
+-- 预算耗尽的执行以BUDGET_EXCEEDED状态结束，停止时仍在执行的节点以BUDGET_EXCEEDED状态记录步骤
+
+ALTER TABLE wf_execution ADD COLUMN IF NOT EXISTS max_tokens BIGINT;
+ALTER TABLE wf_execution ADD COLUMN IF NOT EXISTS max_llm_calls INTEGER;
+ALTER TABLE wf_execution ADD COLUMN IF NOT EXISTS max_duration_seconds BIGINT;
+ALTER TABLE wf_execution ADD COLUMN IF NOT EXISTS tokens_used BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE wf_execution ADD COLUMN IF NOT EXISTS llm_calls INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE wf_execution ADD COLUMN IF NOT EXISTS started_at TIMESTAMP;
+
+ALTER TABLE wf_execution_checkpoint ADD COLUMN IF NOT EXISTS tokens_used BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE wf_execution_checkpoint ADD COLUMN IF NOT EXISTS llm_calls INTEGER NOT NULL DEFAULT 0;
+
+-- 添加字段注释
+COMMENT ON COLUMN wf_execution.status IS '执行状态：PENDING / RUNNING / COMPLETED / FAILED / BUDGET_EXCEEDED';
+COMMENT ON COLUMN wf_execution.max_tokens IS '提交时指定的token预算，与引擎默认值、开始节点配置同时生效，取最严格的限制';
+COMMENT ON COLUMN wf_execution.max_llm_calls IS '提交时指定的大模型调用次数预算';
+COMMENT ON COLUMN wf_execution.max_duration_seconds IS '提交时指定的耗时预算（秒）';
+COMMENT ON COLUMN wf_execution.tokens_used IS '已消耗的token数（本地估算），执行结束时写入';
+COMMENT ON COLUMN wf_execution.llm_calls IS '大模型调用次数（不含命中输出记忆缓存的节点），执行结束时写入';
+COMMENT ON COLUMN wf_execution.started_at IS '第一次开始执行的时间（数据库时钟），耗时预算从此计时';
+
+COMMENT ON COLUMN wf_execution_checkpoint.tokens_used IS '执行至此累计消耗的token数';
+COMMENT ON COLUMN wf_execution_checkpoint.llm_calls IS '执行至此累计的大模型调用次数';
+
+COMMENT ON COLUMN wf_execution_step.status IS '步骤状态：COMPLETED / FAILED / SKIPPED / BUDGET_EXCEEDED';
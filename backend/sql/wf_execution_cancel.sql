@@ -0,0 +1,12 @@
+-- PostgreSQL 17 兼容的执行取消增量脚本
+-- 说明: 为wf_execution增加取消请求时间。取消PENDING执行时直接置为CANCELLED；
+-- 取消RUNNING执行时写入cancel_requested_at并通过NOTIFY wf_execution_cancel通知持有租约的实例，
+-- 持有实例停止派发节点、中断执行中的节点，在宽限期内等待节点结束并以CANCELLED状态记录其步骤后以CANCELLED状态结束
+-- （LISTEN不可用时按轮询间隔查询cancel_requested_at）
+
+ALTER TABLE wf_execution ADD COLUMN IF NOT EXISTS cancel_requested_at TIMESTAMP;
+
+-- 添加字段注释
+COMMENT ON COLUMN wf_execution.status IS '执行状态：PENDING / RUNNING / COMPLETED / FAILED / BUDGET_EXCEEDED / CANCELLED';
+COMMENT ON COLUMN wf_execution_step.status IS '步骤状态：COMPLETED / FAILED / SKIPPED / BUDGET_EXCEEDED / CANCELLED';
+COMMENT ON COLUMN wf_execution.cancel_requested_at IS '取消请求时间（数据库时钟），持有租约的实例据此停止执行；接管的实例直接以CANCELLED结束';
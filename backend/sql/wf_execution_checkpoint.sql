@@ -0,0 +1,34 @@
+-- PostgreSQL 17 兼容的工作流执行检查点增量脚本
+-- 说明: 为已有库增加执行变量、租约字段与检查点表，支持崩溃或重新部署后从最后一个检查点恢复执行
+
+ALTER TABLE wf_execution ADD COLUMN IF NOT EXISTS variables TEXT;
+ALTER TABLE wf_execution ADD COLUMN IF NOT EXISTS lease_owner VARCHAR(100);
+ALTER TABLE wf_execution ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP;
+
+CREATE TABLE IF NOT EXISTS wf_execution_checkpoint (
+    id BIGSERIAL PRIMARY KEY,
+    execution_id BIGINT NOT NULL,
+    sequence INTEGER NOT NULL,
+    node_id VARCHAR(255) NOT NULL,
+    output TEXT,
+    branch VARCHAR(50),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (execution_id) REFERENCES wf_execution(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_execution_running_lease ON wf_execution(lease_expires_at) WHERE status = 'RUNNING';
+CREATE UNIQUE INDEX IF NOT EXISTS uk_execution_checkpoint_sequence ON wf_execution_checkpoint(execution_id, sequence);
+
+-- 添加表和字段注释
+COMMENT ON COLUMN wf_execution.variables IS '执行变量（JSON），开始执行时写入一次';
+COMMENT ON COLUMN wf_execution.lease_owner IS '租约持有实例';
+COMMENT ON COLUMN wf_execution.lease_expires_at IS '租约到期时间（数据库时钟），过期后其他实例可接管';
+
+COMMENT ON TABLE wf_execution_checkpoint IS '工作流执行检查点表，每个节点完成后追加一行';
+
+COMMENT ON COLUMN wf_execution_checkpoint.execution_id IS '执行记录ID';
+COMMENT ON COLUMN wf_execution_checkpoint.sequence IS '节点完成顺序，从1开始';
+COMMENT ON COLUMN wf_execution_checkpoint.node_id IS '节点ID';
+COMMENT ON COLUMN wf_execution_checkpoint.output IS '节点输出，不产生输出的节点为空（恢复时由前驱输出重新计算）';
+COMMENT ON COLUMN wf_execution_checkpoint.branch IS '条件节点选择的分支';
+COMMENT ON COLUMN wf_execution_checkpoint.created_at IS '写入时间';
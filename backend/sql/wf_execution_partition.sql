@@ -0,0 +1,95 @@
+-- PostgreSQL 17 兼容的执行记录分区增量脚本
+-- 说明: wf_execution改为按created_at按月范围分区（wf_execution_pYYYYMM，另有默认分区wf_execution_default），
+-- 主键改为(id, created_at)；检查点与步骤不再以外键引用执行记录（分区表的外键需包含分区键），
+-- 由保留期清理与删除工作流时一并删除，步骤改为以外键引用工作流。
+-- 早于保留期的分区由应用整体删除，删除前按(工作流, 日期, 状态)汇总到wf_execution_rollup。
+-- 执行前请停止应用；已有数据按月复制到新分区，数据量大时耗时较长。
+-- 新表按旧表的全部字段（LIKE ... INCLUDING DEFAULTS）创建，在预算、取消等脚本之前或之后执行都不会丢失字段；
+-- 需在wf_execution_step.sql、wf_execution_checkpoint.sql之后执行（租约部分索引引用检查点脚本增加的字段），执行顺序见README.md
+
+DO $$
+DECLARE
+    month_start DATE;
+    last_month DATE := (date_trunc('month', CURRENT_DATE) + INTERVAL '2 month')::DATE;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass('wf_execution') AND relkind = 'p') THEN
+        RETURN;
+    END IF;
+
+    IF to_regclass('wf_execution_checkpoint') IS NOT NULL THEN
+        ALTER TABLE wf_execution_checkpoint DROP CONSTRAINT IF EXISTS wf_execution_checkpoint_execution_id_fkey;
+    END IF;
+    IF to_regclass('wf_execution_step') IS NOT NULL THEN
+        ALTER TABLE wf_execution_step DROP CONSTRAINT IF EXISTS wf_execution_step_execution_id_fkey;
+    END IF;
+
+    ALTER TABLE wf_execution RENAME TO wf_execution_legacy;
+    ALTER TABLE wf_execution_legacy RENAME CONSTRAINT wf_execution_pkey TO wf_execution_legacy_pkey;
+
+    -- 字段、非空约束与默认值（包括id的序列）取自旧表，其他脚本增加的字段随之保留
+    CREATE TABLE wf_execution (
+        LIKE wf_execution_legacy INCLUDING DEFAULTS,
+        PRIMARY KEY (id, created_at),
+        FOREIGN KEY (workflow_id) REFERENCES wf_workflow(id) ON DELETE CASCADE
+    ) PARTITION BY RANGE (created_at);
+
+    CREATE TABLE wf_execution_default PARTITION OF wf_execution DEFAULT;
+
+    -- 已有数据最早的月份到之后两个月
+    month_start := COALESCE((SELECT date_trunc('month', MIN(created_at))::DATE FROM wf_execution_legacy),
+                            date_trunc('month', CURRENT_DATE)::DATE);
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF wf_execution FOR VALUES FROM (%L) TO (%L)',
+                       'wf_execution_p' || to_char(month_start, 'YYYYMM'), month_start, (month_start + INTERVAL '1 month')::DATE);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+
+    INSERT INTO wf_execution SELECT * FROM wf_execution_legacy;
+
+    -- 序列改由新表持有，避免随旧表删除
+    ALTER SEQUENCE wf_execution_id_seq OWNED BY wf_execution.id;
+    DROP TABLE wf_execution_legacy;
+END $$;
+
+DO $$
+BEGIN
+    IF to_regclass('wf_execution_step') IS NULL THEN
+        RETURN;
+    END IF;
+    ALTER TABLE wf_execution_step DROP CONSTRAINT IF EXISTS wf_execution_step_workflow_id_fkey;
+    DELETE FROM wf_execution_step s WHERE NOT EXISTS (SELECT 1 FROM wf_workflow w WHERE w.id = s.workflow_id);
+    ALTER TABLE wf_execution_step ADD CONSTRAINT wf_execution_step_workflow_id_fkey
+        FOREIGN KEY (workflow_id) REFERENCES wf_workflow(id) ON DELETE CASCADE;
+END $$;
+
+CREATE TABLE IF NOT EXISTS wf_execution_rollup (
+    workflow_id BIGINT NOT NULL,
+    day DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    executions BIGINT NOT NULL DEFAULT 0,
+    total_duration_ms BIGINT NOT NULL DEFAULT 0,
+    max_duration_ms BIGINT,
+    total_tokens BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (workflow_id, day, status),
+    FOREIGN KEY (workflow_id) REFERENCES wf_workflow(id) ON DELETE CASCADE
+);
+
+-- 组合索引支持按工作流或状态的键集分页（created_at倒序），替代原先的单列索引
+DROP INDEX IF EXISTS idx_execution_workflow_id;
+DROP INDEX IF EXISTS idx_execution_status;
+CREATE INDEX IF NOT EXISTS idx_execution_workflow_created ON wf_execution(workflow_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_execution_status_created ON wf_execution(status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_execution_running_lease ON wf_execution(lease_expires_at) WHERE status = 'RUNNING';
+CREATE INDEX IF NOT EXISTS idx_execution_pending ON wf_execution(id) WHERE status = 'PENDING';
+
+-- 添加表和字段注释
+COMMENT ON TABLE wf_execution IS '工作流执行记录表，按created_at按月范围分区';
+COMMENT ON TABLE wf_execution_rollup IS '执行汇总表，超过保留期的执行删除前按工作流、日期、状态汇总';
+
+COMMENT ON COLUMN wf_execution_rollup.workflow_id IS '工作流ID';
+COMMENT ON COLUMN wf_execution_rollup.day IS '执行创建日期';
+COMMENT ON COLUMN wf_execution_rollup.status IS '执行状态：COMPLETED / FAILED';
+COMMENT ON COLUMN wf_execution_rollup.executions IS '执行次数';
+COMMENT ON COLUMN wf_execution_rollup.total_duration_ms IS '总耗时（毫秒，创建到结束）';
+COMMENT ON COLUMN wf_execution_rollup.max_duration_ms IS '最大耗时（毫秒）';
+COMMENT ON COLUMN wf_execution_rollup.total_tokens IS '执行消耗的token总数（wf_execution.tokens_used之和，估算值）';
@@ -0,0 +1,40 @@
+-- PostgreSQL 17 兼容的 wf_execution_step 表创建脚本（已有库的增量脚本）
+-- 说明: 工作流执行步骤表，记录每个节点的耗时、输入输出长度、token数与错误，用于诊断慢工作流
+
+CREATE TABLE IF NOT EXISTS wf_execution_step (
+    id BIGSERIAL PRIMARY KEY,
+    execution_id BIGINT NOT NULL,
+    workflow_id BIGINT NOT NULL,
+    node_id VARCHAR(255) NOT NULL,
+    node_type VARCHAR(50),
+    status VARCHAR(20) NOT NULL,
+    branch VARCHAR(50),
+    started_at TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP,
+    duration_ms BIGINT,
+    input_chars INTEGER,
+    output_chars INTEGER,
+    tokens INTEGER,
+    error_message TEXT,
+    FOREIGN KEY (execution_id) REFERENCES wf_execution(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_execution_step_execution ON wf_execution_step(execution_id, started_at);
+CREATE INDEX IF NOT EXISTS idx_execution_step_workflow_node ON wf_execution_step(workflow_id, node_id);
+
+-- 添加表和字段注释
+COMMENT ON TABLE wf_execution_step IS '工作流执行步骤表，每个节点的一次执行或跳过记录一行';
+
+COMMENT ON COLUMN wf_execution_step.execution_id IS '执行记录ID';
+COMMENT ON COLUMN wf_execution_step.workflow_id IS '工作流ID';
+COMMENT ON COLUMN wf_execution_step.node_id IS '节点ID';
+COMMENT ON COLUMN wf_execution_step.node_type IS '节点类型';
+COMMENT ON COLUMN wf_execution_step.status IS '步骤状态：COMPLETED / FAILED / SKIPPED / BUDGET_EXCEEDED / CANCELLED';
+COMMENT ON COLUMN wf_execution_step.branch IS '条件节点选择的分支';
+COMMENT ON COLUMN wf_execution_step.started_at IS '开始时间';
+COMMENT ON COLUMN wf_execution_step.completed_at IS '结束时间';
+COMMENT ON COLUMN wf_execution_step.duration_ms IS '耗时（毫秒）';
+COMMENT ON COLUMN wf_execution_step.input_chars IS '输入长度（字符数）';
+COMMENT ON COLUMN wf_execution_step.output_chars IS '输出长度（字符数）';
+COMMENT ON COLUMN wf_execution_step.tokens IS '消耗的token数（估算值）';
+COMMENT ON COLUMN wf_execution_step.error_message IS '错误信息';
@@ -0,0 +1,11 @@
+-- PostgreSQL 17 兼容的工作流执行工作池增量脚本
+-- 说明: 增加租约令牌与PENDING部分索引，支持多个实例通过FOR UPDATE SKIP LOCKED认领执行，
+-- 租约被接管后旧持有者的写入因令牌不符而失效
+
+ALTER TABLE wf_execution ADD COLUMN IF NOT EXISTS lease_token BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_execution_pending ON wf_execution(id) WHERE status = 'PENDING';
+
+-- 添加字段注释
+COMMENT ON COLUMN wf_execution.variables IS '执行变量（JSON），PENDING时为调用参数，开始执行时写入合并后的变量';
+COMMENT ON COLUMN wf_execution.lease_token IS '租约令牌，每次认领递增，检查点与执行结果的写入以令牌为条件';
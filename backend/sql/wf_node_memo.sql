@@ -0,0 +1,31 @@
+-- PostgreSQL 17 兼容的节点输出记忆缓存增量脚本
+-- 说明: 开启memoize的Agent节点按(Agent ID, Agent配置版本, 提示词, 上一节点输出)缓存回复，
+-- 相同输入的重复执行直接复用输出；执行步骤记录是否命中缓存
+
+ALTER TABLE wf_execution ADD COLUMN IF NOT EXISTS refresh_memo BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE wf_execution_step ADD COLUMN IF NOT EXISTS cache_hit BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE TABLE IF NOT EXISTS wf_node_memo (
+    cache_key CHAR(32) PRIMARY KEY,
+    agent_id VARCHAR(100) NOT NULL,
+    output TEXT NOT NULL,
+    bytes INTEGER NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_node_memo_expires ON wf_node_memo(expires_at);
+CREATE INDEX IF NOT EXISTS idx_node_memo_created ON wf_node_memo(created_at);
+
+-- 添加表和字段注释
+COMMENT ON COLUMN wf_execution.refresh_memo IS '强制刷新节点输出记忆缓存';
+COMMENT ON COLUMN wf_execution_step.cache_hit IS '输出是否来自节点输出记忆缓存';
+
+COMMENT ON TABLE wf_node_memo IS '节点输出记忆缓存表';
+
+COMMENT ON COLUMN wf_node_memo.cache_key IS '缓存键：Agent ID、Agent配置版本、提示词与上一节点输出的MD5';
+COMMENT ON COLUMN wf_node_memo.agent_id IS 'Agent ID';
+COMMENT ON COLUMN wf_node_memo.output IS '缓存的节点输出';
+COMMENT ON COLUMN wf_node_memo.bytes IS '输出的UTF-8字节数，用于限制总容量';
+COMMENT ON COLUMN wf_node_memo.created_at IS '写入时间';
+COMMENT ON COLUMN wf_node_memo.expires_at IS '过期时间（数据库时钟）';
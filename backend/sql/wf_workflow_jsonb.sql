@@ -0,0 +1,12 @@
+-- PostgreSQL 17 兼容的工作流配置jsonb增量脚本
+-- 说明: 工作流配置改为jsonb保存（二进制格式，可按路径读取部分字段），
+-- 并增加保存时生成的列表摘要（节点信息、变量信息、配置检查提示），列表接口只读取摘要，不读取与解析完整配置；
+-- 历史数据的摘要为空，首次出现在列表中时生成并回写。
+-- 拓扑的configHash改为与键顺序无关的结构哈希，历史拓扑在首次编译时重新推导
+
+ALTER TABLE wf_workflow ALTER COLUMN config TYPE JSONB USING config::jsonb;
+ALTER TABLE wf_workflow ADD COLUMN IF NOT EXISTS summary JSONB;
+
+-- 添加字段注释
+COMMENT ON COLUMN wf_workflow.config IS '工作流配置（jsonb），保存后键的顺序与空白会被规范化';
+COMMENT ON COLUMN wf_workflow.summary IS '保存时由配置生成的列表摘要（jsonb）：nodes节点信息、vars开始节点变量、warnings配置检查提示';
@@ -0,0 +1,12 @@
+-- PostgreSQL 17 兼容的工作流搜索增量脚本
+-- 说明: 工作流目录按名称、描述的不区分大小写子串匹配（ILIKE '%关键词%'）在数据库中过滤并分页，
+-- 使用pg_trgm三元组GIN索引避免全表扫描（关键词少于3个字符时仍为顺序扫描）
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_workflow_name_trgm ON wf_workflow USING gin (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_workflow_description_trgm ON wf_workflow USING gin (description gin_trgm_ops);
+
+-- 添加索引注释
+COMMENT ON INDEX idx_workflow_name_trgm IS '工作流名称三元组索引，支持ILIKE模糊搜索';
+COMMENT ON INDEX idx_workflow_description_trgm IS '工作流描述三元组索引，支持ILIKE模糊搜索';
@@ -0,0 +1,9 @@
+-- PostgreSQL 17 兼容的工作流拓扑增量脚本
+-- 说明: 保存工作流时校验配置（缺少开始节点、连线引用不存在的节点、环路、不可达节点），
+-- 并保存推导出的拓扑（节点下标、邻接数组、拓扑顺序），编译执行计划时直接使用；
+-- 历史数据的拓扑为空，首次编译时推导并回写
+
+ALTER TABLE wf_workflow ADD COLUMN IF NOT EXISTS topology TEXT;
+
+-- 添加字段注释
+COMMENT ON COLUMN wf_workflow.topology IS '保存时由配置推导的拓扑（JSON）：节点下标、出边与入边、拓扑顺序、环路、校验错误与提示，configHash与配置不一致时重新推导';
@@ -1,36 +1,169 @@
 -- 工作流数据库初始化脚本
 -- 创建工作流相关表
 
+-- 名称、描述的模糊搜索使用三元组索引
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 -- 创建工作流表
 CREATE TABLE IF NOT EXISTS wf_workflow (
     id BIGSERIAL PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     description TEXT,
-    config TEXT NOT NULL,
+    config JSONB NOT NULL,
+    topology TEXT,
+    summary JSONB,
     status VARCHAR(20) NOT NULL DEFAULT 'DRAFT',
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
--- 创建工作流执行记录表
+-- 创建工作流执行记录表（按created_at按月范围分区，主键包含分区键）
 CREATE TABLE IF NOT EXISTS wf_execution (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGSERIAL,
     workflow_id BIGINT NOT NULL,
     status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
     current_node VARCHAR(255),
     error_message TEXT,
     result TEXT,
+    variables TEXT,
+    lease_owner VARCHAR(100),
+    lease_expires_at TIMESTAMP,
+    lease_token BIGINT NOT NULL DEFAULT 0,
+    refresh_memo BOOLEAN NOT NULL DEFAULT FALSE,
+    max_tokens BIGINT,
+    max_llm_calls INTEGER,
+    max_duration_seconds BIGINT,
+    tokens_used BIGINT NOT NULL DEFAULT 0,
+    llm_calls INTEGER NOT NULL DEFAULT 0,
+    started_at TIMESTAMP,
+    cancel_requested_at TIMESTAMP,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     completed_at TIMESTAMP,
+    PRIMARY KEY (id, created_at),
+    FOREIGN KEY (workflow_id) REFERENCES wf_workflow(id) ON DELETE CASCADE
+) PARTITION BY RANGE (created_at);
+
+-- 默认分区兜底没有对应月分区的记录；月分区由应用（ExecutionHistoryManager）提前创建并按保留期删除
+CREATE TABLE IF NOT EXISTS wf_execution_default PARTITION OF wf_execution DEFAULT;
+
+DO $$
+DECLARE
+    month_start DATE;
+BEGIN
+    FOR i IN 0..2 LOOP
+        month_start := (date_trunc('month', CURRENT_DATE) + make_interval(months => i))::DATE;
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF wf_execution FOR VALUES FROM (%L) TO (%L)',
+                       'wf_execution_p' || to_char(month_start, 'YYYYMM'), month_start, (month_start + INTERVAL '1 month')::DATE);
+    END LOOP;
+END $$;
+
+-- 创建执行汇总表（超过保留期的执行删除前按工作流、日期、状态汇总）
+CREATE TABLE IF NOT EXISTS wf_execution_rollup (
+    workflow_id BIGINT NOT NULL,
+    day DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    executions BIGINT NOT NULL DEFAULT 0,
+    total_duration_ms BIGINT NOT NULL DEFAULT 0,
+    max_duration_ms BIGINT,
+    total_tokens BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (workflow_id, day, status),
+    FOREIGN KEY (workflow_id) REFERENCES wf_workflow(id) ON DELETE CASCADE
+);
+
+-- 创建工作流执行检查点表（每个节点完成后追加一行，用于崩溃后恢复；随执行记录由应用删除）
+CREATE TABLE IF NOT EXISTS wf_execution_checkpoint (
+    id BIGSERIAL PRIMARY KEY,
+    execution_id BIGINT NOT NULL,
+    sequence INTEGER NOT NULL,
+    node_id VARCHAR(255) NOT NULL,
+    output TEXT,
+    branch VARCHAR(50),
+    tokens_used BIGINT NOT NULL DEFAULT 0,
+    llm_calls INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 创建工作流执行步骤表（每个节点的一次执行或跳过记录一行，由引擎异步批量写入）
+CREATE TABLE IF NOT EXISTS wf_execution_step (
+    id BIGSERIAL PRIMARY KEY,
+    execution_id BIGINT NOT NULL,
+    workflow_id BIGINT NOT NULL,
+    node_id VARCHAR(255) NOT NULL,
+    node_type VARCHAR(50),
+    status VARCHAR(20) NOT NULL,
+    branch VARCHAR(50),
+    started_at TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP,
+    duration_ms BIGINT,
+    input_chars INTEGER,
+    output_chars INTEGER,
+    tokens INTEGER,
+    cache_hit BOOLEAN NOT NULL DEFAULT FALSE,
+    error_message TEXT,
     FOREIGN KEY (workflow_id) REFERENCES wf_workflow(id) ON DELETE CASCADE
 );
 
+-- 创建节点输出记忆缓存表
+CREATE TABLE IF NOT EXISTS wf_node_memo (
+    cache_key CHAR(32) PRIMARY KEY,
+    agent_id VARCHAR(100) NOT NULL,
+    output TEXT NOT NULL,
+    bytes INTEGER NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL
+);
+
+-- 创建批量执行表
+CREATE TABLE IF NOT EXISTS wf_batch_run (
+    id BIGSERIAL PRIMARY KEY,
+    workflow_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'RUNNING',
+    total_rows INTEGER NOT NULL,
+    finished_rows INTEGER NOT NULL DEFAULT 0,
+    failed_rows INTEGER NOT NULL DEFAULT 0,
+    parallelism INTEGER NOT NULL,
+    refresh_memo BOOLEAN NOT NULL DEFAULT FALSE,
+    lease_owner VARCHAR(100),
+    lease_expires_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP,
+    FOREIGN KEY (workflow_id) REFERENCES wf_workflow(id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS wf_batch_run_row (
+    id BIGSERIAL PRIMARY KEY,
+    batch_id BIGINT NOT NULL,
+    row_index INTEGER NOT NULL,
+    variables TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    sequence BIGINT,
+    execution_id BIGINT,
+    output TEXT,
+    error_message TEXT,
+    duration_ms BIGINT,
+    started_at TIMESTAMP,
+    completed_at TIMESTAMP,
+    FOREIGN KEY (batch_id) REFERENCES wf_batch_run(id) ON DELETE CASCADE
+);
+
 -- 创建索引
 CREATE INDEX IF NOT EXISTS idx_workflow_status ON wf_workflow(status);
 CREATE INDEX IF NOT EXISTS idx_workflow_name ON wf_workflow(name);
-CREATE INDEX IF NOT EXISTS idx_execution_workflow_id ON wf_execution(workflow_id);
-CREATE INDEX IF NOT EXISTS idx_execution_status ON wf_execution(status);
+CREATE INDEX IF NOT EXISTS idx_workflow_name_trgm ON wf_workflow USING gin (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_workflow_description_trgm ON wf_workflow USING gin (description gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_execution_workflow_created ON wf_execution(workflow_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_execution_status_created ON wf_execution(status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_execution_running_lease ON wf_execution(lease_expires_at) WHERE status = 'RUNNING';
+CREATE INDEX IF NOT EXISTS idx_execution_pending ON wf_execution(id) WHERE status = 'PENDING';
+CREATE UNIQUE INDEX IF NOT EXISTS uk_execution_checkpoint_sequence ON wf_execution_checkpoint(execution_id, sequence);
+CREATE INDEX IF NOT EXISTS idx_execution_step_execution ON wf_execution_step(execution_id, started_at);
+CREATE INDEX IF NOT EXISTS idx_execution_step_workflow_node ON wf_execution_step(workflow_id, node_id);
+CREATE INDEX IF NOT EXISTS idx_node_memo_expires ON wf_node_memo(expires_at);
+CREATE INDEX IF NOT EXISTS idx_node_memo_created ON wf_node_memo(created_at);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_batch_run_row_index ON wf_batch_run_row(batch_id, row_index);
+CREATE INDEX IF NOT EXISTS idx_batch_run_row_sequence ON wf_batch_run_row(batch_id, sequence);
+CREATE INDEX IF NOT EXISTS idx_batch_run_row_pending ON wf_batch_run_row(batch_id, row_index) WHERE status = 'PENDING';
 
 -- 插入示例数据（可选）
 INSERT INTO wf_workflow (name, description, config, status) VALUES 
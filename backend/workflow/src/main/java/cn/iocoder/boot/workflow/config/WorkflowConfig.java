@@ -4,13 +4,18 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * 工作流配置类
@@ -33,6 +38,18 @@ public class WorkflowConfig {
                 .build();
     }
 
+    /**
+     * Jira、Confluence节点共享的HTTP客户端：非阻塞发送，同一主机的连接保持长连接并复用
+     */
+    @Bean("workflowConnectorHttpClient")
+    public HttpClient workflowConnectorHttpClient(@Value("${workflow.connector.connect-timeout-seconds:10}") long connectTimeoutSeconds) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
     /**
      * 配置ObjectMapper
      */
@@ -49,4 +66,67 @@ public class WorkflowConfig {
         
         return mapper;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 工作流后台执行线程池
+     */
+    @Bean("workflowExecutor")
+    public Executor workflowExecutor(@Value("${workflow.engine.pool-size:8}") int poolSize,
+                                     @Value("${workflow.engine.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("Workflow-");
+        // 队列满时拒绝提交，避免在请求线程中同步执行整个工作流
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+
+        log.info("工作流执行线程池初始化完成，线程数: {}", poolSize);
+
+        return executor;
+    }
+
+    /**
+     * 工作流节点执行线程池：各次执行的并行分支共享，单次执行的并发数由引擎另行限制
+     */
+    @Bean("workflowNodeExecutor")
+    public Executor workflowNodeExecutor(@Value("${workflow.engine.node-pool-size:32}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("WorkflowNode-");
+        // 队列满时由调度线程执行，退化为串行
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setKeepAliveSeconds(60);
+        executor.initialize();
+
+        log.info("工作流节点执行线程池初始化完成，线程数: {}", poolSize);
+
+        return executor;
+    }
+
+    /**
+     * 批量执行线程池：每个线程逐行领取并同步执行工作流，各批次的线程数由并行数限制
+     */
+    @Bean("workflowBatchExecutor")
+    public Executor workflowBatchExecutor(@Value("${workflow.batch.pool-size:16}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("WorkflowBatch-");
+        // 队列满时拒绝，批次以已启动的线程数继续执行
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+
+        log.info("工作流批量执行线程池初始化完成，线程数: {}", poolSize);
+
+        return executor;
+    }
+}
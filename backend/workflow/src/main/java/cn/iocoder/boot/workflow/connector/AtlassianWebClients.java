@@ -0,0 +1,73 @@
+package cn.iocoder.boot.workflow.connector;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Jira、Confluence连接器共用的WebClient构建与错误描述
+ *
+ * @author workflow-team
+ */
+final class AtlassianWebClients {
+
+    private static final int MAX_ERROR_BODY_CHARS = 500;
+
+    private AtlassianWebClients() {
+    }
+
+    /**
+     * 基于共享的JDK HttpClient构建WebClient：有用户名时使用Basic认证（用户名 + API token），
+     * 只有token时使用Bearer认证（Server/DC的个人访问令牌）
+     *
+     * @return baseUrl为空时返回null，表示未配置
+     */
+    static WebClient build(HttpClient httpClient, String baseUrl, String username, String apiToken) {
+        if (!StringUtils.hasText(baseUrl)) {
+            return null;
+        }
+        WebClient.Builder builder = WebClient.builder()
+                .clientConnector(new JdkClientHttpConnector(httpClient))
+                .baseUrl(trimTrailingSlash(baseUrl))
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024));
+        if (StringUtils.hasText(username)) {
+            String credentials = username + ":" + (apiToken == null ? "" : apiToken);
+            builder.defaultHeader(HttpHeaders.AUTHORIZATION,
+                    "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        } else if (StringUtils.hasText(apiToken)) {
+            builder.defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiToken);
+        }
+        return builder.build();
+    }
+
+    static String trimTrailingSlash(String url) {
+        String trimmed = url.trim();
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+
+    /**
+     * 错误信息：HTTP错误附带状态码与截断的响应体
+     */
+    static String describe(Throwable error) {
+        if (error instanceof WebClientResponseException) {
+            WebClientResponseException response = (WebClientResponseException) error;
+            String body = response.getResponseBodyAsString(StandardCharsets.UTF_8);
+            if (body.length() > MAX_ERROR_BODY_CHARS) {
+                body = body.substring(0, MAX_ERROR_BODY_CHARS) + "...";
+            }
+            return "HTTP " + response.getStatusCode().value() + (body.isEmpty() ? "" : ": " + body);
+        }
+        return error.getMessage();
+    }
+}
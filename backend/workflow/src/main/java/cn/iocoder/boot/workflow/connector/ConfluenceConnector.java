@@ -0,0 +1,220 @@
+package cn.iocoder.boot.workflow.connector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Confluence REST API连接器：页面读取、创建与更新
+ * 读取页面时带上本地缓存的ETag发条件请求，页面未变化时服务端返回304，直接使用缓存内容；
+ * 缓存按最近访问淘汰，最多保留cache-max-pages个页面，本实例写入的页面会立即失效
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Component
+public class ConfluenceConnector {
+
+    private static final Pattern PAGE_ID_PATTERN = Pattern.compile("(?:/pages/|[?&]pageId=)(\\d+)");
+
+    private final WebClient webClient;
+    private final String baseUrl;
+    private final Map<String, CachedPage> cache;
+
+    @Value("${workflow.connector.request-timeout-seconds:30}")
+    private long requestTimeoutSeconds;
+
+    public ConfluenceConnector(@Qualifier("workflowConnectorHttpClient") HttpClient httpClient,
+                               @Value("${workflow.connector.confluence.base-url:}") String baseUrl,
+                               @Value("${workflow.connector.confluence.username:}") String username,
+                               @Value("${workflow.connector.confluence.api-token:}") String apiToken,
+                               @Value("${workflow.connector.confluence.cache-max-pages:500}") int cacheMaxPages) {
+        this.webClient = AtlassianWebClients.build(httpClient, baseUrl, username, apiToken);
+        this.baseUrl = webClient == null ? null : AtlassianWebClients.trimTrailingSlash(baseUrl);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+                return size() > cacheMaxPages;
+            }
+        };
+    }
+
+    public boolean isConfigured() {
+        return webClient != null;
+    }
+
+    /**
+     * 从页面链接中解析页面ID，支持/pages/{id}/...与?pageId={id}两种形式
+     *
+     * @return 无法解析时返回null
+     */
+    public static String pageIdFromUrl(String url) {
+        Matcher matcher = PAGE_ID_PATTERN.matcher(url);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * 读取页面（含storage格式正文与版本号），命中缓存时带If-None-Match发条件请求
+     */
+    public Mono<Page> getPage(String pageId) {
+        CachedPage cached;
+        synchronized (cache) {
+            cached = cache.get(pageId);
+        }
+        return webClient.get()
+                .uri("/rest/api/content/{id}?expand=body.storage,version", pageId)
+                .headers(headers -> {
+                    if (cached != null) {
+                        headers.setIfNoneMatch(cached.etag);
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (cached != null && response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                        log.debug("Confluence页面未变化，使用缓存: pageId={}", pageId);
+                        return response.releaseBody().thenReturn(cached.page);
+                    }
+                    if (response.statusCode().isError()) {
+                        return response.createError();
+                    }
+                    String etag = response.headers().asHttpHeaders().getETag();
+                    return response.bodyToMono(JsonNode.class).map(json -> {
+                        Page page = toPage(json);
+                        synchronized (cache) {
+                            if (etag != null) {
+                                cache.put(pageId, new CachedPage(etag, page));
+                            } else {
+                                cache.remove(pageId);
+                            }
+                        }
+                        return page;
+                    });
+                })
+                .timeout(Duration.ofSeconds(requestTimeoutSeconds))
+                .onErrorMap(WebClientResponseException.class,
+                        e -> new RuntimeException("读取Confluence页面失败: pageId=" + pageId + ", " + AtlassianWebClients.describe(e), e));
+    }
+
+    /**
+     * 按空间与标题查找页面ID
+     *
+     * @return 页面不存在时为空
+     */
+    public Mono<String> findPageId(String spaceKey, String title) {
+        return webClient.get()
+                .uri(uri -> uri.path("/rest/api/content")
+                        .queryParam("spaceKey", "{spaceKey}")
+                        .queryParam("title", "{title}")
+                        .queryParam("type", "page")
+                        .queryParam("limit", 1)
+                        .build(spaceKey, title))
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(Duration.ofSeconds(requestTimeoutSeconds))
+                .flatMap(response -> {
+                    JsonNode first = response.path("results").path(0);
+                    return first.has("id") ? Mono.just(first.path("id").asText()) : Mono.empty();
+                })
+                .onErrorMap(WebClientResponseException.class,
+                        e -> new RuntimeException("查询Confluence页面失败: " + spaceKey + "/" + title + ", " + AtlassianWebClients.describe(e), e));
+    }
+
+    /**
+     * 在空间下创建页面
+     *
+     * @param storageBody storage格式（XHTML）的正文
+     */
+    public Mono<Page> createPage(String spaceKey, String title, String storageBody) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("type", "page");
+        request.put("title", title);
+        request.put("space", Map.of("key", spaceKey));
+        request.put("body", storageBody(storageBody));
+        return webClient.post()
+                .uri("/rest/api/content")
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(Duration.ofSeconds(requestTimeoutSeconds))
+                .map(ConfluenceConnector.this::toPage)
+                .onErrorMap(WebClientResponseException.class,
+                        e -> new RuntimeException("创建Confluence页面失败: " + spaceKey + "/" + title + ", " + AtlassianWebClients.describe(e), e));
+    }
+
+    /**
+     * 更新页面正文，版本号在当前版本上加一；页面在读取后被他人修改时Confluence返回409
+     */
+    public Mono<Page> updatePage(Page current, String title, String storageBody) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("id", current.getId());
+        request.put("type", "page");
+        request.put("title", title);
+        request.put("version", Map.of("number", current.getVersion() + 1));
+        request.put("body", storageBody(storageBody));
+        return webClient.put()
+                .uri("/rest/api/content/{id}", current.getId())
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(Duration.ofSeconds(requestTimeoutSeconds))
+                .map(ConfluenceConnector.this::toPage)
+                .doFinally(signal -> {
+                    synchronized (cache) {
+                        cache.remove(current.getId());
+                    }
+                })
+                .onErrorMap(WebClientResponseException.class,
+                        e -> new RuntimeException("更新Confluence页面失败: pageId=" + current.getId() + ", " + AtlassianWebClients.describe(e), e));
+    }
+
+    private static Map<String, Object> storageBody(String value) {
+        return Map.of("storage", Map.of("value", value, "representation", "storage"));
+    }
+
+    private Page toPage(JsonNode json) {
+        JsonNode links = json.path("_links");
+        String base = links.path("base").asText(baseUrl);
+        String webui = links.path("webui").asText("");
+        return new Page(json.path("id").asText(),
+                json.path("title").asText(),
+                json.path("version").path("number").asInt(1),
+                json.path("body").path("storage").path("value").asText(""),
+                webui.isEmpty() ? null : base + webui);
+    }
+
+    /**
+     * Confluence页面
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Page {
+        private final String id;
+        private final String title;
+        private final int version;
+        /**
+         * storage格式（XHTML）的正文
+         */
+        private final String body;
+        private final String url;
+    }
+
+    @AllArgsConstructor
+    private static class CachedPage {
+        private final String etag;
+        private final Page page;
+    }
+}
@@ -0,0 +1,229 @@
+package cn.iocoder.boot.workflow.connector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Jira REST API（v2）连接器：issue批量创建与状态转换
+ * 请求通过共享的非阻塞HTTP客户端发出，批次与转换请求并发执行（不超过max-concurrency），连接保持长连接复用
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Component
+public class JiraConnector {
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 去掉末尾斜杠的Jira地址，未配置时为null
+     */
+    @Getter
+    private final String baseUrl;
+
+    @Value("${workflow.connector.request-timeout-seconds:30}")
+    private long requestTimeoutSeconds;
+
+    @Value("${workflow.connector.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${workflow.connector.jira.bulk-size:50}")
+    private int bulkSize;
+
+    /**
+     * 指派人字段：Jira Cloud为accountId，Jira Server/DC为name
+     */
+    @Getter
+    @Value("${workflow.connector.jira.assignee-field:accountId}")
+    private String assigneeField;
+
+    public JiraConnector(@Qualifier("workflowConnectorHttpClient") HttpClient httpClient,
+                         ObjectMapper objectMapper,
+                         @Value("${workflow.connector.jira.base-url:}") String baseUrl,
+                         @Value("${workflow.connector.jira.username:}") String username,
+                         @Value("${workflow.connector.jira.api-token:}") String apiToken) {
+        this.webClient = AtlassianWebClients.build(httpClient, baseUrl, username, apiToken);
+        this.objectMapper = objectMapper;
+        this.baseUrl = webClient == null ? null : AtlassianWebClients.trimTrailingSlash(baseUrl);
+    }
+
+    public boolean isConfigured() {
+        return webClient != null;
+    }
+
+    /**
+     * issue的浏览地址
+     */
+    public String browseUrl(String key) {
+        return baseUrl + "/browse/" + key;
+    }
+
+    /**
+     * 批量创建issue：每bulk-size个一批调用/rest/api/2/issue/bulk，各批并发发出；
+     * 任一issue创建失败时返回错误，错误信息中包含已创建的issue
+     *
+     * @param issues 各issue的fields
+     * @return 按输入顺序创建的issue key
+     */
+    public Mono<List<String>> createIssues(List<Map<String, Object>> issues) {
+        int size = Math.max(1, Math.min(bulkSize, 50));
+        List<List<Map<String, Object>>> batches = new ArrayList<>();
+        for (int from = 0; from < issues.size(); from += size) {
+            batches.add(issues.subList(from, Math.min(from + size, issues.size())));
+        }
+        return Flux.range(0, batches.size())
+                .flatMapSequential(batch -> createBatch(batches.get(batch), batch * size), Math.max(1, maxConcurrency))
+                .collectList()
+                .flatMap(results -> {
+                    List<String> keys = new ArrayList<>();
+                    List<String> errors = new ArrayList<>();
+                    for (BatchResult result : results) {
+                        keys.addAll(result.keys);
+                        errors.addAll(result.errors);
+                    }
+                    if (!errors.isEmpty()) {
+                        return Mono.error(new RuntimeException("Jira issue创建失败: " + errors
+                                + (keys.isEmpty() ? "" : "，已创建: " + keys)));
+                    }
+                    return Mono.just(keys);
+                });
+    }
+
+    /**
+     * 把新建的issue转换到指定状态：按第一个issue查询当前状态与可用的转换（同一项目与类型的新issue处于同一工作流状态），
+     * 已处于目标状态时不转换；转换名称或目标状态名称匹配即可，比较时忽略大小写与空格、连字符等符号
+     */
+    public Mono<Void> transition(List<String> keys, String status) {
+        if (keys.isEmpty()) {
+            return Mono.empty();
+        }
+        String wanted = normalize(status);
+        return webClient.get()
+                .uri("/rest/api/2/issue/{key}?fields=status&expand=transitions", keys.get(0))
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(Duration.ofSeconds(requestTimeoutSeconds))
+                .flatMap(response -> {
+                    if (wanted.equals(normalize(response.path("fields").path("status").path("name").asText()))) {
+                        return Mono.empty();
+                    }
+                    List<String> available = new ArrayList<>();
+                    for (JsonNode transition : response.path("transitions")) {
+                        String name = transition.path("name").asText();
+                        available.add(name);
+                        if (wanted.equals(normalize(name)) || wanted.equals(normalize(transition.path("to").path("name").asText()))) {
+                            return Mono.just(transition.path("id").asText());
+                        }
+                    }
+                    return Mono.error(new RuntimeException("Jira issue无法转换到状态[" + status + "]，可用的转换: " + available));
+                })
+                .flatMapMany(transitionId -> Flux.fromIterable(keys)
+                        .flatMap(key -> webClient.post()
+                                .uri("/rest/api/2/issue/{key}/transitions", key)
+                                .bodyValue(Map.of("transition", Map.of("id", transitionId)))
+                                .retrieve()
+                                .toBodilessEntity()
+                                .timeout(Duration.ofSeconds(requestTimeoutSeconds)), Math.max(1, maxConcurrency)))
+                .then()
+                .onErrorMap(WebClientResponseException.class,
+                        e -> new RuntimeException("Jira issue状态转换失败: " + AtlassianWebClients.describe(e), e));
+    }
+
+    /**
+     * 创建一批issue；部分失败时Jira仍返回已创建的issue与失败元素的下标，整批失败时返回400与同样结构的errors
+     *
+     * @param offset 本批第一个issue在全部issue中的下标
+     */
+    private Mono<BatchResult> createBatch(List<Map<String, Object>> batch, int offset) {
+        List<Map<String, Object>> updates = new ArrayList<>(batch.size());
+        for (Map<String, Object> fields : batch) {
+            updates.add(Map.of("fields", fields));
+        }
+        return webClient.post()
+                .uri("/rest/api/2/issue/bulk")
+                .bodyValue(Map.of("issueUpdates", updates))
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(Duration.ofSeconds(requestTimeoutSeconds))
+                .map(response -> parseBatch(response, offset))
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    JsonNode body = readJson(e.getResponseBodyAsString(StandardCharsets.UTF_8));
+                    if (body != null && body.has("errors")) {
+                        return Mono.just(parseBatch(body, offset));
+                    }
+                    return Mono.just(BatchResult.failed("第" + (offset + 1) + "-" + (offset + batch.size()) + "个: "
+                            + AtlassianWebClients.describe(e)));
+                });
+    }
+
+    private static BatchResult parseBatch(JsonNode response, int offset) {
+        BatchResult result = new BatchResult();
+        for (JsonNode issue : response.path("issues")) {
+            result.keys.add(issue.path("key").asText());
+        }
+        for (JsonNode error : response.path("errors")) {
+            JsonNode elementErrors = error.path("elementErrors");
+            List<String> messages = new ArrayList<>();
+            elementErrors.path("errorMessages").forEach(message -> messages.add(message.asText()));
+            Iterator<Map.Entry<String, JsonNode>> fields = elementErrors.path("errors").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                messages.add(field.getKey() + ": " + field.getValue().asText());
+            }
+            result.errors.add("第" + (offset + error.path("failedElementNumber").asInt() + 1) + "个: " + messages);
+        }
+        return result;
+    }
+
+    private JsonNode readJson(String body) {
+        try {
+            return body == null || body.isEmpty() ? null : objectMapper.readTree(body);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String normalize(String name) {
+        StringBuilder normalized = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 一批issue的创建结果
+     */
+    private static final class BatchResult {
+        private final List<String> keys = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+
+        private static BatchResult failed(String error) {
+            BatchResult result = new BatchResult();
+            result.errors.add(error);
+            return result;
+        }
+    }
+}
@@ -1,15 +1,35 @@
 package cn.iocoder.boot.workflow.controller;
 
 import cn.iocoder.boot.workflow.dto.*;
+import cn.iocoder.boot.workflow.engine.ExecutionEvent;
+import cn.iocoder.boot.workflow.engine.ExecutionHistoryManager;
+import cn.iocoder.boot.workflow.entity.Workflow;
+import cn.iocoder.boot.workflow.entity.WorkflowExecution;
+import cn.iocoder.boot.workflow.entity.WorkflowExecutionStep;
+import cn.iocoder.boot.workflow.repository.WorkflowExecutionRepository;
+import cn.iocoder.boot.workflow.service.WorkflowBatchRunService;
 import cn.iocoder.boot.workflow.service.WorkflowService;
+import cn.iocoder.boot.workflow.service.WorkflowTransferService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +45,12 @@ import java.util.Map;
 public class WorkflowController {
 
     private final WorkflowService workflowService;
+    private final WorkflowBatchRunService workflowBatchRunService;
+    private final WorkflowTransferService workflowTransferService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${workflow.events.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
 
     /**
      * 获取工作流列表
@@ -84,6 +110,91 @@ public class WorkflowController {
         return Map.of("message", message);
     }
 
+    /**
+     * 取消执行：未开始的执行直接取消；执行中的执行通知持有实例停止，返回时可能仍为RUNNING，
+     * 结束状态通过执行事件或执行记录查看
+     */
+    @PostMapping("/executions/{executionId}/cancel")
+    public Map<String, Object> cancelExecution(@PathVariable Long executionId) {
+        log.info("取消执行: executionId={}", executionId);
+        return workflowService.cancelExecution(executionId);
+    }
+
+    /**
+     * 获取执行步骤时间线（步骤异步批量写入，刚完成的节点可能稍有延迟）
+     */
+    @GetMapping("/executions/{executionId}/steps")
+    public List<WorkflowExecutionStep> getExecutionSteps(@PathVariable Long executionId) {
+        log.info("获取执行步骤: executionId={}", executionId);
+        return workflowService.getExecutionSteps(executionId);
+    }
+
+    /**
+     * 执行进度SSE：node-started / token-delta / node-completed / execution-finished
+     * 断线重连时浏览器携带Last-Event-ID，只回放之后的事件；空闲时定期发送心跳注释
+     */
+    @GetMapping(value = "/executions/{executionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ExecutionEvent>> streamExecutionEvents(
+            @PathVariable Long executionId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        log.info("订阅执行事件: executionId={}, lastEventId={}", executionId, lastEventId);
+        Flux<ServerSentEvent<ExecutionEvent>> events = workflowService
+                .streamExecutionEvents(executionId, lastEventId == null ? 0 : lastEventId)
+                .map(event -> ServerSentEvent.<ExecutionEvent>builder()
+                        .id(String.valueOf(event.getSequence()))
+                        .event(event.getType())
+                        .data(event)
+                        .build());
+        Flux<ServerSentEvent<ExecutionEvent>> heartbeat = Flux.interval(Duration.ofSeconds(heartbeatSeconds))
+                .map(tick -> ServerSentEvent.<ExecutionEvent>builder().comment("heartbeat").build());
+        return events.publish(shared -> Flux.merge(shared, heartbeat.takeUntilOther(shared.then())));
+    }
+
+    /**
+     * 按节点汇总工作流历次执行的耗时与token消耗
+     */
+    @GetMapping("/{id}/step-summary")
+    public List<WorkflowExecutionRepository.NodeStepSummary> getNodeStepSummary(@PathVariable Long id) {
+        log.info("获取节点步骤汇总: workflowId={}", id);
+        return workflowService.getNodeStepSummary(id);
+    }
+
+    /**
+     * 键集分页查询工作流的执行记录，按创建时间倒序；下一页传上一页返回的nextCursor
+     */
+    @GetMapping("/{id}/executions")
+    public ExecutionHistoryPage getExecutions(
+            @PathVariable Long id,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        log.info("获取执行记录: workflowId={}, cursor={}, limit={}", id, cursor, limit);
+        return workflowService.getExecutions(id, cursor, limit);
+    }
+
+    /**
+     * 键集分页查询某状态的执行记录，按创建时间倒序
+     */
+    @GetMapping("/executions")
+    public ExecutionHistoryPage getExecutionsByStatus(
+            @RequestParam("status") WorkflowExecution.ExecutionStatus status,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        log.info("按状态获取执行记录: status={}, cursor={}, limit={}", status, cursor, limit);
+        return workflowService.getExecutionsByStatus(status, cursor, limit);
+    }
+
+    /**
+     * 已超过保留期的执行按(日期, 状态)汇总的统计
+     */
+    @GetMapping("/{id}/execution-rollups")
+    public List<ExecutionHistoryManager.Rollup> getExecutionRollups(
+            @PathVariable Long id,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("获取执行汇总: workflowId={}, from={}, to={}", id, from, to);
+        return workflowService.getExecutionRollups(id, from, to);
+    }
+
     /**
      * 导出工作流
      */
@@ -104,7 +215,7 @@ public class WorkflowController {
         String filename = exportData.get("name") + "_workflow.json";
         
         try {
-            String jsonData = new com.fasterxml.jackson.databind.ObjectMapper()
+            String jsonData = objectMapper
                     .writerWithDefaultPrettyPrinter()
                     .writeValueAsString(exportData);
             
@@ -118,6 +229,65 @@ public class WorkflowController {
         }
     }
 
+    /**
+     * 批量导出工作流：按ID顺序流式输出，format为ndjson（每行一个工作流）或zip（每个工作流一个JSON文件）
+     * 条件均为空时导出全部，记录格式与单个导出相同，可直接用于批量导入
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportWorkflows(
+            @RequestParam(value = "format", defaultValue = WorkflowTransferService.FORMAT_NDJSON) String format,
+            @RequestParam(value = "ids", required = false) List<Long> ids,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "keyword", required = false) String keyword) {
+        log.info("批量导出工作流: format={}, ids={}, status={}, keyword={}", format, ids, status, keyword);
+
+        // 开始输出后无法再返回错误，参数先在这里校验
+        String resolvedFormat = format.trim().toLowerCase();
+        if (!WorkflowTransferService.FORMAT_NDJSON.equals(resolvedFormat)
+                && !WorkflowTransferService.FORMAT_ZIP.equals(resolvedFormat)) {
+            throw new RuntimeException("不支持的导出格式: " + format + "，仅支持ndjson与zip");
+        }
+        Workflow.WorkflowStatus workflowStatus = null;
+        if (status != null && !status.isBlank()) {
+            try {
+                workflowStatus = Workflow.WorkflowStatus.valueOf(status.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("不支持的工作流状态: " + status);
+            }
+        }
+        Workflow.WorkflowStatus statusFilter = workflowStatus;
+        boolean zip = WorkflowTransferService.FORMAT_ZIP.equals(resolvedFormat);
+        StreamingResponseBody body = output ->
+                workflowTransferService.exportWorkflows(output, resolvedFormat, ids, statusFilter, keyword);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=workflows." + (zip ? "zip" : "ndjson"))
+                .contentType(zip ? MediaType.parseMediaType("application/zip") : MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * 批量导入工作流：multipart上传file或直接以请求体提交NDJSON / zip，逐条读取并按批插入
+     *
+     * @param keepStatus 是否保留导出时的状态，默认全部导入为草稿
+     */
+    @PostMapping("/import/bulk")
+    public WorkflowBulkImportResult importWorkflows(@RequestParam(value = "file", required = false) MultipartFile file,
+                                                    @RequestParam(value = "format", required = false) String format,
+                                                    @RequestParam(value = "keepStatus", defaultValue = "false") boolean keepStatus,
+                                                    HttpServletRequest request) throws IOException {
+        log.info("批量导入工作流: format={}, keepStatus={}", format, keepStatus);
+        if (file != null && !file.isEmpty()) {
+            try (InputStream input = file.getInputStream()) {
+                return workflowTransferService.importWorkflows(input, format, file.getOriginalFilename(),
+                        file.getContentType(), keepStatus);
+            }
+        }
+        try (InputStream input = request.getInputStream()) {
+            return workflowTransferService.importWorkflows(input, format, null, request.getContentType(), keepStatus);
+        }
+    }
+
     /**
      * 导入工作流
      */
@@ -135,4 +305,56 @@ public class WorkflowController {
         log.info("运行工作流: id={}", request.getId());
         return workflowService.runWorkflow(request);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 批量执行：上传CSV（首行为变量名）或NDJSON（每行一个JSON对象），每行作为一次执行的start变量
+     * 可以multipart上传file，也可以直接以请求体提交；结果按完成顺序以NDJSON返回，最后一行为汇总
+     */
+    @PostMapping(value = "/{id}/batch-runs", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchRunEvent> startBatchRun(@PathVariable Long id,
+                                             @RequestParam(value = "file", required = false) MultipartFile file,
+                                             @RequestParam(value = "format", required = false) String format,
+                                             @RequestParam(value = "parallelism", required = false) Integer parallelism,
+                                             @RequestParam(value = "refreshMemo", defaultValue = "false") boolean refreshMemo,
+                                             HttpServletRequest request) throws IOException {
+        log.info("批量执行工作流: id={}, format={}, parallelism={}", id, format, parallelism);
+        if (file != null && !file.isEmpty()) {
+            try (InputStream input = file.getInputStream()) {
+                return workflowBatchRunService.startBatchRun(id, input, format, file.getOriginalFilename(),
+                        file.getContentType(), parallelism, refreshMemo);
+            }
+        }
+        try (InputStream input = request.getInputStream()) {
+            return workflowBatchRunService.startBatchRun(id, input, format, null, request.getContentType(), parallelism, refreshMemo);
+        }
+    }
+
+    /**
+     * 批量执行汇总：吞吐量、单行耗时分布与失败行
+     */
+    @GetMapping("/batch-runs/{batchId}")
+    public BatchRunSummary getBatchRunSummary(@PathVariable Long batchId) {
+        log.info("获取批量执行汇总: batchId={}", batchId);
+        return workflowBatchRunService.getBatchRunSummary(batchId);
+    }
+
+    /**
+     * 批量执行结果：回放完成顺序大于after的行，执行中时继续推送
+     */
+    @GetMapping(value = "/batch-runs/{batchId}/results", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchRunEvent> streamBatchRun(@PathVariable Long batchId,
+                                              @RequestParam(value = "after", defaultValue = "0") long after) {
+        log.info("订阅批量执行结果: batchId={}, after={}", batchId, after);
+        return workflowBatchRunService.streamBatchRun(batchId, after);
+    }
+
+    /**
+     * 恢复中断的批量执行：未完成的行在当前实例继续执行
+     */
+    @PostMapping(value = "/batch-runs/{batchId}/resume", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchRunEvent> resumeBatchRun(@PathVariable Long batchId,
+                                              @RequestParam(value = "after", defaultValue = "0") long after) {
+        log.info("恢复批量执行: batchId={}, after={}", batchId, after);
+        return workflowBatchRunService.resumeBatchRun(batchId, after);
+    }
+}
@@ -1,8 +1,17 @@
 package cn.iocoder.boot.workflow.controller;
 
+import cn.iocoder.boot.workflow.engine.ExecutionBudgetStats;
+import cn.iocoder.boot.workflow.engine.ExecutionCheckpointStore;
+import cn.iocoder.boot.workflow.engine.ExecutionWorkerPool;
+import cn.iocoder.boot.workflow.engine.NodeMemoCache;
+import cn.iocoder.boot.workflow.engine.PromptTemplateBenchmark;
+import cn.iocoder.boot.workflow.engine.condition.ConditionStats;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
@@ -17,8 +26,23 @@ import java.util.Map;
 @Slf4j
 @RestController
 @RequestMapping("/api/workflow/test")
+@RequiredArgsConstructor
 public class WorkflowTestController {
 
+    /**
+     * 模板渲染评估的参数上限
+     */
+    private static final int MAX_BENCHMARK_VARIABLES = 50;
+    private static final int MAX_BENCHMARK_VALUE_LENGTH = 2000;
+    private static final int MAX_BENCHMARK_ITERATIONS = 200000;
+    private static final long MAX_BENCHMARK_RENDERED_CHARS = 400_000_000L;
+
+    private final ConditionStats conditionStats;
+    private final ExecutionWorkerPool executionWorkerPool;
+    private final ExecutionCheckpointStore executionCheckpointStore;
+    private final NodeMemoCache nodeMemoCache;
+    private final ExecutionBudgetStats executionBudgetStats;
+
     @GetMapping("/status")
     public Map<String, Object> getStatus() {
         Map<String, Object> result = new HashMap<>();
@@ -39,4 +63,98 @@ public class WorkflowTestController {
         result.put("timestamp", LocalDateTime.now());
         return result;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 提示词模板渲染评估：对比预编译模板与String.replace、正则替换的耗时和内存分配
+     * 参数限制在上限内，迭代次数再按渲染总字符数上限缩减，单个请求不会长时间占用CPU
+     */
+    @GetMapping("/template-benchmark")
+    public Map<String, Object> templateBenchmark(
+            @RequestParam(value = "variables", defaultValue = "10") int variableCount,
+            @RequestParam(value = "valueLength", defaultValue = "200") int valueLength,
+            @RequestParam(value = "iterations", defaultValue = "100000") int iterations) {
+        variableCount = Math.max(1, Math.min(variableCount, MAX_BENCHMARK_VARIABLES));
+        valueLength = Math.max(1, Math.min(valueLength, MAX_BENCHMARK_VALUE_LENGTH));
+        long maxIterations = MAX_BENCHMARK_RENDERED_CHARS / ((long) variableCount * valueLength);
+        iterations = (int) Math.max(1, Math.min(iterations, Math.min(maxIterations, MAX_BENCHMARK_ITERATIONS)));
+        log.info("提示词模板渲染评估: variables={}, valueLength={}, iterations={}", variableCount, valueLength, iterations);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("variables", variableCount);
+        result.put("valueLength", valueLength);
+        result.put("iterations", iterations);
+        result.put("results", PromptTemplateBenchmark.run(variableCount, valueLength, iterations));
+        return result;
+    }
+
+    /**
+     * 条件节点求值统计，按累计耗时倒序
+     */
+    @GetMapping("/condition-stats")
+    public Map<String, Object> conditionStats() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("conditions", conditionStats.snapshot());
+        result.put("timestamp", LocalDateTime.now());
+        return result;
+    }
+
+    @DeleteMapping("/condition-stats")
+    public Map<String, Object> clearConditionStats() {
+        conditionStats.clear();
+        Map<String, Object> result = new HashMap<>();
+        result.put("cleared", true);
+        return result;
+    }
+
+    /**
+     * 工作池状态：本实例的执行数与认领数，以及各实例持有的执行数，用于观察多实例下的认领分布
+     */
+    @GetMapping("/workers")
+    public Map<String, Object> workers() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("instanceId", executionCheckpointStore.getInstanceId());
+        result.put("enabled", executionWorkerPool.isEnabled());
+        result.put("inFlight", executionWorkerPool.getInFlight());
+        result.put("maxInFlight", executionWorkerPool.getMaxInFlight());
+        result.put("claimed", executionWorkerPool.getClaimed());
+        result.put("cluster", executionCheckpointStore.countByOwner());
+        return result;
+    }
+
+    /**
+     * 节点输出记忆缓存的命中情况与内存、数据库占用
+     */
+    @GetMapping("/memo-stats")
+    public Map<String, Object> memoStats() {
+        Map<String, Object> result = new HashMap<>(nodeMemoCache.stats());
+        result.put("timestamp", LocalDateTime.now());
+        return result;
+    }
+
+    @DeleteMapping("/memo-cache")
+    public Map<String, Object> clearMemoCache() {
+        nodeMemoCache.clear();
+        Map<String, Object> result = new HashMap<>();
+        result.put("cleared", true);
+        return result;
+    }
+
+    /**
+     * 执行预算消耗统计：按工作流累计的token数、大模型调用次数与预算耗尽次数，按token数倒序
+     */
+    @GetMapping("/budget-stats")
+    public Map<String, Object> budgetStats() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("workflows", executionBudgetStats.snapshot());
+        result.put("timestamp", LocalDateTime.now());
+        return result;
+    }
+
+    @DeleteMapping("/budget-stats")
+    public Map<String, Object> clearBudgetStats() {
+        executionBudgetStats.clear();
+        Map<String, Object> result = new HashMap<>();
+        result.put("cleared", true);
+        return result;
+    }
+}
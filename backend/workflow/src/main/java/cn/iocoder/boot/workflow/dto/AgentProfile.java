@@ -0,0 +1,29 @@
+package cn.iocoder.boot.workflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Agent节点执行时用到的Agent配置摘要
+ *
+ * @author workflow-team
+ */
+@Data
+@AllArgsConstructor
+public class AgentProfile {
+
+    /**
+     * Agent不存在时的占位
+     */
+    public static final AgentProfile MISSING = new AgentProfile(null, null);
+
+    /**
+     * 配置版本：模型、温度、最大token数、系统提示词等影响回复的配置的摘要，配置修改后随之变化
+     */
+    private String version;
+
+    /**
+     * 最大输出token数，未配置时为null
+     */
+    private Integer maxTokens;
+}
@@ -0,0 +1,80 @@
+package cn.iocoder.boot.workflow.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 批量执行的NDJSON结果行
+ * <ul>
+ *     <li>started：批量执行已创建，batchId用于查询进度与恢复</li>
+ *     <li>row：一行变量执行结束，sequence为完成顺序，断线后按sequence续传</li>
+ *     <li>summary：批量执行的汇总，之后不再有结果行</li>
+ * </ul>
+ *
+ * @author workflow-team
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchRunEvent {
+
+    public static final String STARTED = "started";
+    public static final String ROW = "row";
+    public static final String SUMMARY = "summary";
+
+    private String type;
+
+    private Long batchId;
+
+    /**
+     * row：完成顺序，从1开始
+     */
+    private Long sequence;
+
+    /**
+     * row：输入中的行号，从0开始
+     */
+    private Integer rowIndex;
+
+    /**
+     * row：COMPLETED / FAILED
+     */
+    private String status;
+
+    private Long executionId;
+
+    /**
+     * row：本行的start节点变量
+     */
+    private Map<String, String> variables;
+
+    /**
+     * row：工作流最终输出
+     */
+    private String output;
+
+    private String error;
+
+    /**
+     * row：本行耗时（毫秒）
+     */
+    private Long durationMs;
+
+    /**
+     * started：总行数
+     */
+    private Integer totalRows;
+
+    /**
+     * summary：批量执行汇总
+     */
+    private BatchRunSummary summary;
+
+    public static BatchRunEvent of(String type, Long batchId) {
+        BatchRunEvent event = new BatchRunEvent();
+        event.setType(type);
+        event.setBatchId(batchId);
+        return event;
+    }
+}
@@ -0,0 +1,74 @@
+package cn.iocoder.boot.workflow.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量执行汇总：进度、吞吐量、单行耗时分布与失败行
+ *
+ * @author workflow-team
+ */
+@Data
+public class BatchRunSummary {
+
+    private Long batchId;
+
+    private Long workflowId;
+
+    /**
+     * RUNNING / COMPLETED
+     */
+    private String status;
+
+    private Integer parallelism;
+
+    private Integer totalRows;
+
+    private Integer completedRows;
+
+    private Integer failedRows;
+
+    /**
+     * 未完成的行数（等待或执行中）
+     */
+    private Integer pendingRows;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime completedAt;
+
+    /**
+     * 从创建到完成（未完成时到当前）的耗时
+     */
+    private Long elapsedMs;
+
+    /**
+     * 每分钟完成的行数（含失败行）
+     */
+    private Double rowsPerMinute;
+
+    private Double avgLatencyMs;
+
+    private Double p50LatencyMs;
+
+    private Double p95LatencyMs;
+
+    private Long maxLatencyMs;
+
+    /**
+     * 失败行（最多返回100条）
+     */
+    private List<Failure> failures;
+
+    @Data
+    public static class Failure {
+
+        private Integer rowIndex;
+
+        private Long executionId;
+
+        private String error;
+    }
+}
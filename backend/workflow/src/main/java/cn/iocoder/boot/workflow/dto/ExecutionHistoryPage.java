@@ -0,0 +1,23 @@
+package cn.iocoder.boot.workflow.dto;
+
+import cn.iocoder.boot.workflow.entity.WorkflowExecution;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 执行记录的一页（键集分页），按创建时间倒序
+ *
+ * @author workflow-team
+ */
+@Data
+public class ExecutionHistoryPage {
+
+    private List<WorkflowExecution> items = new ArrayList<>();
+
+    /**
+     * 下一页的游标（最后一条记录的"创建时间_ID"），没有更多记录时为null
+     */
+    private String nextCursor;
+}
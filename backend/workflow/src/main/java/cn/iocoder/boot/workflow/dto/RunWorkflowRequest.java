@@ -1,5 +1,6 @@
 package cn.iocoder.boot.workflow.dto;
 
+import cn.iocoder.boot.workflow.engine.ExecutionBudget;
 import lombok.Data;
 import jakarta.validation.constraints.NotBlank;
 import java.util.Map;
@@ -19,4 +20,14 @@ public class RunWorkflowRequest {
      * 初始参数
      */
     private Map<String, Object> args;
+
+    /**
+     * 强制刷新节点输出记忆缓存
+     */
+    private boolean refreshMemo;
+
+    /**
+     * 本次执行的预算，与引擎默认值、开始节点配置同时生效，每项取最严格的限制；可为null
+     */
+    private ExecutionBudget budget;
 } 
\ No newline at end of file
@@ -0,0 +1,31 @@
+package cn.iocoder.boot.workflow.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量导入结果
+ *
+ * @author workflow-team
+ */
+@Data
+public class WorkflowBulkImportResult {
+
+    /**
+     * 读取到的记录数
+     */
+    private int total;
+
+    private int imported;
+
+    private int failed;
+
+    /**
+     * 失败原因（最多100条），带记录序号与名称
+     */
+    private List<String> errors = new ArrayList<>();
+
+    private long elapsedMs;
+}
@@ -1,6 +1,7 @@
 package cn.iocoder.boot.workflow.dto;
 
 import lombok.Data;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -34,6 +35,12 @@ public class WorkflowDTO {
 
     private List<VariableInfo> vars;
 
+    /**
+     * 配置检查提示，如提示词引用了未定义的变量
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<String> warnings;
+
     /**
      * 节点信息
      */
@@ -1,5 +1,6 @@
 package cn.iocoder.boot.workflow.dto;
 
+import cn.iocoder.boot.workflow.engine.ExecutionBudget;
 import lombok.Data;
 import java.util.Map;
 
@@ -15,4 +16,14 @@ public class WorkflowExecuteRequest {
      * 初始变量
      */
     private Map<String, Object> variables;
+
+    /**
+     * 强制刷新节点输出记忆缓存：开启缓存的节点重新调用Agent并覆盖缓存
+     */
+    private boolean refreshMemo;
+
+    /**
+     * 本次执行的预算，与引擎默认值、开始节点配置同时生效，每项取最严格的限制；可为null
+     */
+    private ExecutionBudget budget;
 } 
\ No newline at end of file
@@ -0,0 +1,21 @@
+package cn.iocoder.boot.workflow.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 工作流列表摘要：保存时由配置生成，以jsonb保存在wf_workflow.summary中，列表接口只读取摘要，不读取与解析完整配置
+ *
+ * @author workflow-team
+ */
+@Data
+public class WorkflowSummary {
+
+    private List<WorkflowDTO.NodeInfo> nodes = new ArrayList<>();
+
+    private List<WorkflowDTO.VariableInfo> vars = new ArrayList<>();
+
+    private List<String> warnings = new ArrayList<>();
+}
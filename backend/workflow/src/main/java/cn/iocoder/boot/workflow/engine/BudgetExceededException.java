@@ -0,0 +1,26 @@
+package cn.iocoder.boot.workflow.engine;
+
+import lombok.Getter;
+
+/**
+ * 执行预算耗尽：引擎不再派发新节点，执行以BUDGET_EXCEEDED状态结束
+ *
+ * @author workflow-team
+ */
+@Getter
+public class BudgetExceededException extends RuntimeException {
+
+    public static final String TOKENS = "tokens";
+    public static final String LLM_CALLS = "llm-calls";
+    public static final String DURATION = "duration";
+
+    /**
+     * 耗尽的预算项：tokens、llm-calls或duration
+     */
+    private final String limit;
+
+    public BudgetExceededException(String limit, String message) {
+        super(message);
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,121 @@
+package cn.iocoder.boot.workflow.engine;
+
+/**
+ * 单次执行的预算消耗，只在调度线程中访问
+ * 调用大模型的节点派发前预留预估的token数（输入与输出上限）并计一次调用，已消耗加上执行中节点的预留超过上限时不再派发；
+ * 节点结束后以实际token数替换预留，命中输出记忆缓存的调用退回调用次数；
+ * 超出上限时执行以BUDGET_EXCEEDED结束；耗时上限从第一次开始执行计时，停止时执行中的节点由{@link #settleStopped}结算
+ *
+ * @author workflow-team
+ */
+final class BudgetTracker {
+
+    private final ExecutionBudget budget;
+
+    /**
+     * 截止时间（System.currentTimeMillis），没有耗时上限时为Long.MAX_VALUE
+     */
+    private final long deadline;
+
+    private long tokens;
+    private int llmCalls;
+    private long reservedTokens;
+
+    /**
+     * @param elapsedMillis 执行已耗费的时间，恢复执行时从第一次开始累计
+     * @param tokens        已消耗的token数，恢复执行时为最后一个检查点的累计值
+     * @param llmCalls      已调用大模型的次数
+     */
+    BudgetTracker(ExecutionBudget budget, long elapsedMillis, long tokens, int llmCalls) {
+        this.budget = budget;
+        this.deadline = budget.hasDurationLimit()
+                ? System.currentTimeMillis() - elapsedMillis + budget.getMaxDurationSeconds() * 1000L
+                : Long.MAX_VALUE;
+        this.tokens = tokens;
+        this.llmCalls = llmCalls;
+    }
+
+    boolean hasTokenLimit() {
+        return budget.hasTokenLimit();
+    }
+
+    boolean hasDeadline() {
+        return deadline != Long.MAX_VALUE;
+    }
+
+    long remainingMillis() {
+        return Math.max(0, deadline - System.currentTimeMillis());
+    }
+
+    /**
+     * 检查耗时上限
+     *
+     * @return 已超时时返回异常，否则为null
+     */
+    BudgetExceededException checkDeadline() {
+        if (System.currentTimeMillis() < deadline) {
+            return null;
+        }
+        return new BudgetExceededException(BudgetExceededException.DURATION,
+                "执行超出耗时预算: " + budget.getMaxDurationSeconds() + "秒");
+    }
+
+    /**
+     * 派发调用大模型的节点前检查并预留预算
+     *
+     * @param predictedTokens 预估token数
+     * @return 预算不足时返回异常（不预留），否则为null
+     */
+    BudgetExceededException reserve(WorkflowNode node, int predictedTokens) {
+        if (budget.hasLlmCallLimit() && llmCalls >= budget.getMaxLlmCalls()) {
+            return new BudgetExceededException(BudgetExceededException.LLM_CALLS,
+                    "执行超出大模型调用次数预算: " + budget.getMaxLlmCalls() + "次，节点[" + node.getLabel() + "]未执行");
+        }
+        if (budget.hasTokenLimit() && tokens + reservedTokens + predictedTokens > budget.getMaxTokens()) {
+            return new BudgetExceededException(BudgetExceededException.TOKENS,
+                    "执行超出token预算: 上限" + budget.getMaxTokens() + "，已消耗" + tokens + "，执行中预留" + reservedTokens
+                            + "，节点[" + node.getLabel() + "]预估" + predictedTokens);
+        }
+        llmCalls++;
+        reservedTokens += predictedTokens;
+        return null;
+    }
+
+    /**
+     * 节点结束后结算：释放预留，计入实际token数；命中输出记忆缓存时退回调用次数
+     *
+     * @param result 节点结果，失败时为null
+     */
+    void settle(int reserved, boolean modelCall, NodeResult result) {
+        reservedTokens -= reserved;
+        if (result != null) {
+            tokens += result.getTokens();
+            if (modelCall && result.isCached()) {
+                llmCalls--;
+            }
+        }
+    }
+
+    /**
+     * 执行停止时结束或被放弃的节点结算：有结果时与{@link #settle}相同；调用大模型的节点被中断或未结束时没有结果，
+     * 但调用已经产生消耗，按派发时的预估值计入
+     */
+    void settleStopped(int reserved, boolean modelCall, NodeResult result) {
+        if (result != null) {
+            settle(reserved, modelCall, result);
+            return;
+        }
+        reservedTokens -= reserved;
+        if (modelCall) {
+            tokens += reserved;
+        }
+    }
+
+    long getTokens() {
+        return tokens;
+    }
+
+    int getLlmCalls() {
+        return llmCalls;
+    }
+}
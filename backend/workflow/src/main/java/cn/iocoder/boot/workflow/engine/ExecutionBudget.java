@@ -0,0 +1,78 @@
+package cn.iocoder.boot.workflow.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 执行预算：单次执行的token总数（输入与输出，估算值）、大模型调用次数与耗时上限，null或不大于0表示不限制
+ * 引擎默认值（workflow.budget.*）、工作流开始节点配置（budgetTokens、budgetLlmCalls、budgetSeconds）
+ * 与提交执行时指定的预算同时生效，每项取最严格的限制
+ *
+ * @author workflow-team
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionBudget {
+
+    /**
+     * token总数上限，map与subworkflow展开的子图节点计入所属执行
+     */
+    private Long maxTokens;
+
+    /**
+     * 大模型调用次数上限，命中节点输出记忆缓存的调用不计入
+     */
+    private Integer maxLlmCalls;
+
+    /**
+     * 耗时上限（秒），从执行第一次开始计时，恢复执行时继续累计
+     */
+    private Long maxDurationSeconds;
+
+    /**
+     * 开始节点配置中的预算
+     */
+    public static ExecutionBudget of(WorkflowNode startNode) {
+        return new ExecutionBudget(startNode.configLong("budgetTokens", 0),
+                (int) Math.min(Integer.MAX_VALUE, startNode.configLong("budgetLlmCalls", 0)),
+                startNode.configLong("budgetSeconds", 0));
+    }
+
+    /**
+     * 与另一份预算合并，每项取较小的正数限制
+     */
+    public ExecutionBudget tighten(ExecutionBudget other) {
+        if (other == null) {
+            return this;
+        }
+        return new ExecutionBudget(min(maxTokens, other.maxTokens),
+                (int) min(maxLlmCalls == null ? null : maxLlmCalls.longValue(),
+                        other.maxLlmCalls == null ? null : other.maxLlmCalls.longValue()),
+                min(maxDurationSeconds, other.maxDurationSeconds));
+    }
+
+    public boolean hasTokenLimit() {
+        return positive(maxTokens);
+    }
+
+    public boolean hasLlmCallLimit() {
+        return maxLlmCalls != null && maxLlmCalls > 0;
+    }
+
+    public boolean hasDurationLimit() {
+        return positive(maxDurationSeconds);
+    }
+
+    private static long min(Long a, Long b) {
+        if (!positive(a)) {
+            return positive(b) ? b : 0;
+        }
+        return positive(b) ? Math.min(a, b) : a;
+    }
+
+    private static boolean positive(Long value) {
+        return value != null && value > 0;
+    }
+}
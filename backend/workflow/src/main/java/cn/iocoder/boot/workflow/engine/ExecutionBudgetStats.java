@@ -0,0 +1,108 @@
+package cn.iocoder.boot.workflow.engine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 执行预算消耗统计：每次执行结束时记录token数、大模型调用次数与耗尽的预算项
+ * 指标注册到容器中的MeterRegistry（没有时使用全局注册表，引入actuator后由其导出）：
+ * workflow.execution.tokens、workflow.execution.llm.calls、workflow.budget.exceeded（按limit区分）；
+ * 按工作流的累计值通过{@link #snapshot()}查看
+ *
+ * @author workflow-team
+ */
+@Component
+public class ExecutionBudgetStats {
+
+    private final MeterRegistry registry;
+    private final DistributionSummary tokenSummary;
+    private final DistributionSummary llmCallSummary;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public ExecutionBudgetStats(ObjectProvider<MeterRegistry> registryProvider) {
+        this.registry = registryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        this.tokenSummary = DistributionSummary.builder("workflow.execution.tokens")
+                .description("单次工作流执行消耗的token数（估算值）")
+                .baseUnit("tokens")
+                .register(registry);
+        this.llmCallSummary = DistributionSummary.builder("workflow.execution.llm.calls")
+                .description("单次工作流执行的大模型调用次数")
+                .register(registry);
+    }
+
+    /**
+     * @param exceeded 耗尽的预算项，未超出预算时为null
+     */
+    public void record(Long workflowId, long tokens, int llmCalls, String exceeded) {
+        tokenSummary.record(tokens);
+        llmCallSummary.record(llmCalls);
+        Entry entry = entries.computeIfAbsent(workflowId, Entry::new);
+        entry.executions.increment();
+        entry.tokens.add(tokens);
+        entry.llmCalls.add(llmCalls);
+        entry.maxTokens.accumulate(tokens);
+        if (exceeded != null) {
+            Counter.builder("workflow.budget.exceeded")
+                    .description("因预算耗尽而结束的工作流执行数")
+                    .tag("limit", exceeded)
+                    .register(registry)
+                    .increment();
+            entry.exceeded.computeIfAbsent(exceeded, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * 按工作流的累计消耗，按token数倒序
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparingLong((Entry entry) -> entry.tokens.sum()).reversed());
+        List<Map<String, Object>> result = new ArrayList<>(sorted.size());
+        for (Entry entry : sorted) {
+            long executions = entry.executions.sum();
+            long tokens = entry.tokens.sum();
+            Map<String, Object> exceeded = new LinkedHashMap<>();
+            entry.exceeded.forEach((limit, count) -> exceeded.put(limit, count.sum()));
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("workflowId", entry.workflowId);
+            item.put("executions", executions);
+            item.put("tokens", tokens);
+            item.put("avgTokens", executions == 0 ? 0 : tokens / executions);
+            item.put("maxTokens", entry.maxTokens.get());
+            item.put("llmCalls", entry.llmCalls.sum());
+            item.put("exceeded", exceeded);
+            result.add(item);
+        }
+        return result;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private static class Entry {
+        private final Long workflowId;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder tokens = new LongAdder();
+        private final LongAdder llmCalls = new LongAdder();
+        private final LongAccumulator maxTokens = new LongAccumulator(Math::max, 0);
+        private final Map<String, LongAdder> exceeded = new ConcurrentHashMap<>();
+
+        private Entry(Long workflowId) {
+            this.workflowId = workflowId;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package cn.iocoder.boot.workflow.engine;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 跨实例转发取消请求：在一个专用连接上LISTEN wf_execution_cancel，收到通知后取消本实例上对应的执行，
+ * 通知在请求事务提交后即时送达，取消通常在毫秒级生效
+ * 监听连接建立（或重连）后以及之后每个续期间隔补查一次本实例持有的已请求取消的执行，覆盖连接中断期间错过的通知；
+ * listen为false或数据库不是PostgreSQL时改为每隔poll-interval-ms轮询
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Component
+public class ExecutionCancelListener {
+
+    private final DataSource dataSource;
+    private final ExecutionCheckpointStore checkpointStore;
+    private final WorkflowEngine workflowEngine;
+
+    @Value("${workflow.cancel.listen:true}")
+    private boolean listen;
+
+    @Value("${workflow.cancel.poll-interval-ms:500}")
+    private long pollIntervalMs;
+
+    @Value("${workflow.lease.renew-interval-seconds:15}")
+    private long sweepIntervalSeconds;
+
+    private volatile boolean running;
+    private volatile Thread thread;
+
+    public ExecutionCancelListener(DataSource dataSource, ExecutionCheckpointStore checkpointStore,
+                                   WorkflowEngine workflowEngine) {
+        this.dataSource = dataSource;
+        this.checkpointStore = checkpointStore;
+        this.workflowEngine = workflowEngine;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        Thread listener = new Thread(this::loop, "WorkflowCancelListener");
+        listener.setDaemon(true);
+        thread = listener;
+        listener.start();
+        log.info("取消请求监听启动完成，LISTEN: {}, 轮询间隔: {}ms", listen, pollIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread listener = thread;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void loop() {
+        while (running) {
+            if (listen) {
+                listen();
+            } else {
+                sweep();
+            }
+            if (!sleep(pollIntervalMs)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 持有监听连接直到出错或停止；出错时返回，由外层按轮询间隔重连并在重连前补查一次
+     */
+    private void listen() {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isWrapperFor(PGConnection.class)) {
+                listen = false;
+                log.warn("数据库不支持LISTEN/NOTIFY，取消请求改为每{}ms轮询", pollIntervalMs);
+                return;
+            }
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + ExecutionCheckpointStore.CANCEL_CHANNEL);
+            }
+            try {
+                sweep();
+                long nextSweep = System.nanoTime() + TimeUnit.SECONDS.toNanos(sweepIntervalSeconds);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollIntervalMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            cancel(notification.getParameter());
+                        }
+                    }
+                    if (System.nanoTime() - nextSweep > 0) {
+                        sweep();
+                        nextSweep = System.nanoTime() + TimeUnit.SECONDS.toNanos(sweepIntervalSeconds);
+                    }
+                }
+            } finally {
+                unlisten(connection);
+            }
+        } catch (SQLException e) {
+            if (running) {
+                log.warn("取消请求监听连接中断，{}ms后重连: {}", pollIntervalMs, e.getMessage());
+                sweep();
+            }
+        }
+    }
+
+    /**
+     * 连接归还连接池前取消监听，避免之后的使用者收到通知
+     */
+    private static void unlisten(Connection connection) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("UNLISTEN " + ExecutionCheckpointStore.CANCEL_CHANNEL);
+        } catch (SQLException e) {
+            log.debug("取消监听失败，连接可能已断开: {}", e.getMessage());
+        }
+    }
+
+    private void cancel(String payload) {
+        try {
+            Long executionId = Long.valueOf(payload);
+            if (workflowEngine.cancel(executionId)) {
+                log.info("收到取消通知，停止执行: executionId={}", executionId);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("忽略无法识别的取消通知: {}", payload);
+        }
+    }
+
+    private void sweep() {
+        try {
+            for (Long executionId : checkpointStore.findCancelRequested()) {
+                if (workflowEngine.cancel(executionId)) {
+                    log.info("查询到取消请求，停止执行: executionId={}", executionId);
+                }
+            }
+        } catch (Exception e) {
+            log.error("查询取消请求失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package cn.iocoder.boot.workflow.engine;
+
+/**
+ * 执行已取消：引擎不再派发新节点并中断执行中的节点，执行以CANCELLED状态结束
+ *
+ * @author workflow-team
+ */
+public class ExecutionCancelledException extends RuntimeException {
+
+    public static final String MESSAGE = "执行已取消";
+
+    public ExecutionCancelledException() {
+        super(MESSAGE);
+    }
+}
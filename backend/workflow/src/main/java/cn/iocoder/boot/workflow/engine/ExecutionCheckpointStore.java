@@ -0,0 +1,335 @@
+package cn.iocoder.boot.workflow.engine;
+
+import cn.iocoder.boot.workflow.entity.WorkflowExecution;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 执行检查点与租约存储，实例崩溃或重新部署后，其他实例接管租约过期的执行并从检查点恢复，不重新执行已完成的节点
+ * <ul>
+ *     <li>检查点：每个节点完成后向wf_execution_checkpoint追加一行（节点ID、输出、分支与累计的预算消耗），变量只在开始时写入一次，
+ *     不重写整条执行记录；恢复时按完成顺序重放检查点即可重建调度状态，预算消耗从最后一个检查点继续累计</li>
+ *     <li>租约：RUNNING的执行记录由lease_owner实例持有，到期时间使用数据库时钟，避免实例间时钟偏差；
+ *     租约过期说明持有实例已停止，其他实例可以接管并从检查点恢复</li>
+ *     <li>认领：PENDING与租约过期的记录通过FOR UPDATE SKIP LOCKED认领，每次认领递增lease_token，
+ *     检查点、当前节点与执行结果的写入都以令牌为条件，被接管的旧持有者无法覆盖新持有者的状态</li>
+ *     <li>取消：RUNNING的执行写入cancel_requested_at并通过NOTIFY通知持有实例，持有实例停止后以CANCELLED结束；
+ *     持有实例已停止时，接管的实例认领后直接结束</li>
+ * </ul>
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Component
+public class ExecutionCheckpointStore {
+
+    private static final String LEASE_EXPIRES = "LOCALTIMESTAMP + (? * INTERVAL '1 second')";
+
+    /**
+     * 取消通知频道，payload为执行ID
+     */
+    public static final String CANCEL_CHANNEL = "wf_execution_cancel";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 当前实例的租约持有者标识
+     */
+    @Getter
+    private final String instanceId;
+
+    @Getter
+    @Value("${workflow.lease.duration-seconds:60}")
+    private long leaseSeconds;
+
+    public ExecutionCheckpointStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                    @Value("${workflow.instance-id:}") String instanceId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.instanceId = StringUtils.hasText(instanceId) ? instanceId : defaultInstanceId();
+    }
+
+    /**
+     * 提交执行：插入PENDING记录并保存调用参数与执行预算，由任一实例的工作池认领
+     *
+     * @param budget 提交时指定的预算，可为null
+     * @return 执行记录ID
+     */
+    public Long enqueue(Long workflowId, Map<String, String> arguments, boolean refreshMemo, ExecutionBudget budget) {
+        return jdbcTemplate.queryForObject("INSERT INTO wf_execution (workflow_id, status, variables, refresh_memo, max_tokens, "
+                        + "max_llm_calls, max_duration_seconds, created_at, updated_at) "
+                        + "VALUES (?, 'PENDING', ?, ?, ?, ?, ?, LOCALTIMESTAMP, LOCALTIMESTAMP) RETURNING id", Long.class,
+                workflowId, toJson(arguments), refreshMemo, budget == null ? null : budget.getMaxTokens(),
+                budget == null ? null : budget.getMaxLlmCalls(), budget == null ? null : budget.getMaxDurationSeconds());
+    }
+
+    /**
+     * 插入RUNNING记录并直接取得租约，用于在当前线程同步执行，不经过工作池
+     */
+    public Lease insertRunning(Long workflowId, Map<String, String> arguments, boolean refreshMemo, ExecutionBudget budget) {
+        return jdbcTemplate.queryForObject("INSERT INTO wf_execution (workflow_id, status, variables, refresh_memo, max_tokens, "
+                        + "max_llm_calls, max_duration_seconds, lease_owner, lease_token, lease_expires_at, created_at, updated_at) "
+                        + "VALUES (?, 'RUNNING', ?, ?, ?, ?, ?, ?, 1, " + LEASE_EXPIRES
+                        + ", LOCALTIMESTAMP, LOCALTIMESTAMP) RETURNING id, lease_token",
+                (rs, rowNum) -> new Lease(rs.getLong("id"), rs.getLong("lease_token")),
+                workflowId, toJson(arguments), refreshMemo, budget == null ? null : budget.getMaxTokens(),
+                budget == null ? null : budget.getMaxLlmCalls(), budget == null ? null : budget.getMaxDurationSeconds(),
+                instanceId, leaseSeconds);
+    }
+
+    /**
+     * 认领待执行的记录：PENDING的新执行与租约已过期的RUNNING执行（没有租约的同样视为过期），按ID先后认领
+     * FOR UPDATE SKIP LOCKED使多个实例同时认领时互不等待、不会认领到同一条；
+     * 每次认领lease_token加一，之前持有者的后续写入因令牌不符而失效
+     *
+     * @param limit 本次最多认领的条数
+     */
+    public List<Lease> claim(int limit) {
+        return jdbcTemplate.query("UPDATE wf_execution SET status = 'RUNNING', lease_owner = ?, lease_token = lease_token + 1, "
+                        + "lease_expires_at = " + LEASE_EXPIRES + ", updated_at = LOCALTIMESTAMP "
+                        + "WHERE id IN (SELECT id FROM wf_execution WHERE status = 'PENDING' OR (status = 'RUNNING' "
+                        + "AND (lease_expires_at IS NULL OR lease_expires_at < LOCALTIMESTAMP)) "
+                        + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING id, lease_token",
+                (rs, rowNum) -> new Lease(rs.getLong("id"), rs.getLong("lease_token")),
+                instanceId, leaseSeconds, limit);
+    }
+
+    /**
+     * 写入合并了start节点默认值的执行变量与开始时间，新执行开始时写入一次
+     *
+     * @return false表示租约已被其他实例接管
+     */
+    public boolean start(Lease lease, Map<String, String> variables) {
+        return fenced(lease, jdbcTemplate.update("UPDATE wf_execution SET variables = ?, "
+                        + "started_at = COALESCE(started_at, LOCALTIMESTAMP), updated_at = LOCALTIMESTAMP "
+                        + "WHERE id = ? AND lease_token = ?",
+                toJson(variables), lease.getExecutionId(), lease.getToken()));
+    }
+
+    /**
+     * 执行第一次开始至今的毫秒数，按数据库时钟计算，避免实例间时钟偏差；尚未开始时为0
+     */
+    public long elapsedMillis(Long executionId) {
+        Long elapsed = jdbcTemplate.queryForObject("SELECT CAST(COALESCE(EXTRACT(EPOCH FROM (LOCALTIMESTAMP - started_at)) * 1000, 0) "
+                + "AS BIGINT) FROM wf_execution WHERE id = ?", Long.class, executionId);
+        return elapsed == null ? 0 : Math.max(0, elapsed);
+    }
+
+    /**
+     * 读取执行变量：PENDING记录中为调用参数，开始执行后为合并后的变量
+     */
+    public Map<String, String> loadVariables(Long executionId) {
+        List<String> rows = jdbcTemplate.queryForList("SELECT variables FROM wf_execution WHERE id = ?",
+                String.class, executionId);
+        if (rows.isEmpty() || rows.get(0) == null) {
+            return Collections.emptyMap();
+        }
+        try {
+            return objectMapper.readValue(rows.get(0), new TypeReference<Map<String, String>>() {
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("解析执行变量失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 只更新当前节点，不重写整条执行记录
+     */
+    public void updateCurrentNode(Lease lease, String nodeId) {
+        fenced(lease, jdbcTemplate.update("UPDATE wf_execution SET current_node = ?, updated_at = LOCALTIMESTAMP "
+                + "WHERE id = ? AND lease_token = ?", nodeId, lease.getExecutionId(), lease.getToken()));
+    }
+
+    /**
+     * 追加节点完成检查点；对执行记录加共享锁后再插入，与其他实例的认领互斥，
+     * 接管方读取检查点时要么已包含这一行，要么这一行因令牌不符不会写入
+     *
+     * @param sequence 完成顺序，从1开始
+     * @param output   节点自身的输出，不产生输出的节点为null（恢复时由前驱输出重新计算）
+     * @param tokens   执行至此累计消耗的token数
+     * @param llmCalls 执行至此累计的大模型调用次数
+     * @return false表示租约已被其他实例接管
+     */
+    public boolean append(Lease lease, int sequence, String nodeId, String output, String branch, long tokens, int llmCalls) {
+        return fenced(lease, jdbcTemplate.update("WITH owner AS (SELECT id FROM wf_execution WHERE id = ? AND lease_token = ? "
+                        + "AND status = 'RUNNING' FOR SHARE) "
+                        + "INSERT INTO wf_execution_checkpoint (execution_id, sequence, node_id, output, branch, tokens_used, llm_calls) "
+                        + "SELECT id, ?, ?, ?, ?, ?, ? FROM owner",
+                lease.getExecutionId(), lease.getToken(), sequence, nodeId, output, branch, tokens, llmCalls));
+    }
+
+    /**
+     * 写入执行结果并释放租约
+     *
+     * @return false表示租约已被其他实例接管，结果未写入
+     */
+    public boolean finish(Lease lease, WorkflowExecution execution) {
+        return fenced(lease, jdbcTemplate.update("UPDATE wf_execution SET status = ?, result = ?, error_message = ?, "
+                        + "current_node = ?, completed_at = ?, tokens_used = COALESCE(?, tokens_used), "
+                        + "llm_calls = COALESCE(?, llm_calls), updated_at = LOCALTIMESTAMP, lease_owner = NULL, "
+                        + "lease_expires_at = NULL WHERE id = ? AND lease_token = ? AND status = 'RUNNING'",
+                execution.getStatus().name(), execution.getResult(), execution.getErrorMessage(), execution.getCurrentNode(),
+                execution.getCompletedAt(), execution.getTokensUsed(), execution.getLlmCalls(),
+                lease.getExecutionId(), lease.getToken()));
+    }
+
+    /**
+     * 请求取消执行：PENDING执行尚未开始，直接置为CANCELLED；RUNNING执行写入取消请求时间并NOTIFY持有租约的实例
+     * 取消PENDING与认领都会锁定该行，同时发生时只有一个生效，认领在先时按RUNNING处理
+     *
+     * @return 请求后的执行状态，执行不存在时为null
+     */
+    public String requestCancel(Long executionId) {
+        int cancelled = jdbcTemplate.update("UPDATE wf_execution SET status = 'CANCELLED', error_message = ?, "
+                        + "cancel_requested_at = LOCALTIMESTAMP, completed_at = LOCALTIMESTAMP, updated_at = LOCALTIMESTAMP "
+                        + "WHERE id = ? AND status = 'PENDING'",
+                ExecutionCancelledException.MESSAGE, executionId);
+        if (cancelled > 0) {
+            return WorkflowExecution.ExecutionStatus.CANCELLED.name();
+        }
+        int requested = jdbcTemplate.update("UPDATE wf_execution SET cancel_requested_at = COALESCE(cancel_requested_at, LOCALTIMESTAMP), "
+                + "updated_at = LOCALTIMESTAMP WHERE id = ? AND status = 'RUNNING'", executionId);
+        if (requested > 0) {
+            jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CANCEL_CHANNEL, String.valueOf(executionId));
+            return WorkflowExecution.ExecutionStatus.RUNNING.name();
+        }
+        List<String> rows = jdbcTemplate.queryForList("SELECT status FROM wf_execution WHERE id = ?", String.class, executionId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * 当前实例持有的、已请求取消的执行，NOTIFY不可用或监听连接中断时轮询
+     */
+    public List<Long> findCancelRequested() {
+        return jdbcTemplate.queryForList("SELECT id FROM wf_execution WHERE lease_owner = ? AND status = 'RUNNING' "
+                + "AND cancel_requested_at IS NOT NULL", Long.class, instanceId);
+    }
+
+    /**
+     * 按完成顺序读取检查点
+     */
+    public List<Checkpoint> load(Long executionId) {
+        return jdbcTemplate.query("SELECT node_id, output, branch, tokens_used, llm_calls FROM wf_execution_checkpoint "
+                        + "WHERE execution_id = ? ORDER BY sequence",
+                (rs, rowNum) -> new Checkpoint(rs.getString("node_id"), rs.getString("output"), rs.getString("branch"),
+                        rs.getLong("tokens_used"), rs.getInt("llm_calls")),
+                executionId);
+    }
+
+    /**
+     * 续期当前实例持有的全部租约，同时作为实例心跳
+     *
+     * @return 续期成功的执行ID -> lease_token
+     */
+    public Map<Long, Long> renewLeases() {
+        Map<Long, Long> renewed = new HashMap<>();
+        jdbcTemplate.query("UPDATE wf_execution SET lease_expires_at = " + LEASE_EXPIRES
+                        + " WHERE lease_owner = ? AND status = 'RUNNING' RETURNING id, lease_token",
+                (RowCallbackHandler) rs -> renewed.put(rs.getLong("id"), rs.getLong("lease_token")),
+                leaseSeconds, instanceId);
+        return renewed;
+    }
+
+    /**
+     * 各实例持有的RUNNING执行数与待认领的PENDING执行数
+     */
+    public List<Map<String, Object>> countByOwner() {
+        return jdbcTemplate.queryForList("SELECT status, lease_owner, COUNT(*) AS executions, "
+                + "COUNT(*) FILTER (WHERE lease_expires_at < LOCALTIMESTAMP) AS expired FROM wf_execution "
+                + "WHERE status IN ('PENDING', 'RUNNING') GROUP BY status, lease_owner ORDER BY status, lease_owner");
+    }
+
+    /**
+     * 释放租约：实例关闭时调用后其他实例可以立即接管
+     */
+    public void release(Lease lease) {
+        jdbcTemplate.update("UPDATE wf_execution SET lease_owner = NULL, lease_expires_at = NULL WHERE id = ? AND lease_token = ?",
+                lease.getExecutionId(), lease.getToken());
+    }
+
+    private static boolean fenced(Lease lease, int updated) {
+        if (updated == 0) {
+            lease.markLost();
+            return false;
+        }
+        return true;
+    }
+
+    private String toJson(Map<String, String> variables) {
+        try {
+            return objectMapper.writeValueAsString(variables);
+        } catch (Exception e) {
+            throw new RuntimeException("序列化执行变量失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static String defaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + ":" + ManagementFactory.getRuntimeMXBean().getPid() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * 一次认领取得的租约：lease_token在每次认领时递增，所有写入都以令牌为条件，
+     * 租约被接管后旧持有者的写入不再生效；lost由写入失败或续期时发现令牌不符时置位，执行据此尽早停止
+     */
+    @Getter
+    public static class Lease {
+        private final Long executionId;
+        private final long token;
+        private volatile boolean lost;
+
+        Lease(Long executionId, long token) {
+            this.executionId = executionId;
+            this.token = token;
+        }
+
+        void markLost() {
+            lost = true;
+        }
+    }
+
+    /**
+     * 节点完成检查点
+     */
+    @Getter
+    public static class Checkpoint {
+        private final String nodeId;
+        private final String output;
+        private final String branch;
+
+        /**
+         * 执行至此累计消耗的token数与大模型调用次数
+         */
+        private final long tokensUsed;
+        private final int llmCalls;
+
+        Checkpoint(String nodeId, String output, String branch, long tokensUsed, int llmCalls) {
+            this.nodeId = nodeId;
+            this.output = output;
+            this.branch = branch;
+            this.tokensUsed = tokensUsed;
+            this.llmCalls = llmCalls;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package cn.iocoder.boot.workflow.engine;
+
+import cn.iocoder.boot.workflow.dto.AgentProfile;
+import lombok.Data;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 单次工作流执行的上下文：变量、各节点输出以及最终输出
+ * 并行分支中的节点会同时读写，集合均为线程安全实现
+ *
+ * @author workflow-team
+ */
+@Data
+public class ExecutionContext {
+
+    private final Long workflowId;
+
+    private final Long executionId;
+
+    /**
+     * 按计划中的节点下标保存已完成节点的输出（不产生输出的节点为其输入），供{{nodes.xxx}}引用
+     */
+    private final AtomicReferenceArray<String> outputs;
+
+    /**
+     * 可用于{{变量名}}替换的变量，start节点默认值被调用参数覆盖
+     */
+    private final Map<String, String> variables = new ConcurrentHashMap<>();
+
+    /**
+     * 各节点的输出，按完成顺序保存
+     */
+    private final Map<String, String> nodeOutputs = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * 条件节点选择的分支（节点ID -> true/false），按求值顺序保存
+     */
+    private final Map<String, String> branchDecisions = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * 工作流最终输出：结束节点的输入，没有结束节点时为各终端节点输出的拼接
+     */
+    private volatile String output;
+
+    /**
+     * 强制刷新节点输出记忆缓存：开启memoize的节点不读取缓存，重新调用后覆盖
+     */
+    private volatile boolean refreshMemo;
+
+    /**
+     * 命中节点输出记忆缓存的节点ID
+     */
+    private final Set<String> memoHits = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 本次执行读取过的Agent配置摘要（Agent ID -> 摘要），同一次执行内每个Agent只读取一次，子图与调用方共享
+     */
+    private Map<String, AgentProfile> agentProfiles = new ConcurrentHashMap<>();
+}
@@ -0,0 +1,82 @@
+package cn.iocoder.boot.workflow.engine;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 工作流执行事件，通过SSE推送给订阅者
+ *
+ * @author workflow-team
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExecutionEvent {
+
+    public static final String NODE_STARTED = "node-started";
+    public static final String TOKEN_DELTA = "token-delta";
+    public static final String NODE_COMPLETED = "node-completed";
+    public static final String EXECUTION_FINISHED = "execution-finished";
+
+    /**
+     * 事件序号，同一执行内递增，作为SSE的id（断线重连时通过Last-Event-ID续传）
+     */
+    private long sequence;
+
+    /**
+     * 事件类型：node-started / token-delta / node-completed / execution-finished
+     */
+    private String type;
+
+    private Long executionId;
+
+    private String nodeId;
+
+    private String nodeType;
+
+    /**
+     * 节点状态（COMPLETED / FAILED / SKIPPED）或执行状态（COMPLETED / FAILED）
+     */
+    private String status;
+
+    /**
+     * token-delta：模型输出的增量文本
+     */
+    private String delta;
+
+    /**
+     * node-completed：节点输出；execution-finished：工作流最终输出
+     */
+    private String output;
+
+    /**
+     * 条件节点选择的分支
+     */
+    private String branch;
+
+    private Long durationMs;
+
+    private Integer tokens;
+
+    /**
+     * node-completed：输出来自节点输出记忆缓存时为true
+     */
+    private Boolean cached;
+
+    private String error;
+
+    private LocalDateTime timestamp;
+
+    public static ExecutionEvent of(String type, Long executionId) {
+        ExecutionEvent event = new ExecutionEvent();
+        event.setType(type);
+        event.setExecutionId(executionId);
+        event.setTimestamp(LocalDateTime.now());
+        return event;
+    }
+
+    public boolean isFinished() {
+        return EXECUTION_FINISHED.equals(type);
+    }
+}
@@ -0,0 +1,171 @@
+package cn.iocoder.boot.workflow.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内存中的执行事件总线
+ * 每次执行对应一个频道：node-started、node-completed、execution-finished保存在频道中用于回放，
+ * token-delta只推送给当前订阅者；订阅时先回放已有事件再接收实时事件（在同一把锁内完成，不丢不重）
+ * 每个订阅者有独立的有界缓冲，客户端消费过慢时丢弃最旧的事件，不影响执行和其他订阅者；
+ * 执行结束后频道保留retention-seconds供迟到的订阅者回放；执行未在本实例结束（租约被接管、实例关闭）时关闭频道，
+ * 订阅者重连后改为从数据库跟踪
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Component
+public class ExecutionEventBus {
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    @Value("${workflow.events.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${workflow.events.retention-seconds:300}")
+    private long retentionSeconds;
+
+    /**
+     * 执行开始时创建频道，同时清理过期频道
+     */
+    public void open(Long executionId) {
+        evictExpired();
+        channels.computeIfAbsent(executionId, id -> new Channel());
+    }
+
+    public void publish(ExecutionEvent event) {
+        Channel channel = channels.get(event.getExecutionId());
+        if (channel != null) {
+            channel.publish(event);
+        }
+    }
+
+    /**
+     * 关闭未结束的频道：当前订阅者的事件流结束，之后的订阅不再使用本实例的频道
+     */
+    public void close(Long executionId) {
+        Channel channel = channels.remove(executionId);
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * 频道中的执行是否已结束，已结束的频道在保留期内可以完整回放
+     */
+    public boolean isFinished(Long executionId) {
+        Channel channel = channels.get(executionId);
+        return channel != null && channel.finishedAt != 0;
+    }
+
+    /**
+     * 是否有订阅者，没有订阅者时节点无需产生token-delta
+     */
+    public boolean hasSubscribers(Long executionId) {
+        Channel channel = channels.get(executionId);
+        return channel != null && !channel.sinks.isEmpty();
+    }
+
+    /**
+     * 订阅执行事件
+     *
+     * @param lastSequence 已收到的最后一个事件序号，只回放之后的事件；首次订阅传0
+     * @return 频道不存在（执行不在本实例上或已过保留期）时返回null
+     */
+    public Flux<ExecutionEvent> subscribe(Long executionId, long lastSequence) {
+        Channel channel = channels.get(executionId);
+        if (channel == null) {
+            return null;
+        }
+        return Flux.<ExecutionEvent>create(sink -> channel.attach(sink, lastSequence))
+                .onBackpressureBuffer(bufferSize, dropped -> {
+                    long count = droppedEvents.incrementAndGet();
+                    if (count == 1 || count % 1000 == 0) {
+                        log.warn("执行事件订阅者消费过慢，已丢弃事件数: {}", count);
+                    }
+                }, BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    public int getChannelCount() {
+        return channels.size();
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        Iterator<Channel> iterator = channels.values().iterator();
+        while (iterator.hasNext()) {
+            Channel channel = iterator.next();
+            if (channel.finishedAt != 0 && now - channel.finishedAt > TimeUnit.SECONDS.toNanos(retentionSeconds)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 单次执行的事件频道
+     */
+    private static class Channel {
+
+        private final List<ExecutionEvent> replay = new ArrayList<>();
+        private final List<FluxSink<ExecutionEvent>> sinks = new CopyOnWriteArrayList<>();
+        private long sequence;
+        private volatile long finishedAt;
+
+        private synchronized void publish(ExecutionEvent event) {
+            if (finishedAt != 0) {
+                return;
+            }
+            event.setSequence(++sequence);
+            if (!ExecutionEvent.TOKEN_DELTA.equals(event.getType())) {
+                replay.add(event);
+            }
+            for (FluxSink<ExecutionEvent> sink : sinks) {
+                sink.next(event);
+                if (event.isFinished()) {
+                    sink.complete();
+                }
+            }
+            if (event.isFinished()) {
+                sinks.clear();
+                finishedAt = System.nanoTime();
+            }
+        }
+
+        private synchronized void close() {
+            sinks.forEach(FluxSink::complete);
+            sinks.clear();
+        }
+
+        private synchronized void attach(FluxSink<ExecutionEvent> sink, long lastSequence) {
+            for (ExecutionEvent event : replay) {
+                if (event.getSequence() > lastSequence) {
+                    sink.next(event);
+                }
+            }
+            if (finishedAt != 0) {
+                sink.complete();
+                return;
+            }
+            sinks.add(sink);
+            sink.onDispose(() -> sinks.remove(sink));
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package cn.iocoder.boot.workflow.engine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 执行历史维护：wf_execution按created_at按月分区（wf_execution_pYYYYMM，另有默认分区wf_execution_default）
+ * <ul>
+ *     <li>提前创建当前月及之后premakeMonths个月的分区；默认分区中已有该月数据时先移出再创建</li>
+ *     <li>保留期：整月早于保留期的分区整体删除（DROP），默认分区与未分区的表按批删除；
+ *     删除前可按(工作流, 日期, 状态)汇总到wf_execution_rollup，并删除对应的步骤与检查点</li>
+ * </ul>
+ * 维护在事务级advisory锁下进行，多实例同时运行时只有一个实例执行
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Component
+public class ExecutionHistoryManager {
+
+    private static final long LOCK_KEY = 0x77665F6869737421L;
+    private static final String DEFAULT_PARTITION = "wf_execution_default";
+    private static final Pattern PARTITION_NAME = Pattern.compile("wf_execution_p(\\d{6})");
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String ROLLUP_SELECT = "INSERT INTO wf_execution_rollup (workflow_id, day, status, executions, "
+            + "total_duration_ms, max_duration_ms, total_tokens) "
+            + "SELECT e.workflow_id, CAST(e.created_at AS DATE), e.status, COUNT(*), "
+            + "COALESCE(SUM(EXTRACT(EPOCH FROM (e.completed_at - e.created_at)) * 1000), 0), "
+            + "MAX(EXTRACT(EPOCH FROM (e.completed_at - e.created_at)) * 1000), COALESCE(SUM(e.tokens_used), 0) "
+            + "FROM %s e %s GROUP BY e.workflow_id, CAST(e.created_at AS DATE), e.status "
+            + "ON CONFLICT (workflow_id, day, status) DO UPDATE SET "
+            + "executions = wf_execution_rollup.executions + EXCLUDED.executions, "
+            + "total_duration_ms = wf_execution_rollup.total_duration_ms + EXCLUDED.total_duration_ms, "
+            + "max_duration_ms = GREATEST(wf_execution_rollup.max_duration_ms, EXCLUDED.max_duration_ms), "
+            + "total_tokens = wf_execution_rollup.total_tokens + EXCLUDED.total_tokens";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService scheduler;
+
+    @Value("${workflow.history.retention-days:90}")
+    private int retentionDays;
+
+    @Value("${workflow.history.rollup:true}")
+    private boolean rollup;
+
+    @Value("${workflow.history.premake-months:2}")
+    private int premakeMonths;
+
+    @Value("${workflow.history.delete-batch-size:5000}")
+    private int deleteBatchSize;
+
+    @Value("${workflow.history.maintenance-interval-seconds:3600}")
+    private long maintenanceIntervalSeconds;
+
+    public ExecutionHistoryManager(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "WorkflowHistoryMaintainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void init() {
+        // 启动后立即创建分区，之后定期维护
+        scheduler.scheduleWithFixedDelay(this::maintain, 0, maintenanceIntervalSeconds, TimeUnit.SECONDS);
+        log.info("执行历史维护初始化完成，保留天数: {}, 汇总: {}, 提前创建分区: {} 个月", retentionDays, rollup, premakeMonths);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 按(工作流, 日期, 状态)汇总的执行统计，由保留期删除前写入
+     */
+    @Data
+    public static class Rollup {
+
+        private LocalDate day;
+
+        private String status;
+
+        private long executions;
+
+        private long totalDurationMs;
+
+        private Long maxDurationMs;
+
+        private long totalTokens;
+    }
+
+    /**
+     * 查询工作流已汇总的执行统计，按日期倒序
+     */
+    public List<Rollup> findRollups(Long workflowId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT day, status, executions, total_duration_ms, max_duration_ms, total_tokens "
+                        + "FROM wf_execution_rollup WHERE workflow_id = ? AND day >= ? AND day <= ? ORDER BY day DESC, status",
+                (rs, rowNum) -> {
+                    Rollup rollup = new Rollup();
+                    rollup.setDay(rs.getDate("day").toLocalDate());
+                    rollup.setStatus(rs.getString("status"));
+                    rollup.setExecutions(rs.getLong("executions"));
+                    rollup.setTotalDurationMs(rs.getLong("total_duration_ms"));
+                    rollup.setMaxDurationMs(rs.getObject("max_duration_ms") == null ? null : rs.getLong("max_duration_ms"));
+                    rollup.setTotalTokens(rs.getLong("total_tokens"));
+                    return rollup;
+                },
+                workflowId, from, to);
+    }
+
+    void maintain() {
+        try {
+            boolean partitioned = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass('wf_execution') AND relkind = 'p')",
+                    Boolean.class));
+            if (partitioned) {
+                YearMonth current = YearMonth.now();
+                for (int i = 0; i <= premakeMonths; i++) {
+                    ensurePartition(current.plusMonths(i));
+                }
+            }
+            if (retentionDays > 0) {
+                LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+                if (partitioned) {
+                    dropExpiredPartitions(cutoff);
+                }
+                // 默认分区或未分区的表中早于保留期的记录按批删除
+                deleteExpiredRows(partitioned ? DEFAULT_PARTITION : "wf_execution", cutoff);
+            }
+        } catch (Exception e) {
+            log.error("维护执行历史失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 创建月分区；默认分区中已有该月的数据时，先卸下默认分区，创建分区后移入数据再挂回
+     */
+    private void ensurePartition(YearMonth month) {
+        String name = "wf_execution_p" + month.format(MONTH_SUFFIX);
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name)) {
+            return;
+        }
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        String bounds = "FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+        transactionTemplate.executeWithoutResult(transaction -> {
+            if (!tryLock() || jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name)) {
+                return;
+            }
+            boolean hasDefault = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, DEFAULT_PARTITION);
+            boolean moveRows = hasDefault && jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION
+                    + " WHERE created_at >= ? AND created_at < ?)", Boolean.class, from, to);
+            if (!moveRows) {
+                jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF wf_execution " + bounds);
+                log.info("创建执行记录分区: {}", name);
+                return;
+            }
+            jdbcTemplate.execute("ALTER TABLE wf_execution DETACH PARTITION " + DEFAULT_PARTITION);
+            jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF wf_execution " + bounds);
+            int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                    + " WHERE created_at >= ? AND created_at < ? RETURNING *) INSERT INTO wf_execution SELECT * FROM moved", from, to);
+            jdbcTemplate.execute("ALTER TABLE wf_execution ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+            log.info("创建执行记录分区: {}，从默认分区移入 {} 条", name, moved);
+        });
+    }
+
+    /**
+     * 删除整月早于保留期的分区；分区中仍有未结束的执行时跳过
+     */
+    private void dropExpiredPartitions(LocalDate cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'wf_execution'::regclass ORDER BY c.relname", String.class);
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            LocalDate upperBound = YearMonth.parse(matcher.group(1), MONTH_SUFFIX).plusMonths(1).atDay(1);
+            if (upperBound.isAfter(cutoff)) {
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(transaction -> {
+                if (!tryLock()) {
+                    return;
+                }
+                if (jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + partition
+                        + " WHERE status IN ('PENDING', 'RUNNING'))", Boolean.class)) {
+                    log.warn("执行记录分区 {} 中仍有未结束的执行，暂不删除", partition);
+                    return;
+                }
+                if (rollup) {
+                    jdbcTemplate.update(String.format(ROLLUP_SELECT, partition, ""));
+                }
+                String ids = "SELECT id FROM " + partition;
+                int steps = jdbcTemplate.update("DELETE FROM wf_execution_step WHERE execution_id IN (" + ids + ")");
+                jdbcTemplate.update("DELETE FROM wf_execution_checkpoint WHERE execution_id IN (" + ids + ")");
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("删除过期执行记录分区: {}，步骤 {} 条", partition, steps);
+            });
+        }
+    }
+
+    /**
+     * 按批删除早于保留期且已结束的执行记录，每批一个事务
+     */
+    private void deleteExpiredRows(String table, LocalDate cutoff) {
+        if (!jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table)) {
+            return;
+        }
+        Timestamp before = Timestamp.valueOf(cutoff.atStartOfDay());
+        int total = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(transaction -> {
+                if (!tryLock()) {
+                    return 0;
+                }
+                List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE created_at < ? "
+                        + "AND status IN ('COMPLETED', 'FAILED', 'BUDGET_EXCEEDED', 'CANCELLED') ORDER BY created_at LIMIT ?", Long.class, before, deleteBatchSize);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                Long[] idArray = ids.toArray(new Long[0]);
+                if (rollup) {
+                    jdbcTemplate.update(String.format(ROLLUP_SELECT, table, "WHERE e.id = ANY(?)"), (Object) idArray);
+                }
+                jdbcTemplate.update("DELETE FROM wf_execution_step WHERE execution_id = ANY(?)", (Object) idArray);
+                jdbcTemplate.update("DELETE FROM wf_execution_checkpoint WHERE execution_id = ANY(?)", (Object) idArray);
+                return jdbcTemplate.update("DELETE FROM " + table + " WHERE id = ANY(?)", (Object) idArray);
+            });
+            if (deleted == null || deleted == 0) {
+                break;
+            }
+            total += deleted;
+            if (deleted < deleteBatchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("删除 {} 中早于 {} 的执行记录 {} 条", table, cutoff, total);
+        }
+    }
+
+    /**
+     * 事务级advisory锁，事务结束时自动释放；其他实例正在维护时返回false
+     */
+    private boolean tryLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY));
+    }
+}
@@ -0,0 +1,207 @@
+package cn.iocoder.boot.workflow.engine;
+
+import cn.iocoder.boot.workflow.entity.Workflow;
+import cn.iocoder.boot.workflow.entity.WorkflowExecution;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 工作流执行工作池
+ * 提交执行只向wf_execution插入PENDING记录，每个实例的认领线程按空闲名额（max-in-flight减去执行中的数量与被放弃的节点数）
+ * 批量认领PENDING与租约已过期的RUNNING记录，交给工作流线程池执行；实例之间通过FOR UPDATE SKIP LOCKED互不阻塞，
+ * 增加实例即可线性扩展吞吐。没有空闲名额或没有可认领的记录时等待poll-interval-ms，
+ * 本实例提交执行或有执行结束时立即唤醒
+ * 续期线程每隔renew-interval-seconds续期本实例持有的全部租约（即实例心跳），并把续期结果中令牌不符的执行标记为租约丢失
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Component
+public class ExecutionWorkerPool {
+
+    private final ExecutionCheckpointStore checkpointStore;
+    private final WorkflowEngine workflowEngine;
+    private final Executor workflowExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final Semaphore wakeup = new Semaphore(0);
+
+    /**
+     * 本实例正在执行的认领数
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 本实例启动以来认领的执行数
+     */
+    private final AtomicLong claimed = new AtomicLong();
+
+    private volatile boolean running;
+
+    @Getter
+    @Value("${workflow.worker.enabled:true}")
+    private boolean enabled;
+
+    @Getter
+    @Value("${workflow.worker.max-in-flight:8}")
+    private int maxInFlight;
+
+    @Value("${workflow.worker.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${workflow.lease.renew-interval-seconds:15}")
+    private long renewIntervalSeconds;
+
+    public ExecutionWorkerPool(ExecutionCheckpointStore checkpointStore,
+                               WorkflowEngine workflowEngine,
+                               @Qualifier("workflowExecutor") Executor workflowExecutor) {
+        this.checkpointStore = checkpointStore;
+        this.workflowEngine = workflowEngine;
+        this.workflowExecutor = workflowExecutor;
+        this.scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "WorkflowWorker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        scheduler.scheduleWithFixedDelay(this::renew, renewIntervalSeconds, renewIntervalSeconds, TimeUnit.SECONDS);
+        if (enabled) {
+            scheduler.execute(this::claimLoop);
+        }
+        log.info("工作流工作池启动完成，实例: {}, 认领执行: {}, 执行数上限: {}, 租约时长: {}s, 续期间隔: {}s",
+                checkpointStore.getInstanceId(), enabled, maxInFlight, checkpointStore.getLeaseSeconds(), renewIntervalSeconds);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 提交后台执行：插入PENDING记录并唤醒本实例的认领线程，实际由哪个实例执行取决于认领先后
+     *
+     * @param refreshMemo 强制刷新节点输出记忆缓存
+     * @param budget      本次执行的预算，可为null
+     * @return 执行记录ID
+     */
+    public Long submit(Workflow workflow, Map<String, Object> args, boolean refreshMemo, ExecutionBudget budget) {
+        Long executionId = checkpointStore.enqueue(workflow.getId(), WorkflowEngine.toVariables(args), refreshMemo, budget);
+        wakeup.release();
+        return executionId;
+    }
+
+    /**
+     * 请求取消执行：PENDING执行直接取消；RUNNING执行记录取消请求并通知持有实例，
+     * 执行在本实例上时直接停止，不等待通知送达
+     *
+     * @return 请求后的执行状态，执行不存在时为null
+     */
+    public String cancel(Long executionId) {
+        String status = checkpointStore.requestCancel(executionId);
+        if (WorkflowExecution.ExecutionStatus.RUNNING.name().equals(status)) {
+            workflowEngine.cancel(executionId);
+        }
+        return status;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getClaimed() {
+        return claimed.get();
+    }
+
+    private void claimLoop() {
+        while (running) {
+            // 已结束执行中被放弃、仍占用节点线程的节点同样计入
+            int free = maxInFlight - inFlight.get() - workflowEngine.getAbandonedNodes();
+            int count = 0;
+            if (free > 0) {
+                try {
+                    count = claimAndDispatch(free);
+                } catch (Exception e) {
+                    log.error("认领工作流执行失败: {}", e.getMessage(), e);
+                }
+            }
+            if (count > 0 && count == free) {
+                // 认领满额，可能还有积压，名额释放后立即继续
+                continue;
+            }
+            try {
+                wakeup.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                wakeup.drainPermits();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private int claimAndDispatch(int limit) {
+        List<ExecutionCheckpointStore.Lease> leases = checkpointStore.claim(limit);
+        for (ExecutionCheckpointStore.Lease lease : leases) {
+            inFlight.incrementAndGet();
+            try {
+                workflowExecutor.execute(() -> {
+                    try {
+                        workflowEngine.execute(lease);
+                    } finally {
+                        inFlight.decrementAndGet();
+                        wakeup.release();
+                    }
+                });
+                claimed.incrementAndGet();
+                log.debug("认领工作流执行: executionId={}, leaseToken={}", lease.getExecutionId(), lease.getToken());
+            } catch (RejectedExecutionException e) {
+                // 线程池已满（max-in-flight大于线程池容量），放回租约由下一轮或其他实例认领
+                inFlight.decrementAndGet();
+                checkpointStore.release(lease);
+                log.warn("工作流执行队列已满，放回执行: executionId={}", lease.getExecutionId());
+            }
+        }
+        return leases.size();
+    }
+
+    /**
+     * 续期前先取本实例的执行快照：快照中的执行在续期结果里没有对应的令牌，说明租约已被其他实例接管
+     */
+    private void renew() {
+        try {
+            Collection<ExecutionCheckpointStore.Lease> active = workflowEngine.getActiveLeases();
+            Map<Long, Long> renewed = checkpointStore.renewLeases();
+            for (ExecutionCheckpointStore.Lease lease : active) {
+                if (!Objects.equals(renewed.get(lease.getExecutionId()), lease.getToken())) {
+                    lease.markLost();
+                    log.warn("执行租约已被其他实例接管: executionId={}, leaseToken={}", lease.getExecutionId(), lease.getToken());
+                }
+            }
+            log.debug("续期执行租约: {} 个", renewed.size());
+        } catch (Exception e) {
+            log.error("续期执行租约失败: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package cn.iocoder.boot.workflow.engine;
+
+/**
+ * 节点执行器，每种节点类型一个实现，由{@link WorkflowEngine}按类型分派
+ *
+ * @author workflow-team
+ */
+public interface NodeExecutor {
+
+    /**
+     * 支持的节点类型
+     */
+    String getType();
+
+    /**
+     * 执行节点
+     *
+     * @param node    节点
+     * @param input   节点输入：各前驱节点输出按连线顺序拼接，开始节点为null
+     * @param context 执行上下文
+     * @return 执行结果，null等同于{@link NodeResult#empty()}；执行被取消时线程被中断，阻塞调用应响应中断尽快结束
+     */
+    NodeResult execute(WorkflowNode node, String input, ExecutionContext context);
+
+    /**
+     * 节点是否调用大模型，执行预算按此统计调用次数
+     */
+    default boolean callsModel(WorkflowNode node) {
+        return false;
+    }
+
+    /**
+     * 派发前预估节点消耗的token数（输入与输出上限），执行预算有token上限时调用，不调用大模型的节点为0
+     *
+     * @param input   节点输入
+     * @param context 执行上下文，只读
+     */
+    default int estimateTokens(WorkflowNode node, String input, ExecutionContext context) {
+        return 0;
+    }
+}
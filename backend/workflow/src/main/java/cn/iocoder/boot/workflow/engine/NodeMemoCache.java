@@ -0,0 +1,225 @@
+package cn.iocoder.boot.workflow.engine;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 节点输出记忆缓存：开启memoize的Agent节点按(Agent ID, Agent配置版本, 渲染后的提示词, 上一节点输出)缓存回复，
+ * 相同输入的重复执行直接复用输出，不再调用模型
+ * <ul>
+ *     <li>内存：按访问顺序淘汰的LRU，以输出字节数而不是条数限制容量</li>
+ *     <li>数据库：wf_node_memo，实例重启与多实例之间共享；定期删除过期记录，总字节数超出上限时从最早写入的开始删除</li>
+ * </ul>
+ * 读取时先查内存再查数据库，数据库命中后回填内存；过期时间使用数据库时钟
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Component
+public class NodeMemoCache {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduledExecutorService cleaner;
+
+    @Value("${workflow.memo.memory-max-bytes:33554432}")
+    private long memoryMaxBytes;
+
+    @Value("${workflow.memo.db-max-bytes:536870912}")
+    private long dbMaxBytes;
+
+    @Value("${workflow.memo.max-entry-bytes:1048576}")
+    private int maxEntryBytes;
+
+    @Value("${workflow.memo.default-ttl-seconds:86400}")
+    private long defaultTtlSeconds;
+
+    @Value("${workflow.memo.cleanup-interval-seconds:600}")
+    private long cleanupIntervalSeconds;
+
+    /**
+     * 访问顺序的LRU，容量由memoryBytes控制，访问需持有自身锁
+     */
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong dbHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+
+    public NodeMemoCache(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "WorkflowMemoCleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void init() {
+        cleaner.scheduleWithFixedDelay(this::cleanup, cleanupIntervalSeconds, cleanupIntervalSeconds, TimeUnit.SECONDS);
+        log.info("节点输出记忆缓存初始化完成，内存上限: {} 字节, 数据库上限: {} 字节, 默认有效期: {}s",
+                memoryMaxBytes, dbMaxBytes, defaultTtlSeconds);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        cleaner.shutdownNow();
+    }
+
+    /**
+     * 计算缓存键：各部分以\0分隔后取MD5，提示词与上一节点输出可能很长，不直接作为键
+     */
+    public static String key(String agentId, String agentVersion, String prompt, String input) {
+        String source = String.join("\u0000", agentId, agentVersion == null ? "" : agentVersion,
+                prompt == null ? "" : prompt, input == null ? "" : input);
+        return DigestUtils.md5DigestAsHex(source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 读取缓存的输出，不存在或已过期时返回null
+     */
+    public String get(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    memoryHits.incrementAndGet();
+                    return entry.output;
+                }
+                remove(key);
+            }
+        }
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT output, "
+                + "EXTRACT(EPOCH FROM (expires_at - LOCALTIMESTAMP)) AS remaining FROM wf_node_memo "
+                + "WHERE cache_key = ? AND expires_at > LOCALTIMESTAMP", key);
+        if (rows.isEmpty()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        String output = (String) rows.get(0).get("output");
+        long remainingMillis = (long) (((Number) rows.get(0).get("remaining")).doubleValue() * 1000);
+        putMemory(key, output, output.getBytes(StandardCharsets.UTF_8).length, now + remainingMillis);
+        dbHits.incrementAndGet();
+        return output;
+    }
+
+    /**
+     * 写入缓存，相同键覆盖（强制刷新时同样调用）；超过单条上限的输出不缓存
+     *
+     * @param ttlSeconds 有效期，不大于0时使用默认有效期
+     */
+    public void put(String key, String agentId, String output, long ttlSeconds) {
+        if (output == null) {
+            return;
+        }
+        int bytes = output.getBytes(StandardCharsets.UTF_8).length;
+        if (bytes > maxEntryBytes) {
+            log.debug("节点输出超过单条缓存上限，不缓存: agentId={}, {} 字节", agentId, bytes);
+            return;
+        }
+        long ttl = ttlSeconds > 0 ? ttlSeconds : defaultTtlSeconds;
+        putMemory(key, output, bytes, System.currentTimeMillis() + ttl * 1000);
+        jdbcTemplate.update("INSERT INTO wf_node_memo (cache_key, agent_id, output, bytes, created_at, expires_at) "
+                        + "VALUES (?, ?, ?, ?, LOCALTIMESTAMP, LOCALTIMESTAMP + (? * INTERVAL '1 second')) "
+                        + "ON CONFLICT (cache_key) DO UPDATE SET output = EXCLUDED.output, bytes = EXCLUDED.bytes, "
+                        + "created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at",
+                key, agentId, output, bytes, ttl);
+        stores.incrementAndGet();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        synchronized (memory) {
+            result.put("memoryEntries", memory.size());
+            result.put("memoryBytes", memoryBytes);
+        }
+        result.put("memoryMaxBytes", memoryMaxBytes);
+        result.put("memoryHits", memoryHits.get());
+        result.put("dbHits", dbHits.get());
+        result.put("misses", misses.get());
+        result.put("stores", stores.get());
+        Map<String, Object> db = jdbcTemplate.queryForMap("SELECT COUNT(*) AS entries, COALESCE(SUM(bytes), 0) AS bytes FROM wf_node_memo");
+        result.put("dbEntries", db.get("entries"));
+        result.put("dbBytes", db.get("bytes"));
+        result.put("dbMaxBytes", dbMaxBytes);
+        return result;
+    }
+
+    /**
+     * 清空内存与数据库中的全部缓存
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+            memoryBytes = 0;
+        }
+        jdbcTemplate.update("DELETE FROM wf_node_memo");
+    }
+
+    private void putMemory(String key, String output, int bytes, long expiresAt) {
+        synchronized (memory) {
+            remove(key);
+            memory.put(key, new Entry(output, bytes, expiresAt));
+            memoryBytes += bytes;
+            Iterator<Entry> eldest = memory.values().iterator();
+            while (memoryBytes > memoryMaxBytes && eldest.hasNext()) {
+                memoryBytes -= eldest.next().bytes;
+                eldest.remove();
+            }
+        }
+    }
+
+    private void remove(String key) {
+        Entry removed = memory.remove(key);
+        if (removed != null) {
+            memoryBytes -= removed.bytes;
+        }
+    }
+
+    /**
+     * 删除过期记录，总字节数超出上限时按写入时间从新到旧累计，删除超出部分
+     */
+    private void cleanup() {
+        try {
+            int expired = jdbcTemplate.update("DELETE FROM wf_node_memo WHERE expires_at <= LOCALTIMESTAMP");
+            int trimmed = jdbcTemplate.update("DELETE FROM wf_node_memo WHERE cache_key IN (SELECT cache_key FROM "
+                    + "(SELECT cache_key, SUM(bytes) OVER (ORDER BY created_at DESC, cache_key) AS total FROM wf_node_memo) t "
+                    + "WHERE total > ?)", dbMaxBytes);
+            if (expired > 0 || trimmed > 0) {
+                log.info("清理节点输出记忆缓存: 过期 {} 条, 超出容量 {} 条", expired, trimmed);
+            }
+        } catch (Exception e) {
+            log.error("清理节点输出记忆缓存失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private static class Entry {
+        private final String output;
+        private final int bytes;
+        private final long expiresAt;
+
+        private Entry(String output, int bytes, long expiresAt) {
+            this.output = output;
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package cn.iocoder.boot.workflow.engine;
+
+import lombok.Getter;
+
+/**
+ * 节点执行结果
+ *
+ * @author workflow-team
+ */
+@Getter
+public class NodeResult {
+
+    /**
+     * 条件节点出边的sourceHandle，与前端IF节点的句柄ID一致
+     */
+    public static final String BRANCH_TRUE = "true";
+    public static final String BRANCH_FALSE = "false";
+
+    private static final NodeResult EMPTY = new NodeResult(null, null, 0, false);
+
+    /**
+     * 节点输出，null表示该节点不产生输出（直接把输入传给后继节点）
+     */
+    private final String output;
+
+    /**
+     * 选中的出边句柄（条件节点的true/false），null表示激活全部出边
+     */
+    private final String branch;
+
+    /**
+     * 节点消耗的token数（估算值），不调用模型的节点为0
+     */
+    private final int tokens;
+
+    /**
+     * 输出是否来自节点输出记忆缓存（未调用模型）
+     */
+    private final boolean cached;
+
+    private NodeResult(String output, String branch, int tokens, boolean cached) {
+        this.output = output;
+        this.branch = branch;
+        this.tokens = tokens;
+        this.cached = cached;
+    }
+
+    public static NodeResult empty() {
+        return EMPTY;
+    }
+
+    public static NodeResult of(String output) {
+        return output == null ? EMPTY : new NodeResult(output, null, 0, false);
+    }
+
+    public static NodeResult of(String output, int tokens) {
+        return new NodeResult(output, null, tokens, false);
+    }
+
+    /**
+     * 缓存命中的输出，不消耗token
+     */
+    public static NodeResult cached(String output) {
+        return new NodeResult(output, null, 0, true);
+    }
+
+    public static NodeResult branch(String branch) {
+        return new NodeResult(null, branch, 0, false);
+    }
+}
@@ -0,0 +1,207 @@
+package cn.iocoder.boot.workflow.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToIntFunction;
+
+/**
+ * 预编译的提示词模板
+ * 编译时把占位符拆分为字面量片段和变量槽，执行时直接追加到预估容量的StringBuilder中，不产生中间字符串：
+ * <ul>
+ *     <li>{{变量名}}：start节点变量或调用参数</li>
+ *     <li>{{nodes.节点ID或名称}}：已完成节点的输出，编译时解析为节点下标</li>
+ * </ul>
+ * 无法解析的占位符原样输出
+ *
+ * @author workflow-team
+ */
+public class PromptTemplate {
+
+    /**
+     * 引用节点输出的占位符前缀
+     */
+    public static final String NODE_REFERENCE_PREFIX = "nodes.";
+
+    /**
+     * 首次渲染时每个变量槽的预估长度
+     */
+    private static final int DEFAULT_SLOT_LENGTH = 64;
+
+    /**
+     * 字面量片段，比变量槽多一个：literals[0] slot[0] literals[1] ... slot[n-1] literals[n]
+     */
+    private final String[] literals;
+
+    /**
+     * 变量名；引用节点输出的槽为节点引用的原始名称
+     */
+    private final String[] names;
+
+    /**
+     * 引用的节点下标，普通变量为-1，无法解析的节点引用为-2
+     */
+    private final int[] nodeIndexes;
+
+    /**
+     * 变量槽的原始写法，值不存在时原样输出
+     */
+    private final String[] placeholders;
+
+    private final String source;
+    private final int literalLength;
+
+    /**
+     * 最近一次渲染结果的长度，用于预估下一次渲染的容量
+     */
+    private volatile int lastRenderedLength;
+
+    private PromptTemplate(String source, String[] literals, String[] names, int[] nodeIndexes, String[] placeholders) {
+        this.source = source;
+        this.literals = literals;
+        this.names = names;
+        this.nodeIndexes = nodeIndexes;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * 编译不引用节点输出的模板
+     */
+    public static PromptTemplate compile(String template) {
+        return compile(template, name -> -2);
+    }
+
+    /**
+     * 编译模板
+     *
+     * @param template     模板文本
+     * @param nodeResolver 把节点ID或名称解析为节点下标，无法解析时返回负数
+     */
+    public static PromptTemplate compile(String template, ToIntFunction<String> nodeResolver) {
+        if (template == null) {
+            return null;
+        }
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Integer> nodeIndexes = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = template.indexOf("{{", position);
+            int close = open < 0 ? -1 : template.indexOf("}}", open + 2);
+            if (close < 0) {
+                literals.add(template.substring(position));
+                break;
+            }
+            String name = template.substring(open + 2, close).trim();
+            literals.add(template.substring(position, open));
+            if (name.startsWith(NODE_REFERENCE_PREFIX)) {
+                String reference = name.substring(NODE_REFERENCE_PREFIX.length()).trim();
+                int index = nodeResolver.applyAsInt(reference);
+                names.add(reference);
+                nodeIndexes.add(index < 0 ? -2 : index);
+            } else {
+                names.add(name);
+                nodeIndexes.add(-1);
+            }
+            placeholders.add(template.substring(open, close + 2));
+            position = close + 2;
+        }
+        int[] indexes = new int[nodeIndexes.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = nodeIndexes.get(i);
+        }
+        return new PromptTemplate(template, literals.toArray(new String[0]), names.toArray(new String[0]),
+                indexes, placeholders.toArray(new String[0]));
+    }
+
+    public String render(Map<String, String> variables) {
+        return render(variables, null);
+    }
+
+    public String render(Map<String, String> variables, AtomicReferenceArray<String> nodeOutputs) {
+        if (names.length == 0) {
+            return source;
+        }
+        StringBuilder result = new StringBuilder(estimateLength());
+        renderTo(result, variables, nodeOutputs);
+        return result.toString();
+    }
+
+    /**
+     * 渲染并追加到目标StringBuilder
+     */
+    public void renderTo(StringBuilder target, Map<String, String> variables, AtomicReferenceArray<String> nodeOutputs) {
+        int start = target.length();
+        for (int i = 0; i < names.length; i++) {
+            target.append(literals[i]);
+            String value;
+            if (nodeIndexes[i] == -1) {
+                value = variables.get(names[i]);
+            } else if (nodeIndexes[i] >= 0 && nodeOutputs != null) {
+                value = nodeOutputs.get(nodeIndexes[i]);
+            } else {
+                value = null;
+            }
+            target.append(value != null ? value : placeholders[i]);
+        }
+        target.append(literals[names.length]);
+        lastRenderedLength = target.length() - start;
+    }
+
+    /**
+     * 预估渲染结果长度：取字面量长度加变量槽默认长度与上次渲染长度中的较大值
+     */
+    public int estimateLength() {
+        return Math.max(literalLength + names.length * DEFAULT_SLOT_LENGTH, lastRenderedLength);
+    }
+
+    /**
+     * 引用的普通变量名
+     */
+    public List<String> getVariableNames() {
+        List<String> result = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            if (nodeIndexes[i] == -1) {
+                result.add(names[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 引用的节点下标，无法解析的引用不包含在内
+     */
+    public List<Integer> getNodeReferences() {
+        List<Integer> result = new ArrayList<>();
+        for (int index : nodeIndexes) {
+            if (index >= 0) {
+                result.add(index);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 无法解析的节点引用
+     */
+    public List<String> getUnresolvedNodeReferences() {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            if (nodeIndexes[i] == -2) {
+                result.add(names[i]);
+            }
+        }
+        return result;
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
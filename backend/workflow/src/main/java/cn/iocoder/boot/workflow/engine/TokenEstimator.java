@@ -0,0 +1,29 @@
+package cn.iocoder.boot.workflow.engine;
+
+/**
+ * 本地token估算：汉字按1个token，其他字符按4个字符1个token，与chatbycard的估算方式一致
+ * （Agent服务只返回文本，没有模型用量）；节点的token统计与执行预算的派发前预估使用同一种算法
+ *
+ * @author workflow-team
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.UnicodeScript.of(text.charAt(i)) == Character.UnicodeScript.HAN) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+}
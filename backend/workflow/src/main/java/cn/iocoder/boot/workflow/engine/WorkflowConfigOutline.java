@@ -0,0 +1,410 @@
+package cn.iocoder.boot.workflow.engine;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 工作流配置概要：拓扑分析与列表摘要需要的节点、连线字段，以及配置的结构哈希
+ * <ul>
+ *     <li>{@link #read}：保存时以流式解析器逐个读取token，只为摘要用到的节点配置（agentId、prompt、condition、
+ *     start节点变量、map节点的items与子工作流ID）构建JSON树，坐标、节点的其他配置等只参与哈希，不构建整棵树</li>
+ *     <li>{@link #of}：编译执行计划时已有整棵树，直接从树中取值，节点保留完整的config</li>
+ * </ul>
+ * 结构哈希与对象成员的顺序、空白无关：config以jsonb保存后文本会被规范化，内容不变时哈希不变
+ *
+ * @author workflow-team
+ */
+@Getter
+public class WorkflowConfigOutline {
+
+    /**
+     * 流式读取时保留的节点配置字段，与{@link WorkflowPlanCompiler#summarize}使用的字段一致
+     */
+    private static final Set<String> SUMMARY_CONFIG_FIELDS =
+            Set.of("agentId", "prompt", "condition", "initialVariables", "variableDescriptions", "items", "workflowId");
+
+    private static final long OBJECT_SEED = 0x9E3779B97F4A7C15L;
+    private static final long ARRAY_SEED = 0xC2B2AE3D27D4EB4FL;
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    /**
+     * 配置中的节点，按出现顺序排列（包括缺少ID与ID重复的节点，由拓扑分析处理）
+     */
+    private final List<Node> nodes;
+
+    private final List<Edge> edges;
+
+    /**
+     * 配置的结构哈希（16位十六进制）
+     */
+    private final String hash;
+
+    private WorkflowConfigOutline(List<Node> nodes, List<Edge> edges, String hash) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.hash = hash;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Node {
+
+        /**
+         * 节点ID，缺少时为null
+         */
+        private final String id;
+
+        private final String type;
+
+        /**
+         * data.label，缺少时为null
+         */
+        private final String label;
+
+        /**
+         * data.config，缺少时为空对象
+         */
+        private final JsonNode config;
+
+        public String getDisplayName() {
+            return label != null ? label : id;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Edge {
+
+        private final String source;
+
+        private final String target;
+
+        /**
+         * 条件节点的true/false，普通边为null
+         */
+        private final String sourceHandle;
+    }
+
+    /**
+     * 流式读取配置，配置不是合法的JSON或缺少nodes时抛出异常
+     */
+    public static WorkflowConfigOutline read(String configJson, ObjectMapper objectMapper) {
+        try (JsonParser parser = objectMapper.createParser(configJson == null ? "" : configJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new RuntimeException("工作流配置缺少nodes");
+            }
+            List<Node> nodes = null;
+            List<Edge> edges = new ArrayList<>();
+            long sum = 0;
+            int count = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                long valueHash;
+                if ("nodes".equals(field) && value == JsonToken.START_ARRAY) {
+                    nodes = new ArrayList<>();
+                    valueHash = readArray(parser, nodes, WorkflowConfigOutline::readNode);
+                } else if ("edges".equals(field) && value == JsonToken.START_ARRAY) {
+                    edges = new ArrayList<>();
+                    valueHash = readArray(parser, edges, WorkflowConfigOutline::readEdge);
+                } else {
+                    valueHash = hashValue(parser);
+                }
+                sum += member(field, valueHash);
+                count++;
+            }
+            if (parser.nextToken() != null) {
+                throw new RuntimeException("工作流配置不是合法的JSON: 配置对象之后存在多余内容");
+            }
+            if (nodes == null) {
+                throw new RuntimeException("工作流配置缺少nodes");
+            }
+            return new WorkflowConfigOutline(nodes, edges, toHex(object(sum, count)));
+        } catch (IOException e) {
+            throw new RuntimeException("工作流配置不是合法的JSON: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 从已解析的配置树中取值，调用方需保证config.nodes是数组
+     */
+    public static WorkflowConfigOutline of(JsonNode config) {
+        List<Node> nodes = new ArrayList<>();
+        for (JsonNode node : config.get("nodes")) {
+            JsonNode data = node.path("data");
+            nodes.add(new Node(node.path("id").asText(null), node.path("type").asText(""),
+                    data.hasNonNull("label") ? data.get("label").asText() : null,
+                    data.hasNonNull("config") ? data.get("config") : JsonNodeFactory.instance.objectNode()));
+        }
+        List<Edge> edges = new ArrayList<>();
+        JsonNode edgeArray = config.get("edges");
+        if (edgeArray != null && edgeArray.isArray()) {
+            for (JsonNode edge : edgeArray) {
+                edges.add(new Edge(edge.path("source").asText(""), edge.path("target").asText(""),
+                        edge.hasNonNull("sourceHandle") ? edge.get("sourceHandle").asText() : null));
+            }
+        }
+        return new WorkflowConfigOutline(nodes, edges, toHex(hashTree(config)));
+    }
+
+    @FunctionalInterface
+    private interface ElementReader<T> {
+
+        /**
+         * 读取当前位置的数组元素，元素的结构哈希写入hash[0]
+         */
+        T read(JsonParser parser, long[] hash) throws IOException;
+    }
+
+    private static <T> long readArray(JsonParser parser, List<T> elements, ElementReader<T> reader) throws IOException {
+        long hash = ARRAY_SEED;
+        int count = 0;
+        long[] elementHash = new long[1];
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            elements.add(reader.read(parser, elementHash));
+            hash = hash * 31 + elementHash[0];
+            count++;
+        }
+        return mix(hash + count);
+    }
+
+    private static Node readNode(JsonParser parser, long[] hash) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            hash[0] = hashValue(parser);
+            return new Node(null, "", null, JsonNodeFactory.instance.objectNode());
+        }
+        String id = null;
+        String type = "";
+        String[] label = new String[1];
+        ObjectNode config = JsonNodeFactory.instance.objectNode();
+        long sum = 0;
+        int count = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            long valueHash;
+            if ("data".equals(field) && value == JsonToken.START_OBJECT) {
+                valueHash = readNodeData(parser, label, config);
+            } else {
+                if ("id".equals(field)) {
+                    id = text(parser, null);
+                } else if ("type".equals(field)) {
+                    type = text(parser, "");
+                }
+                valueHash = hashValue(parser);
+            }
+            sum += member(field, valueHash);
+            count++;
+        }
+        hash[0] = object(sum, count);
+        return new Node(id, type, label[0], config);
+    }
+
+    private static long readNodeData(JsonParser parser, String[] label, ObjectNode config) throws IOException {
+        long sum = 0;
+        int count = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            long valueHash;
+            if ("config".equals(field) && value == JsonToken.START_OBJECT) {
+                valueHash = readNodeConfig(parser, config);
+            } else {
+                if ("label".equals(field)) {
+                    label[0] = text(parser, null);
+                }
+                valueHash = hashValue(parser);
+            }
+            sum += member(field, valueHash);
+            count++;
+        }
+        return object(sum, count);
+    }
+
+    private static long readNodeConfig(JsonParser parser, ObjectNode config) throws IOException {
+        long sum = 0;
+        int count = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            long valueHash;
+            if (SUMMARY_CONFIG_FIELDS.contains(field)) {
+                JsonNode value = parser.readValueAsTree();
+                if (value == null) {
+                    value = JsonNodeFactory.instance.nullNode();
+                }
+                config.set(field, value);
+                valueHash = hashTree(value);
+            } else {
+                valueHash = hashValue(parser);
+            }
+            sum += member(field, valueHash);
+            count++;
+        }
+        return object(sum, count);
+    }
+
+    private static Edge readEdge(JsonParser parser, long[] hash) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            hash[0] = hashValue(parser);
+            return new Edge("", "", null);
+        }
+        String source = "";
+        String target = "";
+        String sourceHandle = null;
+        long sum = 0;
+        int count = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("source".equals(field)) {
+                source = text(parser, "");
+            } else if ("target".equals(field)) {
+                target = text(parser, "");
+            } else if ("sourceHandle".equals(field)) {
+                sourceHandle = text(parser, null);
+            }
+            sum += member(field, hashValue(parser));
+            count++;
+        }
+        hash[0] = object(sum, count);
+        return new Edge(source, target, sourceHandle);
+    }
+
+    /**
+     * 当前值的文本，与{@link JsonNode#asText(String)}一致：null取默认值，对象与数组为空字符串，不移动解析位置
+     */
+    private static String text(JsonParser parser, String defaultValue) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return defaultValue;
+        }
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            return "";
+        }
+        if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return Double.toString(parser.getDoubleValue());
+        }
+        return parser.getText();
+    }
+
+    /**
+     * 计算当前值的结构哈希，对象与数组读取到对应的结束token
+     */
+    private static long hashValue(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT: {
+                long sum = 0;
+                int count = 0;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    sum += member(field, hashValue(parser));
+                    count++;
+                }
+                return object(sum, count);
+            }
+            case START_ARRAY: {
+                long hash = ARRAY_SEED;
+                int count = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    hash = hash * 31 + hashValue(parser);
+                    count++;
+                }
+                return mix(hash + count);
+            }
+            case VALUE_STRING:
+                return fnv('s', parser.getText());
+            case VALUE_NUMBER_INT:
+                return fnv('i', parser.getBigIntegerValue().toString());
+            case VALUE_NUMBER_FLOAT:
+                return fnv('f', Double.toString(parser.getDoubleValue()));
+            case VALUE_TRUE:
+                return fnv('t', "");
+            case VALUE_FALSE:
+                return fnv('b', "");
+            default:
+                return fnv('n', "");
+        }
+    }
+
+    private static long hashTree(JsonNode node) {
+        if (node.isObject()) {
+            long sum = 0;
+            int count = 0;
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                sum += member(field.getKey(), hashTree(field.getValue()));
+                count++;
+            }
+            return object(sum, count);
+        }
+        if (node.isArray()) {
+            long hash = ARRAY_SEED;
+            for (JsonNode element : node) {
+                hash = hash * 31 + hashTree(element);
+            }
+            return mix(hash + node.size());
+        }
+        if (node.isTextual()) {
+            return fnv('s', node.textValue());
+        }
+        if (node.isIntegralNumber()) {
+            return fnv('i', node.bigIntegerValue().toString());
+        }
+        if (node.isNumber()) {
+            return fnv('f', Double.toString(node.doubleValue()));
+        }
+        if (node.isBoolean()) {
+            return fnv(node.booleanValue() ? 't' : 'b', "");
+        }
+        return fnv('n', "");
+    }
+
+    /**
+     * 对象成员的哈希相加，与成员顺序无关
+     */
+    private static long member(String name, long valueHash) {
+        return mix(fnv('k', name) * 31 + valueHash);
+    }
+
+    private static long object(long memberSum, int count) {
+        return mix(OBJECT_SEED + memberSum + count);
+    }
+
+    private static long fnv(char tag, String text) {
+        long hash = (FNV_OFFSET ^ tag) * FNV_PRIME;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * splitmix64的终结函数
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    private static String toHex(long hash) {
+        return String.format("%016x", hash);
+    }
+}
@@ -0,0 +1,21 @@
+package cn.iocoder.boot.workflow.engine;
+
+import lombok.Data;
+
+/**
+ * 工作流图中的有向边
+ *
+ * @author workflow-team
+ */
+@Data
+public class WorkflowEdge {
+
+    private final String source;
+
+    private final String target;
+
+    /**
+     * 源节点的输出句柄，如条件节点的true/false，普通边为null
+     */
+    private final String sourceHandle;
+}
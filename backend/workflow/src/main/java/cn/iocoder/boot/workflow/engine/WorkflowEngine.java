@@ -0,0 +1,1434 @@
+package cn.iocoder.boot.workflow.engine;
+
+import cn.iocoder.boot.workflow.entity.Workflow;
+import cn.iocoder.boot.workflow.entity.WorkflowExecution;
+import cn.iocoder.boot.workflow.entity.WorkflowExecutionStep;
+import cn.iocoder.boot.workflow.repository.WorkflowExecutionRepository;
+import cn.iocoder.boot.workflow.repository.WorkflowRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 服务端工作流执行引擎：按有向无环图调度工作流的节点（{@link Scheduler}），执行进度写入wf_execution，
+ * 节点步骤交给WorkflowStepWriter异步写入，节点与执行事件发布到ExecutionEventBus
+ * 检查点与租约见{@link ExecutionCheckpointStore}，预算见{@link BudgetTracker}，取消见{@link Cancellation}
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Service
+public class WorkflowEngine {
+
+    private static final String INPUT_SEPARATOR = "\n\n";
+    private static final String MAP_NODE_TYPE = "map";
+    private static final String SUBWORKFLOW_NODE_TYPE = "subworkflow";
+    private static final String DEFAULT_ITEM_VARIABLE = "item";
+
+    private final Map<String, NodeExecutor> executors = new HashMap<>();
+    private final WorkflowExecutionRepository executionRepository;
+    private final WorkflowRepository workflowRepository;
+    private final WorkflowPlanCache planCache;
+    private final ExecutionCheckpointStore checkpointStore;
+    private final WorkflowStepWriter stepWriter;
+    private final ExecutionEventBus eventBus;
+    private final ExecutionBudgetStats budgetStats;
+    private final ObjectMapper objectMapper;
+    private final Executor workflowExecutor;
+    private final Executor workflowNodeExecutor;
+
+    @Value("${workflow.engine.max-parallelism:4}")
+    private int maxParallelism;
+
+    @Value("${workflow.engine.max-map-items:1000}")
+    private int maxMapItems;
+
+    @Value("${workflow.engine.max-nesting-depth:5}")
+    private int maxNestingDepth;
+
+    /**
+     * 执行停止（超出耗时预算或取消）后等待执行中节点结束的时间
+     */
+    @Value("${workflow.engine.stop-grace-ms:5000}")
+    private long stopGraceMillis;
+
+    /**
+     * 引擎默认预算，0表示不限制
+     */
+    @Value("${workflow.budget.max-tokens:0}")
+    private long defaultMaxTokens;
+
+    @Value("${workflow.budget.max-llm-calls:0}")
+    private int defaultMaxLlmCalls;
+
+    @Value("${workflow.budget.max-duration-seconds:0}")
+    private long defaultMaxDurationSeconds;
+
+    /**
+     * 实例关闭中：被中断的执行保持RUNNING并释放租约，由其他实例从检查点恢复
+     */
+    private volatile boolean shuttingDown;
+
+    private final Map<Long, ExecutionCheckpointStore.Lease> activeLeases = new ConcurrentHashMap<>();
+
+    /**
+     * 执行已结束、但在宽限期内没有结束而被放弃的节点数，这些节点仍占用线程，工作池认领时计入执行数
+     */
+    private final AtomicInteger abandonedNodes = new AtomicInteger();
+
+    /**
+     * 当前实例上执行的取消状态，执行记录创建或认领后立即登记，执行结束后移除
+     */
+    private final Map<Long, Cancellation> cancellations = new ConcurrentHashMap<>();
+
+    public WorkflowEngine(List<NodeExecutor> nodeExecutors,
+                          WorkflowExecutionRepository executionRepository,
+                          WorkflowRepository workflowRepository,
+                          WorkflowPlanCache planCache,
+                          ExecutionCheckpointStore checkpointStore,
+                          WorkflowStepWriter stepWriter,
+                          ExecutionEventBus eventBus,
+                          ExecutionBudgetStats budgetStats,
+                          ObjectMapper objectMapper,
+                          @Qualifier("workflowExecutor") Executor workflowExecutor,
+                          @Qualifier("workflowNodeExecutor") Executor workflowNodeExecutor) {
+        for (NodeExecutor nodeExecutor : nodeExecutors) {
+            executors.put(nodeExecutor.getType(), nodeExecutor);
+        }
+        this.executionRepository = executionRepository;
+        this.workflowRepository = workflowRepository;
+        this.planCache = planCache;
+        this.checkpointStore = checkpointStore;
+        this.stepWriter = stepWriter;
+        this.eventBus = eventBus;
+        this.budgetStats = budgetStats;
+        this.objectMapper = objectMapper;
+        this.workflowExecutor = workflowExecutor;
+        this.workflowNodeExecutor = workflowNodeExecutor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+    }
+
+    public boolean isShuttingDown() {
+        return shuttingDown;
+    }
+
+    /**
+     * 创建执行记录并在当前线程同步执行，不经过工作池
+     *
+     * @param refreshMemo 强制刷新节点输出记忆缓存
+     * @param budget      本次执行的预算，可为null
+     * @return 工作流最终输出
+     */
+    public String runSync(Workflow workflow, Map<String, Object> args, boolean refreshMemo, ExecutionBudget budget) {
+        return runSync(workflow, args, refreshMemo, budget, null).getOutput();
+    }
+
+    /**
+     * 创建执行记录并在当前线程同步执行
+     *
+     * @param onCreated 执行记录创建后回调执行ID，执行失败时调用方同样可以关联执行记录；可为null
+     * @return 执行上下文（最终输出、节点输出、缓存命中等）
+     */
+    public ExecutionContext runSync(Workflow workflow, Map<String, Object> args, boolean refreshMemo, ExecutionBudget budget,
+                                    Consumer<Long> onCreated) {
+        ExecutionCheckpointStore.Lease lease = checkpointStore.insertRunning(workflow.getId(), toVariables(args), refreshMemo, budget);
+        Cancellation cancellation = new Cancellation();
+        cancellations.put(lease.getExecutionId(), cancellation);
+        WorkflowExecution execution = new WorkflowExecution();
+        execution.setId(lease.getExecutionId());
+        execution.setWorkflowId(workflow.getId());
+        execution.setStatus(WorkflowExecution.ExecutionStatus.RUNNING);
+        execution.setRefreshMemo(refreshMemo);
+        if (budget != null) {
+            execution.setMaxTokens(budget.getMaxTokens());
+            execution.setMaxLlmCalls(budget.getMaxLlmCalls());
+            execution.setMaxDurationSeconds(budget.getMaxDurationSeconds());
+        }
+        try {
+            if (onCreated != null) {
+                onCreated.accept(execution.getId());
+            }
+            eventBus.open(execution.getId());
+            return run(workflow, execution, lease, checkpointStore.loadVariables(execution.getId()), List.of(), cancellation);
+        } finally {
+            cancellations.remove(execution.getId(), cancellation);
+        }
+    }
+
+    /**
+     * 执行工作池认领的记录：没有检查点时从头开始，否则从检查点恢复
+     *
+     * @param lease 通过{@link ExecutionCheckpointStore#claim}取得的租约
+     */
+    public void execute(ExecutionCheckpointStore.Lease lease) {
+        Long executionId = lease.getExecutionId();
+        Cancellation cancellation = new Cancellation();
+        cancellations.put(executionId, cancellation);
+        try {
+            execute(lease, cancellation);
+        } finally {
+            cancellations.remove(executionId, cancellation);
+        }
+    }
+
+    private void execute(ExecutionCheckpointStore.Lease lease, Cancellation cancellation) {
+        Long executionId = lease.getExecutionId();
+        WorkflowExecution execution = executionRepository.findById(executionId).orElse(null);
+        if (execution == null || execution.getStatus() != WorkflowExecution.ExecutionStatus.RUNNING) {
+            checkpointStore.release(lease);
+            return;
+        }
+        Workflow workflow = workflowRepository.findById(execution.getWorkflowId()).orElse(null);
+        eventBus.open(executionId);
+        if (workflow == null) {
+            fail(execution, lease, new RuntimeException("工作流不存在: " + execution.getWorkflowId()));
+            return;
+        }
+        if (execution.getCancelRequestedAt() != null) {
+            // 请求取消时持有实例已停止：接管后直接结束，不再恢复执行
+            fail(execution, lease, new ExecutionCancelledException());
+            log.info("工作流执行已取消: workflowId={}, executionId={}", workflow.getId(), executionId);
+            return;
+        }
+        List<ExecutionCheckpointStore.Checkpoint> checkpoints = checkpointStore.load(executionId);
+        if (!checkpoints.isEmpty()) {
+            log.info("从检查点恢复工作流执行: workflowId={}, executionId={}, 已完成节点数: {}",
+                    workflow.getId(), executionId, checkpoints.size());
+        }
+        try {
+            run(workflow, execution, lease, checkpointStore.loadVariables(executionId), checkpoints, cancellation);
+        } catch (RuntimeException e) {
+            // 失败信息已写入执行记录
+            log.debug("后台执行工作流失败: executionId={}", executionId);
+        }
+    }
+
+    /**
+     * 取消当前实例上的执行：不再派发新节点，中断执行中的节点线程，在stop-grace-ms内等待节点结束并记录CANCELLED步骤后，
+     * 执行以CANCELLED结束；重复调用无副作用
+     *
+     * @return 执行是否在当前实例上
+     */
+    public boolean cancel(Long executionId) {
+        Cancellation cancellation = cancellations.get(executionId);
+        if (cancellation == null) {
+            return false;
+        }
+        cancellation.cancel();
+        return true;
+    }
+
+    /**
+     * 执行是否正在本实例上运行
+     */
+    public boolean isRunning(Long executionId) {
+        return activeLeases.containsKey(executionId);
+    }
+
+    public int getAbandonedNodes() {
+        return abandonedNodes.get();
+    }
+
+    /**
+     * 当前实例正在执行的租约（执行ID -> 租约），续期时用于发现已被其他实例接管的执行
+     */
+    public Collection<ExecutionCheckpointStore.Lease> getActiveLeases() {
+        return new ArrayList<>(activeLeases.values());
+    }
+
+    /**
+     * 调用参数转为字符串变量，null值视为空字符串
+     */
+    public static Map<String, String> toVariables(Map<String, Object> args) {
+        Map<String, String> variables = new LinkedHashMap<>();
+        if (args != null) {
+            args.forEach((name, value) -> variables.put(name, value == null ? "" : String.valueOf(value)));
+        }
+        return variables;
+    }
+
+    private void publishFinished(WorkflowExecution execution) {
+        ExecutionEvent event = ExecutionEvent.of(ExecutionEvent.EXECUTION_FINISHED, execution.getId());
+        event.setStatus(execution.getStatus().name());
+        event.setOutput(execution.getResult());
+        event.setError(execution.getErrorMessage());
+        eventBus.publish(event);
+    }
+
+    /**
+     * @param variables   执行记录中的变量：新执行为调用参数，恢复执行为开始时写入的变量
+     * @param checkpoints 恢复执行时已完成节点的检查点，新执行为空
+     */
+    private ExecutionContext run(Workflow workflow, WorkflowExecution execution, ExecutionCheckpointStore.Lease lease,
+                                 Map<String, String> variables, List<ExecutionCheckpointStore.Checkpoint> checkpoints,
+                                 Cancellation cancellation) {
+        long start = System.currentTimeMillis();
+        activeLeases.put(execution.getId(), lease);
+        try {
+            WorkflowPlan plan = planCache.get(workflow);
+            if (!plan.isValid()) {
+                throw new RuntimeException(plan.getError());
+            }
+            ExecutionContext context = new ExecutionContext(workflow.getId(), execution.getId(),
+                    new AtomicReferenceArray<>(plan.size()));
+            context.getVariables().putAll(variables);
+            context.setRefreshMemo(Boolean.TRUE.equals(execution.getRefreshMemo()));
+            plan.getStartVariables().forEach(context.getVariables()::putIfAbsent);
+            if (checkpoints.isEmpty() && !checkpointStore.start(lease, context.getVariables())) {
+                throw new RuntimeException("执行租约已被其他实例接管");
+            }
+            BudgetTracker budget = budgetTracker(plan, execution, checkpoints);
+            long nodeMillis = schedule(plan, context, execution, lease, checkpoints, budget, cancellation);
+
+            execution.setStatus(WorkflowExecution.ExecutionStatus.COMPLETED);
+            execution.setResult(context.getOutput());
+            execution.setCompletedAt(LocalDateTime.now());
+            if (!checkpointStore.finish(lease, execution)) {
+                throw new RuntimeException("执行租约已被其他实例接管");
+            }
+            publishFinished(execution);
+            recordBudget(execution, null);
+            log.info("工作流执行完成: workflowId={}, executionId={}, 节点数: {}, 条件分支: {}, 缓存命中: {}, token: {}, 大模型调用: {}, "
+                            + "节点耗时合计: {}ms, 总耗时: {}ms",
+                    workflow.getId(), execution.getId(), context.getNodeOutputs().size(), context.getBranchDecisions(),
+                    context.getMemoHits(), execution.getTokensUsed(), execution.getLlmCalls(), nodeMillis,
+                    System.currentTimeMillis() - start);
+            return context;
+        } catch (RuntimeException e) {
+            if (lease.isLost()) {
+                // 租约已被接管：执行记录与检查点归新的持有者，放弃本次执行且不写入任何状态
+                log.warn("执行租约已被其他实例接管，放弃本次执行: workflowId={}, executionId={}",
+                        workflow.getId(), execution.getId());
+                eventBus.close(execution.getId());
+                throw e;
+            }
+            if (shuttingDown && execution.getStatus() == WorkflowExecution.ExecutionStatus.RUNNING
+                    && !(e instanceof ExecutionCancelledException)) {
+                // 实例关闭导致的中断：保留RUNNING状态与检查点，释放租约后由其他实例恢复
+                checkpointStore.release(lease);
+                eventBus.close(execution.getId());
+                log.warn("实例关闭，工作流执行将由其他实例从检查点恢复: workflowId={}, executionId={}",
+                        workflow.getId(), execution.getId());
+                throw e;
+            }
+            if (e instanceof ExecutionCancelledException) {
+                log.info("工作流执行已取消: workflowId={}, executionId={}, node={}",
+                        workflow.getId(), execution.getId(), execution.getCurrentNode());
+            } else if (e instanceof BudgetExceededException) {
+                log.warn("工作流执行预算耗尽: workflowId={}, executionId={}, token: {}, 大模型调用: {}, error={}",
+                        workflow.getId(), execution.getId(), execution.getTokensUsed(), execution.getLlmCalls(), e.getMessage());
+            } else {
+                log.error("工作流执行失败: workflowId={}, executionId={}, node={}, error={}",
+                        workflow.getId(), execution.getId(), execution.getCurrentNode(), e.getMessage(), e);
+            }
+            fail(execution, lease, e);
+            recordBudget(execution, e instanceof BudgetExceededException ? ((BudgetExceededException) e).getLimit() : null);
+            throw e;
+        } finally {
+            activeLeases.remove(execution.getId(), lease);
+        }
+    }
+
+    private void fail(WorkflowExecution execution, ExecutionCheckpointStore.Lease lease, RuntimeException e) {
+        execution.setStatus(e instanceof ExecutionCancelledException ? WorkflowExecution.ExecutionStatus.CANCELLED
+                : e instanceof BudgetExceededException ? WorkflowExecution.ExecutionStatus.BUDGET_EXCEEDED
+                : WorkflowExecution.ExecutionStatus.FAILED);
+        execution.setErrorMessage(e.getMessage());
+        execution.setCompletedAt(LocalDateTime.now());
+        if (checkpointStore.finish(lease, execution)) {
+            publishFinished(execution);
+        } else {
+            eventBus.close(execution.getId());
+        }
+    }
+
+    /**
+     * 本次执行生效的预算：引擎默认值、开始节点配置与提交时指定的预算每项取最严格的限制；
+     * 恢复执行时已消耗的token与调用次数取最后一个检查点的累计值，耗时从第一次开始执行计算
+     */
+    private BudgetTracker budgetTracker(WorkflowPlan plan, WorkflowExecution execution,
+                                        List<ExecutionCheckpointStore.Checkpoint> checkpoints) {
+        ExecutionBudget budget = new ExecutionBudget(defaultMaxTokens, defaultMaxLlmCalls, defaultMaxDurationSeconds)
+                .tighten(ExecutionBudget.of(plan.getNodes()[plan.getStartIndex()]))
+                .tighten(new ExecutionBudget(execution.getMaxTokens(), execution.getMaxLlmCalls(), execution.getMaxDurationSeconds()));
+        long elapsed = budget.hasDurationLimit() ? checkpointStore.elapsedMillis(execution.getId()) : 0;
+        ExecutionCheckpointStore.Checkpoint last = checkpoints.isEmpty() ? null : checkpoints.get(checkpoints.size() - 1);
+        BudgetTracker tracker = new BudgetTracker(budget, elapsed, last == null ? 0 : last.getTokensUsed(),
+                last == null ? 0 : last.getLlmCalls());
+        execution.setTokensUsed(tracker.getTokens());
+        execution.setLlmCalls(tracker.getLlmCalls());
+        return tracker;
+    }
+
+    private void recordBudget(WorkflowExecution execution, String exceeded) {
+        budgetStats.record(execution.getWorkflowId(), execution.getTokensUsed() == null ? 0 : execution.getTokensUsed(),
+                execution.getLlmCalls() == null ? 0 : execution.getLlmCalls(), exceeded);
+    }
+
+    /**
+     * 按拓扑顺序调度从开始节点可达的节点
+     * 调度状态只在当前线程中修改，节点在线程池中执行，完成后通过队列通知当前线程；
+     * map与subworkflow节点不占用线程，由调度线程把子工作流展开为图实例（{@link Frame}），子图的节点与顶层节点进入同一个就绪队列，
+     * 共享单次执行的并发数；任一节点失败后所在的图不再调度新节点，等待已启动的节点结束后失败
+     *
+     * @param checkpoints 已完成节点的检查点，按完成顺序重放后继续调度剩余节点
+     * @return 各节点耗时之和（毫秒），与总耗时对比可看出并行收益
+     */
+    private long schedule(WorkflowPlan plan, ExecutionContext context, WorkflowExecution execution,
+                          ExecutionCheckpointStore.Lease lease, List<ExecutionCheckpointStore.Checkpoint> checkpoints,
+                          BudgetTracker budget, Cancellation cancellation) {
+        if (!plan.isAcyclic()) {
+            throw new RuntimeException("工作流存在环路，以下节点无法执行: " + blockedNodes(plan));
+        }
+        Frame root = new Frame(plan, context, null, -1, "", null);
+        Scheduler scheduler = new Scheduler(root, execution, lease, budget, cancellation);
+        scheduler.start(root);
+
+        // 重放检查点：节点必须按当时的顺序处于就绪状态，否则说明工作流配置已修改，无法安全恢复
+        for (ExecutionCheckpointStore.Checkpoint checkpoint : checkpoints) {
+            Integer index = plan.getIndexById().get(checkpoint.getNodeId());
+            if (index == null || !scheduler.removeReady(root, index)) {
+                throw new RuntimeException("工作流配置已修改，无法从检查点恢复: " + checkpoint.getNodeId());
+            }
+            root.pending--;
+            complete(root, index, root.inputOf(index), checkpoint.getOutput());
+            if (checkpoint.getBranch() != null) {
+                context.getBranchDecisions().put(checkpoint.getNodeId(), checkpoint.getBranch());
+            }
+            // 跳过的节点在原执行中已有步骤记录
+            scheduler.release(root, index, checkpoint.getBranch(), false);
+            scheduler.sequence++;
+        }
+
+        scheduler.run();
+        if (root.failure != null) {
+            throw root.failure;
+        }
+        context.setOutput(resolveOutput(plan, root.forwarded, root.completed));
+        return scheduler.nodeMillis;
+    }
+
+    private static List<String> blockedNodes(WorkflowPlan plan) {
+        List<String> blocked = new ArrayList<>();
+        boolean[] ordered = new boolean[plan.size()];
+        for (int index : plan.getTopologicalOrder()) {
+            ordered[index] = true;
+        }
+        for (int i = 0; i < plan.size(); i++) {
+            if (plan.getReachable()[i] && !ordered[i]) {
+                blocked.add(plan.getNodes()[i].getLabel());
+            }
+        }
+        return blocked;
+    }
+
+    /**
+     * 记录节点完成：不产生输出的节点把输入传给后继
+     */
+    private static void complete(Frame frame, int index, String input, String output) {
+        frame.completed[index] = true;
+        frame.forwarded[index] = output != null ? output : input;
+        frame.context.getOutputs().set(index, frame.forwarded[index]);
+        if (output != null) {
+            frame.context.getNodeOutputs().put(frame.plan.getNodes()[index].getId(), output);
+        }
+    }
+
+    /**
+     * 节点结束（完成或跳过）后释放其后继：branch为null时激活全部出边，否则只激活sourceHandle与之相同的出边
+     * （以及没有sourceHandle的普通边）；后继的前驱全部结束后，有激活入边则进入就绪队列，否则跳过并继续向下传播
+     *
+     * @param branch        完成节点选中的分支，null表示全部出边
+     * @param skippedTarget 收集本次被跳过的节点
+     */
+    private static void release(int index, String branch, int[][] successors, String[][] outgoingHandles,
+                                int[] waitingPredecessors, boolean[] activated, Deque<Integer> ready,
+                                List<Integer> skippedTarget) {
+        Deque<Integer> skipped = new ArrayDeque<>();
+        int current = index;
+        String currentBranch = branch;
+        boolean currentSkipped = false;
+        while (true) {
+            for (int i = 0; i < successors[current].length; i++) {
+                int successor = successors[current][i];
+                String handle = outgoingHandles[current][i];
+                if (!currentSkipped && (currentBranch == null || handle == null || currentBranch.equals(handle))) {
+                    activated[successor] = true;
+                }
+                if (--waitingPredecessors[successor] == 0) {
+                    if (activated[successor]) {
+                        ready.add(successor);
+                    } else {
+                        skipped.add(successor);
+                    }
+                }
+            }
+            if (skipped.isEmpty()) {
+                return;
+            }
+            current = skipped.poll();
+            skippedTarget.add(current);
+            currentBranch = null;
+            currentSkipped = true;
+        }
+    }
+
+    private static boolean isComposite(WorkflowNode node) {
+        return MAP_NODE_TYPE.equals(node.getType()) || SUBWORKFLOW_NODE_TYPE.equals(node.getType());
+    }
+
+    /**
+     * map节点的列表：config.items渲染结果（为空时为节点输入）是JSON数组时取各元素（非字符串元素为其JSON文本），
+     * 否则按行拆分，忽略空行
+     */
+    private List<String> parseItems(String text) {
+        List<String> items = new ArrayList<>();
+        if (!StringUtils.hasText(text)) {
+            return items;
+        }
+        String trimmed = text.trim();
+        if (trimmed.startsWith("[")) {
+            try {
+                JsonNode array = objectMapper.readTree(trimmed);
+                if (array != null && array.isArray()) {
+                    for (JsonNode element : array) {
+                        items.add(element.isNull() ? "" : element.isValueNode() ? element.asText() : element.toString());
+                    }
+                    return items;
+                }
+            } catch (Exception e) {
+                log.debug("map节点列表不是合法的JSON数组，按行拆分: {}", e.getMessage());
+            }
+        }
+        for (String line : trimmed.split("\\R")) {
+            if (StringUtils.hasText(line)) {
+                items.add(line.trim());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * @param reserved  派发前为节点预留的token数
+     * @param modelCall 节点是否计入大模型调用次数
+     */
+    private RunningNode dispatch(Frame frame, int index, WorkflowNode node, String input, int reserved, boolean modelCall,
+                                 BlockingQueue<NodeCompletion> completions, Cancellation cancellation) {
+        RunningNode running = new RunningNode(frame, index, input, reserved, modelCall);
+        publishStarted(frame, node);
+        CompletableFuture.supplyAsync(() -> {
+                    cancellation.enter();
+                    try {
+                        return executeNode(node, input, frame.context);
+                    } finally {
+                        cancellation.exit();
+                    }
+                }, workflowNodeExecutor)
+                .whenComplete((result, error) -> {
+                    if (!running.complete()) {
+                        // 执行已结束，节点已被放弃并结算
+                        abandonedNodes.decrementAndGet();
+                        log.info("被放弃的节点已结束: executionId={}, node={}, 耗时: {}ms", frame.context.getExecutionId(),
+                                node.getLabel(), System.currentTimeMillis() - running.start);
+                        return;
+                    }
+                    RuntimeException failure = null;
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        failure = cause instanceof RuntimeException
+                                ? (RuntimeException) cause
+                                : new RuntimeException("节点执行失败: " + node.getLabel() + ", " + cause.getMessage(), cause);
+                    }
+                    completions.add(new NodeCompletion(running, result, failure, System.currentTimeMillis() - running.start));
+                });
+        return running;
+    }
+
+    private void publishStarted(Frame frame, WorkflowNode node) {
+        ExecutionEvent started = ExecutionEvent.of(ExecutionEvent.NODE_STARTED, frame.context.getExecutionId());
+        started.setNodeId(frame.path + node.getId());
+        started.setNodeType(node.getType());
+        eventBus.publish(started);
+    }
+
+    private NodeResult executeNode(WorkflowNode node, String input, ExecutionContext context) {
+        NodeExecutor executor = executors.get(node.getType());
+        if (executor == null) {
+            log.warn("不支持的节点类型，跳过: type={}, node={}", node.getType(), node.getLabel());
+            return NodeResult.empty();
+        }
+        NodeResult result = executor.execute(node, input, context);
+        return result == null ? NodeResult.empty() : result;
+    }
+
+    private void publishCompleted(WorkflowExecutionStep step, String output) {
+        ExecutionEvent event = ExecutionEvent.of(ExecutionEvent.NODE_COMPLETED, step.getExecutionId());
+        event.setNodeId(step.getNodeId());
+        event.setNodeType(step.getNodeType());
+        event.setStatus(step.getStatus().name());
+        event.setBranch(step.getBranch());
+        event.setOutput(output);
+        event.setDurationMs(step.getDurationMs());
+        event.setTokens(step.getTokens());
+        event.setCached(Boolean.TRUE.equals(step.getCacheHit()) ? Boolean.TRUE : null);
+        event.setError(step.getErrorMessage());
+        eventBus.publish(event);
+    }
+
+    /**
+     * 汇合节点的输入：各前驱的输出按连线顺序拼接，空输出与重复连线忽略
+     */
+    private static String joinInputs(int[] predecessors, String[] forwarded) {
+        if (predecessors.length == 1) {
+            return forwarded[predecessors[0]];
+        }
+        List<String> parts = new ArrayList<>(predecessors.length);
+        for (int i = 0; i < predecessors.length; i++) {
+            String output = forwarded[predecessors[i]];
+            if (StringUtils.hasText(output) && !isDuplicateEdge(predecessors, i)) {
+                parts.add(output);
+            }
+        }
+        return parts.isEmpty() ? null : String.join(INPUT_SEPARATOR, parts);
+    }
+
+    private static boolean isDuplicateEdge(int[] predecessors, int position) {
+        for (int i = 0; i < position; i++) {
+            if (predecessors[i] == predecessors[position]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 工作流输出：优先取已执行的结束节点收到的输入；否则拼接已执行且没有已执行后继的节点的输出
+     */
+    private static String resolveOutput(WorkflowPlan plan, String[] forwarded, boolean[] completed) {
+        WorkflowNode[] nodes = plan.getNodes();
+        List<String> sinks = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i++) {
+            if (!completed[i]) {
+                continue;
+            }
+            if ("end".equals(nodes[i].getType())) {
+                return forwarded[i];
+            }
+            if (!hasCompletedSuccessor(plan.getSuccessors()[i], completed) && StringUtils.hasText(forwarded[i])) {
+                sinks.add(forwarded[i]);
+            }
+        }
+        return sinks.isEmpty() ? null : String.join(INPUT_SEPARATOR, sinks);
+    }
+
+    private static boolean hasCompletedSuccessor(int[] successors, boolean[] completed) {
+        for (int successor : successors) {
+            if (completed[successor]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 单次执行的调度状态，只在调度线程中访问
+     * 前驱全部完成的节点进入就绪队列，相互独立的分支并行执行（并发节点数受max-parallelism限制），
+     * 有多条入边的节点等待所有前驱完成；条件节点只激活所选分支的出边，没有激活入边的节点被跳过，跳过状态沿出边传播
+     * map节点对列表的每个元素执行一次子工作流，subworkflow节点调用另一个已保存工作流的执行计划，
+     * 子图节点与顶层节点在同一个调度循环中调度；只有顶层节点写入检查点，恢复时未完成的map/subworkflow节点整体重新执行
+     * 超出耗时预算或取消时不再派发新节点，在stop-grace-ms内等待执行中的节点并结算其消耗，
+     * 步骤记录为BUDGET_EXCEEDED或CANCELLED，仍未结束的节点被放弃
+     */
+    private final class Scheduler {
+
+        private final Frame root;
+        private final WorkflowExecution execution;
+        private final ExecutionCheckpointStore.Lease lease;
+        private final BudgetTracker budget;
+        private final Cancellation cancellation;
+        private final Deque<Task> ready = new ArrayDeque<>();
+        private final BlockingQueue<NodeCompletion> completions = new LinkedBlockingQueue<>();
+        private final int parallelism = Math.max(1, maxParallelism);
+
+        /**
+         * 本次执行已加载的子工作流计划，同一子工作流的多次调用只查询一次
+         */
+        private final Map<Long, WorkflowPlan> childPlans = new HashMap<>();
+
+        /**
+         * 在线程池中执行的节点，map与subworkflow节点不计入
+         */
+        private final Set<RunningNode> running = new HashSet<>();
+        private int sequence;
+        private long nodeMillis;
+
+        private Scheduler(Frame root, WorkflowExecution execution, ExecutionCheckpointStore.Lease lease, BudgetTracker budget,
+                          Cancellation cancellation) {
+            this.root = root;
+            this.execution = execution;
+            this.lease = lease;
+            this.budget = budget;
+            this.cancellation = cancellation;
+            cancellation.attach(completions);
+        }
+
+        void run() {
+            while (true) {
+                if (cancellation.isRequested()) {
+                    // 已取消：不再派发，等待被中断的节点结束后以CANCELLED记录其步骤
+                    root.failure = new ExecutionCancelledException();
+                    log.debug("执行已取消，等待执行中的节点: executionId={}, 执行中: {}", root.context.getExecutionId(), running.size());
+                    stop(WorkflowExecutionStep.StepStatus.CANCELLED);
+                    return;
+                }
+                if (shuttingDown && root.failure == null && !ready.isEmpty()) {
+                    // 不再调度新节点，已完成节点的检查点保留，等待恢复
+                    root.failure = new RuntimeException("实例关闭中，停止调度新节点");
+                }
+                if (lease.isLost() && root.failure == null) {
+                    root.failure = new RuntimeException("执行租约已被其他实例接管");
+                }
+                if (root.failure == null && !ready.isEmpty()) {
+                    root.failure = budget.checkDeadline();
+                }
+                while (running.size() < parallelism && !ready.isEmpty()) {
+                    Task task = ready.poll();
+                    Frame frame = task.frame;
+                    if (frame.isStopped()) {
+                        frame.pending--;
+                        frameFinished(frame);
+                        continue;
+                    }
+                    WorkflowNode node = frame.plan.getNodes()[task.index];
+                    String input = frame.inputOf(task.index);
+                    if (frame == root) {
+                        execution.setCurrentNode(node.getId());
+                        checkpointStore.updateCurrentNode(lease, node.getId());
+                    }
+                    if (isComposite(node)) {
+                        startFanout(frame, task.index, node, input);
+                    } else {
+                        reserveBudget(frame, node, input, task.index);
+                    }
+                }
+                if (running.isEmpty()) {
+                    break;
+                }
+
+                NodeCompletion completion;
+                try {
+                    completion = budget.hasDeadline()
+                            ? completions.poll(budget.remainingMillis(), TimeUnit.MILLISECONDS)
+                            : completions.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("工作流执行被中断");
+                }
+                if (completion == Cancellation.WAKEUP) {
+                    continue;
+                }
+                if (completion == null) {
+                    BudgetExceededException timeout = budget.checkDeadline();
+                    if (timeout == null) {
+                        continue;
+                    }
+                    if (root.failure == null) {
+                        root.failure = timeout;
+                    }
+                    log.warn("执行超出耗时预算，停止执行: executionId={}, 执行中: {}", root.context.getExecutionId(), running.size());
+                    stop(WorkflowExecutionStep.StepStatus.BUDGET_EXCEEDED);
+                    return;
+                }
+                RunningNode node = completion.node;
+                running.remove(node);
+                nodeMillis += completion.millis;
+                budget.settle(node.reserved, node.modelCall, completion.error == null ? completion.result : null);
+                execution.setTokensUsed(budget.getTokens());
+                execution.setLlmCalls(budget.getLlmCalls());
+                nodeFinished(node.frame, node.index, node.input, completion.result, completion.error, node.startedAt, completion.millis);
+            }
+        }
+
+        /**
+         * 停止执行：不再派发新节点，在stop-grace-ms内等待执行中的节点结束，结算其消耗并以status记录步骤（不写检查点、不释放后继）；
+         * 宽限期内没有结束的节点（阻塞的HTTP调用不一定响应中断）按派发时的预估值计入消耗并放弃，其线程计入遗留节点数
+         */
+        private void stop(WorkflowExecutionStep.StepStatus status) {
+            long deadline = System.currentTimeMillis() + stopGraceMillis;
+            boolean interrupted = false;
+            while (!running.isEmpty()) {
+                NodeCompletion completion;
+                long remaining = deadline - System.currentTimeMillis();
+                try {
+                    completion = remaining > 0 && !interrupted
+                            ? completions.poll(remaining, TimeUnit.MILLISECONDS)
+                            : completions.poll();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    continue;
+                }
+                if (completion == Cancellation.WAKEUP) {
+                    continue;
+                }
+                if (completion != null) {
+                    stopped(completion.node, completion.result, completion.error, completion.millis, status);
+                    continue;
+                }
+                int abandoned = 0;
+                for (RunningNode node : new ArrayList<>(running)) {
+                    if (node.abandon()) {
+                        abandonedNodes.incrementAndGet();
+                        abandoned++;
+                        stopped(node, null, new RuntimeException("节点在" + stopGraceMillis + "ms内未结束，已放弃"),
+                                System.currentTimeMillis() - node.start, status);
+                    }
+                }
+                if (abandoned > 0) {
+                    log.warn("停止执行时放弃未结束的节点: executionId={}, 节点数: {}", root.context.getExecutionId(), abandoned);
+                }
+                if (!running.isEmpty()) {
+                    // 放弃前刚结束的节点，完成通知随即到达
+                    try {
+                        completion = completions.take();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                        continue;
+                    }
+                    if (completion != Cancellation.WAKEUP) {
+                        stopped(completion.node, completion.result, completion.error, completion.millis, status);
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * 执行停止时结束的节点：结算消耗并记录步骤，结果不再使用
+         */
+        private void stopped(RunningNode node, NodeResult result, RuntimeException error, long millis,
+                             WorkflowExecutionStep.StepStatus status) {
+            running.remove(node);
+            nodeMillis += millis;
+            budget.settleStopped(node.reserved, node.modelCall, error == null ? result : null);
+            execution.setTokensUsed(budget.getTokens());
+            execution.setLlmCalls(budget.getLlmCalls());
+            WorkflowNode planNode = node.frame.plan.getNodes()[node.index];
+            WorkflowExecutionStep step = newStep(node.frame, planNode);
+            step.setStatus(status);
+            step.setStartedAt(node.startedAt);
+            step.setCompletedAt(node.startedAt.plusNanos(millis * 1_000_000L));
+            step.setDurationMs(millis);
+            step.setInputChars(node.input == null ? 0 : node.input.length());
+            if (error == null) {
+                String output = result.getOutput();
+                step.setOutputChars(output == null ? 0 : output.length());
+                step.setTokens(result.getTokens());
+                step.setCacheHit(result.isCached());
+                step.setErrorMessage("节点已完成，执行已停止，结果未使用");
+            } else {
+                step.setErrorMessage(error.getMessage());
+            }
+            stepWriter.submit(step);
+            publishCompleted(step, null);
+        }
+
+        /**
+         * 调用大模型的节点派发前预留预算并派发；预算不足时停止整个执行，节点不再执行
+         * 预估值在没有token上限时同样计算，节点在执行停止时被放弃时按预估值计入消耗
+         */
+        private void reserveBudget(Frame frame, WorkflowNode node, String input, int index) {
+            NodeExecutor executor = executors.get(node.getType());
+            boolean modelCall = executor != null && executor.callsModel(node);
+            int reserved = 0;
+            if (modelCall) {
+                try {
+                    reserved = executor.estimateTokens(node, input, frame.context);
+                } catch (RuntimeException e) {
+                    log.warn("预估节点token数失败，按0预留: node={}, error={}", node.getLabel(), e.getMessage());
+                }
+                BudgetExceededException exceeded = budget.reserve(node, reserved);
+                if (exceeded != null) {
+                    if (root.failure == null) {
+                        root.failure = exceeded;
+                    }
+                    frame.pending--;
+                    frameFinished(frame);
+                    return;
+                }
+            }
+            running.add(dispatch(frame, index, node, input, reserved, modelCall, completions, cancellation));
+        }
+
+        /**
+         * 图实例开始执行：没有可达前驱的节点（开始节点）进入就绪队列
+         */
+        void start(Frame frame) {
+            boolean[] reachable = frame.plan.getReachable();
+            int[][] predecessors = frame.plan.getPredecessors();
+            for (int i = 0; i < reachable.length; i++) {
+                if (!reachable[i]) {
+                    continue;
+                }
+                for (int predecessor : predecessors[i]) {
+                    if (reachable[predecessor]) {
+                        frame.waitingPredecessors[i]++;
+                    }
+                }
+                if (frame.waitingPredecessors[i] == 0) {
+                    ready.add(new Task(frame, i));
+                    frame.pending++;
+                }
+            }
+        }
+
+        boolean removeReady(Frame frame, int index) {
+            Iterator<Task> iterator = ready.iterator();
+            while (iterator.hasNext()) {
+                Task task = iterator.next();
+                if (task.frame == frame && task.index == index) {
+                    iterator.remove();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void release(Frame frame, int index, String branch, boolean recordSkipped) {
+            Deque<Integer> released = new ArrayDeque<>();
+            List<Integer> skipped = new ArrayList<>();
+            WorkflowEngine.release(index, branch, frame.plan.getSuccessors(), frame.plan.getOutgoingHandles(),
+                    frame.waitingPredecessors, frame.activated, released, skipped);
+            for (int successor : released) {
+                ready.add(new Task(frame, successor));
+                frame.pending++;
+            }
+            if (recordSkipped) {
+                for (int successor : skipped) {
+                    recordSkipped(frame, frame.plan.getNodes()[successor]);
+                }
+            }
+        }
+
+        /**
+         * 节点结束：记录步骤，成功时保存输出、追加检查点（只有顶层节点）并释放后继
+         */
+        void nodeFinished(Frame frame, int index, String input, NodeResult result, RuntimeException error,
+                          LocalDateTime startedAt, long millis) {
+            WorkflowNode node = frame.plan.getNodes()[index];
+            recordStep(frame, node, input, result, error, startedAt, millis);
+            frame.pending--;
+            if (error != null) {
+                if (frame.failure == null) {
+                    frame.failure = error;
+                }
+            } else {
+                complete(frame, index, input, result.getOutput());
+                if (frame == root && !checkpointStore.append(lease, ++sequence, node.getId(), result.getOutput(), result.getBranch(),
+                        budget.getTokens(), budget.getLlmCalls())) {
+                    if (root.failure == null) {
+                        root.failure = new RuntimeException("执行租约已被其他实例接管");
+                    }
+                } else {
+                    release(frame, index, result.getBranch(), true);
+                }
+            }
+            frameFinished(frame);
+        }
+
+        /**
+         * 子图实例的节点全部结束后，把结果交给所属的map/subworkflow节点，并启动下一个元素
+         */
+        private void frameFinished(Frame frame) {
+            if (frame.pending > 0 || frame.owner == null) {
+                return;
+            }
+            Fanout fanout = frame.owner;
+            fanout.active--;
+            RuntimeException error = frame.failure != null ? frame.failure
+                    : frame.isStopped() ? new RuntimeException("执行已停止") : null;
+            if (error != null) {
+                fanout.failed++;
+                if (!fanout.continueOnError && fanout.failure == null) {
+                    String message = fanout.map
+                            ? "map节点[" + fanout.node.getLabel() + "]第" + (frame.item + 1) + "个元素执行失败: " + error.getMessage()
+                            : "子工作流节点[" + fanout.node.getLabel() + "]执行失败: " + error.getMessage();
+                    fanout.failure = new RuntimeException(message, error);
+                }
+            } else {
+                fanout.outputs[frame.item] = resolveOutput(frame.plan, frame.forwarded, frame.completed);
+            }
+            startItems(fanout);
+            if (fanout.active == 0 && (fanout.next == fanout.items.size() || fanout.failure != null || fanout.frame.isStopped())) {
+                fanoutFinished(fanout);
+            }
+        }
+
+        /**
+         * 展开map/subworkflow节点：加载子工作流计划、解析列表，按并发数启动元素的图实例
+         */
+        private void startFanout(Frame frame, int index, WorkflowNode node, String input) {
+            LocalDateTime startedAt = LocalDateTime.now();
+            long start = System.currentTimeMillis();
+            publishStarted(frame, node);
+            Fanout fanout;
+            try {
+                boolean map = MAP_NODE_TYPE.equals(node.getType());
+                WorkflowPlan plan = childPlan(frame, node);
+                List<String> items = map ? mapItems(frame, node, input) : Collections.singletonList(input);
+                int concurrency = map ? (int) Math.max(1, node.configLong("concurrency", parallelism)) : 1;
+                fanout = new Fanout(frame, index, node, input, plan, items, map, concurrency, startedAt, start);
+            } catch (RuntimeException e) {
+                nodeFinished(frame, index, input, null, e, startedAt, System.currentTimeMillis() - start);
+                return;
+            }
+            if (fanout.items.isEmpty()) {
+                fanoutFinished(fanout);
+                return;
+            }
+            startItems(fanout);
+        }
+
+        private void startItems(Fanout fanout) {
+            while (fanout.failure == null && !fanout.frame.isStopped() && fanout.active < fanout.concurrency
+                    && fanout.next < fanout.items.size()) {
+                int item = fanout.next++;
+                String path = fanout.frame.path + fanout.node.getId() + (fanout.map ? "[" + item + "]" : "") + "/";
+                Frame child = new Frame(fanout.plan, childContext(fanout, item), fanout, item, path, fanout.items.get(item));
+                fanout.active++;
+                start(child);
+            }
+        }
+
+        /**
+         * map节点按元素顺序汇总输出为JSON数组（continue策略下失败的元素为null）；subworkflow节点的输出为子工作流的输出
+         */
+        private void fanoutFinished(Fanout fanout) {
+            long millis = System.currentTimeMillis() - fanout.start;
+            RuntimeException error = fanout.failure != null ? fanout.failure
+                    : fanout.frame.isStopped() ? new RuntimeException("执行已停止") : null;
+            if (error != null) {
+                nodeFinished(fanout.frame, fanout.index, fanout.input, null, error, fanout.startedAt, millis);
+                return;
+            }
+            String output;
+            if (fanout.map) {
+                try {
+                    output = objectMapper.writeValueAsString(Arrays.asList(fanout.outputs));
+                } catch (Exception e) {
+                    nodeFinished(fanout.frame, fanout.index, fanout.input, null,
+                            new RuntimeException("汇总map节点输出失败: " + e.getMessage(), e), fanout.startedAt, millis);
+                    return;
+                }
+                if (fanout.failed > 0) {
+                    log.warn("map节点部分元素执行失败: executionId={}, node={}, 失败: {}/{}",
+                            root.context.getExecutionId(), fanout.node.getLabel(), fanout.failed, fanout.items.size());
+                }
+            } else {
+                output = fanout.outputs[0];
+            }
+            nodeFinished(fanout.frame, fanout.index, fanout.input, NodeResult.of(output), null, fanout.startedAt, millis);
+        }
+
+        /**
+         * 子工作流计划：限制嵌套层数，禁止调用链上已有的工作流
+         */
+        private WorkflowPlan childPlan(Frame frame, WorkflowNode node) {
+            String configured = node.configText("workflowId");
+            if (!StringUtils.hasText(configured)) {
+                throw new RuntimeException("节点未配置子工作流: " + node.getLabel());
+            }
+            Long workflowId;
+            try {
+                workflowId = Long.parseLong(configured.trim());
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("子工作流ID不合法: " + configured);
+            }
+            if (frame.depth >= maxNestingDepth) {
+                throw new RuntimeException("子工作流嵌套超过" + maxNestingDepth + "层: " + node.getLabel());
+            }
+            for (Frame current = frame; current != null; current = current.owner == null ? null : current.owner.frame) {
+                if (workflowId.equals(current.plan.getWorkflowId())) {
+                    throw new RuntimeException("子工作流存在循环调用: " + node.getLabel() + " -> " + workflowId);
+                }
+            }
+            WorkflowPlan plan = childPlans.get(workflowId);
+            if (plan == null) {
+                Workflow workflow = workflowRepository.findById(workflowId)
+                        .orElseThrow(() -> new RuntimeException("子工作流不存在: " + workflowId));
+                plan = planCache.get(workflow);
+                childPlans.put(workflowId, plan);
+            }
+            if (!plan.isValid()) {
+                throw new RuntimeException("子工作流无效: " + plan.getError());
+            }
+            if (!plan.isAcyclic()) {
+                throw new RuntimeException("子工作流存在环路，以下节点无法执行: " + blockedNodes(plan));
+            }
+            return plan;
+        }
+
+        private List<String> mapItems(Frame frame, WorkflowNode node, String input) {
+            String source = input;
+            if (node.getPrompt() != null) {
+                String rendered = node.getPrompt().render(frame.context.getVariables(), frame.context.getOutputs());
+                if (StringUtils.hasText(rendered)) {
+                    source = rendered;
+                }
+            }
+            List<String> items = parseItems(source);
+            long limit = Math.min(node.configLong("maxItems", maxMapItems), maxMapItems);
+            if (items.size() > limit) {
+                throw new RuntimeException("map节点[" + node.getLabel() + "]的列表有" + items.size() + "个元素，超过上限" + limit);
+            }
+            return items;
+        }
+
+        /**
+         * 子图的上下文：继承调用方的变量，map元素写入itemVariable（默认item）与其下标变量（itemIndex），
+         * 子工作流start节点的默认值只补充未提供的变量
+         */
+        private ExecutionContext childContext(Fanout fanout, int item) {
+            ExecutionContext parent = fanout.frame.context;
+            ExecutionContext child = new ExecutionContext(fanout.plan.getWorkflowId(), parent.getExecutionId(),
+                    new AtomicReferenceArray<>(fanout.plan.size()));
+            child.getVariables().putAll(parent.getVariables());
+            if (fanout.map) {
+                String itemVariable = fanout.node.configText("itemVariable");
+                if (!StringUtils.hasText(itemVariable)) {
+                    itemVariable = DEFAULT_ITEM_VARIABLE;
+                }
+                child.getVariables().put(itemVariable, fanout.items.get(item));
+                child.getVariables().put(itemVariable + "Index", String.valueOf(item));
+            }
+            fanout.plan.getStartVariables().forEach(child.getVariables()::putIfAbsent);
+            child.setRefreshMemo(parent.isRefreshMemo());
+            child.setAgentProfiles(parent.getAgentProfiles());
+            return child;
+        }
+
+        private void recordStep(Frame frame, WorkflowNode node, String input, NodeResult result, RuntimeException error,
+                                LocalDateTime startedAt, long millis) {
+            WorkflowExecutionStep step = newStep(frame, node);
+            step.setStartedAt(startedAt);
+            step.setCompletedAt(startedAt.plusNanos(millis * 1_000_000L));
+            step.setDurationMs(millis);
+            step.setInputChars(input == null ? 0 : input.length());
+            if (error != null) {
+                step.setStatus(WorkflowExecutionStep.StepStatus.FAILED);
+                step.setErrorMessage(error.getMessage());
+            } else {
+                String output = result.getOutput();
+                step.setStatus(WorkflowExecutionStep.StepStatus.COMPLETED);
+                step.setBranch(result.getBranch());
+                step.setOutputChars(output == null ? 0 : output.length());
+                step.setTokens(result.getTokens());
+                step.setCacheHit(result.isCached());
+            }
+            stepWriter.submit(step);
+            publishCompleted(step, error == null ? result.getOutput() : null);
+        }
+
+        private void recordSkipped(Frame frame, WorkflowNode node) {
+            WorkflowExecutionStep step = newStep(frame, node);
+            LocalDateTime now = LocalDateTime.now();
+            step.setStatus(WorkflowExecutionStep.StepStatus.SKIPPED);
+            step.setStartedAt(now);
+            step.setCompletedAt(now);
+            step.setDurationMs(0L);
+            stepWriter.submit(step);
+            publishCompleted(step, null);
+        }
+
+        /**
+         * 步骤归属顶层工作流，子图中的节点以路径前缀区分（如"map1[3]/agent2"）
+         */
+        private WorkflowExecutionStep newStep(Frame frame, WorkflowNode node) {
+            WorkflowExecutionStep step = new WorkflowExecutionStep();
+            step.setExecutionId(root.context.getExecutionId());
+            step.setWorkflowId(root.context.getWorkflowId());
+            step.setNodeId(frame.path + node.getId());
+            step.setNodeType(node.getType());
+            return step;
+        }
+    }
+
+    /**
+     * 调度中的图实例：顶层工作流，或map节点的一个元素、subworkflow节点调用的子工作流
+     */
+    private static final class Frame {
+
+        private final WorkflowPlan plan;
+        private final ExecutionContext context;
+
+        /**
+         * 所属的map/subworkflow节点，顶层为null
+         */
+        private final Fanout owner;
+
+        /**
+         * map节点的元素下标
+         */
+        private final int item;
+
+        /**
+         * 步骤与事件中节点ID的前缀，顶层为空
+         */
+        private final String path;
+
+        /**
+         * 开始节点的输入：map元素或subworkflow节点的输入，顶层为null
+         */
+        private final String initialInput;
+
+        private final int depth;
+        private final int[] waitingPredecessors;
+
+        /**
+         * activated：至少有一条入边被激活；completed：节点已执行完成（跳过的节点两者均为false）
+         */
+        private final boolean[] activated;
+        private final boolean[] completed;
+
+        /**
+         * 节点传给后继的输出：不产生输出的节点直接传递其输入
+         */
+        private final String[] forwarded;
+
+        /**
+         * 就绪与执行中的节点数（包括展开中的map/subworkflow节点），为0时图实例结束
+         */
+        private int pending;
+
+        private RuntimeException failure;
+
+        private Frame(WorkflowPlan plan, ExecutionContext context, Fanout owner, int item, String path, String initialInput) {
+            this.plan = plan;
+            this.context = context;
+            this.owner = owner;
+            this.item = item;
+            this.path = path;
+            this.initialInput = initialInput;
+            this.depth = owner == null ? 0 : owner.frame.depth + 1;
+            this.waitingPredecessors = new int[plan.size()];
+            this.activated = new boolean[plan.size()];
+            this.completed = new boolean[plan.size()];
+            this.forwarded = new String[plan.size()];
+        }
+
+        /**
+         * 图实例失败，或所属节点已失败、上层图实例已停止时不再调度新节点
+         */
+        private boolean isStopped() {
+            return failure != null || (owner != null && (owner.failure != null || owner.frame.isStopped()));
+        }
+
+        private String inputOf(int index) {
+            int[] predecessors = plan.getPredecessors()[index];
+            return predecessors.length == 0 ? initialInput : joinInputs(predecessors, forwarded);
+        }
+    }
+
+    /**
+     * 展开中的map/subworkflow节点，subworkflow视为只有一个元素（节点输入）的map
+     */
+    private static final class Fanout {
+
+        private final Frame frame;
+        private final int index;
+        private final WorkflowNode node;
+        private final String input;
+        private final WorkflowPlan plan;
+        private final List<String> items;
+        private final boolean map;
+
+        /**
+         * 同时执行的元素数上限
+         */
+        private final int concurrency;
+
+        /**
+         * 部分失败策略：config.onError为continue时失败的元素输出null并继续，否则第一个失败的元素使节点失败
+         */
+        private final boolean continueOnError;
+
+        private final String[] outputs;
+        private final LocalDateTime startedAt;
+        private final long start;
+        private int next;
+        private int active;
+        private int failed;
+        private RuntimeException failure;
+
+        private Fanout(Frame frame, int index, WorkflowNode node, String input, WorkflowPlan plan, List<String> items,
+                       boolean map, int concurrency, LocalDateTime startedAt, long start) {
+            this.frame = frame;
+            this.index = index;
+            this.node = node;
+            this.input = input;
+            this.plan = plan;
+            this.items = items;
+            this.map = map;
+            this.concurrency = concurrency;
+            this.continueOnError = map && "continue".equals(node.configText("onError"));
+            this.outputs = new String[items.size()];
+            this.startedAt = startedAt;
+            this.start = start;
+        }
+    }
+
+    private static final class Task {
+
+        private final Frame frame;
+        private final int index;
+
+        private Task(Frame frame, int index) {
+            this.frame = frame;
+            this.index = index;
+        }
+    }
+
+    /**
+     * 单次执行的取消状态：登记执行中的节点线程，取消时中断这些线程（Agent的阻塞或流式调用随之结束）并唤醒调度线程
+     * 登记、注销与中断在同一把锁内，线程注销后不会再被本次执行中断
+     * 其他实例上的取消请求由ExecutionCancelListener转发到持有执行的实例
+     */
+    private static final class Cancellation {
+
+        /**
+         * 唤醒调度线程的占位通知
+         */
+        private static final NodeCompletion WAKEUP = new NodeCompletion(null, null, null, 0);
+
+        private final Set<Thread> threads = new HashSet<>();
+        private BlockingQueue<NodeCompletion> completions;
+        private volatile boolean requested;
+
+        private boolean isRequested() {
+            return requested;
+        }
+
+        private synchronized void attach(BlockingQueue<NodeCompletion> completions) {
+            this.completions = completions;
+        }
+
+        private synchronized void cancel() {
+            if (requested) {
+                return;
+            }
+            requested = true;
+            threads.forEach(Thread::interrupt);
+            if (completions != null) {
+                completions.add(WAKEUP);
+            }
+        }
+
+        /**
+         * 节点线程开始执行，已取消时不再执行节点
+         */
+        private synchronized void enter() {
+            if (requested) {
+                throw new ExecutionCancelledException();
+            }
+            threads.add(Thread.currentThread());
+        }
+
+        /**
+         * 节点线程结束执行，清除取消造成的中断状态后线程才回到线程池
+         */
+        private void exit() {
+            synchronized (this) {
+                threads.remove(Thread.currentThread());
+            }
+            if (requested) {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * 在线程池中执行的节点；完成与放弃互斥：先完成的节点照常通知调度线程，先被放弃的节点结束后只注销遗留计数
+     */
+    private static final class RunningNode {
+        private static final int RUNNING = 0;
+        private static final int COMPLETED = 1;
+        private static final int ABANDONED = 2;
+
+        private final Frame frame;
+        private final int index;
+        private final String input;
+        private final int reserved;
+        private final boolean modelCall;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long start = System.currentTimeMillis();
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+
+        private RunningNode(Frame frame, int index, String input, int reserved, boolean modelCall) {
+            this.frame = frame;
+            this.index = index;
+            this.input = input;
+            this.reserved = reserved;
+            this.modelCall = modelCall;
+        }
+
+        private boolean complete() {
+            return state.compareAndSet(RUNNING, COMPLETED);
+        }
+
+        private boolean abandon() {
+            return state.compareAndSet(RUNNING, ABANDONED);
+        }
+    }
+
+    /**
+     * 节点完成通知
+     */
+    private static class NodeCompletion {
+        private final RunningNode node;
+        private final NodeResult result;
+        private final RuntimeException error;
+        private final long millis;
+
+        private NodeCompletion(RunningNode node, NodeResult result, RuntimeException error, long millis) {
+            this.node = node;
+            this.result = result;
+            this.error = error;
+            this.millis = millis;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package cn.iocoder.boot.workflow.engine;
+
+import cn.iocoder.boot.workflow.engine.condition.ConditionExpression;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Data;
+
+/**
+ * 工作流图中的节点
+ *
+ * @author workflow-team
+ */
+@Data
+public class WorkflowNode {
+
+    private final String id;
+
+    /**
+     * 节点类型：start / agent / if / end / jira / confluence / map / subworkflow
+     */
+    private final String type;
+
+    private final String label;
+
+    /**
+     * 节点配置（data.config），可能为空对象
+     */
+    private final JsonNode config;
+
+    /**
+     * 编译后的提示词模板（config.prompt；map节点为列表来源config.items），没有时为null
+     */
+    private final PromptTemplate prompt;
+
+    /**
+     * 编译后的条件表达式（if节点的config.condition），其他节点为null
+     */
+    private final ConditionExpression condition;
+
+    /**
+     * 读取文本配置项，缺失或为null时返回null
+     */
+    public String configText(String field) {
+        JsonNode value = config.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    /**
+     * 读取布尔配置项，兼容true与"true"，缺失时返回false
+     */
+    public boolean configBoolean(String field) {
+        return Boolean.parseBoolean(configText(field));
+    }
+
+    /**
+     * 读取整数配置项，缺失或不是数字时返回默认值
+     */
+    public long configLong(String field, long defaultValue) {
+        String value = configText(field);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package cn.iocoder.boot.workflow.engine;
+
+import cn.iocoder.boot.workflow.dto.WorkflowDTO;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 工作流执行计划：由工作流配置编译得到的不可变结构，按(工作流ID, 更新时间)缓存，
+ * 列表、详情和执行共用同一份计划，配置只解析一次
+ * 节点以下标表示，邻接关系保存为数组，调度时不再查找字符串
+ *
+ * @author workflow-team
+ */
+@Getter
+public class WorkflowPlan {
+
+    private final Long workflowId;
+
+    /**
+     * 计划对应的工作流版本（wf_workflow.updated_at）
+     */
+    private final LocalDateTime version;
+
+    /**
+     * 节点，按配置中的顺序排列
+     */
+    private final WorkflowNode[] nodes;
+
+    private final Map<String, Integer> indexById;
+
+    /**
+     * 开始节点下标，配置无效时为-1
+     */
+    private final int startIndex;
+
+    /**
+     * 每个节点的出边目标下标，与outgoingHandles一一对应
+     */
+    private final int[][] successors;
+
+    /**
+     * 每条出边的sourceHandle（条件节点的true/false），普通边为null
+     */
+    private final String[][] outgoingHandles;
+
+    /**
+     * 每个节点的入边来源下标，按连线顺序排列
+     */
+    private final int[][] predecessors;
+
+    /**
+     * 是否从开始节点可达，不可达的节点不参与执行
+     */
+    private final boolean[] reachable;
+
+    private final int reachableCount;
+
+    /**
+     * 可达节点的拓扑顺序，存在环路时长度小于reachableCount
+     */
+    private final int[] topologicalOrder;
+
+    /**
+     * start节点initialVariables中的变量默认值
+     */
+    private final Map<String, String> startVariables;
+
+    /**
+     * 列表接口返回的节点信息
+     */
+    private final List<WorkflowDTO.NodeInfo> nodeInfos;
+
+    /**
+     * 列表接口返回的start节点变量信息
+     */
+    private final List<WorkflowDTO.VariableInfo> variableInfos;
+
+    /**
+     * 编译期发现的提示词模板问题，如未定义的变量、不存在的节点引用
+     */
+    private final List<String> warnings;
+
+    /**
+     * 编译失败原因，成功时为null；失败的计划同样缓存，避免对无效配置反复解析
+     */
+    private final String error;
+
+    /**
+     * 计划使用的拓扑，配置无效时为null
+     */
+    private final WorkflowTopology topology;
+
+    /**
+     * 拓扑是否在编译时重新推导（未保存或已失效），为true时由缓存回写wf_workflow.topology
+     */
+    private final boolean topologyDerived;
+
+    WorkflowPlan(Long workflowId, LocalDateTime version, WorkflowNode[] nodes, Map<String, Integer> indexById,
+                 int startIndex, int[][] successors, String[][] outgoingHandles, int[][] predecessors,
+                 boolean[] reachable, int reachableCount, int[] topologicalOrder, Map<String, String> startVariables,
+                 List<WorkflowDTO.NodeInfo> nodeInfos, List<WorkflowDTO.VariableInfo> variableInfos,
+                 List<String> warnings, String error, WorkflowTopology topology, boolean topologyDerived) {
+        this.workflowId = workflowId;
+        this.version = version;
+        this.nodes = nodes;
+        this.indexById = indexById;
+        this.startIndex = startIndex;
+        this.successors = successors;
+        this.outgoingHandles = outgoingHandles;
+        this.predecessors = predecessors;
+        this.reachable = reachable;
+        this.reachableCount = reachableCount;
+        this.topologicalOrder = topologicalOrder;
+        this.startVariables = Collections.unmodifiableMap(startVariables);
+        this.nodeInfos = Collections.unmodifiableList(nodeInfos);
+        this.variableInfos = Collections.unmodifiableList(variableInfos);
+        this.warnings = Collections.unmodifiableList(warnings);
+        this.error = error;
+        this.topology = topology;
+        this.topologyDerived = topologyDerived;
+    }
+
+    static WorkflowPlan invalid(Long workflowId, LocalDateTime version, String error) {
+        return new WorkflowPlan(workflowId, version, new WorkflowNode[0], Collections.emptyMap(), -1,
+                new int[0][], new String[0][], new int[0][], new boolean[0], 0, new int[0],
+                Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), error, null, false);
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    /**
+     * 可达节点中存在环路时无法按拓扑顺序调度
+     */
+    public boolean isAcyclic() {
+        return topologicalOrder.length == reachableCount;
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+}
@@ -0,0 +1,87 @@
+package cn.iocoder.boot.workflow.engine;
+
+import cn.iocoder.boot.workflow.entity.Workflow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 工作流执行计划缓存，按(工作流ID, 更新时间)判断是否命中
+ * 工作流被修改后updated_at变化，下次访问时重新编译；删除时主动淘汰
+ * 编译时重新推导了拓扑（历史数据或直接修改了数据库）时回写wf_workflow.topology，之后不再推导
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WorkflowPlanCache {
+
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${workflow.plan-cache.max-size:1000}")
+    private int maxSize;
+
+    private Map<Long, WorkflowPlan> plans;
+
+    @PostConstruct
+    public void init() {
+        plans = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, WorkflowPlan> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    public WorkflowPlan get(Workflow workflow) {
+        if (workflow.getId() == null || workflow.getUpdatedAt() == null) {
+            return WorkflowPlanCompiler.compile(workflow.getId(), workflow.getUpdatedAt(), workflow.getConfig(),
+                    workflow.getTopology(), objectMapper);
+        }
+        WorkflowPlan plan = plans.get(workflow.getId());
+        if (plan != null && Objects.equals(plan.getVersion(), workflow.getUpdatedAt())) {
+            return plan;
+        }
+        plan = WorkflowPlanCompiler.compile(workflow.getId(), workflow.getUpdatedAt(), workflow.getConfig(),
+                workflow.getTopology(), objectMapper);
+        if (!plan.isValid()) {
+            log.warn("编译工作流执行计划失败: workflowId={}, error={}", workflow.getId(), plan.getError());
+        }
+        if (plan.isTopologyDerived()) {
+            saveTopology(workflow, plan.getTopology());
+        }
+        plans.put(workflow.getId(), plan);
+        return plan;
+    }
+
+    /**
+     * 只回写拓扑列，不经过JPA，避免修改updated_at；工作流已被修改时不回写
+     */
+    private void saveTopology(Workflow workflow, WorkflowTopology topology) {
+        try {
+            jdbcTemplate.update("UPDATE wf_workflow SET topology = ? WHERE id = ? AND updated_at = ?",
+                    topology.toJson(objectMapper), workflow.getId(), workflow.getUpdatedAt());
+        } catch (Exception e) {
+            log.warn("回写工作流拓扑失败: workflowId={}, error={}", workflow.getId(), e.getMessage());
+        }
+    }
+
+    public void evict(Long workflowId) {
+        plans.remove(workflowId);
+    }
+
+    public int size() {
+        return plans.size();
+    }
+}
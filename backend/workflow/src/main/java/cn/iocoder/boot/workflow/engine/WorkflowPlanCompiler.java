@@ -0,0 +1,381 @@
+package cn.iocoder.boot.workflow.engine;
+
+import cn.iocoder.boot.workflow.dto.WorkflowDTO;
+import cn.iocoder.boot.workflow.engine.condition.ConditionCompiler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * 工作流计划编译器：按保存时推导的{@link WorkflowTopology}组装邻接数组与拓扑顺序，编译提示词模板、条件表达式和start节点变量
+ *
+ * @author workflow-team
+ */
+@Slf4j
+public class WorkflowPlanCompiler {
+
+    private static final String IF_NODE_TYPE = "if";
+    private static final String MAP_NODE_TYPE = "map";
+    private static final String SUBWORKFLOW_NODE_TYPE = "subworkflow";
+    private static final String CONFLUENCE_NODE_TYPE = "confluence";
+
+    private WorkflowPlanCompiler() {
+    }
+
+    /**
+     * @param topologyJson 保存时推导的拓扑，缺失或与配置不一致时重新推导，可通过{@link WorkflowPlan#isTopologyDerived()}判断
+     */
+    public static WorkflowPlan compile(Long workflowId, LocalDateTime version, String configJson, String topologyJson,
+                                       ObjectMapper objectMapper) {
+        JsonNode config;
+        try {
+            config = objectMapper.readTree(configJson);
+        } catch (Exception e) {
+            return WorkflowPlan.invalid(workflowId, version, "工作流配置不是合法的JSON: " + e.getMessage());
+        }
+        JsonNode nodeArray = config == null ? null : config.get("nodes");
+        if (nodeArray == null || !nodeArray.isArray()) {
+            return WorkflowPlan.invalid(workflowId, version, "工作流配置缺少nodes");
+        }
+
+        // 1. 拓扑：优先使用保存时推导的结果
+        WorkflowConfigOutline outline = WorkflowConfigOutline.of(config);
+        WorkflowTopology topology = WorkflowTopology.read(topologyJson, outline.getHash(), objectMapper);
+        boolean topologyDerived = topology == null;
+        if (topologyDerived) {
+            topology = WorkflowTopology.analyze(outline);
+        }
+        return build(workflowId, version, outline, topology, topologyDerived, objectMapper);
+    }
+
+    /**
+     * 由保存时流式读取的配置概要编译计划，只用于生成列表摘要（节点信息、变量信息与检查结果），节点config只包含摘要字段，不能用于执行
+     */
+    public static WorkflowPlan summarize(WorkflowConfigOutline outline, WorkflowTopology topology, ObjectMapper objectMapper) {
+        return build(null, null, outline, topology, false, objectMapper);
+    }
+
+    private static WorkflowPlan build(Long workflowId, LocalDateTime version, WorkflowConfigOutline outline,
+                                      WorkflowTopology topology, boolean topologyDerived, ObjectMapper objectMapper) {
+        int startIndex = topology.getStart();
+        if (startIndex < 0) {
+            return WorkflowPlan.invalid(workflowId, version, "工作流缺少开始节点");
+        }
+
+        // 2. 节点：先收集ID与名称，再编译提示词模板，使模板可以引用任意节点
+        Map<String, WorkflowConfigOutline.Node> rawById = new HashMap<>();
+        for (WorkflowConfigOutline.Node node : outline.getNodes()) {
+            if (node.getId() != null) {
+                rawById.putIfAbsent(node.getId(), node);
+            }
+        }
+        List<WorkflowConfigOutline.Node> rawNodes = new ArrayList<>(topology.getNodeIds().size());
+        Map<String, Integer> indexById = new HashMap<>();
+        Map<String, Integer> indexByLabel = new HashMap<>();
+        for (String id : topology.getNodeIds()) {
+            WorkflowConfigOutline.Node node = rawById.get(id);
+            indexById.put(id, rawNodes.size());
+            indexByLabel.putIfAbsent(node.getDisplayName(), rawNodes.size());
+            rawNodes.add(node);
+        }
+        ToIntFunction<String> nodeResolver =
+                reference -> indexById.getOrDefault(reference, indexByLabel.getOrDefault(reference, -1));
+        List<WorkflowNode> nodes = new ArrayList<>(rawNodes.size());
+        ConditionCompiler.CompiledCondition[] conditions = new ConditionCompiler.CompiledCondition[rawNodes.size()];
+        for (WorkflowConfigOutline.Node node : rawNodes) {
+            String type = node.getType();
+            JsonNode nodeConfig = node.getConfig();
+            // map节点的列表来源（config.items）与Confluence节点的页面内容（config.content）同样是模板，编译到提示词模板中并参与模板检查
+            JsonNode prompt = nodeConfig.get(promptField(type));
+            PromptTemplate template = prompt == null || prompt.isNull() ? null : PromptTemplate.compile(prompt.asText(), nodeResolver);
+            if (IF_NODE_TYPE.equals(type)) {
+                JsonNode condition = nodeConfig.get("condition");
+                conditions[nodes.size()] = ConditionCompiler.compile(
+                        condition == null || condition.isNull() ? null : condition.asText(), nodeResolver);
+            }
+            ConditionCompiler.CompiledCondition condition = conditions[nodes.size()];
+            nodes.add(new WorkflowNode(node.getId(), type, node.getDisplayName(), nodeConfig, template,
+                    condition == null ? null : condition.getExpression()));
+        }
+
+        // 3. 邻接数组、可达性与拓扑顺序
+        int size = nodes.size();
+        int[][] successors = topology.getSuccessors();
+        int[][] predecessors = topology.getPredecessors();
+        String[][] outgoingHandles = topology.getHandles();
+        boolean[] reachable = new boolean[size];
+        Arrays.fill(reachable, true);
+        for (int index : topology.getUnreachable()) {
+            reachable[index] = false;
+        }
+        int reachableCount = size - topology.getUnreachable().length;
+        int[] topologicalOrder = topology.getOrder();
+
+        // 4. 列表信息与变量默认值
+        WorkflowNode[] nodeArrayCompiled = nodes.toArray(new WorkflowNode[0]);
+        Map<String, String> startVariables = new LinkedHashMap<>();
+        List<WorkflowDTO.VariableInfo> variableInfos = new ArrayList<>();
+        extractStartVariables(nodeArrayCompiled[startIndex], objectMapper, startVariables, variableInfos);
+        int[] listingOrder = topologicalOrder.length == reachableCount
+                ? topologicalOrder
+                : firstEdgeWalk(startIndex, successors);
+        List<WorkflowDTO.NodeInfo> nodeInfos = new ArrayList<>(listingOrder.length);
+        for (int index : listingOrder) {
+            nodeInfos.add(createNodeInfo(nodeArrayCompiled[index]));
+        }
+
+        List<String> warnings = new ArrayList<>(topology.getErrors());
+        warnings.addAll(topology.getWarnings());
+        warnings.addAll(checkTemplates(nodeArrayCompiled, predecessors, reachable, startVariables));
+        warnings.addAll(checkConditions(nodeArrayCompiled, conditions, outgoingHandles, predecessors, reachable, startVariables));
+        warnings.addAll(checkSubworkflows(workflowId, nodeArrayCompiled, reachable));
+        if (!warnings.isEmpty() && workflowId != null) {
+            log.info("工作流提示词模板检查: workflowId={}, {}", workflowId, warnings);
+        }
+
+        return new WorkflowPlan(workflowId, version, nodeArrayCompiled, indexById, startIndex, successors,
+                outgoingHandles, predecessors, reachable, reachableCount, topologicalOrder, startVariables,
+                nodeInfos, variableInfos, warnings, null, topology, topologyDerived);
+    }
+
+    /**
+     * 编译期检查提示词模板：未在start节点定义的变量（只能由调用参数提供）、不存在的节点引用、
+     * 引用的节点不是前驱（执行到该节点时可能尚未完成）
+     */
+    private static List<String> checkTemplates(WorkflowNode[] nodes, int[][] predecessors, boolean[] reachable,
+                                               Map<String, String> startVariables) {
+        List<String> warnings = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i++) {
+            PromptTemplate template = nodes[i].getPrompt();
+            if (template == null || !reachable[i]) {
+                continue;
+            }
+            String label = nodes[i].getLabel();
+            Set<String> undefined = new LinkedHashSet<>();
+            for (String name : template.getVariableNames()) {
+                if (!startVariables.containsKey(name)) {
+                    undefined.add(name);
+                }
+            }
+            if (!undefined.isEmpty()) {
+                warnings.add("节点[" + label + "]引用了未定义的变量: " + undefined);
+            }
+            for (String reference : template.getUnresolvedNodeReferences()) {
+                warnings.add("节点[" + label + "]引用了不存在的节点: " + reference);
+            }
+            List<Integer> references = template.getNodeReferences();
+            if (!references.isEmpty()) {
+                boolean[] ancestors = ancestors(i, predecessors);
+                for (int reference : references) {
+                    if (!ancestors[reference]) {
+                        warnings.add("节点[" + label + "]引用的节点[" + nodes[reference].getLabel() + "]不是其前驱节点，执行时可能没有输出");
+                    }
+                }
+            }
+        }
+        return warnings;
+    }
+
+    /**
+     * 编译期检查条件表达式：语法错误、未定义的变量、不存在或不是前驱的节点引用、缺少true/false出边
+     */
+    private static List<String> checkConditions(WorkflowNode[] nodes, ConditionCompiler.CompiledCondition[] conditions,
+                                                String[][] outgoingHandles, int[][] predecessors, boolean[] reachable,
+                                                Map<String, String> startVariables) {
+        List<String> warnings = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i++) {
+            ConditionCompiler.CompiledCondition condition = conditions[i];
+            if (condition == null || !reachable[i]) {
+                continue;
+            }
+            String label = nodes[i].getLabel();
+            if (condition.getError() != null) {
+                warnings.add("条件节点[" + label + "]" + condition.getError());
+                continue;
+            }
+            Set<String> undefined = new LinkedHashSet<>();
+            for (String name : condition.getVariableNames()) {
+                if (!startVariables.containsKey(name)) {
+                    undefined.add(name);
+                }
+            }
+            if (!undefined.isEmpty()) {
+                warnings.add("条件节点[" + label + "]引用了未定义的变量: " + undefined);
+            }
+            for (String reference : condition.getUnresolvedReferences()) {
+                warnings.add("条件节点[" + label + "]引用了不存在的节点: " + reference);
+            }
+            if (!condition.getNodeReferences().isEmpty()) {
+                boolean[] ancestors = ancestors(i, predecessors);
+                for (int reference : condition.getNodeReferences()) {
+                    if (!ancestors[reference]) {
+                        warnings.add("条件节点[" + label + "]引用的节点[" + nodes[reference].getLabel() + "]不是其前驱节点，执行时可能没有输出");
+                    }
+                }
+            }
+            List<String> handles = Arrays.asList(outgoingHandles[i]);
+            if (!handles.contains(NodeResult.BRANCH_TRUE) && !handles.contains(NodeResult.BRANCH_FALSE)) {
+                warnings.add("条件节点[" + label + "]没有连接true/false分支");
+            }
+        }
+        return warnings;
+    }
+
+    /**
+     * 编译期检查map/subworkflow节点：未配置子工作流、子工作流ID不合法、调用自身
+     * （子工作流是否存在、间接循环调用与嵌套层数在执行时检查）
+     */
+    private static List<String> checkSubworkflows(Long workflowId, WorkflowNode[] nodes, boolean[] reachable) {
+        List<String> warnings = new ArrayList<>();
+        for (int i = 0; i < nodes.length; i++) {
+            String type = nodes[i].getType();
+            if (!reachable[i] || !(MAP_NODE_TYPE.equals(type) || SUBWORKFLOW_NODE_TYPE.equals(type))) {
+                continue;
+            }
+            String label = nodes[i].getLabel();
+            String configured = nodes[i].configText("workflowId");
+            if (configured == null || configured.trim().isEmpty()) {
+                warnings.add("节点[" + label + "]未配置子工作流");
+                continue;
+            }
+            long childId = nodes[i].configLong("workflowId", -1);
+            if (childId < 0) {
+                warnings.add("节点[" + label + "]的子工作流ID不合法: " + configured);
+            } else if (workflowId != null && childId == workflowId) {
+                warnings.add("节点[" + label + "]调用了工作流自身");
+            }
+        }
+        return warnings;
+    }
+
+    /**
+     * 节点中作为模板编译的配置项
+     */
+    private static String promptField(String type) {
+        if (MAP_NODE_TYPE.equals(type)) {
+            return "items";
+        }
+        return CONFLUENCE_NODE_TYPE.equals(type) ? "content" : "prompt";
+    }
+
+    private static boolean[] ancestors(int index, int[][] predecessors) {
+        boolean[] visited = new boolean[predecessors.length];
+        Deque<Integer> stack = new ArrayDeque<>();
+        for (int predecessor : predecessors[index]) {
+            stack.push(predecessor);
+        }
+        while (!stack.isEmpty()) {
+            int current = stack.pop();
+            if (!visited[current]) {
+                visited[current] = true;
+                for (int predecessor : predecessors[current]) {
+                    stack.push(predecessor);
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * 存在环路时退回原有的列表顺序：从开始节点沿第一条出边前进，直到重复
+     */
+    private static int[] firstEdgeWalk(int startIndex, int[][] successors) {
+        boolean[] visited = new boolean[successors.length];
+        List<Integer> order = new ArrayList<>();
+        int current = startIndex;
+        while (current >= 0 && !visited[current]) {
+            visited[current] = true;
+            order.add(current);
+            current = successors[current].length > 0 ? successors[current][0] : -1;
+        }
+        return order.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void extractStartVariables(WorkflowNode startNode, ObjectMapper objectMapper,
+                                              Map<String, String> startVariables,
+                                              List<WorkflowDTO.VariableInfo> variableInfos) {
+        JsonNode initialVariables = readJsonObject(startNode.getConfig().get("initialVariables"), objectMapper);
+        JsonNode descriptions = readJsonObject(startNode.getConfig().get("variableDescriptions"), objectMapper);
+        if (initialVariables == null) {
+            return;
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = initialVariables.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            if (name == null || name.trim().isEmpty()) {
+                continue;
+            }
+            JsonNode value = field.getValue();
+            startVariables.put(name, value == null || value.isNull() ? "" : value.isValueNode() ? value.asText() : value.toString());
+
+            WorkflowDTO.VariableInfo variableInfo = new WorkflowDTO.VariableInfo();
+            variableInfo.setName(name);
+            JsonNode description = descriptions == null ? null : descriptions.get(name);
+            variableInfo.setDescription(description == null || description.isNull() ? "" : description.asText());
+            variableInfos.add(variableInfo);
+        }
+    }
+
+    /**
+     * 变量配置既可能是JSON对象，也可能是JSON字符串
+     */
+    private static JsonNode readJsonObject(JsonNode value, ObjectMapper objectMapper) {
+        if (value != null && value.isTextual()) {
+            try {
+                value = objectMapper.readTree(value.asText());
+            } catch (Exception e) {
+                log.warn("解析开始节点变量失败: {}", e.getMessage());
+                return null;
+            }
+        }
+        return value != null && value.isObject() ? value : null;
+    }
+
+    private static WorkflowDTO.NodeInfo createNodeInfo(WorkflowNode node) {
+        WorkflowDTO.NodeInfo nodeInfo = new WorkflowDTO.NodeInfo();
+        nodeInfo.setName(node.getLabel());
+
+        // 设置默认值
+        nodeInfo.setId("-1");
+        nodeInfo.setUserPrompt("null");
+
+        switch (node.getType()) {
+            case "agent":
+                String agentId = node.configText("agentId");
+                if (agentId != null) {
+                    nodeInfo.setId(agentId);
+                }
+                if (node.getPrompt() != null) {
+                    nodeInfo.setUserPrompt(node.getPrompt().getSource());
+                }
+                break;
+            case "end":
+                nodeInfo.setId("-2");
+                break;
+            case "jira":
+                nodeInfo.setId("-3");
+                break;
+            case "confluence":
+                nodeInfo.setId("-4");
+                break;
+            default:
+                break;
+        }
+        return nodeInfo;
+    }
+}
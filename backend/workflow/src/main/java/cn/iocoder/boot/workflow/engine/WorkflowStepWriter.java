@@ -0,0 +1,193 @@
+package cn.iocoder.boot.workflow.engine;
+
+import cn.iocoder.boot.workflow.entity.WorkflowExecutionStep;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 执行步骤写后缓冲：调度线程只把步骤放入有界队列，后台线程凑满batch-size或等待flush-interval-ms后
+ * 用JDBC批量插入wf_execution_step，持久化不占用节点执行的关键路径
+ * 队列已满时丢弃步骤并计数，步骤记录只用于诊断，不影响执行结果
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WorkflowStepWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO wf_execution_step (execution_id, workflow_id, node_id, node_type, "
+            + "status, branch, started_at, completed_at, duration_ms, input_chars, output_chars, tokens, cache_hit, error_message) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${workflow.step-writer.batch-size:200}")
+    private int batchSize;
+
+    @Value("${workflow.step-writer.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${workflow.step-writer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<WorkflowExecutionStep> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writerThread = new Thread(this::runWriter, "WorkflowStepWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("执行步骤写入器启动完成，批大小: {}, 刷新间隔: {}ms, 队列容量: {}", batchSize, flushIntervalMs, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 关闭前写入剩余步骤
+        List<WorkflowExecutionStep> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    /**
+     * 提交步骤记录，不阻塞
+     */
+    public void submit(WorkflowExecutionStep step) {
+        if (!queue.offer(step)) {
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 1000 == 0) {
+                log.warn("执行步骤写入队列已满，已丢弃步骤数: {}", count);
+            }
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    private void runWriter() {
+        List<WorkflowExecutionStep> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                WorkflowExecutionStep first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    WorkflowExecutionStep next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // 已取出的步骤放回队列，由stop()统一写入
+                batch.forEach(queue::offer);
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<WorkflowExecutionStep> batch) {
+        long start = System.currentTimeMillis();
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    WorkflowExecutionStep step = batch.get(i);
+                    ps.setLong(1, step.getExecutionId());
+                    ps.setLong(2, step.getWorkflowId());
+                    ps.setString(3, step.getNodeId());
+                    ps.setString(4, step.getNodeType());
+                    ps.setString(5, step.getStatus().name());
+                    ps.setString(6, step.getBranch());
+                    ps.setTimestamp(7, Timestamp.valueOf(step.getStartedAt()));
+                    ps.setTimestamp(8, step.getCompletedAt() == null ? null : Timestamp.valueOf(step.getCompletedAt()));
+                    setLong(ps, 9, step.getDurationMs());
+                    setInt(ps, 10, step.getInputChars());
+                    setInt(ps, 11, step.getOutputChars());
+                    setInt(ps, 12, step.getTokens());
+                    ps.setBoolean(13, Boolean.TRUE.equals(step.getCacheHit()));
+                    ps.setString(14, step.getErrorMessage());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+            written.addAndGet(batch.size());
+            log.debug("批量写入执行步骤: {} 条, 耗时: {}ms", batch.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("批量写入执行步骤失败，丢弃 {} 条: {}", batch.size(), e.getMessage(), e);
+            dropped.addAndGet(batch.size());
+        }
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+
+    private static void setInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+}
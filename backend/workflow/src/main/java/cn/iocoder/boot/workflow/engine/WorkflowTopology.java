@@ -0,0 +1,337 @@
+package cn.iocoder.boot.workflow.engine;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 工作流拓扑：保存工作流时由配置推导，以JSON保存在wf_workflow.topology中，编译执行计划时直接使用
+ * <ul>
+ *     <li>节点下标、开始节点、按连线顺序排列的出边（含sourceHandle）与入边</li>
+ *     <li>Tarjan算法求强连通分量，由分量的完成顺序得到拓扑顺序，整体为线性时间</li>
+ *     <li>errors：缺少开始节点、连线引用不存在的节点、可达节点存在环路，启用（ACTIVE）的工作流不允许保存</li>
+ *     <li>warnings：节点缺少ID或ID重复、多个开始节点、不可达节点</li>
+ * </ul>
+ * configHash为推导时配置的结构哈希（{@link WorkflowConfigOutline#getHash()}），与当前配置不一致（如直接修改了数据库）时视为失效并重新推导
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Data
+public class WorkflowTopology {
+
+    /**
+     * 格式版本，结构或configHash的算法变化时递增，旧版本的拓扑视为失效
+     */
+    public static final int FORMAT = 2;
+
+    private int format = FORMAT;
+
+    private String configHash;
+
+    /**
+     * 有效节点的ID，下标即节点下标（配置中的顺序，跳过缺少ID与重复的节点）
+     */
+    private List<String> nodeIds = new ArrayList<>();
+
+    /**
+     * 开始节点下标，缺少开始节点时为-1
+     */
+    private int start = -1;
+
+    /**
+     * 每个节点的出边目标下标，按连线顺序排列
+     */
+    private int[][] successors = new int[0][];
+
+    /**
+     * 每条出边的sourceHandle，与successors一一对应，普通边为null
+     */
+    private String[][] handles = new String[0][];
+
+    /**
+     * 每个节点的入边来源下标，按连线顺序排列
+     */
+    private int[][] predecessors = new int[0][];
+
+    /**
+     * 可达节点的拓扑顺序；可达节点存在环路时只包含不依赖环路的节点
+     */
+    private int[] order = new int[0];
+
+    /**
+     * 从开始节点不可达的节点下标
+     */
+    private int[] unreachable = new int[0];
+
+    /**
+     * 包含环路的强连通分量（节点ID）
+     */
+    private List<List<String>> cycles = new ArrayList<>();
+
+    private List<String> errors = new ArrayList<>();
+
+    private List<String> warnings = new ArrayList<>();
+
+    @JsonIgnore
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    /**
+     * 保存时以流式解析分析配置，配置不是合法的JSON或缺少nodes时抛出异常
+     */
+    public static WorkflowTopology analyze(String configJson, ObjectMapper objectMapper) {
+        return analyze(WorkflowConfigOutline.read(configJson, objectMapper));
+    }
+
+    /**
+     * 读取保存的拓扑，不存在、格式版本不同或与当前配置不一致时返回null
+     */
+    public static WorkflowTopology read(String topologyJson, String configHash, ObjectMapper objectMapper) {
+        if (topologyJson == null || topologyJson.isEmpty()) {
+            return null;
+        }
+        try {
+            WorkflowTopology topology = objectMapper.readValue(topologyJson, WorkflowTopology.class);
+            return topology.format == FORMAT && configHash.equals(topology.configHash) ? topology : null;
+        } catch (Exception e) {
+            log.warn("解析工作流拓扑失败，将重新推导: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public String toJson(ObjectMapper objectMapper) {
+        try {
+            return objectMapper.writeValueAsString(this);
+        } catch (Exception e) {
+            throw new RuntimeException("序列化工作流拓扑失败: " + e.getMessage(), e);
+        }
+    }
+
+    public static WorkflowTopology analyze(WorkflowConfigOutline outline) {
+        WorkflowTopology topology = new WorkflowTopology();
+        topology.configHash = outline.getHash();
+
+        // 1. 节点下标与开始节点
+        Map<String, Integer> indexById = new HashMap<>();
+        List<String> labels = new ArrayList<>();
+        List<String> extraStarts = new ArrayList<>();
+        int position = 0;
+        for (WorkflowConfigOutline.Node node : outline.getNodes()) {
+            position++;
+            String id = node.getId();
+            if (id == null) {
+                topology.warnings.add("第" + position + "个节点缺少ID，已忽略");
+                continue;
+            }
+            if (indexById.containsKey(id)) {
+                topology.warnings.add("节点ID重复: " + id + "，已忽略后出现的节点");
+                continue;
+            }
+            String label = node.getDisplayName();
+            if ("start".equals(node.getType())) {
+                if (topology.start < 0) {
+                    topology.start = topology.nodeIds.size();
+                } else {
+                    extraStarts.add(label);
+                }
+            }
+            indexById.put(id, topology.nodeIds.size());
+            topology.nodeIds.add(id);
+            labels.add(label);
+        }
+        int size = topology.nodeIds.size();
+        if (topology.start < 0) {
+            topology.errors.add("工作流缺少开始节点");
+        }
+        if (!extraStarts.isEmpty()) {
+            topology.warnings.add("存在多个开始节点，以下节点不会作为开始节点: " + extraStarts);
+        }
+
+        // 2. 邻接数组
+        List<List<Integer>> successorLists = newLists(size);
+        List<List<String>> handleLists = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            handleLists.add(new ArrayList<>());
+        }
+        List<List<Integer>> predecessorLists = newLists(size);
+        for (WorkflowConfigOutline.Edge edge : outline.getEdges()) {
+            Integer source = indexById.get(edge.getSource());
+            Integer target = indexById.get(edge.getTarget());
+            if (source == null || target == null) {
+                topology.errors.add("连线[" + edge.getSource() + " -> " + edge.getTarget() + "]引用了不存在的节点");
+                continue;
+            }
+            successorLists.get(source).add(target);
+            handleLists.get(source).add(edge.getSourceHandle());
+            predecessorLists.get(target).add(source);
+        }
+        topology.successors = toArrays(successorLists);
+        topology.predecessors = toArrays(predecessorLists);
+        topology.handles = new String[size][];
+        for (int i = 0; i < size; i++) {
+            topology.handles[i] = handleLists.get(i).toArray(new String[0]);
+        }
+
+        // 3. 可达性
+        boolean[] reachable = new boolean[size];
+        if (topology.start >= 0) {
+            int[] stack = new int[size];
+            int top = 0;
+            reachable[topology.start] = true;
+            stack[top++] = topology.start;
+            while (top > 0) {
+                for (int successor : topology.successors[stack[--top]]) {
+                    if (!reachable[successor]) {
+                        reachable[successor] = true;
+                        stack[top++] = successor;
+                    }
+                }
+            }
+        }
+        List<Integer> unreachable = new ArrayList<>();
+        List<String> unreachableLabels = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (!reachable[i]) {
+                unreachable.add(i);
+                unreachableLabels.add(labels.get(i));
+            }
+        }
+        topology.unreachable = unreachable.stream().mapToInt(Integer::intValue).toArray();
+        if (topology.start >= 0 && !unreachableLabels.isEmpty()) {
+            topology.warnings.add("以下节点从开始节点不可达，不会执行: " + unreachableLabels);
+        }
+
+        // 4. 强连通分量与拓扑顺序
+        topology.order = topologicalOrder(topology, reachable, labels);
+        return topology;
+    }
+
+    /**
+     * 迭代版Tarjan算法：分量按完成顺序逆序即为缩点图的拓扑顺序
+     * 从开始节点出发，出边按逆序访问，使拓扑顺序中先连接的分支排在前面
+     * 依赖环路的节点（环路本身及其下游）不进入拓扑顺序
+     */
+    private static int[] topologicalOrder(WorkflowTopology topology, boolean[] reachable, List<String> labels) {
+        int[][] successors = topology.successors;
+        int size = successors.length;
+        int[] index = new int[size];
+        int[] low = new int[size];
+        int[] component = new int[size];
+        int[] edgePosition = new int[size];
+        boolean[] onStack = new boolean[size];
+        int[] stack = new int[size];
+        int[] callStack = new int[size];
+        Arrays.fill(index, -1);
+        int stackTop = 0;
+        int counter = 0;
+        List<int[]> components = new ArrayList<>();
+
+        for (int r = -1; r < size; r++) {
+            int root = r < 0 ? topology.start : r;
+            if (root < 0 || index[root] >= 0) {
+                continue;
+            }
+            int callTop = 0;
+            index[root] = low[root] = counter++;
+            stack[stackTop++] = root;
+            onStack[root] = true;
+            callStack[callTop++] = root;
+            while (callTop > 0) {
+                int v = callStack[callTop - 1];
+                if (edgePosition[v] < successors[v].length) {
+                    int w = successors[v][successors[v].length - 1 - edgePosition[v]++];
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[stackTop++] = w;
+                        onStack[w] = true;
+                        callStack[callTop++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                callTop--;
+                if (callTop > 0) {
+                    int parent = callStack[callTop - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+                if (low[v] == index[v]) {
+                    int start = stackTop;
+                    do {
+                        start--;
+                        onStack[stack[start]] = false;
+                        component[stack[start]] = components.size();
+                    } while (stack[start] != v);
+                    components.add(Arrays.copyOfRange(stack, start, stackTop));
+                    stackTop = start;
+                }
+            }
+        }
+
+        // 按拓扑顺序遍历分量，环路及其下游标记为阻塞
+        boolean[] blocked = new boolean[components.size()];
+        int[] order = new int[size];
+        int count = 0;
+        for (int c = components.size() - 1; c >= 0; c--) {
+            int[] members = components.get(c);
+            boolean cyclic = members.length > 1 || contains(successors[members[0]], members[0]);
+            if (cyclic) {
+                List<String> ids = new ArrayList<>(members.length);
+                List<String> names = new ArrayList<>(members.length);
+                for (int member : members) {
+                    ids.add(topology.nodeIds.get(member));
+                    names.add(labels.get(member));
+                }
+                topology.cycles.add(ids);
+                if (reachable[members[0]]) {
+                    topology.errors.add("工作流存在环路: " + names);
+                }
+                blocked[c] = true;
+            }
+            for (int member : members) {
+                if (blocked[c]) {
+                    for (int successor : successors[member]) {
+                        blocked[component[successor]] = true;
+                    }
+                } else if (reachable[member]) {
+                    order[count++] = member;
+                }
+            }
+        }
+        return Arrays.copyOf(order, count);
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<List<Integer>> newLists(int size) {
+        List<List<Integer>> lists = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            lists.add(new ArrayList<>());
+        }
+        return lists;
+    }
+
+    private static int[][] toArrays(List<List<Integer>> lists) {
+        int[][] arrays = new int[lists.size()][];
+        for (int i = 0; i < lists.size(); i++) {
+            arrays[i] = lists.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return arrays;
+    }
+}
@@ -0,0 +1,332 @@
+package cn.iocoder.boot.workflow.engine.condition;
+
+import cn.iocoder.boot.workflow.engine.PromptTemplate;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 条件表达式编译器：把IF节点的config.condition解析为{@link ConditionExpression}语法树
+ * <pre>
+ * 表达式   := 或运算
+ * 或运算   := 与运算 (("or" | "||") 与运算)*
+ * 与运算   := 非运算 (("and" | "&&") 非运算)*
+ * 非运算   := ("not" | "!") 非运算 | 比较
+ * 比较     := 操作数 (("==" | "!=" | ">" | ">=" | "<" | "<=" | "contains" | "startswith" | "endswith") 操作数
+ *             | "matches" 字符串常量)?
+ * 操作数   := "(" 表达式 ")" | 字符串 | 数字 | true | false | input | {{变量名}} | {{nodes.节点}} | 变量名 | nodes.节点
+ * </pre>
+ * input表示条件节点的输入（上一节点输出）
+ *
+ * @author workflow-team
+ */
+public class ConditionCompiler {
+
+    private final String source;
+    private final ToIntFunction<String> nodeResolver;
+    private final List<Token> tokens;
+    private final List<String> variableNames = new ArrayList<>();
+    private final List<Integer> nodeReferences = new ArrayList<>();
+    private final List<String> unresolvedReferences = new ArrayList<>();
+    private int position;
+
+    private ConditionCompiler(String source, ToIntFunction<String> nodeResolver) {
+        this.source = source;
+        this.nodeResolver = nodeResolver;
+        this.tokens = tokenize(source);
+    }
+
+    /**
+     * 编译条件表达式，语法错误不会抛出，而是返回求值时抛出错误的表达式并记录在结果中
+     *
+     * @param source       表达式文本
+     * @param nodeResolver 把节点ID或名称解析为节点下标，无法解析时返回负数
+     */
+    public static CompiledCondition compile(String source, ToIntFunction<String> nodeResolver) {
+        if (source == null || source.trim().isEmpty()) {
+            String error = "条件表达式为空";
+            return new CompiledCondition(new ConditionExpression.Invalid(error), List.of(), List.of(), List.of(), error);
+        }
+        try {
+            ConditionCompiler compiler = new ConditionCompiler(source, nodeResolver);
+            ConditionExpression expression = compiler.parseOr();
+            if (compiler.position < compiler.tokens.size()) {
+                throw compiler.error("多余的内容", compiler.tokens.get(compiler.position));
+            }
+            return new CompiledCondition(expression, compiler.variableNames, compiler.nodeReferences,
+                    compiler.unresolvedReferences, null);
+        } catch (IllegalArgumentException e) {
+            String error = "条件表达式无效: " + e.getMessage();
+            return new CompiledCondition(new ConditionExpression.Invalid(error), List.of(), List.of(), List.of(), error);
+        }
+    }
+
+    private ConditionExpression parseOr() {
+        ConditionExpression left = parseAnd();
+        while (acceptKeyword("or") || acceptSymbol("||")) {
+            left = new ConditionExpression.Or(left, parseAnd());
+        }
+        return left;
+    }
+
+    private ConditionExpression parseAnd() {
+        ConditionExpression left = parseNot();
+        while (acceptKeyword("and") || acceptSymbol("&&")) {
+            left = new ConditionExpression.And(left, parseNot());
+        }
+        return left;
+    }
+
+    private ConditionExpression parseNot() {
+        if (acceptKeyword("not") || acceptSymbol("!")) {
+            return new ConditionExpression.Not(parseNot());
+        }
+        return parseComparison();
+    }
+
+    private ConditionExpression parseComparison() {
+        ConditionExpression left = parseOperand();
+        Token next = peek();
+        if (next == null) {
+            return left;
+        }
+        if (next.type == TokenType.IDENTIFIER && "matches".equalsIgnoreCase(next.text)) {
+            position++;
+            Token pattern = next();
+            if (pattern == null || pattern.type != TokenType.STRING) {
+                throw error("matches右侧必须是字符串常量", pattern);
+            }
+            try {
+                return new ConditionExpression.Matches(left, Pattern.compile(pattern.text));
+            } catch (PatternSyntaxException e) {
+                throw error("正则表达式无效: " + e.getDescription(), pattern);
+            }
+        }
+        ConditionExpression.Operator operator = null;
+        if (next.type == TokenType.SYMBOL || next.type == TokenType.IDENTIFIER) {
+            operator = ConditionExpression.Operator.of(next.type == TokenType.SYMBOL ? next.text : next.text.toLowerCase());
+        }
+        if (operator == null) {
+            return left;
+        }
+        position++;
+        return new ConditionExpression.Comparison(left, operator, parseOperand());
+    }
+
+    private ConditionExpression parseOperand() {
+        Token token = next();
+        if (token == null) {
+            throw error("表达式不完整", null);
+        }
+        switch (token.type) {
+            case STRING:
+            case NUMBER:
+                return new ConditionExpression.Literal(token.text);
+            case PLACEHOLDER:
+                return reference(token.text);
+            case IDENTIFIER:
+                String lower = token.text.toLowerCase();
+                if ("true".equals(lower) || "false".equals(lower)) {
+                    return new ConditionExpression.Literal(lower);
+                }
+                if ("input".equals(lower)) {
+                    return new ConditionExpression.Input();
+                }
+                return reference(token.text);
+            case SYMBOL:
+                if ("(".equals(token.text)) {
+                    ConditionExpression inner = parseOr();
+                    if (!acceptSymbol(")")) {
+                        throw error("缺少右括号", peek());
+                    }
+                    return inner;
+                }
+                throw error("意外的符号 " + token.text, token);
+            default:
+                throw error("无法识别的内容", token);
+        }
+    }
+
+    private ConditionExpression reference(String name) {
+        if (name.startsWith(PromptTemplate.NODE_REFERENCE_PREFIX)) {
+            String reference = name.substring(PromptTemplate.NODE_REFERENCE_PREFIX.length()).trim();
+            int index = nodeResolver.applyAsInt(reference);
+            if (index < 0) {
+                unresolvedReferences.add(reference);
+                return new ConditionExpression.Literal(null);
+            }
+            nodeReferences.add(index);
+            return new ConditionExpression.NodeOutput(index);
+        }
+        variableNames.add(name);
+        return new ConditionExpression.Variable(name);
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        Token token = peek();
+        if (token != null && token.type == TokenType.IDENTIFIER && keyword.equalsIgnoreCase(token.text)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptSymbol(String symbol) {
+        Token token = peek();
+        if (token != null && token.type == TokenType.SYMBOL && symbol.equals(token.text)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private Token peek() {
+        return position < tokens.size() ? tokens.get(position) : null;
+    }
+
+    private Token next() {
+        return position < tokens.size() ? tokens.get(position++) : null;
+    }
+
+    private IllegalArgumentException error(String message, Token token) {
+        int offset = token == null ? source.length() : token.offset;
+        return new IllegalArgumentException(message + "（位置 " + offset + "）");
+    }
+
+    private static List<Token> tokenize(String source) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        int length = source.length();
+        while (i < length) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (source.startsWith("{{", i)) {
+                int close = source.indexOf("}}", i + 2);
+                if (close < 0) {
+                    throw new IllegalArgumentException("占位符缺少}}（位置 " + i + "）");
+                }
+                tokens.add(new Token(TokenType.PLACEHOLDER, source.substring(i + 2, close).trim(), i));
+                i = close + 2;
+            } else if (c == '\'' || c == '"') {
+                StringBuilder text = new StringBuilder();
+                int j = i + 1;
+                while (j < length && source.charAt(j) != c) {
+                    if (source.charAt(j) == '\\' && j + 1 < length) {
+                        j++;
+                    }
+                    text.append(source.charAt(j));
+                    j++;
+                }
+                if (j >= length) {
+                    throw new IllegalArgumentException("字符串缺少结束引号（位置 " + i + "）");
+                }
+                tokens.add(new Token(TokenType.STRING, text.toString(), i));
+                i = j + 1;
+            } else if (Character.isDigit(c) || (c == '-' && i + 1 < length && Character.isDigit(source.charAt(i + 1))
+                    && (tokens.isEmpty() || tokens.get(tokens.size() - 1).type == TokenType.SYMBOL))) {
+                int j = i + 1;
+                while (j < length && (Character.isDigit(source.charAt(j)) || source.charAt(j) == '.')) {
+                    j++;
+                }
+                tokens.add(new Token(TokenType.NUMBER, source.substring(i, j), i));
+                i = j;
+            } else if (Character.isLetter(c) || c == '_') {
+                int j = i + 1;
+                while (j < length && (Character.isLetterOrDigit(source.charAt(j)) || source.charAt(j) == '_'
+                        || source.charAt(j) == '.' || source.charAt(j) == '-')) {
+                    j++;
+                }
+                tokens.add(new Token(TokenType.IDENTIFIER, source.substring(i, j), i));
+                i = j;
+            } else {
+                String symbol = twoCharSymbol(source, i);
+                if (symbol == null) {
+                    symbol = String.valueOf(c);
+                    if ("()!<>".indexOf(c) < 0) {
+                        throw new IllegalArgumentException("无法识别的字符 " + c + "（位置 " + i + "）");
+                    }
+                }
+                tokens.add(new Token(TokenType.SYMBOL, symbol, i));
+                i += symbol.length();
+            }
+        }
+        return tokens;
+    }
+
+    private static String twoCharSymbol(String source, int i) {
+        if (i + 1 >= source.length()) {
+            return null;
+        }
+        String symbol = source.substring(i, i + 2);
+        switch (symbol) {
+            case "==":
+            case "!=":
+            case ">=":
+            case "<=":
+            case "&&":
+            case "||":
+                return symbol;
+            default:
+                return null;
+        }
+    }
+
+    private enum TokenType {
+        STRING, NUMBER, IDENTIFIER, PLACEHOLDER, SYMBOL
+    }
+
+    private static class Token {
+        private final TokenType type;
+        private final String text;
+        private final int offset;
+
+        private Token(TokenType type, String text, int offset) {
+            this.type = type;
+            this.text = text;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * 编译结果
+     */
+    @Getter
+    public static class CompiledCondition {
+
+        private final ConditionExpression expression;
+
+        /**
+         * 引用的普通变量名
+         */
+        private final List<String> variableNames;
+
+        /**
+         * 引用的节点下标
+         */
+        private final List<Integer> nodeReferences;
+
+        /**
+         * 无法解析的节点引用
+         */
+        private final List<String> unresolvedReferences;
+
+        /**
+         * 编译错误，成功时为null
+         */
+        private final String error;
+
+        CompiledCondition(ConditionExpression expression, List<String> variableNames, List<Integer> nodeReferences,
+                          List<String> unresolvedReferences, String error) {
+            this.expression = expression;
+            this.variableNames = variableNames;
+            this.nodeReferences = nodeReferences;
+            this.unresolvedReferences = unresolvedReferences;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package cn.iocoder.boot.workflow.engine.condition;
+
+import cn.iocoder.boot.workflow.engine.ExecutionContext;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 条件表达式语法树
+ * 由{@link ConditionCompiler}在编译执行计划时生成；求值时只读取上下文，不创建新对象
+ * （正则匹配复用线程内的Matcher，数字比较使用不分配内存的解析）
+ *
+ * @author workflow-team
+ */
+public abstract class ConditionExpression {
+
+    private static final String TRUE = "true";
+    private static final String FALSE = "false";
+
+    /**
+     * 按布尔值求值
+     *
+     * @param context 执行上下文（变量与节点输出）
+     * @param input   条件节点的输入，即上一节点的输出
+     */
+    public boolean test(ExecutionContext context, String input) {
+        return isTruthy(value(context, input));
+    }
+
+    /**
+     * 按字符串求值，不存在的变量返回null
+     */
+    public abstract String value(ExecutionContext context, String input);
+
+    /**
+     * 非空、不是false/0的值视为真
+     */
+    static boolean isTruthy(String value) {
+        if (value == null) {
+            return false;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && Character.isWhitespace(value.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+        int length = end - start;
+        if (length == 0) {
+            return false;
+        }
+        if (length == 1 && value.charAt(start) == '0') {
+            return false;
+        }
+        return !(length == 5 && value.regionMatches(true, start, FALSE, 0, 5));
+    }
+
+    /**
+     * 不分配内存的十进制数解析，不是数字时返回NaN
+     */
+    static double parseNumber(String value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        int i = 0;
+        int end = value.length();
+        while (i < end && Character.isWhitespace(value.charAt(i))) {
+            i++;
+        }
+        while (end > i && Character.isWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+        if (i == end) {
+            return Double.NaN;
+        }
+        boolean negative = false;
+        if (value.charAt(i) == '-' || value.charAt(i) == '+') {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        double result = 0;
+        double scale = 0;
+        boolean digits = false;
+        for (; i < end; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (scale == 0) {
+                    result = result * 10 + (c - '0');
+                } else {
+                    result += (c - '0') * scale;
+                    scale /= 10;
+                }
+            } else if (c == '.' && scale == 0) {
+                scale = 0.1;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!digits) {
+            return Double.NaN;
+        }
+        return negative ? -result : result;
+    }
+
+    static String toValue(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    /**
+     * 常量：字符串、数字、true/false
+     */
+    static final class Literal extends ConditionExpression {
+        private final String value;
+
+        Literal(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String value(ExecutionContext context, String input) {
+            return value;
+        }
+    }
+
+    /**
+     * 变量引用：start节点变量或调用参数
+     */
+    static final class Variable extends ConditionExpression {
+        private final String name;
+
+        Variable(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String value(ExecutionContext context, String input) {
+            Map<String, String> variables = context.getVariables();
+            return variables.get(name);
+        }
+    }
+
+    /**
+     * 节点输出引用，编译时已解析为节点下标
+     */
+    static final class NodeOutput extends ConditionExpression {
+        private final int index;
+
+        NodeOutput(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String value(ExecutionContext context, String input) {
+            AtomicReferenceArray<String> outputs = context.getOutputs();
+            return outputs == null ? null : outputs.get(index);
+        }
+    }
+
+    /**
+     * 条件节点的输入（上一节点输出）
+     */
+    static final class Input extends ConditionExpression {
+        @Override
+        public String value(ExecutionContext context, String input) {
+            return input;
+        }
+    }
+
+    static final class Not extends ConditionExpression {
+        private final ConditionExpression operand;
+
+        Not(ConditionExpression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public boolean test(ExecutionContext context, String input) {
+            return !operand.test(context, input);
+        }
+
+        @Override
+        public String value(ExecutionContext context, String input) {
+            return toValue(test(context, input));
+        }
+    }
+
+    static final class And extends ConditionExpression {
+        private final ConditionExpression left;
+        private final ConditionExpression right;
+
+        And(ConditionExpression left, ConditionExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(ExecutionContext context, String input) {
+            return left.test(context, input) && right.test(context, input);
+        }
+
+        @Override
+        public String value(ExecutionContext context, String input) {
+            return toValue(test(context, input));
+        }
+    }
+
+    static final class Or extends ConditionExpression {
+        private final ConditionExpression left;
+        private final ConditionExpression right;
+
+        Or(ConditionExpression left, ConditionExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(ExecutionContext context, String input) {
+            return left.test(context, input) || right.test(context, input);
+        }
+
+        @Override
+        public String value(ExecutionContext context, String input) {
+            return toValue(test(context, input));
+        }
+    }
+
+    /**
+     * 比较运算符
+     */
+    enum Operator {
+        EQ("=="), NE("!="), GT(">"), GE(">="), LT("<"), LE("<="),
+        CONTAINS("contains"), STARTS_WITH("startswith"), ENDS_WITH("endswith");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Operator of(String symbol) {
+            for (Operator operator : values()) {
+                if (operator.symbol.equals(symbol)) {
+                    return operator;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 比较运算：两侧都是数字时按数值比较，否则按字符串比较；不存在的值视为空字符串
+     */
+    static final class Comparison extends ConditionExpression {
+        private final ConditionExpression left;
+        private final ConditionExpression right;
+        private final Operator operator;
+
+        Comparison(ConditionExpression left, Operator operator, ConditionExpression right) {
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(ExecutionContext context, String input) {
+            String leftValue = orEmpty(left.value(context, input));
+            String rightValue = orEmpty(right.value(context, input));
+            switch (operator) {
+                case CONTAINS:
+                    return leftValue.contains(rightValue);
+                case STARTS_WITH:
+                    return leftValue.startsWith(rightValue);
+                case ENDS_WITH:
+                    return leftValue.endsWith(rightValue);
+                default:
+                    break;
+            }
+            double leftNumber = parseNumber(leftValue);
+            double rightNumber = parseNumber(rightValue);
+            int compared = Double.isNaN(leftNumber) || Double.isNaN(rightNumber)
+                    ? leftValue.compareTo(rightValue)
+                    : Double.compare(leftNumber, rightNumber);
+            switch (operator) {
+                case EQ:
+                    return compared == 0;
+                case NE:
+                    return compared != 0;
+                case GT:
+                    return compared > 0;
+                case GE:
+                    return compared >= 0;
+                case LT:
+                    return compared < 0;
+                default:
+                    return compared <= 0;
+            }
+        }
+
+        @Override
+        public String value(ExecutionContext context, String input) {
+            return toValue(test(context, input));
+        }
+
+        private static String orEmpty(String value) {
+            return value == null ? "" : value;
+        }
+    }
+
+    /**
+     * 正则匹配（查找子串），模式在编译时生成，每个线程复用同一个Matcher
+     */
+    static final class Matches extends ConditionExpression {
+        private final ConditionExpression operand;
+        private final ThreadLocal<Matcher> matcher;
+
+        Matches(ConditionExpression operand, Pattern pattern) {
+            this.operand = operand;
+            this.matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+        }
+
+        @Override
+        public boolean test(ExecutionContext context, String input) {
+            String value = operand.value(context, input);
+            return value != null && matcher.get().reset(value).find();
+        }
+
+        @Override
+        public String value(ExecutionContext context, String input) {
+            return toValue(test(context, input));
+        }
+    }
+
+    /**
+     * 编译失败的表达式，求值时抛出编译错误
+     */
+    static final class Invalid extends ConditionExpression {
+        private final String message;
+
+        Invalid(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String value(ExecutionContext context, String input) {
+            throw new RuntimeException(message);
+        }
+
+        @Override
+        public boolean test(ExecutionContext context, String input) {
+            throw new RuntimeException(message);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package cn.iocoder.boot.workflow.engine.condition;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 条件节点求值统计：按(工作流ID, 节点ID)累计求值次数、命中true的次数和耗时，用于定位热点条件
+ *
+ * @author workflow-team
+ */
+@Component
+public class ConditionStats {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public void record(Long workflowId, String nodeId, String label, boolean result, long nanos) {
+        Entry entry = entries.computeIfAbsent(workflowId + ":" + nodeId, key -> new Entry(workflowId, nodeId, label));
+        entry.evaluations.increment();
+        if (result) {
+            entry.trueCount.increment();
+        }
+        entry.totalNanos.add(nanos);
+        entry.maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * 统计快照，按累计耗时倒序
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparingLong((Entry entry) -> entry.totalNanos.sum()).reversed());
+        List<Map<String, Object>> result = new ArrayList<>(sorted.size());
+        for (Entry entry : sorted) {
+            long evaluations = entry.evaluations.sum();
+            long totalNanos = entry.totalNanos.sum();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("workflowId", entry.workflowId);
+            item.put("nodeId", entry.nodeId);
+            item.put("label", entry.label);
+            item.put("evaluations", evaluations);
+            item.put("trueCount", entry.trueCount.sum());
+            item.put("totalNanos", totalNanos);
+            item.put("avgNanos", evaluations == 0 ? 0 : totalNanos / evaluations);
+            item.put("maxNanos", entry.maxNanos.get());
+            result.add(item);
+        }
+        return result;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private static class Entry {
+        private final Long workflowId;
+        private final String nodeId;
+        private final String label;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder trueCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private Entry(Long workflowId, String nodeId, String label) {
+            this.workflowId = workflowId;
+            this.nodeId = nodeId;
+            this.label = label;
+        }
+    }
+}
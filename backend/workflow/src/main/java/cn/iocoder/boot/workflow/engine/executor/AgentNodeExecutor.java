@@ -0,0 +1,153 @@
+package cn.iocoder.boot.workflow.engine.executor;
+
+import cn.iocoder.boot.workflow.dto.AgentProfile;
+import cn.iocoder.boot.workflow.engine.ExecutionContext;
+import cn.iocoder.boot.workflow.engine.ExecutionEvent;
+import cn.iocoder.boot.workflow.engine.ExecutionEventBus;
+import cn.iocoder.boot.workflow.engine.NodeExecutor;
+import cn.iocoder.boot.workflow.engine.NodeMemoCache;
+import cn.iocoder.boot.workflow.engine.NodeResult;
+import cn.iocoder.boot.workflow.engine.PromptTemplate;
+import cn.iocoder.boot.workflow.engine.TokenEstimator;
+import cn.iocoder.boot.workflow.engine.WorkflowNode;
+import cn.iocoder.boot.workflow.service.WorkflowAgentService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Agent节点：替换提示词中的变量后调用Agent，与前端逐节点执行时的提示词拼接规则保持一致
+ * 执行有SSE订阅者时改用流式调用，把增量文本作为token-delta事件发布；
+ * 配置memoize为true时相同Agent配置与输入的回复从NodeMemoCache复用（memoTtlSeconds指定有效期），执行时可要求强制刷新；
+ * 执行预算按提示词、上一节点输出与Agent的最大输出token数预估消耗
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AgentNodeExecutor implements NodeExecutor {
+
+    private final WorkflowAgentService workflowAgentService;
+    private final ExecutionEventBus eventBus;
+    private final NodeMemoCache memoCache;
+
+    /**
+     * Agent未配置最大输出token数时预估使用的输出上限，与chatbycard的默认值一致
+     */
+    @Value("${workflow.budget.default-output-tokens:2048}")
+    private int defaultOutputTokens;
+
+    @Override
+    public String getType() {
+        return "agent";
+    }
+
+    @Override
+    public boolean callsModel(WorkflowNode node) {
+        return true;
+    }
+
+    @Override
+    public int estimateTokens(WorkflowNode node, String input, ExecutionContext context) {
+        String agentId = node.configText("agentId");
+        String prompt = buildPrompt(node.getPrompt(), input, context);
+        if (!StringUtils.hasText(agentId) || !StringUtils.hasText(prompt)) {
+            return 0;
+        }
+        Integer maxTokens = agentProfile(agentId, context).getMaxTokens();
+        int outputTokens = maxTokens != null && maxTokens > 0 ? maxTokens : defaultOutputTokens;
+        return TokenEstimator.estimate(prompt) + TokenEstimator.estimate(input) + outputTokens;
+    }
+
+    @Override
+    public NodeResult execute(WorkflowNode node, String input, ExecutionContext context) {
+        String agentId = node.configText("agentId");
+        if (!StringUtils.hasText(agentId)) {
+            throw new RuntimeException("Agent节点未配置Agent: " + node.getLabel());
+        }
+
+        String prompt = buildPrompt(node.getPrompt(), input, context);
+        if (!StringUtils.hasText(prompt)) {
+            log.warn("Agent节点没有提示词也没有上一节点输出，跳过: {}", node.getLabel());
+            return NodeResult.empty();
+        }
+
+        String memoKey = null;
+        if (node.configBoolean("memoize")) {
+            memoKey = NodeMemoCache.key(agentId, agentProfile(agentId, context).getVersion(), prompt, input);
+            String cached = context.isRefreshMemo() ? null : memoCache.get(memoKey);
+            if (cached != null) {
+                log.debug("Agent节点命中输出缓存: node={}, agentId={}", node.getLabel(), agentId);
+                context.getMemoHits().add(node.getId());
+                if (eventBus.hasSubscribers(context.getExecutionId())) {
+                    publishDelta(node, cached, context);
+                }
+                return NodeResult.cached(cached);
+            }
+        }
+
+        String output = eventBus.hasSubscribers(context.getExecutionId())
+                ? streamAgent(node, agentId, prompt, input, context)
+                : workflowAgentService.invokeAgent(agentId, prompt, input);
+        if (memoKey != null) {
+            memoCache.put(memoKey, agentId, output, node.configLong("memoTtlSeconds", 0));
+        }
+        int tokens = TokenEstimator.estimate(prompt) + TokenEstimator.estimate(input) + TokenEstimator.estimate(output);
+        return NodeResult.of(output, tokens);
+    }
+
+    private String streamAgent(WorkflowNode node, String agentId, String prompt, String input, ExecutionContext context) {
+        StringBuilder output = new StringBuilder();
+        workflowAgentService.streamAgent(agentId, prompt, input)
+                .doOnNext(delta -> {
+                    output.append(delta);
+                    publishDelta(node, delta, context);
+                })
+                .blockLast();
+        return output.toString();
+    }
+
+    private void publishDelta(WorkflowNode node, String delta, ExecutionContext context) {
+        ExecutionEvent event = ExecutionEvent.of(ExecutionEvent.TOKEN_DELTA, context.getExecutionId());
+        event.setNodeId(node.getId());
+        event.setNodeType(node.getType());
+        event.setDelta(delta);
+        eventBus.publish(event);
+    }
+
+    /**
+     * 上一节点输出与渲染后的提示词拼接到同一个预估容量的StringBuilder中；
+     * 提示词为空时直接使用上一节点输出
+     */
+    /**
+     * Agent配置摘要，同一次执行内按Agent ID只读取一次（预算预估与记忆缓存键共用）
+     */
+    private AgentProfile agentProfile(String agentId, ExecutionContext context) {
+        return context.getAgentProfiles().computeIfAbsent(agentId, id -> {
+            AgentProfile profile = workflowAgentService.getAgentProfile(id);
+            return profile != null ? profile : AgentProfile.MISSING;
+        });
+    }
+
+    private static String buildPrompt(PromptTemplate template, String input, ExecutionContext context) {
+        if (template == null) {
+            return input;
+        }
+        boolean hasInput = StringUtils.hasText(input);
+        StringBuilder prompt = new StringBuilder((hasInput ? input.length() + 2 : 0) + template.estimateLength());
+        if (hasInput) {
+            prompt.append(input).append("\n\n");
+        }
+        int promptStart = prompt.length();
+        template.renderTo(prompt, context.getVariables(), context.getOutputs());
+        for (int i = promptStart; i < prompt.length(); i++) {
+            if (!Character.isWhitespace(prompt.charAt(i))) {
+                return prompt.toString();
+            }
+        }
+        return input;
+    }
+}
@@ -0,0 +1,130 @@
+package cn.iocoder.boot.workflow.engine.executor;
+
+import cn.iocoder.boot.workflow.connector.ConfluenceConnector;
+import cn.iocoder.boot.workflow.engine.ExecutionContext;
+import cn.iocoder.boot.workflow.engine.NodeExecutor;
+import cn.iocoder.boot.workflow.engine.NodeResult;
+import cn.iocoder.boot.workflow.engine.PromptTemplate;
+import cn.iocoder.boot.workflow.engine.WorkflowNode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Confluence节点：operation为read（默认）时读取页面，输出storage格式的正文；
+ * 为write时用内容模板（未配置时为上一节点的输出）创建或更新页面，输出页面ID、标题、链接与版本号（JSON）
+ * 页面由pageUrl指定，未配置时按spaceKey与pageTitle查找，标题可以引用变量
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConfluenceNodeExecutor implements NodeExecutor {
+
+    private static final String OPERATION_WRITE = "write";
+
+    private final ConfluenceConnector confluenceConnector;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String getType() {
+        return "confluence";
+    }
+
+    @Override
+    public NodeResult execute(WorkflowNode node, String input, ExecutionContext context) {
+        if (!confluenceConnector.isConfigured()) {
+            throw new RuntimeException("未配置Confluence连接（workflow.connector.confluence.base-url）: " + node.getLabel());
+        }
+        String spaceKey = node.configText("spaceKey");
+        String title = node.configText("pageTitle");
+        if (StringUtils.hasText(title)) {
+            title = PromptTemplate.compile(title).render(context.getVariables()).trim();
+        }
+        String pageId = pageId(node);
+
+        if (!OPERATION_WRITE.equalsIgnoreCase(node.configText("operation"))) {
+            if (pageId == null) {
+                requireSpaceAndTitle(node, spaceKey, title);
+                pageId = confluenceConnector.findPageId(spaceKey.trim(), title).block();
+                if (pageId == null) {
+                    throw new RuntimeException("Confluence页面不存在: " + spaceKey + "/" + title);
+                }
+            }
+            return NodeResult.of(confluenceConnector.getPage(pageId).block().getBody());
+        }
+
+        String content = node.getPrompt() == null ? input : node.getPrompt().render(context.getVariables(), context.getOutputs());
+        if (!StringUtils.hasText(content)) {
+            throw new RuntimeException("Confluence节点没有可写入的内容: " + node.getLabel());
+        }
+        String body = toStorage(content);
+        if (pageId == null) {
+            requireSpaceAndTitle(node, spaceKey, title);
+            pageId = confluenceConnector.findPageId(spaceKey.trim(), title).block();
+        }
+        ConfluenceConnector.Page page;
+        if (pageId == null) {
+            page = confluenceConnector.createPage(spaceKey.trim(), title, body).block();
+            log.info("Confluence节点创建页面: node={}, pageId={}", node.getLabel(), page.getId());
+        } else {
+            ConfluenceConnector.Page current = confluenceConnector.getPage(pageId).block();
+            page = confluenceConnector.updatePage(current, StringUtils.hasText(title) ? title : current.getTitle(), body).block();
+            log.info("Confluence节点更新页面: node={}, pageId={}, version={}", node.getLabel(), page.getId(), page.getVersion());
+        }
+
+        Map<String, Object> output = new LinkedHashMap<>();
+        output.put("id", page.getId());
+        output.put("title", page.getTitle());
+        output.put("url", page.getUrl());
+        output.put("version", page.getVersion());
+        try {
+            return NodeResult.of(objectMapper.writeValueAsString(output));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Confluence节点输出序列化失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static String pageId(WorkflowNode node) {
+        String pageUrl = node.configText("pageUrl");
+        if (!StringUtils.hasText(pageUrl)) {
+            return null;
+        }
+        String pageId = ConfluenceConnector.pageIdFromUrl(pageUrl.trim());
+        if (pageId == null) {
+            throw new RuntimeException("无法从页面链接中解析页面ID: " + pageUrl);
+        }
+        return pageId;
+    }
+
+    private static void requireSpaceAndTitle(WorkflowNode node, String spaceKey, String title) {
+        if (!StringUtils.hasText(spaceKey) || !StringUtils.hasText(title)) {
+            throw new RuntimeException("Confluence节点需要配置页面链接，或空间与页面标题: " + node.getLabel());
+        }
+    }
+
+    /**
+     * 已是XHTML的内容原样写入，纯文本按空行分段并转义后包装为段落
+     */
+    private static String toStorage(String content) {
+        String trimmed = content.trim();
+        if (trimmed.startsWith("<")) {
+            return trimmed;
+        }
+        StringBuilder storage = new StringBuilder(trimmed.length() + 64);
+        for (String paragraph : trimmed.split("\\R\\s*\\R")) {
+            storage.append("<p>")
+                    .append(HtmlUtils.htmlEscape(paragraph.trim()).replaceAll("\\R", "<br/>"))
+                    .append("</p>");
+        }
+        return storage.toString();
+    }
+}
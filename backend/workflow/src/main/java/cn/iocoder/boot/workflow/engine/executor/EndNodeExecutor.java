@@ -0,0 +1,26 @@
+package cn.iocoder.boot.workflow.engine.executor;
+
+import cn.iocoder.boot.workflow.engine.ExecutionContext;
+import cn.iocoder.boot.workflow.engine.NodeExecutor;
+import cn.iocoder.boot.workflow.engine.NodeResult;
+import cn.iocoder.boot.workflow.engine.WorkflowNode;
+import org.springframework.stereotype.Component;
+
+/**
+ * 结束节点：不产生输出，工作流结果为最近一个节点的输出
+ *
+ * @author workflow-team
+ */
+@Component
+public class EndNodeExecutor implements NodeExecutor {
+
+    @Override
+    public String getType() {
+        return "end";
+    }
+
+    @Override
+    public NodeResult execute(WorkflowNode node, String input, ExecutionContext context) {
+        return NodeResult.empty();
+    }
+}
@@ -0,0 +1,47 @@
+package cn.iocoder.boot.workflow.engine.executor;
+
+import cn.iocoder.boot.workflow.engine.ExecutionContext;
+import cn.iocoder.boot.workflow.engine.NodeExecutor;
+import cn.iocoder.boot.workflow.engine.NodeResult;
+import cn.iocoder.boot.workflow.engine.WorkflowNode;
+import cn.iocoder.boot.workflow.engine.condition.ConditionExpression;
+import cn.iocoder.boot.workflow.engine.condition.ConditionStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 条件节点：对编译好的条件表达式求值，选择true或false分支，输入原样传给所选分支
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IfNodeExecutor implements NodeExecutor {
+
+    private final ConditionStats conditionStats;
+
+    @Override
+    public String getType() {
+        return "if";
+    }
+
+    @Override
+    public NodeResult execute(WorkflowNode node, String input, ExecutionContext context) {
+        ConditionExpression condition = node.getCondition();
+        if (condition == null) {
+            throw new RuntimeException("条件节点未配置条件: " + node.getLabel());
+        }
+
+        long start = System.nanoTime();
+        boolean result = condition.test(context, input);
+        long nanos = System.nanoTime() - start;
+
+        String branch = result ? NodeResult.BRANCH_TRUE : NodeResult.BRANCH_FALSE;
+        conditionStats.record(context.getWorkflowId(), node.getId(), node.getLabel(), result, nanos);
+        context.getBranchDecisions().put(node.getId(), branch);
+        log.debug("条件节点求值: node={}, branch={}, 耗时: {}ns", node.getLabel(), branch, nanos);
+        return NodeResult.branch(branch);
+    }
+}
@@ -0,0 +1,169 @@
+package cn.iocoder.boot.workflow.engine.executor;
+
+import cn.iocoder.boot.workflow.connector.JiraConnector;
+import cn.iocoder.boot.workflow.engine.ExecutionContext;
+import cn.iocoder.boot.workflow.engine.NodeExecutor;
+import cn.iocoder.boot.workflow.engine.NodeResult;
+import cn.iocoder.boot.workflow.engine.WorkflowNode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Jira节点：用上一节点的输出创建issue，输出创建的issue key与链接（JSON数组）
+ * 输入是JSON数组时每个元素创建一个issue（字符串元素作为标题与描述，对象元素取summary、description、labels），
+ * 经Jira批量接口创建；否则整段输入创建一个issue，首个非空行作为标题
+ * 配置了状态时创建后转换到该状态
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JiraNodeExecutor implements NodeExecutor {
+
+    /**
+     * Jira标题字段的长度上限
+     */
+    private static final int MAX_SUMMARY_LENGTH = 255;
+
+    private final JiraConnector jiraConnector;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String getType() {
+        return "jira";
+    }
+
+    @Override
+    public NodeResult execute(WorkflowNode node, String input, ExecutionContext context) {
+        if (!jiraConnector.isConfigured()) {
+            throw new RuntimeException("未配置Jira连接（workflow.connector.jira.base-url）: " + node.getLabel());
+        }
+        String project = node.configText("project");
+        if (!StringUtils.hasText(project)) {
+            throw new RuntimeException("Jira节点未配置项目: " + node.getLabel());
+        }
+        if (!StringUtils.hasText(input)) {
+            throw new RuntimeException("Jira节点没有可创建issue的输入: " + node.getLabel());
+        }
+
+        Map<String, Object> defaults = new LinkedHashMap<>();
+        defaults.put("project", Map.of("key", project.trim()));
+        defaults.put("issuetype", Map.of("name", issueTypeName(node.configText("issueType"))));
+        String assignee = node.configText("assignee");
+        if (StringUtils.hasText(assignee)) {
+            defaults.put("assignee", Map.of(jiraConnector.getAssigneeField(), assignee.trim()));
+        }
+        List<Map<String, Object>> issues = buildIssues(input, defaults);
+
+        long start = System.currentTimeMillis();
+        List<String> keys = jiraConnector.createIssues(issues).block();
+        String status = node.configText("status");
+        if (StringUtils.hasText(status)) {
+            jiraConnector.transition(keys, status).block();
+        }
+        log.info("Jira节点创建issue完成: node={}, 数量: {}, 耗时: {}ms", node.getLabel(), keys.size(),
+                System.currentTimeMillis() - start);
+
+        List<Map<String, String>> output = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            output.add(Map.of("key", key, "url", jiraConnector.browseUrl(key)));
+        }
+        try {
+            return NodeResult.of(objectMapper.writeValueAsString(output));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Jira节点输出序列化失败: " + e.getMessage(), e);
+        }
+    }
+
+    private List<Map<String, Object>> buildIssues(String input, Map<String, Object> defaults) {
+        JsonNode items = readArray(input);
+        List<Map<String, Object>> issues = new ArrayList<>();
+        if (items == null) {
+            issues.add(issueFields(defaults, summaryOf(input), input));
+            return issues;
+        }
+        for (JsonNode item : items) {
+            if (item.isObject()) {
+                String description = item.path("description").asText("");
+                String summary = item.path("summary").asText("");
+                Map<String, Object> fields = issueFields(defaults,
+                        StringUtils.hasText(summary) ? summaryOf(summary) : summaryOf(description), description);
+                if (item.path("labels").isArray()) {
+                    List<String> labels = new ArrayList<>();
+                    item.path("labels").forEach(label -> labels.add(label.asText().replaceAll("\\s+", "-")));
+                    fields.put("labels", labels);
+                }
+                issues.add(fields);
+            } else if (StringUtils.hasText(item.asText())) {
+                issues.add(issueFields(defaults, summaryOf(item.asText()), item.asText()));
+            }
+        }
+        if (issues.isEmpty()) {
+            throw new RuntimeException("Jira节点的输入数组中没有可创建的issue");
+        }
+        return issues;
+    }
+
+    private static Map<String, Object> issueFields(Map<String, Object> defaults, String summary, String description) {
+        if (!StringUtils.hasText(summary)) {
+            throw new RuntimeException("Jira issue缺少标题: " + description);
+        }
+        Map<String, Object> fields = new LinkedHashMap<>(defaults);
+        fields.put("summary", summary);
+        if (StringUtils.hasText(description)) {
+            fields.put("description", description);
+        }
+        return fields;
+    }
+
+    /**
+     * 输入是JSON数组时返回该数组，否则返回null
+     */
+    private JsonNode readArray(String input) {
+        String trimmed = input.trim();
+        if (!trimmed.startsWith("[")) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(trimmed);
+            return node.isArray() ? node : null;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 首个非空行作为标题，超出长度上限时截断
+     */
+    private static String summaryOf(String text) {
+        for (String line : text.split("\\R")) {
+            String summary = line.trim();
+            if (!summary.isEmpty()) {
+                return summary.length() > MAX_SUMMARY_LENGTH ? summary.substring(0, MAX_SUMMARY_LENGTH - 3) + "..." : summary;
+            }
+        }
+        return "";
+    }
+
+    /**
+     * 前端保存的类型为小写（story、task、bug、epic），Jira按名称匹配，转换为首字母大写；未配置时为Task
+     */
+    private static String issueTypeName(String issueType) {
+        if (!StringUtils.hasText(issueType)) {
+            return "Task";
+        }
+        String name = issueType.trim();
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,26 @@
+package cn.iocoder.boot.workflow.engine.executor;
+
+import cn.iocoder.boot.workflow.engine.ExecutionContext;
+import cn.iocoder.boot.workflow.engine.NodeExecutor;
+import cn.iocoder.boot.workflow.engine.NodeResult;
+import cn.iocoder.boot.workflow.engine.WorkflowNode;
+import org.springframework.stereotype.Component;
+
+/**
+ * 开始节点：变量默认值已在编译执行计划时提取，由引擎在执行前写入上下文，这里不再解析配置
+ *
+ * @author workflow-team
+ */
+@Component
+public class StartNodeExecutor implements NodeExecutor {
+
+    @Override
+    public String getType() {
+        return "start";
+    }
+
+    @Override
+    public NodeResult execute(WorkflowNode node, String input, ExecutionContext context) {
+        return NodeResult.empty();
+    }
+}
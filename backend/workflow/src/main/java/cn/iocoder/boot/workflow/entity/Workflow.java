@@ -2,6 +2,7 @@ package cn.iocoder.boot.workflow.entity;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.ColumnTransformer;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -38,11 +39,25 @@ public class Workflow {
     private String description;
 
     /**
-     * 工作流配置（JSON格式）
+     * 工作流配置（JSON格式），以jsonb保存，读出的文本经过规范化（键的顺序与空白可能与写入时不同）
      */
-    @Column(name = "config", nullable = false, columnDefinition = "TEXT")
+    @ColumnTransformer(write = "?::jsonb")
+    @Column(name = "config", nullable = false, columnDefinition = "JSONB")
     private String config;
 
+    /**
+     * 保存时由配置推导的拓扑（JSON），见WorkflowTopology
+     */
+    @Column(name = "topology", columnDefinition = "TEXT")
+    private String topology;
+
+    /**
+     * 保存时由配置生成的列表摘要（jsonb），见WorkflowSummary
+     */
+    @ColumnTransformer(write = "?::jsonb")
+    @Column(name = "summary", columnDefinition = "JSONB")
+    private String summary;
+
     /**
      * 工作流状态
      */
@@ -56,6 +56,78 @@ public class WorkflowExecution {
     @Column(name = "result", columnDefinition = "TEXT")
     private String result;
 
+    /**
+     * 执行变量（JSON）：PENDING时为调用参数，开始执行时写入合并start节点默认值后的变量，恢复执行时读取
+     */
+    @Column(name = "variables", columnDefinition = "TEXT", insertable = false, updatable = false)
+    private String variables;
+
+    /**
+     * 租约持有实例，由ExecutionCheckpointStore维护
+     */
+    @Column(name = "lease_owner", length = 100, insertable = false, updatable = false)
+    private String leaseOwner;
+
+    /**
+     * 租约到期时间，过期后其他实例可以接管并从检查点恢复
+     */
+    @Column(name = "lease_expires_at", insertable = false, updatable = false)
+    private LocalDateTime leaseExpiresAt;
+
+    /**
+     * 租约令牌，每次认领递增，写入执行状态时以令牌为条件
+     */
+    @Column(name = "lease_token", insertable = false, updatable = false)
+    private Long leaseToken;
+
+    /**
+     * 强制刷新节点输出记忆缓存，提交时写入
+     */
+    @Column(name = "refresh_memo", insertable = false, updatable = false)
+    private Boolean refreshMemo;
+
+    /**
+     * 提交执行时指定的token预算，与引擎默认值、开始节点配置同时生效
+     */
+    @Column(name = "max_tokens", insertable = false, updatable = false)
+    private Long maxTokens;
+
+    /**
+     * 提交执行时指定的大模型调用次数预算
+     */
+    @Column(name = "max_llm_calls", insertable = false, updatable = false)
+    private Integer maxLlmCalls;
+
+    /**
+     * 提交执行时指定的耗时预算（秒）
+     */
+    @Column(name = "max_duration_seconds", insertable = false, updatable = false)
+    private Long maxDurationSeconds;
+
+    /**
+     * 已消耗的token数（估算值），执行结束时写入，包括map、subworkflow展开的子图节点
+     */
+    @Column(name = "tokens_used", insertable = false, updatable = false)
+    private Long tokensUsed;
+
+    /**
+     * 大模型调用次数（不含命中输出记忆缓存的节点），执行结束时写入
+     */
+    @Column(name = "llm_calls", insertable = false, updatable = false)
+    private Integer llmCalls;
+
+    /**
+     * 第一次开始执行的时间，耗时预算从此计时
+     */
+    @Column(name = "started_at", insertable = false, updatable = false)
+    private LocalDateTime startedAt;
+
+    /**
+     * 取消请求时间，RUNNING执行请求取消后由持有租约的实例停止执行
+     */
+    @Column(name = "cancel_requested_at", insertable = false, updatable = false)
+    private LocalDateTime cancelRequestedAt;
+
     /**
      * 创建时间
      */
@@ -83,6 +155,8 @@ public class WorkflowExecution {
         PENDING,    // 等待中
         RUNNING,    // 运行中
         COMPLETED,  // 已完成
-        FAILED      // 失败
+        FAILED,     // 失败
+        BUDGET_EXCEEDED, // 预算耗尽（token、大模型调用次数或耗时）
+        CANCELLED   // 已取消
     }
 } 
\ No newline at end of file
@@ -0,0 +1,118 @@
+package cn.iocoder.boot.workflow.entity;
+
+import lombok.Data;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 工作流执行步骤实体：每个节点的一次执行（或跳过）记录一行
+ * 由WorkflowStepWriter批量写入，实体仅用于查询
+ *
+ * @author workflow-team
+ */
+@Data
+@Entity
+@Table(name = "wf_execution_step")
+public class WorkflowExecutionStep {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 执行记录ID
+     */
+    @Column(name = "execution_id", nullable = false)
+    private Long executionId;
+
+    /**
+     * 工作流ID
+     */
+    @Column(name = "workflow_id", nullable = false)
+    private Long workflowId;
+
+    /**
+     * 节点ID
+     */
+    @Column(name = "node_id", nullable = false, length = 255)
+    private String nodeId;
+
+    /**
+     * 节点类型
+     */
+    @Column(name = "node_type", length = 50)
+    private String nodeType;
+
+    /**
+     * 步骤状态
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private StepStatus status;
+
+    /**
+     * 条件节点选择的分支
+     */
+    @Column(name = "branch", length = 50)
+    private String branch;
+
+    /**
+     * 开始时间
+     */
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    /**
+     * 结束时间
+     */
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    /**
+     * 耗时（毫秒）
+     */
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    /**
+     * 输入长度（字符数）
+     */
+    @Column(name = "input_chars")
+    private Integer inputChars;
+
+    /**
+     * 输出长度（字符数）
+     */
+    @Column(name = "output_chars")
+    private Integer outputChars;
+
+    /**
+     * 消耗的token数（估算值），不调用模型的节点为0
+     */
+    @Column(name = "tokens")
+    private Integer tokens;
+
+    /**
+     * 输出是否来自节点输出记忆缓存
+     */
+    @Column(name = "cache_hit")
+    private Boolean cacheHit;
+
+    /**
+     * 错误信息
+     */
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    /**
+     * 步骤状态枚举
+     */
+    public enum StepStatus {
+        COMPLETED,  // 已完成
+        FAILED,     // 失败
+        SKIPPED,    // 未选中的分支，已跳过
+        BUDGET_EXCEEDED, // 执行超出预算停止时仍在执行的节点
+        CANCELLED   // 执行取消时仍在执行的节点
+    }
+}
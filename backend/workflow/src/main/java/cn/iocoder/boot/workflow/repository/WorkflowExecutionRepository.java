@@ -1,9 +1,16 @@
 package cn.iocoder.boot.workflow.repository;
 
 import cn.iocoder.boot.workflow.entity.WorkflowExecution;
+import cn.iocoder.boot.workflow.entity.WorkflowExecutionStep;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -15,17 +22,79 @@ import java.util.List;
 public interface WorkflowExecutionRepository extends JpaRepository<WorkflowExecution, Long> {
 
     /**
-     * 根据工作流ID查询执行记录
+     * 工作流最近的执行记录（按创建时间倒序的第一页），由(workflow_id, created_at DESC, id DESC)索引支持
      */
-    List<WorkflowExecution> findByWorkflowId(Long workflowId);
+    @Query("SELECT e FROM WorkflowExecution e WHERE e.workflowId = :workflowId ORDER BY e.createdAt DESC, e.id DESC")
+    List<WorkflowExecution> findLatestByWorkflowId(@Param("workflowId") Long workflowId, Pageable pageable);
 
     /**
-     * 根据状态查询执行记录
+     * 键集分页：创建时间与ID在游标之前的执行记录
+     * 行比较不能用于分区裁剪，冗余的createdAt条件使晚于游标的月分区不被扫描
      */
-    List<WorkflowExecution> findByStatus(WorkflowExecution.ExecutionStatus status);
+    @Query("SELECT e FROM WorkflowExecution e WHERE e.workflowId = :workflowId AND e.createdAt <= :createdAt "
+            + "AND (e.createdAt, e.id) < (:createdAt, :id) ORDER BY e.createdAt DESC, e.id DESC")
+    List<WorkflowExecution> findByWorkflowIdBefore(@Param("workflowId") Long workflowId,
+                                                   @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                                   Pageable pageable);
 
     /**
-     * 根据工作流ID和状态查询执行记录
+     * 某状态最近的执行记录（第一页），由(status, created_at DESC, id DESC)索引支持
      */
-    List<WorkflowExecution> findByWorkflowIdAndStatus(Long workflowId, WorkflowExecution.ExecutionStatus status);
-} 
\ No newline at end of file
+    @Query("SELECT e FROM WorkflowExecution e WHERE e.status = :status ORDER BY e.createdAt DESC, e.id DESC")
+    List<WorkflowExecution> findLatestByStatus(@Param("status") WorkflowExecution.ExecutionStatus status, Pageable pageable);
+
+    /**
+     * 键集分页：某状态下创建时间与ID在游标之前的执行记录，冗余的createdAt条件用于分区裁剪
+     */
+    @Query("SELECT e FROM WorkflowExecution e WHERE e.status = :status AND e.createdAt <= :createdAt "
+            + "AND (e.createdAt, e.id) < (:createdAt, :id) ORDER BY e.createdAt DESC, e.id DESC")
+    List<WorkflowExecution> findByStatusBefore(@Param("status") WorkflowExecution.ExecutionStatus status,
+                                               @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                               Pageable pageable);
+
+    /**
+     * 删除工作流全部执行的检查点；检查点表不再以外键级联（wf_execution分区后主键包含created_at），删除工作流前调用
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM wf_execution_checkpoint WHERE execution_id IN "
+            + "(SELECT id FROM wf_execution WHERE workflow_id = :workflowId)", nativeQuery = true)
+    int deleteCheckpointsByWorkflowId(@Param("workflowId") Long workflowId);
+
+    /**
+     * 查询执行步骤时间线，按开始时间排序
+     */
+    @Query("SELECT s FROM WorkflowExecutionStep s WHERE s.executionId = :executionId ORDER BY s.startedAt, s.id")
+    List<WorkflowExecutionStep> findStepTimeline(@Param("executionId") Long executionId);
+
+    /**
+     * 按节点汇总工作流的步骤耗时与token消耗，按平均耗时倒序，用于定位慢节点
+     */
+    @Query("SELECT s.nodeId AS nodeId, s.nodeType AS nodeType, COUNT(s) AS runs, AVG(s.durationMs) AS avgDurationMs, "
+            + "MAX(s.durationMs) AS maxDurationMs, SUM(s.tokens) AS totalTokens, "
+            + "SUM(CASE WHEN s.cacheHit = true THEN 1 ELSE 0 END) AS cacheHits "
+            + "FROM WorkflowExecutionStep s WHERE s.workflowId = :workflowId AND s.status <> :excluded "
+            + "GROUP BY s.nodeId, s.nodeType ORDER BY AVG(s.durationMs) DESC")
+    List<NodeStepSummary> summarizeSteps(@Param("workflowId") Long workflowId,
+                                         @Param("excluded") WorkflowExecutionStep.StepStatus excluded);
+
+    /**
+     * 节点步骤汇总
+     */
+    interface NodeStepSummary {
+
+        String getNodeId();
+
+        String getNodeType();
+
+        Long getRuns();
+
+        Double getAvgDurationMs();
+
+        Long getMaxDurationMs();
+
+        Long getTotalTokens();
+
+        Long getCacheHits();
+    }
+}
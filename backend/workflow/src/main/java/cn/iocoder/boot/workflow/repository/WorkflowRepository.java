@@ -1,11 +1,16 @@
 package cn.iocoder.boot.workflow.repository;
 
 import cn.iocoder.boot.workflow.entity.Workflow;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -32,4 +37,55 @@ public interface WorkflowRepository extends JpaRepository<Workflow, Long> {
      */
     @Query("SELECT w FROM Workflow w WHERE w.name LIKE %:keyword% OR w.description LIKE %:keyword%")
     List<Workflow> findByNameOrDescriptionContaining(@Param("keyword") String keyword);
-} 
\ No newline at end of file
+
+    /**
+     * 分页查询工作流列表项，只读取摘要列，不读取config
+     */
+    @Query(value = "SELECT w.id AS id, w.name AS name, w.description AS description, w.status AS status, "
+            + "w.createdAt AS createdAt, w.updatedAt AS updatedAt, w.summary AS summary FROM Workflow w",
+            countQuery = "SELECT COUNT(w) FROM Workflow w")
+    Page<WorkflowListItem> findListItems(Pageable pageable);
+
+    /**
+     * 按名称或描述分页搜索工作流列表项（不区分大小写的子串匹配），由name、description上的pg_trgm索引支持
+     *
+     * @param pattern ILIKE模式，调用方负责转义%与_并在两侧加%
+     */
+    @Query(value = "SELECT w.id AS id, w.name AS name, w.description AS description, w.status AS status, "
+            + "w.createdAt AS createdAt, w.updatedAt AS updatedAt, w.summary AS summary FROM Workflow w "
+            + "WHERE w.name ILIKE :pattern OR w.description ILIKE :pattern ORDER BY w.id",
+            countQuery = "SELECT COUNT(w) FROM Workflow w WHERE w.name ILIKE :pattern OR w.description ILIKE :pattern")
+    Page<WorkflowListItem> searchListItems(@Param("pattern") String pattern, Pageable pageable);
+
+    /**
+     * 回写历史数据的列表摘要，工作流已被修改（updated_at变化）时不写入
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE wf_workflow SET summary = CAST(:summary AS jsonb) WHERE id = :id AND updated_at = :updatedAt",
+            nativeQuery = true)
+    int saveSummary(@Param("id") Long id, @Param("updatedAt") LocalDateTime updatedAt, @Param("summary") String summary);
+
+    /**
+     * 工作流列表项
+     */
+    interface WorkflowListItem {
+
+        Long getId();
+
+        String getName();
+
+        String getDescription();
+
+        Workflow.WorkflowStatus getStatus();
+
+        LocalDateTime getCreatedAt();
+
+        LocalDateTime getUpdatedAt();
+
+        /**
+         * 列表摘要（JSON），历史数据未生成时为null
+         */
+        String getSummary();
+    }
+}
@@ -1,5 +1,8 @@
 package cn.iocoder.boot.workflow.service;
 
+import cn.iocoder.boot.workflow.dto.AgentProfile;
+import reactor.core.publisher.Flux;
+
 import java.util.List;
 import java.util.Map;
 
@@ -22,4 +25,26 @@ public interface WorkflowAgentService {
      * @return 包含agents字段的Map
      */
     Map<String, Object> getExternalAgents();
-} 
\ No newline at end of file
+
+    /**
+     * 调用Agent
+     * @param agentId Agent ID
+     * @param userInput 用户输入（已完成变量替换）
+     * @param previousOutput 上一节点的输出，可为空
+     * @return Agent回复内容
+     */
+    String invokeAgent(String agentId, String userInput, String previousOutput);
+
+    /**
+     * 流式调用Agent，参数与invokeAgent相同
+     * @return Agent回复的增量文本
+     */
+    Flux<String> streamAgent(String agentId, String userInput, String previousOutput);
+
+    /**
+     * 获取Agent配置摘要（配置版本与最大输出token数），一次读取Agent；节点输出记忆缓存与执行预算据此计算
+     * @param agentId Agent ID
+     * @return 配置摘要，Agent不存在时返回null
+     */
+    AgentProfile getAgentProfile(String agentId);
+}
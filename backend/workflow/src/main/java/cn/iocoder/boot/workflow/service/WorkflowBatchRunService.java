@@ -0,0 +1,44 @@
+package cn.iocoder.boot.workflow.service;
+
+import cn.iocoder.boot.workflow.dto.BatchRunEvent;
+import cn.iocoder.boot.workflow.dto.BatchRunSummary;
+import reactor.core.publisher.Flux;
+
+import java.io.InputStream;
+
+/**
+ * 工作流批量执行服务接口
+ * 同一个工作流按多行start节点变量各执行一次，行级结果按完成顺序以NDJSON返回
+ *
+ * @author workflow-team
+ */
+public interface WorkflowBatchRunService {
+
+    /**
+     * 创建批量执行并开始执行
+     *
+     * @param input       CSV或NDJSON输入
+     * @param format      csv / ndjson，为空时按文件名、Content-Type或内容判断
+     * @param parallelism 同时执行的行数，为空时使用默认值
+     * @return started事件、按完成顺序的行结果，最后是汇总
+     */
+    Flux<BatchRunEvent> startBatchRun(Long workflowId, InputStream input, String format, String filename,
+                                      String contentType, Integer parallelism, boolean refreshMemo);
+
+    /**
+     * 订阅批量执行结果：先回放sequence大于after的已完成行，批量执行在本实例运行时继续推送后续结果
+     *
+     * @param after 已收到的最后一行的sequence，从头开始传0
+     */
+    Flux<BatchRunEvent> streamBatchRun(Long batchId, long after);
+
+    /**
+     * 恢复中断的批量执行（实例崩溃或重新部署后），未完成的行重新执行
+     */
+    Flux<BatchRunEvent> resumeBatchRun(Long batchId, long after);
+
+    /**
+     * 批量执行汇总
+     */
+    BatchRunSummary getBatchRunSummary(Long batchId);
+}
@@ -1,10 +1,17 @@
 package cn.iocoder.boot.workflow.service;
 
 import cn.iocoder.boot.workflow.dto.*;
+import cn.iocoder.boot.workflow.engine.ExecutionEvent;
+import cn.iocoder.boot.workflow.engine.ExecutionHistoryManager;
 import cn.iocoder.boot.workflow.entity.Workflow;
+import cn.iocoder.boot.workflow.entity.WorkflowExecution;
+import cn.iocoder.boot.workflow.entity.WorkflowExecutionStep;
+import cn.iocoder.boot.workflow.repository.WorkflowExecutionRepository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -45,6 +52,11 @@ public interface WorkflowService {
      */
     Page<WorkflowDTO> getWorkflowsPage(Pageable pageable);
 
+    /**
+     * 按名称或描述分页搜索工作流（不区分大小写），在数据库中过滤与分页
+     */
+    Page<WorkflowDTO> searchWorkflowsPage(String keyword, Pageable pageable);
+
     /**
      * 执行工作流
      */
@@ -65,6 +77,50 @@ public interface WorkflowService {
      */
     Map<String, Object> importWorkflow(Map<String, Object> importRequest);
 
+    /**
+     * 取消执行：PENDING执行直接取消，RUNNING执行由持有实例停止派发并中断执行中的节点
+     *
+     * @return 请求后的执行状态（status）与说明（message）
+     */
+    Map<String, Object> cancelExecution(Long executionId);
+
+    /**
+     * 获取执行步骤时间线
+     */
+    List<WorkflowExecutionStep> getExecutionSteps(Long executionId);
+
+    /**
+     * 按节点汇总工作流的步骤耗时与token消耗
+     */
+    List<WorkflowExecutionRepository.NodeStepSummary> getNodeStepSummary(Long workflowId);
+
+    /**
+     * 键集分页查询工作流的执行记录
+     *
+     * @param cursor 上一页返回的nextCursor，首页传null
+     */
+    ExecutionHistoryPage getExecutions(Long workflowId, String cursor, int limit);
+
+    /**
+     * 键集分页查询某状态的执行记录
+     *
+     * @param cursor 上一页返回的nextCursor，首页传null
+     */
+    ExecutionHistoryPage getExecutionsByStatus(WorkflowExecution.ExecutionStatus status, String cursor, int limit);
+
+    /**
+     * 查询工作流已汇总（超过保留期后删除）的执行统计
+     */
+    List<ExecutionHistoryManager.Rollup> getExecutionRollups(Long workflowId, LocalDate from, LocalDate to);
+
+    /**
+     * 订阅执行事件：先回放已完成的步骤，再接收实时事件；执行不在本实例上时轮询步骤记录与执行状态，
+     * 事件流在执行结束（execution-finished）后结束
+     *
+     * @param lastSequence 已收到的最后一个事件序号，首次订阅传0
+     */
+    Flux<ExecutionEvent> streamExecutionEvents(Long executionId, long lastSequence);
+
     /**
      * 获取外部Agent信息
      */
@@ -0,0 +1,48 @@
+package cn.iocoder.boot.workflow.service;
+
+import cn.iocoder.boot.workflow.dto.WorkflowBulkImportResult;
+import cn.iocoder.boot.workflow.entity.Workflow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * 工作流批量导出导入服务接口
+ * 记录格式与单个导出相同（name、description、status、config、exported_at），导出与导入均以流的方式处理，内存占用与工作流数量无关
+ *
+ * @author workflow-team
+ */
+public interface WorkflowTransferService {
+
+    /**
+     * 每行一个工作流
+     */
+    String FORMAT_NDJSON = "ndjson";
+
+    /**
+     * 每个工作流一个JSON文件
+     */
+    String FORMAT_ZIP = "zip";
+
+    /**
+     * 按ID顺序导出工作流，条件均为空时导出全部
+     *
+     * @param ids     只导出指定ID
+     * @param status  只导出指定状态
+     * @param keyword 名称或描述包含关键词（不区分大小写）
+     */
+    void exportWorkflows(OutputStream output, String format, List<Long> ids, Workflow.WorkflowStatus status,
+                         String keyword) throws IOException;
+
+    /**
+     * 批量导入：NDJSON（也接受JSON数组）或zip（其中的.json/.ndjson文件），按批插入，每批一个事务
+     * 单条记录无效时跳过并记录原因，不影响其他记录
+     *
+     * @param format     ndjson / zip，为空时按文件名、Content-Type或内容判断
+     * @param keepStatus 是否保留记录中的状态，默认与单个导入相同，均导入为草稿
+     */
+    WorkflowBulkImportResult importWorkflows(InputStream input, String format, String filename, String contentType,
+                                             boolean keepStatus);
+}
@@ -0,0 +1,231 @@
+package cn.iocoder.boot.workflow.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量执行输入解析：把CSV或NDJSON解析为变量行
+ * <ul>
+ *     <li>CSV：第一行为变量名，字段可用双引号包裹（内部双引号写作""，可以包含逗号与换行）</li>
+ *     <li>NDJSON：每行一个JSON对象，字符串、数字、布尔按文本取值，对象与数组保留JSON文本，null视为空字符串</li>
+ * </ul>
+ * 空行忽略，错误信息带行号
+ *
+ * @author workflow-team
+ */
+final class BatchInputParser {
+
+    static final String CSV = "csv";
+    static final String NDJSON = "ndjson";
+
+    private BatchInputParser() {
+    }
+
+    /**
+     * 判断输入格式：显式指定 > 文件扩展名 > Content-Type，均无法判断时返回null（由首个非空字符决定）
+     */
+    static String detectFormat(String format, String filename, String contentType) {
+        if (format != null && !format.isBlank()) {
+            String lower = format.trim().toLowerCase();
+            if (CSV.equals(lower)) {
+                return CSV;
+            }
+            if (NDJSON.equals(lower) || "jsonl".equals(lower)) {
+                return NDJSON;
+            }
+            throw new RuntimeException("不支持的输入格式: " + format + "，仅支持csv与ndjson");
+        }
+        String lowerName = filename == null ? "" : filename.toLowerCase();
+        if (lowerName.endsWith(".csv")) {
+            return CSV;
+        }
+        if (lowerName.endsWith(".ndjson") || lowerName.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        String lowerType = contentType == null ? "" : contentType.toLowerCase();
+        if (lowerType.contains("csv")) {
+            return CSV;
+        }
+        if (lowerType.contains("ndjson") || lowerType.contains("jsonl") || lowerType.contains("json-seq")) {
+            return NDJSON;
+        }
+        return null;
+    }
+
+    /**
+     * @param format  csv或ndjson，为null时以首个非空白字符是否为{判断
+     * @param maxRows 行数上限，超出时报错
+     */
+    static List<Map<String, String>> parse(InputStream input, String format, int maxRows, ObjectMapper objectMapper) {
+        try (PushbackReader reader = new PushbackReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), 1)) {
+            int first = skipBomAndWhitespace(reader);
+            if (first < 0) {
+                throw new RuntimeException("批量执行输入为空");
+            }
+            reader.unread(first);
+            String resolved = format != null ? format : (first == '{' ? NDJSON : CSV);
+            List<Map<String, String>> rows = NDJSON.equals(resolved)
+                    ? parseNdjson(reader, maxRows, objectMapper)
+                    : parseCsv(reader, maxRows);
+            if (rows.isEmpty()) {
+                throw new RuntimeException("批量执行输入没有数据行");
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new RuntimeException("读取批量执行输入失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static List<Map<String, String>> parseNdjson(Reader reader, int maxRows, ObjectMapper objectMapper) throws IOException {
+        List<Map<String, String>> rows = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("第" + lineNumber + "行不是有效的JSON: " + e.getOriginalMessage());
+            }
+            if (node == null || !node.isObject()) {
+                throw new RuntimeException("第" + lineNumber + "行必须是JSON对象");
+            }
+            Map<String, String> row = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode value = field.getValue();
+                row.put(field.getKey(), value.isNull() ? "" : value.isContainerNode() ? value.toString() : value.asText());
+            }
+            addRow(rows, row, maxRows);
+        }
+        return rows;
+    }
+
+    private static List<Map<String, String>> parseCsv(PushbackReader reader, int maxRows) throws IOException {
+        int[] lineNumber = {1};
+        List<String> header = readCsvRecord(reader, lineNumber);
+        if (header == null) {
+            return List.of();
+        }
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim();
+            if (name.isEmpty()) {
+                throw new RuntimeException("CSV表头第" + (i + 1) + "列没有变量名");
+            }
+            header.set(i, name);
+        }
+        List<Map<String, String>> rows = new ArrayList<>();
+        while (true) {
+            int recordLine = lineNumber[0];
+            List<String> record = readCsvRecord(reader, lineNumber);
+            if (record == null) {
+                return rows;
+            }
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue;
+            }
+            if (record.size() > header.size()) {
+                throw new RuntimeException("CSV第" + recordLine + "行有" + record.size() + "列，多于表头的" + header.size() + "列");
+            }
+            Map<String, String> row = new LinkedHashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                row.put(header.get(i), i < record.size() ? record.get(i) : "");
+            }
+            addRow(rows, row, maxRows);
+        }
+    }
+
+    /**
+     * 读取一条CSV记录（引号内的换行属于字段内容），输入结束时返回null
+     */
+    private static List<String> readCsvRecord(PushbackReader reader, int[] lineNumber) throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int startLine = lineNumber[0];
+        while (true) {
+            if (c < 0) {
+                if (quoted) {
+                    throw new RuntimeException("CSV第" + startLine + "行的引号没有闭合");
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next >= 0) {
+                            reader.unread(next);
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber[0]++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    int next = reader.read();
+                    if (next >= 0 && next != '\n') {
+                        reader.unread(next);
+                    }
+                }
+                lineNumber[0]++;
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    private static void addRow(List<Map<String, String>> rows, Map<String, String> row, int maxRows) {
+        if (rows.size() >= maxRows) {
+            throw new RuntimeException("批量执行最多支持" + maxRows + "行");
+        }
+        rows.add(row);
+    }
+
+    private static int skipBomAndWhitespace(PushbackReader reader) throws IOException {
+        int c = reader.read();
+        while (c == '\uFEFF' || (c >= 0 && Character.isWhitespace(c))) {
+            c = reader.read();
+        }
+        return c;
+    }
+}
@@ -0,0 +1,496 @@
+package cn.iocoder.boot.workflow.service.impl;
+
+import cn.iocoder.boot.workflow.dto.BatchRunEvent;
+import cn.iocoder.boot.workflow.dto.BatchRunSummary;
+import cn.iocoder.boot.workflow.engine.ExecutionCheckpointStore;
+import cn.iocoder.boot.workflow.engine.ExecutionContext;
+import cn.iocoder.boot.workflow.engine.WorkflowEngine;
+import cn.iocoder.boot.workflow.engine.WorkflowPlan;
+import cn.iocoder.boot.workflow.engine.WorkflowPlanCache;
+import cn.iocoder.boot.workflow.entity.Workflow;
+import cn.iocoder.boot.workflow.repository.WorkflowRepository;
+import cn.iocoder.boot.workflow.service.WorkflowBatchRunService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 工作流批量执行服务实现
+ * 批量执行与每一行的状态保存在wf_batch_run / wf_batch_run_row中：每个批量执行启动parallelism个工作线程，
+ * 各自用FOR UPDATE SKIP LOCKED领取下一行并在当前线程同步执行工作流；大模型调用仍受chatbycard的全局并发限制。
+ * 行结束时在同一条语句中更新批量计数并写入完成顺序sequence，写入与推送在频道锁内完成，
+ * 订阅者先从数据库回放再接收实时结果，不会遗漏或重复
+ * 批量执行由创建（或恢复）它的实例持有租约；实例停止后租约过期，可通过恢复接口在任一实例上继续未完成的行
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Service
+public class WorkflowBatchRunServiceImpl implements WorkflowBatchRunService {
+
+    private static final String LEASE_EXPIRES = "LOCALTIMESTAMP + (? * INTERVAL '1 second')";
+    private static final int MAX_FAILURES = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final WorkflowRepository workflowRepository;
+    private final WorkflowPlanCache workflowPlanCache;
+    private final WorkflowEngine workflowEngine;
+    private final ExecutionCheckpointStore checkpointStore;
+    private final Executor batchExecutor;
+    private final ScheduledExecutorService leaseRenewer;
+
+    /**
+     * 在本实例运行的批量执行
+     */
+    private final Map<Long, BatchChannel> channels = new ConcurrentHashMap<>();
+
+    private volatile boolean stopping;
+
+    @Value("${workflow.batch.max-rows:10000}")
+    private int maxRows;
+
+    @Value("${workflow.batch.default-parallelism:4}")
+    private int defaultParallelism;
+
+    @Value("${workflow.batch.max-parallelism:16}")
+    private int maxParallelism;
+
+    @Value("${workflow.lease.renew-interval-seconds:15}")
+    private long renewIntervalSeconds;
+
+    public WorkflowBatchRunServiceImpl(JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       ObjectMapper objectMapper,
+                                       WorkflowRepository workflowRepository,
+                                       WorkflowPlanCache workflowPlanCache,
+                                       WorkflowEngine workflowEngine,
+                                       ExecutionCheckpointStore checkpointStore,
+                                       @Qualifier("workflowBatchExecutor") Executor batchExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.workflowRepository = workflowRepository;
+        this.workflowPlanCache = workflowPlanCache;
+        this.workflowEngine = workflowEngine;
+        this.checkpointStore = checkpointStore;
+        this.batchExecutor = batchExecutor;
+        this.leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "WorkflowBatchLease");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void init() {
+        leaseRenewer.scheduleWithFixedDelay(this::renewLeases, renewIntervalSeconds, renewIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 停止领取新行，正在执行的行结束后释放租约，剩余的行可在其他实例上恢复
+     */
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+        leaseRenewer.shutdownNow();
+    }
+
+    @Override
+    public Flux<BatchRunEvent> startBatchRun(Long workflowId, InputStream input, String format, String filename,
+                                             String contentType, Integer parallelism, boolean refreshMemo) {
+        Workflow workflow = workflowRepository.findById(workflowId)
+                .orElseThrow(() -> new RuntimeException("工作流不存在: " + workflowId));
+        WorkflowPlan plan = workflowPlanCache.get(workflow);
+        if (!plan.isValid()) {
+            throw new RuntimeException(plan.getError());
+        }
+        List<Map<String, String>> rows = BatchInputParser.parse(input,
+                BatchInputParser.detectFormat(format, filename, contentType), maxRows, objectMapper);
+        checkColumns(rows, plan);
+        int effectiveParallelism = Math.max(1, Math.min(parallelism == null ? defaultParallelism : parallelism, maxParallelism));
+
+        Long batchId = transactionTemplate.execute(status -> insertBatch(workflowId, rows, effectiveParallelism, refreshMemo));
+        log.info("创建批量执行: workflowId={}, batchId={}, 行数: {}, 并行数: {}", workflowId, batchId, rows.size(), effectiveParallelism);
+
+        BatchChannel channel = new BatchChannel(batchId, refreshMemo);
+        channels.put(batchId, channel);
+        startWorkers(channel, workflow, Math.min(effectiveParallelism, rows.size()));
+
+        BatchRunEvent started = BatchRunEvent.of(BatchRunEvent.STARTED, batchId);
+        started.setTotalRows(rows.size());
+        return Flux.concat(Flux.just(started), subscribe(batchId, 0));
+    }
+
+    @Override
+    public Flux<BatchRunEvent> streamBatchRun(Long batchId, long after) {
+        loadBatch(batchId);
+        return subscribe(batchId, after);
+    }
+
+    @Override
+    public Flux<BatchRunEvent> resumeBatchRun(Long batchId, long after) {
+        synchronized (channels) {
+            Map<String, Object> batch = loadBatch(batchId);
+            if (channels.containsKey(batchId) || !"RUNNING".equals(batch.get("status"))) {
+                return subscribe(batchId, after);
+            }
+            int claimed = jdbcTemplate.update("UPDATE wf_batch_run SET lease_owner = ?, lease_expires_at = " + LEASE_EXPIRES
+                            + " WHERE id = ? AND status = 'RUNNING' AND (lease_owner = ? OR lease_expires_at IS NULL "
+                            + "OR lease_expires_at < LOCALTIMESTAMP)",
+                    checkpointStore.getInstanceId(), checkpointStore.getLeaseSeconds(), batchId, checkpointStore.getInstanceId());
+            if (claimed == 0) {
+                throw new RuntimeException("批量执行正在其他实例上运行，请稍后重试: " + batchId);
+            }
+            Long workflowId = ((Number) batch.get("workflow_id")).longValue();
+            Workflow workflow = workflowRepository.findById(workflowId)
+                    .orElseThrow(() -> new RuntimeException("工作流不存在: " + workflowId));
+            // 中断时执行中的行没有结果，重新执行
+            int reset = jdbcTemplate.update("UPDATE wf_batch_run_row SET status = 'PENDING', started_at = NULL "
+                    + "WHERE batch_id = ? AND status = 'RUNNING'", batchId);
+            Integer pending = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wf_batch_run_row WHERE batch_id = ? "
+                    + "AND status = 'PENDING'", Integer.class, batchId);
+            BatchChannel channel = new BatchChannel(batchId, Boolean.TRUE.equals(batch.get("refresh_memo")));
+            channels.put(batchId, channel);
+            int parallelism = ((Number) batch.get("parallelism")).intValue();
+            log.info("恢复批量执行: batchId={}, 重新执行中断的行: {}, 剩余行数: {}", batchId, reset, pending);
+            startWorkers(channel, workflow, Math.max(1, Math.min(parallelism, pending == null ? 0 : pending)));
+            return subscribe(batchId, after);
+        }
+    }
+
+    @Override
+    public BatchRunSummary getBatchRunSummary(Long batchId) {
+        Map<String, Object> batch = loadBatch(batchId);
+        BatchRunSummary summary = new BatchRunSummary();
+        summary.setBatchId(batchId);
+        summary.setWorkflowId(((Number) batch.get("workflow_id")).longValue());
+        summary.setStatus((String) batch.get("status"));
+        summary.setParallelism(((Number) batch.get("parallelism")).intValue());
+        int total = ((Number) batch.get("total_rows")).intValue();
+        int finished = ((Number) batch.get("finished_rows")).intValue();
+        int failed = ((Number) batch.get("failed_rows")).intValue();
+        summary.setTotalRows(total);
+        summary.setCompletedRows(finished - failed);
+        summary.setFailedRows(failed);
+        summary.setPendingRows(total - finished);
+        LocalDateTime createdAt = toLocalDateTime(batch.get("created_at"));
+        LocalDateTime completedAt = toLocalDateTime(batch.get("completed_at"));
+        summary.setCreatedAt(createdAt);
+        summary.setCompletedAt(completedAt);
+        long elapsedMs = Duration.between(createdAt, completedAt != null ? completedAt : LocalDateTime.now()).toMillis();
+        summary.setElapsedMs(elapsedMs);
+        summary.setRowsPerMinute(elapsedMs > 0 ? finished * 60000.0 / elapsedMs : null);
+
+        Map<String, Object> latency = jdbcTemplate.queryForMap("SELECT AVG(duration_ms) AS avg_ms, "
+                + "percentile_cont(0.5) WITHIN GROUP (ORDER BY duration_ms) AS p50_ms, "
+                + "percentile_cont(0.95) WITHIN GROUP (ORDER BY duration_ms) AS p95_ms, MAX(duration_ms) AS max_ms "
+                + "FROM wf_batch_run_row WHERE batch_id = ? AND status IN ('COMPLETED', 'FAILED')", batchId);
+        summary.setAvgLatencyMs(toDouble(latency.get("avg_ms")));
+        summary.setP50LatencyMs(toDouble(latency.get("p50_ms")));
+        summary.setP95LatencyMs(toDouble(latency.get("p95_ms")));
+        summary.setMaxLatencyMs(latency.get("max_ms") == null ? null : ((Number) latency.get("max_ms")).longValue());
+
+        summary.setFailures(jdbcTemplate.query("SELECT row_index, execution_id, error_message FROM wf_batch_run_row "
+                        + "WHERE batch_id = ? AND status = 'FAILED' ORDER BY row_index LIMIT ?",
+                (rs, rowNum) -> {
+                    BatchRunSummary.Failure failure = new BatchRunSummary.Failure();
+                    failure.setRowIndex(rs.getInt("row_index"));
+                    failure.setExecutionId((Long) rs.getObject("execution_id"));
+                    failure.setError(rs.getString("error_message"));
+                    return failure;
+                }, batchId, MAX_FAILURES));
+        return summary;
+    }
+
+    /**
+     * start节点声明了变量时，输入中的列必须是其中之一，避免列名拼写错误导致整批使用默认值
+     */
+    private static void checkColumns(List<Map<String, String>> rows, WorkflowPlan plan) {
+        if (plan.getStartVariables().isEmpty()) {
+            return;
+        }
+        List<String> unknown = new ArrayList<>();
+        for (Map<String, String> row : rows) {
+            for (String name : row.keySet()) {
+                if (!plan.getStartVariables().containsKey(name) && !unknown.contains(name)) {
+                    unknown.add(name);
+                }
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new RuntimeException("输入包含start节点未定义的变量: " + unknown + "，可用变量: " + plan.getStartVariables().keySet());
+        }
+    }
+
+    private Long insertBatch(Long workflowId, List<Map<String, String>> rows, int parallelism, boolean refreshMemo) {
+        Long batchId = jdbcTemplate.queryForObject("INSERT INTO wf_batch_run (workflow_id, status, total_rows, parallelism, "
+                        + "refresh_memo, lease_owner, lease_expires_at, created_at) VALUES (?, 'RUNNING', ?, ?, ?, ?, "
+                        + LEASE_EXPIRES + ", LOCALTIMESTAMP) RETURNING id", Long.class,
+                workflowId, rows.size(), parallelism, refreshMemo, checkpointStore.getInstanceId(), checkpointStore.getLeaseSeconds());
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            args.add(new Object[]{batchId, i, toJson(rows.get(i))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO wf_batch_run_row (batch_id, row_index, variables, status) "
+                + "VALUES (?, ?, ?, 'PENDING')", args);
+        return batchId;
+    }
+
+    private void startWorkers(BatchChannel channel, Workflow workflow, int count) {
+        for (int i = 0; i < count; i++) {
+            channel.workers.incrementAndGet();
+            try {
+                batchExecutor.execute(() -> runRows(channel, workflow));
+            } catch (RejectedExecutionException e) {
+                log.warn("批量执行线程池已满，本批次以较低并行数执行: batchId={}, 已启动: {}", channel.batchId, i);
+                if (channel.workers.decrementAndGet() == 0) {
+                    finish(channel);
+                }
+                break;
+            }
+        }
+    }
+
+    private void runRows(BatchChannel channel, Workflow workflow) {
+        try {
+            while (!stopping && !workflowEngine.isShuttingDown()) {
+                List<Map<String, Object>> claimed = jdbcTemplate.queryForList("UPDATE wf_batch_run_row SET status = 'RUNNING', "
+                        + "started_at = LOCALTIMESTAMP WHERE id = (SELECT id FROM wf_batch_run_row WHERE batch_id = ? "
+                        + "AND status = 'PENDING' ORDER BY row_index LIMIT 1 FOR UPDATE SKIP LOCKED) "
+                        + "RETURNING id, row_index, variables", channel.batchId);
+                if (claimed.isEmpty()) {
+                    return;
+                }
+                runRow(channel, workflow, claimed.get(0));
+            }
+        } catch (Exception e) {
+            log.error("批量执行工作线程异常退出: batchId={}, error={}", channel.batchId, e.getMessage(), e);
+        } finally {
+            if (channel.workers.decrementAndGet() == 0) {
+                finish(channel);
+            }
+        }
+    }
+
+    private void runRow(BatchChannel channel, Workflow workflow, Map<String, Object> row) {
+        long rowId = ((Number) row.get("id")).longValue();
+        int rowIndex = ((Number) row.get("row_index")).intValue();
+        Map<String, String> variables = parseVariables((String) row.get("variables"));
+        AtomicReference<Long> executionId = new AtomicReference<>();
+        long start = System.currentTimeMillis();
+        String status;
+        String output = null;
+        String error = null;
+        try {
+            ExecutionContext context = workflowEngine.runSync(workflow, new LinkedHashMap<>(variables), channel.refreshMemo,
+                    null, executionId::set);
+            output = context.getOutput();
+            status = "COMPLETED";
+        } catch (RuntimeException e) {
+            if (stopping || workflowEngine.isShuttingDown()) {
+                // 实例关闭导致的中断：本行保持RUNNING，恢复时重新执行
+                return;
+            }
+            status = "FAILED";
+            error = e.getMessage();
+        }
+        long durationMs = System.currentTimeMillis() - start;
+
+        BatchRunEvent event = BatchRunEvent.of(BatchRunEvent.ROW, channel.batchId);
+        event.setRowIndex(rowIndex);
+        event.setStatus(status);
+        event.setExecutionId(executionId.get());
+        event.setVariables(variables);
+        event.setOutput(output);
+        event.setError(error);
+        event.setDurationMs(durationMs);
+        synchronized (channel) {
+            Long sequence = jdbcTemplate.queryForObject("WITH counter AS (UPDATE wf_batch_run SET finished_rows = finished_rows + 1, "
+                            + "failed_rows = failed_rows + ? WHERE id = ? RETURNING finished_rows) "
+                            + "UPDATE wf_batch_run_row SET status = ?, sequence = (SELECT finished_rows FROM counter), "
+                            + "execution_id = ?, output = ?, error_message = ?, duration_ms = ?, completed_at = LOCALTIMESTAMP "
+                            + "WHERE id = ? RETURNING sequence", Long.class,
+                    "FAILED".equals(status) ? 1 : 0, channel.batchId, status, executionId.get(), output, error, durationMs, rowId);
+            event.setSequence(sequence);
+            for (FluxSink<BatchRunEvent> sink : channel.sinks) {
+                sink.next(event);
+            }
+        }
+    }
+
+    /**
+     * 最后一个工作线程退出时结束批量执行：全部行已完成时标记COMPLETED，否则（实例关闭或异常）只释放租约等待恢复
+     */
+    private void finish(BatchChannel channel) {
+        try {
+            int completed = jdbcTemplate.update("UPDATE wf_batch_run SET status = 'COMPLETED', completed_at = LOCALTIMESTAMP, "
+                    + "lease_owner = NULL, lease_expires_at = NULL WHERE id = ? AND NOT EXISTS (SELECT 1 FROM wf_batch_run_row "
+                    + "WHERE batch_id = ? AND status IN ('PENDING', 'RUNNING'))", channel.batchId, channel.batchId);
+            if (completed == 0) {
+                jdbcTemplate.update("UPDATE wf_batch_run SET lease_owner = NULL, lease_expires_at = NULL WHERE id = ? AND lease_owner = ?",
+                        channel.batchId, checkpointStore.getInstanceId());
+                log.warn("批量执行中断，可通过恢复接口继续: batchId={}", channel.batchId);
+            }
+            BatchRunEvent event = summaryEvent(channel.batchId);
+            log.info("批量执行结束: batchId={}, 状态: {}, 完成: {}, 失败: {}, 每分钟行数: {}", channel.batchId,
+                    event.getSummary().getStatus(), event.getSummary().getCompletedRows(), event.getSummary().getFailedRows(),
+                    event.getSummary().getRowsPerMinute());
+            synchronized (channel) {
+                channel.finished = true;
+                for (FluxSink<BatchRunEvent> sink : channel.sinks) {
+                    sink.next(event);
+                    sink.complete();
+                }
+                channel.sinks.clear();
+            }
+        } catch (Exception e) {
+            log.error("结束批量执行失败: batchId={}, error={}", channel.batchId, e.getMessage(), e);
+            synchronized (channel) {
+                channel.finished = true;
+                for (FluxSink<BatchRunEvent> sink : channel.sinks) {
+                    sink.error(e);
+                }
+                channel.sinks.clear();
+            }
+        } finally {
+            channels.remove(channel.batchId, channel);
+        }
+    }
+
+    /**
+     * 回放数据库中sequence大于after的行结果；批量执行在本实例运行时在频道锁内完成回放并注册，之后推送实时结果
+     */
+    private Flux<BatchRunEvent> subscribe(Long batchId, long after) {
+        return Flux.create(sink -> {
+            BatchChannel channel = channels.get(batchId);
+            if (channel != null) {
+                synchronized (channel) {
+                    replay(batchId, after, sink);
+                    if (!channel.finished) {
+                        channel.sinks.add(sink);
+                        sink.onDispose(() -> channel.sinks.remove(sink));
+                        return;
+                    }
+                }
+            } else {
+                replay(batchId, after, sink);
+            }
+            sink.next(summaryEvent(batchId));
+            sink.complete();
+        });
+    }
+
+    private void replay(Long batchId, long after, FluxSink<BatchRunEvent> sink) {
+        jdbcTemplate.query("SELECT sequence, row_index, status, execution_id, variables, output, error_message, duration_ms "
+                        + "FROM wf_batch_run_row WHERE batch_id = ? AND sequence > ? ORDER BY sequence",
+                rs -> {
+                    BatchRunEvent event = BatchRunEvent.of(BatchRunEvent.ROW, batchId);
+                    event.setSequence(rs.getLong("sequence"));
+                    event.setRowIndex(rs.getInt("row_index"));
+                    event.setStatus(rs.getString("status"));
+                    event.setExecutionId((Long) rs.getObject("execution_id"));
+                    event.setVariables(parseVariables(rs.getString("variables")));
+                    event.setOutput(rs.getString("output"));
+                    event.setError(rs.getString("error_message"));
+                    event.setDurationMs((Long) rs.getObject("duration_ms"));
+                    sink.next(event);
+                }, batchId, after);
+    }
+
+    private BatchRunEvent summaryEvent(Long batchId) {
+        BatchRunEvent event = BatchRunEvent.of(BatchRunEvent.SUMMARY, batchId);
+        event.setSummary(getBatchRunSummary(batchId));
+        return event;
+    }
+
+    private void renewLeases() {
+        for (Long batchId : channels.keySet()) {
+            try {
+                jdbcTemplate.update("UPDATE wf_batch_run SET lease_expires_at = " + LEASE_EXPIRES
+                                + " WHERE id = ? AND lease_owner = ? AND status = 'RUNNING'",
+                        checkpointStore.getLeaseSeconds(), batchId, checkpointStore.getInstanceId());
+            } catch (Exception e) {
+                log.error("续期批量执行租约失败: batchId={}, error={}", batchId, e.getMessage(), e);
+            }
+        }
+    }
+
+    private Map<String, Object> loadBatch(Long batchId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT id, workflow_id, status, total_rows, finished_rows, "
+                + "failed_rows, parallelism, refresh_memo, created_at, completed_at FROM wf_batch_run WHERE id = ?", batchId);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("批量执行不存在: " + batchId);
+        }
+        return rows.get(0);
+    }
+
+    private Map<String, String> parseVariables(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<LinkedHashMap<String, String>>() {
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("解析批量执行变量失败: " + e.getMessage(), e);
+        }
+    }
+
+    private String toJson(Map<String, String> variables) {
+        try {
+            return objectMapper.writeValueAsString(variables);
+        } catch (Exception e) {
+            throw new RuntimeException("序列化批量执行变量失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value == null ? null : ((Timestamp) value).toLocalDateTime();
+    }
+
+    private static Double toDouble(Object value) {
+        return value == null ? null : ((Number) value).doubleValue();
+    }
+
+    /**
+     * 在本实例运行的批量执行：工作线程计数与结果订阅者
+     */
+    private static class BatchChannel {
+        private final Long batchId;
+        private final boolean refreshMemo;
+        private final AtomicInteger workers = new AtomicInteger();
+        private final List<FluxSink<BatchRunEvent>> sinks = new CopyOnWriteArrayList<>();
+        private boolean finished;
+
+        private BatchChannel(Long batchId, boolean refreshMemo) {
+            this.batchId = batchId;
+            this.refreshMemo = refreshMemo;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package cn.iocoder.boot.workflow.service.impl;
+
+import cn.iocoder.boot.workflow.dto.WorkflowSummary;
+import cn.iocoder.boot.workflow.engine.WorkflowConfigOutline;
+import cn.iocoder.boot.workflow.engine.WorkflowPlan;
+import cn.iocoder.boot.workflow.engine.WorkflowPlanCompiler;
+import cn.iocoder.boot.workflow.engine.WorkflowTopology;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 保存工作流配置时的分析结果：流式读取配置，推导拓扑并生成列表摘要，单个保存、导入与批量导入共用
+ *
+ * @author workflow-team
+ */
+final class WorkflowConfigAnalysis {
+
+    final WorkflowTopology topology;
+
+    final String topologyJson;
+
+    final String summaryJson;
+
+    private WorkflowConfigAnalysis(WorkflowTopology topology, String topologyJson, String summaryJson) {
+        this.topology = topology;
+        this.topologyJson = topologyJson;
+        this.summaryJson = summaryJson;
+    }
+
+    /**
+     * 配置不是合法的JSON或缺少nodes时抛出异常，图结构错误记录在topology.errors中
+     */
+    static WorkflowConfigAnalysis analyze(String config, ObjectMapper objectMapper) {
+        WorkflowConfigOutline outline = WorkflowConfigOutline.read(config, objectMapper);
+        WorkflowTopology topology = WorkflowTopology.analyze(outline);
+        WorkflowSummary summary = summarize(WorkflowPlanCompiler.summarize(outline, topology, objectMapper));
+        return new WorkflowConfigAnalysis(topology, topology.toJson(objectMapper), toJson(summary, objectMapper));
+    }
+
+    static WorkflowSummary summarize(WorkflowPlan plan) {
+        WorkflowSummary summary = new WorkflowSummary();
+        summary.setNodes(new ArrayList<>(plan.getNodeInfos()));
+        summary.setVars(new ArrayList<>(plan.getVariableInfos()));
+        summary.setWarnings(plan.isValid() ? new ArrayList<>(plan.getWarnings()) : List.of(plan.getError()));
+        return summary;
+    }
+
+    static String toJson(WorkflowSummary summary, ObjectMapper objectMapper) {
+        try {
+            return objectMapper.writeValueAsString(summary);
+        } catch (Exception e) {
+            throw new RuntimeException("序列化工作流摘要失败: " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,25 +1,40 @@
 package cn.iocoder.boot.workflow.service.impl;
 
 import cn.iocoder.boot.workflow.dto.*;
+import cn.iocoder.boot.workflow.engine.ExecutionEvent;
+import cn.iocoder.boot.workflow.engine.ExecutionEventBus;
+import cn.iocoder.boot.workflow.engine.ExecutionHistoryManager;
+import cn.iocoder.boot.workflow.engine.ExecutionWorkerPool;
+import cn.iocoder.boot.workflow.engine.WorkflowEngine;
+import cn.iocoder.boot.workflow.engine.WorkflowPlanCache;
+import cn.iocoder.boot.workflow.engine.WorkflowTopology;
 import cn.iocoder.boot.workflow.entity.Workflow;
 import cn.iocoder.boot.workflow.entity.WorkflowExecution;
+import cn.iocoder.boot.workflow.entity.WorkflowExecutionStep;
 import cn.iocoder.boot.workflow.repository.WorkflowRepository;
 import cn.iocoder.boot.workflow.repository.WorkflowExecutionRepository;
 import cn.iocoder.boot.workflow.service.WorkflowService;
 import cn.iocoder.boot.workflow.service.WorkflowAgentService;
-import cn.iocoder.boot.workflow.utils.WorkflowConfigParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -33,10 +48,23 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class WorkflowServiceImpl implements WorkflowService {
 
+    private static final int MAX_EXECUTION_PAGE_SIZE = 500;
+
     private final WorkflowRepository workflowRepository;
     private final WorkflowExecutionRepository executionRepository;
     private final ObjectMapper objectMapper;
     private final WorkflowAgentService workflowAgentService;
+    private final WorkflowEngine workflowEngine;
+    private final WorkflowPlanCache workflowPlanCache;
+    private final ExecutionEventBus executionEventBus;
+    private final ExecutionWorkerPool executionWorkerPool;
+    private final ExecutionHistoryManager executionHistoryManager;
+
+    /**
+     * 执行不在本实例上时，跟踪步骤记录与执行状态的轮询间隔
+     */
+    @Value("${workflow.events.tail-interval-ms:1000}")
+    private long tailIntervalMs;
 
     @Override
     public WorkflowDTO createWorkflow(WorkflowCreateRequest request) {
@@ -45,11 +73,11 @@ public class WorkflowServiceImpl implements WorkflowService {
         Workflow workflow = new Workflow();
         workflow.setName(request.getName());
         workflow.setDescription(request.getDescription());
-        workflow.setConfig(request.getConfig());
         workflow.setStatus(Workflow.WorkflowStatus.DRAFT);
+        WorkflowTopology topology = applyConfig(workflow, request.getConfig());
         
         workflow = workflowRepository.save(workflow);
-        return convertToDTO(workflow);
+        return convertToDTO(workflow, topology);
     }
 
     @Override
@@ -65,15 +93,17 @@ public class WorkflowServiceImpl implements WorkflowService {
         if (request.getDescription() != null) {
             workflow.setDescription(request.getDescription());
         }
-        if (request.getConfig() != null) {
-            workflow.setConfig(request.getConfig());
-        }
         if (request.getStatus() != null) {
             workflow.setStatus(Workflow.WorkflowStatus.valueOf(request.getStatus()));
         }
+        // 配置变化或启用时重新分析配置
+        WorkflowTopology topology = null;
+        if (request.getConfig() != null || request.getStatus() != null) {
+            topology = applyConfig(workflow, request.getConfig() != null ? request.getConfig() : workflow.getConfig());
+        }
         
         workflow = workflowRepository.save(workflow);
-        return convertToDTO(workflow);
+        return convertToDTO(workflow, topology);
     }
 
     @Override
@@ -84,7 +114,10 @@ public class WorkflowServiceImpl implements WorkflowService {
             throw new RuntimeException("工作流不存在: " + id);
         }
         
+        // 检查点按执行ID关联，不随工作流级联删除
+        executionRepository.deleteCheckpointsByWorkflowId(id);
         workflowRepository.deleteById(id);
+        workflowPlanCache.evict(id);
     }
 
     @Override
@@ -94,29 +127,42 @@ public class WorkflowServiceImpl implements WorkflowService {
         Workflow workflow = workflowRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("工作流不存在: " + id));
         
-        return convertToDTO(workflow);
+        return convertToDTOWithDetails(workflow);
     }
 
     @Override
     public List<WorkflowDTO> getWorkflows(int skip, int limit) {
         log.info("获取工作流列表: skip={}, limit={}", skip, limit);
         
-        Pageable pageable = PageRequest.of(skip / limit, limit);
-        Page<Workflow> workflowPage = workflowRepository.findAll(pageable);
-        
-        return workflowPage.getContent().stream()
-                .map(this::convertToDTOWithDetails)
-                .collect(Collectors.toList());
+        Pageable pageable = PageRequest.of(skip / limit, limit, Sort.by("id"));
+        return getWorkflowsPage(pageable).getContent();
     }
 
     @Override
     public Page<WorkflowDTO> getWorkflowsPage(Pageable pageable) {
-        Page<Workflow> workflowPage = workflowRepository.findAll(pageable);
-        List<WorkflowDTO> workflowDTOs = workflowPage.getContent().stream()
-                .map(this::convertToDTOWithDetails)
+        // 列表只读取摘要列，不读取与解析完整配置
+        Page<WorkflowRepository.WorkflowListItem> itemPage = workflowRepository.findListItems(pageable);
+        List<WorkflowDTO> workflowDTOs = itemPage.getContent().stream()
+                .map(this::convertToListDTO)
                 .collect(Collectors.toList());
         
-        return new PageImpl<>(workflowDTOs, pageable, workflowPage.getTotalElements());
+        return new PageImpl<>(workflowDTOs, pageable, itemPage.getTotalElements());
+    }
+
+    @Override
+    public Page<WorkflowDTO> searchWorkflowsPage(String keyword, Pageable pageable) {
+        log.info("搜索工作流: keyword={}, page={}, size={}", keyword, pageable.getPageNumber(), pageable.getPageSize());
+
+        // ILIKE使用默认转义符\，关键词中的通配符按字面匹配
+        String escaped = keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        // 查询中已按ID排序，不再附加调用方的排序
+        Page<WorkflowRepository.WorkflowListItem> itemPage = workflowRepository.searchListItems("%" + escaped + "%",
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        List<WorkflowDTO> workflowDTOs = itemPage.getContent().stream()
+                .map(this::convertToListDTO)
+                .collect(Collectors.toList());
+
+        return new PageImpl<>(workflowDTOs, pageable, itemPage.getTotalElements());
     }
 
     @Override
@@ -126,14 +172,10 @@ public class WorkflowServiceImpl implements WorkflowService {
         Workflow workflow = workflowRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("工作流不存在: " + id));
         
-        // 创建执行记录
-        WorkflowExecution execution = new WorkflowExecution();
-        execution.setWorkflowId(id);
-        execution.setStatus(WorkflowExecution.ExecutionStatus.PENDING);
-        execution = executionRepository.save(execution);
-        
-        // TODO: 实现异步执行逻辑
-        return "工作流执行已启动，执行ID: " + execution.getId();
+        // 创建PENDING执行记录，由任一实例的工作池认领执行
+        Long executionId = executionWorkerPool.submit(workflow, request != null ? request.getVariables() : null,
+                request != null && request.isRefreshMemo(), request != null ? request.getBudget() : null);
+        return "工作流执行已启动，执行ID: " + executionId;
     }
 
     @Override
@@ -145,9 +187,8 @@ public class WorkflowServiceImpl implements WorkflowService {
             Workflow workflow = workflowRepository.findById(workflowId)
                     .orElseThrow(() -> new RuntimeException("工作流不存在: " + request.getId()));
             
-            // TODO: 实现工作流执行引擎
-            String result = "工作流执行完成，输出结果";
-            return RunWorkflowResponse.success(result);
+            String result = workflowEngine.runSync(workflow, request.getArgs(), request.isRefreshMemo(), request.getBudget());
+            return RunWorkflowResponse.success(result != null ? result : "");
             
         } catch (Exception e) {
             log.error("运行工作流失败: {}", e.getMessage(), e);
@@ -202,8 +243,8 @@ public class WorkflowServiceImpl implements WorkflowService {
             Workflow workflow = new Workflow();
             workflow.setName(name);
             workflow.setDescription(description);
-            workflow.setConfig(config);
             workflow.setStatus(Workflow.WorkflowStatus.DRAFT);
+            WorkflowTopology topology = applyConfig(workflow, config);
             
             workflow = workflowRepository.save(workflow);
             
@@ -211,7 +252,7 @@ public class WorkflowServiceImpl implements WorkflowService {
             response.put("success", true);
             response.put("message", "工作流导入成功");
             response.put("workflow_id", workflow.getId());
-            response.put("workflow", convertToDTO(workflow));
+            response.put("workflow", convertToDTO(workflow, topology));
             
             return response;
             
@@ -224,6 +265,191 @@ public class WorkflowServiceImpl implements WorkflowService {
         }
     }
 
+    @Override
+    public Map<String, Object> cancelExecution(Long executionId) {
+        String status = executionWorkerPool.cancel(executionId);
+        if (status == null) {
+            throw new RuntimeException("执行记录不存在: " + executionId);
+        }
+        String message;
+        if (WorkflowExecution.ExecutionStatus.CANCELLED.name().equals(status)) {
+            message = "执行已取消";
+        } else if (WorkflowExecution.ExecutionStatus.RUNNING.name().equals(status)) {
+            message = "已请求取消，执行中的节点中断后以CANCELLED结束";
+        } else {
+            message = "执行已结束，无法取消";
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("executionId", executionId);
+        result.put("status", status);
+        result.put("message", message);
+        return result;
+    }
+
+    @Override
+    public List<WorkflowExecutionStep> getExecutionSteps(Long executionId) {
+        if (!executionRepository.existsById(executionId)) {
+            throw new RuntimeException("执行记录不存在: " + executionId);
+        }
+        return executionRepository.findStepTimeline(executionId);
+    }
+
+    @Override
+    public List<WorkflowExecutionRepository.NodeStepSummary> getNodeStepSummary(Long workflowId) {
+        return executionRepository.summarizeSteps(workflowId, WorkflowExecutionStep.StepStatus.SKIPPED);
+    }
+
+    @Override
+    public ExecutionHistoryPage getExecutions(Long workflowId, String cursor, int limit) {
+        Pageable pageable = PageRequest.of(0, executionPageSize(limit) + 1);
+        if (cursor == null || cursor.isEmpty()) {
+            return toExecutionPage(executionRepository.findLatestByWorkflowId(workflowId, pageable), pageable);
+        }
+        WorkflowExecution last = parseCursor(cursor);
+        return toExecutionPage(executionRepository.findByWorkflowIdBefore(
+                workflowId, last.getCreatedAt(), last.getId(), pageable), pageable);
+    }
+
+    @Override
+    public ExecutionHistoryPage getExecutionsByStatus(WorkflowExecution.ExecutionStatus status, String cursor, int limit) {
+        Pageable pageable = PageRequest.of(0, executionPageSize(limit) + 1);
+        if (cursor == null || cursor.isEmpty()) {
+            return toExecutionPage(executionRepository.findLatestByStatus(status, pageable), pageable);
+        }
+        WorkflowExecution last = parseCursor(cursor);
+        return toExecutionPage(executionRepository.findByStatusBefore(
+                status, last.getCreatedAt(), last.getId(), pageable), pageable);
+    }
+
+    @Override
+    public List<ExecutionHistoryManager.Rollup> getExecutionRollups(Long workflowId, LocalDate from, LocalDate to) {
+        return executionHistoryManager.findRollups(workflowId, from, to);
+    }
+
+    private static int executionPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_EXECUTION_PAGE_SIZE));
+    }
+
+    /**
+     * 多查询一条用于判断是否还有下一页
+     */
+    private static ExecutionHistoryPage toExecutionPage(List<WorkflowExecution> executions, Pageable pageable) {
+        ExecutionHistoryPage page = new ExecutionHistoryPage();
+        int size = pageable.getPageSize() - 1;
+        if (executions.size() > size) {
+            WorkflowExecution last = executions.get(size - 1);
+            page.setNextCursor(last.getCreatedAt() + "_" + last.getId());
+            page.setItems(new ArrayList<>(executions.subList(0, size)));
+        } else {
+            page.setItems(executions);
+        }
+        return page;
+    }
+
+    /**
+     * 游标格式：创建时间(ISO-8601)_ID
+     */
+    private static WorkflowExecution parseCursor(String cursor) {
+        int separator = cursor.lastIndexOf('_');
+        try {
+            WorkflowExecution last = new WorkflowExecution();
+            last.setCreatedAt(LocalDateTime.parse(cursor.substring(0, separator)));
+            last.setId(Long.parseLong(cursor.substring(separator + 1)));
+            return last;
+        } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+            throw new RuntimeException("执行记录游标格式错误: " + cursor);
+        }
+    }
+
+    @Override
+    public Flux<ExecutionEvent> streamExecutionEvents(Long executionId, long lastSequence) {
+        if (workflowEngine.isRunning(executionId) || executionEventBus.isFinished(executionId)) {
+            Flux<ExecutionEvent> live = executionEventBus.subscribe(executionId, lastSequence);
+            if (live != null) {
+                return live;
+            }
+        }
+
+        // 执行不在本实例上（尚未认领、由其他实例执行）或频道已过保留期：从步骤记录回放，
+        // 未结束的执行按tail-interval-ms轮询新的步骤与执行状态，直到执行结束
+        WorkflowExecution execution = executionRepository.findById(executionId)
+                .orElseThrow(() -> new RuntimeException("执行记录不存在: " + executionId));
+        StepTail tail = new StepTail(executionId);
+        List<ExecutionEvent> replay = tail.poll(execution, true);
+        Flux<ExecutionEvent> events = Flux.fromIterable(replay);
+        if (!tail.finished) {
+            events = events.concatWith(Flux.interval(Duration.ofMillis(tailIntervalMs))
+                    .onBackpressureDrop()
+                    .concatMap(tick -> Mono.fromCallable(() -> tail.poll(executionRepository.findById(executionId)
+                                    .orElseThrow(() -> new RuntimeException("执行记录不存在: " + executionId)), false))
+                            .subscribeOn(Schedulers.boundedElastic()))
+                    .flatMapIterable(polled -> polled)
+                    .takeUntil(ExecutionEvent::isFinished));
+        }
+        return events.filter(event -> event.getSequence() > lastSequence);
+    }
+
+    private static boolean isTerminal(WorkflowExecution execution) {
+        return execution.getStatus() == WorkflowExecution.ExecutionStatus.COMPLETED
+                || execution.getStatus() == WorkflowExecution.ExecutionStatus.FAILED
+                || execution.getStatus() == WorkflowExecution.ExecutionStatus.BUDGET_EXCEEDED
+                || execution.getStatus() == WorkflowExecution.ExecutionStatus.CANCELLED;
+    }
+
+    /**
+     * 从数据库跟踪执行：每次轮询把尚未发出的步骤转换为node-completed事件，执行结束时追加execution-finished
+     * 步骤由WorkflowStepWriter异步写入，可能晚于执行状态落库，轮询中发现执行结束后再轮询一次才发出结束事件
+     */
+    private final class StepTail {
+
+        private final Long executionId;
+        private final Set<Long> emitted = new HashSet<>();
+        private long sequence;
+        private boolean terminalSeen;
+        private boolean finished;
+
+        private StepTail(Long executionId) {
+            this.executionId = executionId;
+        }
+
+        private List<ExecutionEvent> poll(WorkflowExecution execution, boolean first) {
+            List<ExecutionEvent> events = new ArrayList<>();
+            if (finished) {
+                return events;
+            }
+            boolean terminal = isTerminal(execution);
+            for (WorkflowExecutionStep step : executionRepository.findStepTimeline(executionId)) {
+                if (!emitted.add(step.getId())) {
+                    continue;
+                }
+                ExecutionEvent event = ExecutionEvent.of(ExecutionEvent.NODE_COMPLETED, executionId);
+                event.setSequence(++sequence);
+                event.setNodeId(step.getNodeId());
+                event.setNodeType(step.getNodeType());
+                event.setStatus(step.getStatus().name());
+                event.setBranch(step.getBranch());
+                event.setDurationMs(step.getDurationMs());
+                event.setTokens(step.getTokens());
+                event.setCached(Boolean.TRUE.equals(step.getCacheHit()) ? Boolean.TRUE : null);
+                event.setError(step.getErrorMessage());
+                event.setTimestamp(step.getCompletedAt());
+                events.add(event);
+            }
+            if (terminal && (first || terminalSeen)) {
+                ExecutionEvent finishedEvent = ExecutionEvent.of(ExecutionEvent.EXECUTION_FINISHED, executionId);
+                finishedEvent.setSequence(++sequence);
+                finishedEvent.setStatus(execution.getStatus().name());
+                finishedEvent.setOutput(execution.getResult());
+                finishedEvent.setError(execution.getErrorMessage());
+                finishedEvent.setTimestamp(execution.getCompletedAt());
+                events.add(finishedEvent);
+                finished = true;
+            }
+            terminalSeen = terminal;
+            return events;
+        }
+    }
+
     @Override
     public Map<String, Object> getExternalAgents() {
         log.info("获取Agent信息");
@@ -238,6 +464,67 @@ public class WorkflowServiceImpl implements WorkflowService {
         }
     }
 
+    /**
+     * 保存前分析配置并写入推导的拓扑与列表摘要：配置无法解析时拒绝保存；图结构有错误（缺少开始节点、连线指向不存在的节点、环路）时
+     * 草稿与归档仍可保存并在返回结果中提示，启用状态拒绝保存
+     */
+    private WorkflowTopology applyConfig(Workflow workflow, String config) {
+        WorkflowConfigAnalysis analysis = WorkflowConfigAnalysis.analyze(config, objectMapper);
+        if (!analysis.topology.isValid() && workflow.getStatus() == Workflow.WorkflowStatus.ACTIVE) {
+            throw new RuntimeException("工作流配置存在错误，无法启用: " + analysis.topology.getErrors());
+        }
+        workflow.setConfig(config);
+        workflow.setTopology(analysis.topologyJson);
+        workflow.setSummary(analysis.summaryJson);
+        return analysis.topology;
+    }
+
+    /**
+     * 由列表项的摘要生成DTO（不含config）；历史数据没有摘要时编译一次执行计划生成摘要并回写
+     */
+    private WorkflowDTO convertToListDTO(WorkflowRepository.WorkflowListItem item) {
+        WorkflowDTO dto = new WorkflowDTO();
+        dto.setId(item.getId());
+        dto.setName(item.getName());
+        dto.setDescription(item.getDescription());
+        dto.setStatus(item.getStatus().name());
+        dto.setCreatedAt(item.getCreatedAt());
+        dto.setUpdatedAt(item.getUpdatedAt());
+
+        WorkflowSummary summary = null;
+        if (item.getSummary() != null) {
+            try {
+                summary = objectMapper.readValue(item.getSummary(), WorkflowSummary.class);
+            } catch (Exception e) {
+                log.warn("解析工作流摘要失败，将重新生成: workflowId={}, {}", item.getId(), e.getMessage());
+            }
+        }
+        if (summary == null) {
+            summary = backfillSummary(item);
+        }
+        if (summary != null) {
+            dto.setNodes(summary.getNodes());
+            dto.setVars(summary.getVars());
+            dto.setWarnings(summary.getWarnings());
+        }
+        return dto;
+    }
+
+    private WorkflowSummary backfillSummary(WorkflowRepository.WorkflowListItem item) {
+        Workflow workflow = workflowRepository.findById(item.getId()).orElse(null);
+        if (workflow == null) {
+            return null;
+        }
+        WorkflowSummary summary = WorkflowConfigAnalysis.summarize(workflowPlanCache.get(workflow));
+        try {
+            workflowRepository.saveSummary(workflow.getId(), workflow.getUpdatedAt(),
+                    WorkflowConfigAnalysis.toJson(summary, objectMapper));
+        } catch (Exception e) {
+            log.warn("回写工作流摘要失败: workflowId={}, {}", workflow.getId(), e.getMessage());
+        }
+        return summary;
+    }
+
     private WorkflowDTO convertToDTO(Workflow workflow) {
         WorkflowDTO dto = new WorkflowDTO();
         BeanUtils.copyProperties(workflow, dto);
@@ -245,21 +532,25 @@ public class WorkflowServiceImpl implements WorkflowService {
         return dto;
     }
 
+    private WorkflowDTO convertToDTO(Workflow workflow, WorkflowTopology topology) {
+        WorkflowDTO dto = convertToDTO(workflow);
+        if (topology != null) {
+            List<String> warnings = new ArrayList<>(topology.getErrors());
+            warnings.addAll(topology.getWarnings());
+            dto.setWarnings(warnings);
+        }
+        return dto;
+    }
+
     private WorkflowDTO convertToDTOWithDetails(Workflow workflow) {
         WorkflowDTO dto = convertToDTO(workflow);
         
-        // 解析工作流配置，提取节点和变量信息
-        try {
-            WorkflowConfigParser.WorkflowDetails details = 
-                    WorkflowConfigParser.parseWorkflowDetails(workflow.getConfig());
-            dto.setNodes(details.getNodes());
-            dto.setVars(details.getVars());
-        } catch (Exception e) {
-            log.warn("解析工作流配置失败: workflowId={}, error={}", workflow.getId(), e.getMessage());
-            dto.setNodes(new ArrayList<>());
-            dto.setVars(new ArrayList<>());
-        }
+        // 节点和变量信息取自缓存的执行计划，配置未变化时不再重复解析
+        WorkflowSummary summary = WorkflowConfigAnalysis.summarize(workflowPlanCache.get(workflow));
+        dto.setNodes(summary.getNodes());
+        dto.setVars(summary.getVars());
+        dto.setWarnings(summary.getWarnings());
         
         return dto;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,364 @@
+package cn.iocoder.boot.workflow.service.impl;
+
+import cn.iocoder.boot.workflow.dto.WorkflowBulkImportResult;
+import cn.iocoder.boot.workflow.entity.Workflow;
+import cn.iocoder.boot.workflow.service.WorkflowTransferService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 工作流批量导出导入服务实现
+ * <ul>
+ *     <li>导出：只读事务中以游标（fetchSize）逐行读取，config为jsonb文本，原样写入输出，不解析</li>
+ *     <li>导入：MappingIterator逐条读取记录，按保存时的规则分析配置（拓扑与列表摘要），
+ *     攒满一批后以JDBC批量插入，每批一个事务；某一批写入失败只回滚该批</li>
+ * </ul>
+ *
+ * @author workflow-team
+ */
+@Slf4j
+@Service
+public class WorkflowTransferServiceImpl implements WorkflowTransferService {
+
+    private static final int MAX_ERRORS = 100;
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private static final String INSERT_SQL = "INSERT INTO wf_workflow "
+            + "(name, description, config, topology, summary, status, created_at, updated_at) "
+            + "VALUES (?, ?, ?::jsonb, ?, ?::jsonb, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${workflow.transfer.fetch-size:200}")
+    private int fetchSize;
+
+    @Value("${workflow.transfer.batch-size:500}")
+    private int batchSize;
+
+    public WorkflowTransferServiceImpl(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                       ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        // PostgreSQL只有在事务中才按fetchSize分批读取，否则一次读取全部结果
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public void exportWorkflows(OutputStream output, String format, List<Long> ids, Workflow.WorkflowStatus status,
+                                String keyword) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT id, name, description, status, config FROM wf_workflow WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (ids != null && !ids.isEmpty()) {
+            sql.append(" AND id IN (").append(String.join(", ", Collections.nCopies(ids.size(), "?"))).append(")");
+            args.addAll(ids);
+        }
+        if (status != null) {
+            sql.append(" AND status = ?");
+            args.add(status.name());
+        }
+        if (keyword != null && !keyword.isBlank()) {
+            String escaped = keyword.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            sql.append(" AND (name ILIKE ? OR description ILIKE ?)");
+            args.add("%" + escaped + "%");
+            args.add("%" + escaped + "%");
+        }
+        sql.append(" ORDER BY id");
+
+        boolean zip = FORMAT_ZIP.equals(format);
+        ZipOutputStream zipOutput = zip ? new ZipOutputStream(output) : null;
+        JsonGenerator generator = zip ? null : objectMapper.createGenerator(output).setRootValueSeparator(null);
+        LocalDateTime exportedAt = LocalDateTime.now();
+        int[] count = {0};
+        long start = System.currentTimeMillis();
+        try {
+            readOnlyTransactionTemplate.executeWithoutResult(transaction -> jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < args.size(); i++) {
+                    ps.setObject(i + 1, args.get(i));
+                }
+                return ps;
+            }, rs -> {
+                try {
+                    if (zip) {
+                        zipOutput.putNextEntry(new ZipEntry(entryName(rs.getLong("id"), rs.getString("name"))));
+                        JsonGenerator entryGenerator = objectMapper.createGenerator(zipOutput)
+                                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                                .useDefaultPrettyPrinter();
+                        writeRecord(entryGenerator, rs, exportedAt);
+                        entryGenerator.close();
+                        zipOutput.closeEntry();
+                    } else {
+                        writeRecord(generator, rs, exportedAt);
+                        generator.writeRaw('\n');
+                    }
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            // 客户端断开连接等写入失败
+            throw e.getCause();
+        }
+        if (zip) {
+            zipOutput.finish();
+        } else {
+            generator.flush();
+        }
+        log.info("批量导出工作流完成: format={}, count={}, elapsedMs={}", format, count[0], System.currentTimeMillis() - start);
+    }
+
+    private void writeRecord(JsonGenerator generator, ResultSet rs, LocalDateTime exportedAt)
+            throws IOException, SQLException {
+        generator.writeStartObject();
+        generator.writeStringField("name", rs.getString("name"));
+        generator.writeStringField("description", rs.getString("description"));
+        generator.writeStringField("status", rs.getString("status"));
+        // config是jsonb文本，原样写入
+        generator.writeFieldName("config");
+        generator.writeRawValue(rs.getString("config"));
+        generator.writeObjectField("exported_at", exportedAt);
+        generator.writeEndObject();
+    }
+
+    /**
+     * zip中的文件名：ID在前保证唯一，名称中不能用于文件名的字符替换为下划线
+     */
+    private static String entryName(long id, String name) {
+        String safeName = name == null ? "" : name.replaceAll("[\\\\/:*?\"<>|\\s]+", "_");
+        if (safeName.length() > 80) {
+            safeName = safeName.substring(0, 80);
+        }
+        return String.format("%06d_%s.json", id, safeName);
+    }
+
+    @Override
+    public WorkflowBulkImportResult importWorkflows(InputStream input, String format, String filename,
+                                                    String contentType, boolean keepStatus) {
+        WorkflowBulkImportResult result = new WorkflowBulkImportResult();
+        long start = System.currentTimeMillis();
+        ImportBatch batch = new ImportBatch(result);
+        try {
+            BufferedInputStream buffered = new BufferedInputStream(input);
+            if (FORMAT_ZIP.equals(resolveImportFormat(format, filename, contentType, buffered))) {
+                ZipInputStream zipInput = new ZipInputStream(buffered);
+                ZipEntry entry;
+                while ((entry = zipInput.getNextEntry()) != null) {
+                    String lowerName = entry.getName().toLowerCase();
+                    if (!entry.isDirectory() && (lowerName.endsWith(".json") || lowerName.endsWith(".ndjson")
+                            || lowerName.endsWith(".jsonl"))) {
+                        readRecords(zipInput, entry.getName(), keepStatus, batch);
+                    }
+                }
+            } else {
+                readRecords(buffered, null, keepStatus, batch);
+            }
+        } catch (IOException e) {
+            batch.error("读取导入内容失败: " + e.getMessage());
+        }
+        batch.flush();
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        log.info("批量导入工作流完成: total={}, imported={}, failed={}, elapsedMs={}",
+                result.getTotal(), result.getImported(), result.getFailed(), result.getElapsedMs());
+        return result;
+    }
+
+    /**
+     * 判断导入格式：显式指定 > 文件扩展名 > Content-Type > zip文件头
+     */
+    private static String resolveImportFormat(String format, String filename, String contentType,
+                                              BufferedInputStream input) throws IOException {
+        if (format != null && !format.isBlank()) {
+            String lower = format.trim().toLowerCase();
+            if (FORMAT_ZIP.equals(lower)) {
+                return FORMAT_ZIP;
+            }
+            if (FORMAT_NDJSON.equals(lower) || "jsonl".equals(lower) || "json".equals(lower)) {
+                return FORMAT_NDJSON;
+            }
+            throw new RuntimeException("不支持的导入格式: " + format + "，仅支持ndjson与zip");
+        }
+        if (filename != null && filename.toLowerCase().endsWith(".zip")) {
+            return FORMAT_ZIP;
+        }
+        if (contentType != null && contentType.toLowerCase().contains("zip")) {
+            return FORMAT_ZIP;
+        }
+        input.mark(4);
+        byte[] header = input.readNBytes(4);
+        input.reset();
+        return header.length == 4 && header[0] == 'P' && header[1] == 'K' && header[2] == 3 && header[3] == 4
+                ? FORMAT_ZIP : FORMAT_NDJSON;
+    }
+
+    /**
+     * 逐条读取记录：NDJSON、单个JSON对象或JSON数组，内容不是合法的JSON时停止读取该文件
+     */
+    private void readRecords(InputStream input, String entryName, boolean keepStatus, ImportBatch batch) throws IOException {
+        String prefix = entryName == null ? "" : entryName + ": ";
+        MappingIterator<JsonNode> iterator;
+        try {
+            // 内容是JSON数组时逐个读取数组元素；zip中的文件读取完后不能关闭整个zip流
+            iterator = objectMapper.readerFor(JsonNode.class)
+                    .without(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+                    .readValues(input);
+        } catch (JsonProcessingException e) {
+            batch.error(prefix + "内容不是合法的JSON: " + e.getOriginalMessage());
+            return;
+        }
+        try (MappingIterator<JsonNode> records = iterator) {
+            while (true) {
+                JsonNode record;
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    record = records.nextValue();
+                } catch (JsonProcessingException e) {
+                    batch.error(prefix + "第" + (batch.result.getTotal() + 1) + "条记录不是合法的JSON，停止读取: "
+                            + e.getOriginalMessage());
+                    break;
+                }
+                int position = batch.result.getTotal() + 1;
+                batch.result.setTotal(position);
+                try {
+                    batch.add(toRow(record, keepStatus));
+                } catch (RuntimeException e) {
+                    batch.fail(prefix + "第" + position + "条记录" + recordName(record) + "导入失败: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 按保存时的规则分析记录：校验名称与配置，推导拓扑并生成列表摘要；记录可以是单个导出的格式，也可以是单个导入请求（workflow_data）
+     */
+    private Object[] toRow(JsonNode record, boolean keepStatus) {
+        if (record.has("workflow_data")) {
+            record = record.get("workflow_data");
+        }
+        if (record == null || !record.isObject()) {
+            throw new RuntimeException("记录必须是JSON对象");
+        }
+        String name = record.hasNonNull("name") ? record.get("name").asText() : "";
+        if (name.isBlank()) {
+            throw new RuntimeException("缺少工作流名称");
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            throw new RuntimeException("工作流名称超过" + MAX_NAME_LENGTH + "个字符");
+        }
+        JsonNode configNode = record.get("config");
+        if (configNode == null || configNode.isNull()) {
+            throw new RuntimeException("缺少工作流配置");
+        }
+        String config = configNode.isTextual() ? configNode.asText() : configNode.toString();
+
+        Workflow.WorkflowStatus status = Workflow.WorkflowStatus.DRAFT;
+        if (keepStatus && record.hasNonNull("status")) {
+            try {
+                status = Workflow.WorkflowStatus.valueOf(record.get("status").asText());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("不支持的工作流状态: " + record.get("status").asText());
+            }
+        }
+        WorkflowConfigAnalysis analysis = WorkflowConfigAnalysis.analyze(config, objectMapper);
+        if (!analysis.topology.isValid() && status == Workflow.WorkflowStatus.ACTIVE) {
+            throw new RuntimeException("工作流配置存在错误，无法启用: " + analysis.topology.getErrors());
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return new Object[]{name, record.hasNonNull("description") ? record.get("description").asText() : null,
+                config, analysis.topologyJson, analysis.summaryJson, status.name(), now, now};
+    }
+
+    private static String recordName(JsonNode record) {
+        JsonNode data = record.has("workflow_data") ? record.get("workflow_data") : record;
+        return data != null && data.hasNonNull("name") && !data.get("name").asText().isBlank()
+                ? "[" + data.get("name").asText() + "]" : "";
+    }
+
+    /**
+     * 待插入的一批记录，攒满batchSize后在一个事务中批量插入
+     */
+    private class ImportBatch {
+
+        private final WorkflowBulkImportResult result;
+
+        private final List<Object[]> rows = new ArrayList<>();
+
+        private int firstPosition;
+
+        ImportBatch(WorkflowBulkImportResult result) {
+            this.result = result;
+        }
+
+        void add(Object[] row) {
+            if (rows.isEmpty()) {
+                firstPosition = result.getTotal();
+            }
+            rows.add(row);
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(transaction -> jdbcTemplate.batchUpdate(INSERT_SQL, rows));
+                result.setImported(result.getImported() + rows.size());
+            } catch (RuntimeException e) {
+                log.warn("批量导入工作流写入失败: {}", e.getMessage());
+                result.setFailed(result.getFailed() + rows.size());
+                error("第" + firstPosition + "至" + result.getTotal() + "条记录中的" + rows.size() + "条写入失败，已回滚: "
+                        + e.getMessage());
+            }
+            rows.clear();
+        }
+
+        void fail(String message) {
+            result.setFailed(result.getFailed() + 1);
+            error(message);
+        }
+
+        void error(String message) {
+            if (result.getErrors().size() < MAX_ERRORS) {
+                result.getErrors().add(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package cn.iocoder.boot.workflow.connector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Jira与Confluence连接器测试：本地桩服务模拟REST API，验证批量创建的分批、部分失败的报告、状态转换与ETag缓存
+ *
+ * @author workflow-team
+ */
+class AtlassianConnectorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger issueSequence = new AtomicInteger();
+    private final List<Integer> bulkSizes = new ArrayList<>();
+    private final AtomicInteger transitionPosts = new AtomicInteger();
+    private final AtomicInteger pageReads = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    private HttpServer server;
+    private JiraConnector jiraConnector;
+    private ConfluenceConnector confluenceConnector;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/", this::handle);
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        jiraConnector = new JiraConnector(httpClient, objectMapper, baseUrl, "user", "token");
+        ReflectionTestUtils.setField(jiraConnector, "requestTimeoutSeconds", 10L);
+        ReflectionTestUtils.setField(jiraConnector, "maxConcurrency", 4);
+        ReflectionTestUtils.setField(jiraConnector, "bulkSize", 50);
+        confluenceConnector = new ConfluenceConnector(httpClient, baseUrl, "user", "token", 10);
+        ReflectionTestUtils.setField(confluenceConnector, "requestTimeoutSeconds", 10L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void createIssuesInBatchesOfFifty() {
+        List<String> keys = jiraConnector.createIssues(issues(120)).block();
+
+        assertThat(keys).hasSize(120);
+        assertThat(keys).doesNotHaveDuplicates();
+        synchronized (bulkSizes) {
+            assertThat(bulkSizes).containsExactlyInAnyOrder(50, 50, 20);
+        }
+    }
+
+    @Test
+    void reportFailedElementsWithTheirPosition() {
+        List<Map<String, Object>> issues = issues(60);
+        issues.set(55, Map.of("summary", "bad"));
+
+        assertThatThrownBy(() -> jiraConnector.createIssues(issues).block())
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("第56个: [summary: invalid]")
+                .hasMessageContaining("已创建: [P-");
+    }
+
+    @Test
+    void transitionMatchesTargetStatusName() {
+        List<String> keys = jiraConnector.createIssues(issues(3)).block();
+
+        jiraConnector.transition(keys, "in-progress").block();
+
+        assertThat(transitionPosts.get()).isEqualTo(3);
+    }
+
+    @Test
+    void transitionSkippedWhenAlreadyInStatus() {
+        List<String> keys = jiraConnector.createIssues(issues(3)).block();
+
+        jiraConnector.transition(keys, "to do").block();
+
+        assertThat(transitionPosts.get()).isZero();
+    }
+
+    @Test
+    void transitionFailsWhenNoTransitionMatches() {
+        List<String> keys = jiraConnector.createIssues(issues(1)).block();
+
+        assertThatThrownBy(() -> jiraConnector.transition(keys, "Done").block())
+                .hasMessageContaining("可用的转换: [Start Progress]");
+        assertThat(transitionPosts.get()).isZero();
+    }
+
+    @Test
+    void getPageRevalidatesCachedPageWithETag() {
+        for (int i = 0; i < 3; i++) {
+            ConfluenceConnector.Page page = confluenceConnector.getPage("42").block();
+            assertThat(page.getTitle()).isEqualTo("Doc");
+            assertThat(page.getVersion()).isEqualTo(3);
+            assertThat(page.getBody()).isEqualTo("<p>hi</p>");
+        }
+
+        assertThat(pageReads.get()).isEqualTo(3);
+        assertThat(notModified.get()).isEqualTo(2);
+    }
+
+    @Test
+    void pageIdFromUrl() {
+        assertThat(ConfluenceConnector.pageIdFromUrl("https://example.atlassian.net/wiki/spaces/T/pages/12345/Title"))
+                .isEqualTo("12345");
+        assertThat(ConfluenceConnector.pageIdFromUrl("https://example.com/pages/viewpage.action?pageId=77")).isEqualTo("77");
+    }
+
+    private static List<Map<String, Object>> issues(int count) {
+        List<Map<String, Object>> issues = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            issues.add(Map.of("summary", "issue " + i));
+        }
+        return issues;
+    }
+
+    /**
+     * 桩服务：批量创建为summary为bad的元素返回failedElementNumber，issue处于To Do状态、只有一个到In Progress的转换，
+     * 页面42的ETag为"v3"
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().toString();
+        String method = exchange.getRequestMethod();
+        byte[] request = exchange.getRequestBody().readAllBytes();
+        int status = 200;
+        String body = "{}";
+        if (path.equals("/rest/api/2/issue/bulk")) {
+            body = bulkCreate(objectMapper.readTree(request).path("issueUpdates"));
+            status = 201;
+        } else if (path.contains("expand=transitions")) {
+            body = "{\"fields\":{\"status\":{\"name\":\"To Do\"}},"
+                    + "\"transitions\":[{\"id\":\"21\",\"name\":\"Start Progress\",\"to\":{\"name\":\"In Progress\"}}]}";
+        } else if (path.endsWith("/transitions") && "POST".equals(method)) {
+            transitionPosts.incrementAndGet();
+            status = 204;
+            body = null;
+        } else if (path.startsWith("/rest/api/content/42")) {
+            pageReads.incrementAndGet();
+            if ("\"v3\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                status = 304;
+                body = null;
+            } else {
+                exchange.getResponseHeaders().add("ETag", "\"v3\"");
+                body = "{\"id\":\"42\",\"title\":\"Doc\",\"version\":{\"number\":3},"
+                        + "\"body\":{\"storage\":{\"value\":\"<p>hi</p>\"}},"
+                        + "\"_links\":{\"base\":\"http://example.com/wiki\",\"webui\":\"/spaces/T/pages/42\"}}";
+            }
+        } else {
+            status = 404;
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+        exchange.close();
+    }
+
+    private String bulkCreate(JsonNode updates) {
+        synchronized (bulkSizes) {
+            bulkSizes.add(updates.size());
+        }
+        List<String> issues = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < updates.size(); i++) {
+            if ("bad".equals(updates.get(i).path("fields").path("summary").asText())) {
+                errors.add("{\"status\":400,\"failedElementNumber\":" + i
+                        + ",\"elementErrors\":{\"errorMessages\":[],\"errors\":{\"summary\":\"invalid\"}}}");
+            } else {
+                issues.add("{\"key\":\"P-" + issueSequence.incrementAndGet() + "\"}");
+            }
+        }
+        return "{\"issues\":[" + String.join(",", issues) + "],\"errors\":[" + String.join(",", errors) + "]}";
+    }
+}
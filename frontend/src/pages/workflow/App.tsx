@@ -2,6 +2,7 @@ import React, { useState } from 'react';
 import WorkflowManager from './components/WorkflowManager/WorkflowManager';
 import WorkflowEditor from './components/WorkflowEditor';
 import { Workflow, WorkflowStatus } from './types/workflow';
+import { workflowApi } from './services/api';
 import './index.css';
 
 enum AppView {
@@ -13,7 +14,17 @@ function App() {
   const [currentView, setCurrentView] = useState<AppView>(AppView.MANAGER);
   const [selectedWorkflow, setSelectedWorkflow] = useState<Workflow | null>(null);
 
-  const handleSelectWorkflow = (workflow: Workflow) => {
+  const handleSelectWorkflow = async (workflow: Workflow) => {
+    // List items only carry the summary; load the full config before editing
+    if (!workflow.config) {
+      try {
+        workflow = await workflowApi.getWorkflow(workflow.id);
+      } catch (err) {
+        alert('Failed to load workflow');
+        console.error('Failed to load workflow:', err);
+        return;
+      }
+    }
     setSelectedWorkflow(workflow);
     setCurrentView(AppView.EDITOR);
   };
@@ -101,11 +101,14 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
       
       switch (node.type) {
         case NodeType.START:
-          // Start节点只保留 initialVariables、variableDescriptions 和 label，移除临时字段
+          // Start节点只保留 initialVariables、variableDescriptions、执行预算和 label，移除临时字段
           cleanedConfig = {
             label: cleanedConfig.label,
             initialVariables: cleanedConfig.initialVariables || '{}',
-            variableDescriptions: cleanedConfig.variableDescriptions || '{}'
+            variableDescriptions: cleanedConfig.variableDescriptions || '{}',
+            budgetTokens: cleanedConfig.budgetTokens || undefined,
+            budgetLlmCalls: cleanedConfig.budgetLlmCalls || undefined,
+            budgetSeconds: cleanedConfig.budgetSeconds || undefined
           };
           break;
         case NodeType.AGENT:
@@ -370,6 +373,34 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
             </div>
           </div>
         </div>
+
+        <div>
+          <label className="block text-sm font-medium text-gray-700 mb-2">
+            Execution Budget
+          </label>
+          <div className="grid grid-cols-3 gap-3">
+            {[
+              { key: 'budgetTokens', label: 'Max Tokens' },
+              { key: 'budgetLlmCalls', label: 'Max LLM Calls' },
+              { key: 'budgetSeconds', label: 'Max Seconds' }
+            ].map(({ key, label }) => (
+              <div key={key}>
+                <label className="block text-xs text-gray-600 mb-1">{label}</label>
+                <input
+                  type="number"
+                  min={0}
+                  value={config[key] || ''}
+                  onChange={(e) => setConfig({ ...config, [key]: e.target.value ? Number(e.target.value) : undefined })}
+                  className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-blue-500 text-sm"
+                  placeholder="Unlimited"
+                />
+              </div>
+            ))}
+          </div>
+          <p className="text-xs text-gray-500 mt-1">
+            Checked before each node runs; executions that exceed a limit stop with status BUDGET_EXCEEDED
+          </p>
+        </div>
       </div>
     );
   };
@@ -478,6 +509,31 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
         </div>
         )}
       </div>
+
+      <div>
+        <label className="flex items-center space-x-2 text-sm font-medium text-gray-700">
+          <input
+            type="checkbox"
+            checked={!!config.memoize}
+            onChange={(e) => setConfig({ ...config, memoize: e.target.checked })}
+            className="rounded border-gray-300"
+          />
+          <span>Cache Output</span>
+        </label>
+        <div className="text-xs text-gray-500 mt-1">
+          Reuse the previous reply when the agent, its settings, the prompt and the input are unchanged
+        </div>
+        {config.memoize && (
+          <input
+            type="number"
+            min={1}
+            value={config.memoTtlSeconds || ''}
+            onChange={(e) => setConfig({ ...config, memoTtlSeconds: e.target.value ? Number(e.target.value) : undefined })}
+            className="w-full mt-2 px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-blue-500 text-sm"
+            placeholder="Cache TTL in seconds (default 86400)"
+          />
+        )}
+      </div>
     </div>
   );
   };
@@ -558,11 +614,11 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
             </svg>
           </div>
           <div>
-            <h4 className="text-sm font-medium text-blue-800 mb-2">Jira Integration (Coming Soon)</h4>
+            <h4 className="text-sm font-medium text-blue-800 mb-2">Jira Integration</h4>
             <div className="text-sm text-blue-700 space-y-1">
-              <p>• Create, update, and query Jira issues</p>
-              <p>• Automate project workflows</p>
-              <p>• Integration with Jira API</p>
+              <p>• Creates an issue from the previous node's output</p>
+              <p>• A JSON array input creates one issue per item in bulk</p>
+              <p>• Outputs the created issue keys and links</p>
             </div>
           </div>
         </div>
@@ -578,7 +634,6 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
           onChange={(e) => setConfig({ ...config, project: e.target.value })}
           className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-blue-500"
           placeholder="e.g., PROJ"
-          disabled
         />
       </div>
 
@@ -590,7 +645,6 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
           value={config.issueType || ''}
           onChange={(e) => setConfig({ ...config, issueType: e.target.value })}
           className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-blue-500"
-          disabled
         >
           <option value="">Select Issue Type</option>
           <option value="story">Story</option>
@@ -610,7 +664,6 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
           onChange={(e) => setConfig({ ...config, assignee: e.target.value })}
           className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-blue-500"
           placeholder="e.g., john.doe@company.com"
-          disabled
         />
       </div>
 
@@ -622,7 +675,6 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
           value={config.status || ''}
           onChange={(e) => setConfig({ ...config, status: e.target.value })}
           className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-blue-500"
-          disabled
         >
           <option value="">Select Status</option>
           <option value="to-do">To Do</option>
@@ -637,8 +689,8 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
             <path fillRule="evenodd" d="M8.257 3.099c.765-1.36 2.722-1.36 3.486 0l5.58 9.92c.75 1.334-.213 2.98-1.742 2.98H4.42c-1.53 0-2.493-1.646-1.743-2.98l5.58-9.92zM11 13a1 1 0 11-2 0 1 1 0 012 0zm-1-8a1 1 0 00-1 1v3a1 1 0 002 0V6a1 1 0 00-1-1z" clipRule="evenodd" />
           </svg>
           <div className="text-sm text-amber-800">
-            <p className="font-medium">Preview Feature</p>
-            <p className="text-xs mt-1">This node is for demonstration purposes. Jira integration will be available in a future release.</p>
+            <p className="font-medium">Server Connection</p>
+            <p className="text-xs mt-1">The Jira URL and API token are configured on the server (workflow.connector.jira).</p>
           </div>
         </div>
       </div>
@@ -655,16 +707,30 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
             </svg>
           </div>
           <div>
-            <h4 className="text-sm font-medium text-indigo-800 mb-2">Confluence Integration (Coming Soon)</h4>
+            <h4 className="text-sm font-medium text-indigo-800 mb-2">Confluence Integration</h4>
             <div className="text-sm text-indigo-700 space-y-1">
-              <p>• Create and update Confluence pages</p>
-              <p>• Search and retrieve knowledge base content</p>
-              <p>• Integration with Confluence API</p>
+              <p>• Read a page's content into the workflow</p>
+              <p>• Create or update a page from the previous node's output</p>
+              <p>• Unchanged pages are served from the server-side cache</p>
             </div>
           </div>
         </div>
       </div>
 
+      <div>
+        <label className="block text-sm font-medium text-gray-700 mb-1">
+          Operation
+        </label>
+        <select
+          value={config.operation || 'read'}
+          onChange={(e) => setConfig({ ...config, operation: e.target.value })}
+          className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-indigo-500"
+        >
+          <option value="read">Read page</option>
+          <option value="write">Create or update page</option>
+        </select>
+      </div>
+
       <div>
         <label className="block text-sm font-medium text-gray-700 mb-1">
           Space Key
@@ -675,7 +741,6 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
           onChange={(e) => setConfig({ ...config, spaceKey: e.target.value })}
           className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-indigo-500"
           placeholder="e.g., TEAM"
-          disabled
         />
       </div>
 
@@ -689,7 +754,6 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
           onChange={(e) => setConfig({ ...config, pageTitle: e.target.value })}
           className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-indigo-500"
           placeholder="e.g., Project Documentation"
-          disabled
         />
       </div>
 
@@ -703,7 +767,6 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
           onChange={(e) => setConfig({ ...config, pageUrl: e.target.value })}
           className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-indigo-500"
           placeholder="https://company.atlassian.net/wiki/spaces/TEAM/pages/..."
-          disabled
         />
       </div>
 
@@ -716,8 +779,7 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
           onChange={(e) => setConfig({ ...config, content: e.target.value })}
           className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-indigo-500"
           rows={4}
-          placeholder="Page content template..."
-          disabled
+          placeholder="Page content, can use {{variable_name}} (write only; defaults to the previous node's output)"
         />
       </div>
 
@@ -727,14 +789,117 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
             <path fillRule="evenodd" d="M8.257 3.099c.765-1.36 2.722-1.36 3.486 0l5.58 9.92c.75 1.334-.213 2.98-1.742 2.98H4.42c-1.53 0-2.493-1.646-1.743-2.98l5.58-9.92zM11 13a1 1 0 11-2 0 1 1 0 012 0zm-1-8a1 1 0 00-1 1v3a1 1 0 002 0V6a1 1 0 00-1-1z" clipRule="evenodd" />
           </svg>
           <div className="text-sm text-amber-800">
-            <p className="font-medium">Preview Feature</p>
-            <p className="text-xs mt-1">This node is for demonstration purposes. Confluence integration will be available in a future release.</p>
+            <p className="font-medium">Server Connection</p>
+            <p className="text-xs mt-1">The Confluence URL and API token are configured on the server (workflow.connector.confluence).</p>
           </div>
         </div>
       </div>
     </div>
   );
 
+  const renderWorkflowIdField = (ring: string) => (
+    <div>
+      <label className="block text-sm font-medium text-gray-700 mb-1">
+        Workflow ID
+      </label>
+      <input
+        type="number"
+        min={1}
+        value={config.workflowId || ''}
+        onChange={(e) => setConfig({ ...config, workflowId: e.target.value })}
+        className={`w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 ${ring}`}
+        placeholder="ID of the saved workflow to invoke"
+      />
+    </div>
+  );
+
+  const renderMapNodeConfig = () => (
+    <div className="space-y-4">
+      <div className="bg-teal-50 p-4 rounded-md border border-teal-200">
+        <h4 className="text-sm font-medium text-teal-800 mb-2">Map Node</h4>
+        <div className="text-sm text-teal-700 space-y-1">
+          <p>• Runs the selected workflow once per list element</p>
+          <p>• The list is a JSON array, or one element per line</p>
+          <p>• Outputs a JSON array of results in list order</p>
+        </div>
+      </div>
+
+      <div>
+        <label className="block text-sm font-medium text-gray-700 mb-1">
+          Items
+        </label>
+        <textarea
+          value={config.items || ''}
+          onChange={(e) => setConfig({ ...config, items: e.target.value })}
+          className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-teal-500 font-mono text-sm"
+          rows={3}
+          placeholder="e.g., {{questions}}"
+        />
+      </div>
+
+      {renderWorkflowIdField('focus:ring-teal-500')}
+
+      <div className="grid grid-cols-2 gap-4">
+        <div>
+          <label className="block text-sm font-medium text-gray-700 mb-1">
+            Item Variable
+          </label>
+          <input
+            type="text"
+            value={config.itemVariable || ''}
+            onChange={(e) => setConfig({ ...config, itemVariable: e.target.value })}
+            className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-teal-500"
+            placeholder="item"
+          />
+          <p className="text-xs text-gray-500 mt-1">
+            Also sets {'{{'}{config.itemVariable || 'item'}Index{'}}'}
+          </p>
+        </div>
+        <div>
+          <label className="block text-sm font-medium text-gray-700 mb-1">
+            Concurrency
+          </label>
+          <input
+            type="number"
+            min={1}
+            value={config.concurrency || ''}
+            onChange={(e) => setConfig({ ...config, concurrency: e.target.value ? Number(e.target.value) : undefined })}
+            className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-teal-500"
+            placeholder="Engine default"
+          />
+        </div>
+      </div>
+
+      <div>
+        <label className="block text-sm font-medium text-gray-700 mb-1">
+          On Item Failure
+        </label>
+        <select
+          value={config.onError || 'fail'}
+          onChange={(e) => setConfig({ ...config, onError: e.target.value })}
+          className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-teal-500"
+        >
+          <option value="fail">Fail the map node</option>
+          <option value="continue">Continue (failed items output null)</option>
+        </select>
+      </div>
+    </div>
+  );
+
+  const renderSubworkflowNodeConfig = () => (
+    <div className="space-y-4">
+      <div className="bg-cyan-50 p-4 rounded-md border border-cyan-200">
+        <h4 className="text-sm font-medium text-cyan-800 mb-2">Sub-workflow Node</h4>
+        <div className="text-sm text-cyan-700 space-y-1">
+          <p>• Runs another saved workflow with the current variables</p>
+          <p>• Outputs the sub-workflow's final result</p>
+        </div>
+      </div>
+
+      {renderWorkflowIdField('focus:ring-cyan-500')}
+    </div>
+  );
+
   const renderNodeConfig = () => {
     if (!node) return null;
 
@@ -747,6 +912,10 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
         return renderJiraNodeConfig();
       case NodeType.CONFLUENCE:
         return renderConfluenceNodeConfig();
+      case NodeType.MAP:
+        return renderMapNodeConfig();
+      case NodeType.SUBWORKFLOW:
+        return renderSubworkflowNodeConfig();
       case NodeType.IF:
         return renderIfNodeConfig();
       case NodeType.END:
@@ -771,6 +940,10 @@ const NodeConfigPanel: React.FC<NodeConfigPanelProps> = ({
         return 'Jira Node';
       case NodeType.CONFLUENCE:
         return 'Confluence Node';
+      case NodeType.MAP:
+        return 'Map Node';
+      case NodeType.SUBWORKFLOW:
+        return 'Sub-workflow Node';
       case NodeType.IF:
         return 'Condition Node';
       case NodeType.END:
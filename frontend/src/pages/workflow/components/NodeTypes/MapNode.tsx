@@ -0,0 +1,68 @@
+import React from 'react';
+import { Handle, Position } from 'reactflow';
+
+interface MapNodeProps {
+  data: {
+    label: string;
+    config: any;
+  };
+  selected?: boolean;
+  id: string;
+}
+
+const MapNode: React.FC<MapNodeProps> = ({ data, selected, id }) => {
+  const handleConfigClick = (e: React.MouseEvent) => {
+    e.stopPropagation();
+    const event = new CustomEvent('nodeConfig', { detail: { nodeId: id } });
+    window.dispatchEvent(event);
+  };
+
+  return (
+    <div className={`px-4 py-2 shadow-md rounded-md bg-teal-50 border-2 ${
+      selected ? 'border-teal-600' : 'border-teal-300'
+    }`}>
+      <Handle
+        type="target"
+        position={Position.Top}
+        className="w-3 h-3 bg-teal-500"
+      />
+      
+      <div className="flex items-center justify-between">
+        <div className="ml-2">
+          <div className="text-lg font-bold text-teal-800">{data.label}</div>
+          <div className="text-sm text-teal-600">Map over List</div>
+          {data.config?.workflowId && (
+            <div className="text-xs text-teal-500">
+              Workflow #{data.config.workflowId} · {data.config.concurrency || 'default'} parallel
+            </div>
+          )}
+        </div>
+        <div className="flex items-center space-x-2">
+          <div className="w-6 h-6 bg-teal-600 rounded flex items-center justify-center">
+            <svg className="w-4 h-4 text-white" fill="none" stroke="currentColor" viewBox="0 0 24 24">
+              <path strokeLinecap="round" strokeLinejoin="round" strokeWidth={2} d="M4 6h16M4 12h16M4 18h16" />
+            </svg>
+          </div>
+          <button
+            onClick={handleConfigClick}
+            className="ml-2 p-1 text-teal-600 hover:text-teal-800 hover:bg-teal-200 rounded transition-colors"
+            title="Configure Map"
+          >
+            <svg className="w-4 h-4" fill="none" stroke="currentColor" viewBox="0 -1 24 24">
+              <path strokeLinecap="round" strokeLinejoin="round" strokeWidth={2} d="M10.325 4.317c.426-1.756 2.924-1.756 3.35 0a1.724 1.724 0 002.573 1.066c1.543-.94 3.31.826 2.37 2.37a1.724 1.724 0 001.065 2.572c1.756.426 1.756 2.924 0 3.35a1.724 1.724 0 00-1.066 2.573c.94 1.543-.826 3.31-2.37 2.37a1.724 1.724 0 00-2.572 1.065c-.426 1.756-2.924 1.756-3.35 0a1.724 1.724 0 00-2.573-1.066c-1.543.94-3.31-.826-2.37-2.37a1.724 1.724 0 00-1.065-2.572c-1.756-.426-1.756-2.924 0-3.35a1.724 1.724 0 001.066-2.573c-.94-1.543.826-3.31 2.37-2.37.996.608 2.296.07 2.572-1.065z" />
+              <path strokeLinecap="round" strokeLinejoin="round" strokeWidth={2} d="M15 12a3 3 0 11-6 0 3 3 0 016 0z" />
+            </svg>
+          </button>
+        </div>
+      </div>
+      
+      <Handle
+        type="source"
+        position={Position.Bottom}
+        className="w-3 h-3 bg-teal-500"
+      />
+    </div>
+  );
+};
+
+export default MapNode;
@@ -22,6 +22,8 @@ import IfNode from './NodeTypes/IfNode';
 import EndNode from './NodeTypes/EndNode';
 import JiraNode from './NodeTypes/JiraNode';
 import ConfluenceNode from './NodeTypes/ConfluenceNode';
+import MapNode from './NodeTypes/MapNode';
+import SubworkflowNode from './NodeTypes/SubworkflowNode';
 import NodeConfigPanel from './NodeConfigPanel/NodeConfigPanel';
 import VariablePanel from './VariablePanel/VariablePanel';
 import ExecutionResultModal from './ExecutionResultModal/ExecutionResultModal';
@@ -36,6 +38,8 @@ const nodeTypes: NodeTypes = {
   end: EndNode,
   jira: JiraNode,
   confluence: ConfluenceNode,
+  map: MapNode,
+  subworkflow: SubworkflowNode,
 };
 
 interface WorkflowEditorProps {
@@ -140,6 +144,10 @@ const WorkflowEditor: React.FC<WorkflowEditorProps> = ({ workflow, onSave }) =>
         return 'Jira';
       case NodeType.CONFLUENCE:
         return 'Confluence';
+      case NodeType.MAP:
+        return 'Map';
+      case NodeType.SUBWORKFLOW:
+        return 'Sub-workflow';
       default:
         return 'Unknown Node';
     }
@@ -171,11 +179,22 @@ const WorkflowEditor: React.FC<WorkflowEditorProps> = ({ workflow, onSave }) =>
         };
       case NodeType.CONFLUENCE:
         return { 
+          operation: 'read',
           pageTitle: '',
           pageUrl: '',
           spaceKey: '',
           content: ''
         };
+      case NodeType.MAP:
+        return {
+          items: '',
+          workflowId: '',
+          concurrency: 4,
+          onError: 'fail',
+          itemVariable: 'item'
+        };
+      case NodeType.SUBWORKFLOW:
+        return { workflowId: '' };
       default:
         return {};
     }
@@ -363,6 +382,24 @@ const WorkflowEditor: React.FC<WorkflowEditorProps> = ({ workflow, onSave }) =>
             </svg>
             Confluence
           </button>
+          <button
+            onClick={() => addNode(NodeType.MAP)}
+            className="inline-flex items-center px-3 py-2 text-sm font-medium text-teal-800 bg-teal-100 border border-teal-200 rounded-lg hover:bg-teal-200 hover:shadow-md hover:scale-105 transition-all duration-200 cursor-pointer"
+          >
+            <svg className="w-4 h-4 mr-2" fill="none" stroke="currentColor" viewBox="0 0 24 24">
+              <path strokeLinecap="round" strokeLinejoin="round" strokeWidth={2} d="M4 6h16M4 12h16M4 18h16" />
+            </svg>
+            Map
+          </button>
+          <button
+            onClick={() => addNode(NodeType.SUBWORKFLOW)}
+            className="inline-flex items-center px-3 py-2 text-sm font-medium text-cyan-800 bg-cyan-100 border border-cyan-200 rounded-lg hover:bg-cyan-200 hover:shadow-md hover:scale-105 transition-all duration-200 cursor-pointer"
+          >
+            <svg className="w-4 h-4 mr-2" fill="none" stroke="currentColor" viewBox="0 0 24 24">
+              <path strokeLinecap="round" strokeLinejoin="round" strokeWidth={2} d="M4 5a1 1 0 011-1h14a1 1 0 011 1v4a1 1 0 01-1 1H5a1 1 0 01-1-1V5zm4 10a1 1 0 011-1h10a1 1 0 011 1v4a1 1 0 01-1 1H9a1 1 0 01-1-1v-4zM6 10v6h2" />
+            </svg>
+            Sub-workflow
+          </button>
           <button
             onClick={() => addNode(NodeType.IF)}
             className="inline-flex items-center px-3 py-2 text-sm font-medium text-yellow-800 bg-yellow-100 border border-yellow-200 rounded-lg hover:bg-yellow-200 hover:shadow-md hover:scale-105 transition-all duration-200 cursor-pointer"
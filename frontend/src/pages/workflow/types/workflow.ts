@@ -12,7 +12,9 @@ export enum NodeType {
   IF = 'if',
   END = 'end',
   JIRA = 'jira',
-  CONFLUENCE = 'confluence'
+  CONFLUENCE = 'confluence',
+  MAP = 'map',
+  SUBWORKFLOW = 'subworkflow'
 }
 
 // Variable type enum